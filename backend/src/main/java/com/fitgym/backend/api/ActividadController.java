@@ -1,25 +1,74 @@
 package com.fitgym.backend.api;
 
+import java.time.LocalDate;
 import java.util.List;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import com.fitgym.backend.api.dto.ActividadCatalogoResponse;
 import com.fitgym.backend.api.dto.ActividadResponse;
 import com.fitgym.backend.service.ActividadService;
+import com.fitgym.backend.service.CatalogoRevision;
 
 @RestController
 @RequestMapping("/api/actividades")
 public class ActividadController {
     private final ActividadService actividadService;
+    private final CatalogoRevision catalogoRevision;
 
-    public ActividadController(ActividadService actividadService){
+    // Cacheable por navegador y proxy, pero siempre revalidando (las plazas cambian con cada reserva)
+    private static final CacheControl CACHE_CATALOGO = CacheControl.noCache().cachePublic();
+
+    public ActividadController(ActividadService actividadService, CatalogoRevision catalogoRevision){
         this.actividadService = actividadService;
+        this.catalogoRevision = catalogoRevision;
     }
 
     @GetMapping("/servicios")
-    public List<ActividadResponse> obtenerActividades() {
-        return actividadService.recuperarTodasActividades();
+    public ResponseEntity<List<ActividadResponse>> obtenerActividades(WebRequest request) {
+        String etag = catalogoRevision.etagActividades();
+        if (request.checkNotModified(etag, catalogoRevision.modificacionActividades().toEpochMilli())) {
+            // 304 ya preparado por checkNotModified, sin tocar la BD
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CACHE_CATALOGO)
+                .eTag(etag)
+                .lastModified(catalogoRevision.modificacionActividades())
+                .body(actividadService.recuperarTodasActividades());
+    }
+
+    /**
+     * Catalogo paginado: por defecto desde hoy y durante un mes, 20 actividades por pagina (maximo 100).
+     * Para la pagina siguiente se envia el nextCursor de la respuesta anterior en "cursor".
+     */
+    @GetMapping("/catalogo")
+    public ResponseEntity<ActividadCatalogoResponse> catalogo(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(required = false) Long idTipoActividad,
+            @RequestParam(required = false) Long idSala,
+            @RequestParam(required = false) Long idMonitor,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            WebRequest request
+    ) {
+        // Sin "desde" la pagina depende del dia actual, asi que no se puede revalidar con la revision
+        String etag = desde != null ? catalogoRevision.etagActividades() : null;
+        if (etag != null && request.checkNotModified(etag)) {
+            return null;
+        }
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok().cacheControl(CACHE_CATALOGO);
+        if (etag != null) {
+            ok.eTag(etag);
+        }
+        return ok.body(actividadService.catalogo(desde, hasta, idTipoActividad, idSala, idMonitor, cursor, size));
     }
 }
@@ -0,0 +1,74 @@
+package com.fitgym.backend.api;
+
+import com.fitgym.backend.api.auth.SocioActual;
+import com.fitgym.backend.api.auth.SocioAutenticado;
+import com.fitgym.backend.service.BusinessException;
+import com.fitgym.backend.service.exportacion.Exportacion;
+import com.fitgym.backend.service.exportacion.ExportacionProperties;
+import com.fitgym.backend.service.exportacion.ExportacionService;
+import com.fitgym.backend.service.exportacion.FormatoExportacion;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Volcados completos de socios, reservas y pagos para contabilidad.
+ *
+ * GET /api/admin/exportaciones/{socios|reservas|pagos}?formato=csv|ndjson. La respuesta se escribe
+ * fila a fila segun sale del cursor, sin construir la lista entera; con Accept-Encoding: gzip se
+ * comprime al vuelo (p. ej. curl --compressed).
+ */
+@RestController
+@RequestMapping("/api/admin/exportaciones")
+public class AdminExportacionController {
+
+  private final ExportacionService exportacionService;
+  private final ExportacionProperties props;
+
+  public AdminExportacionController(ExportacionService exportacionService, ExportacionProperties props) {
+    this.exportacionService = exportacionService;
+    this.props = props;
+  }
+
+  @GetMapping("/{tipo}")
+  public void exportar(
+      @PathVariable String tipo,
+      @RequestParam(defaultValue = "csv") String formato,
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+      @SocioActual(admin = true) SocioAutenticado admin,
+      HttpServletResponse response
+  ) throws IOException {
+    Exportacion exportacion = Arrays.stream(Exportacion.values())
+        .filter(e -> e.nombre().equalsIgnoreCase(tipo))
+        .findFirst()
+        .orElseThrow(() -> new BusinessException("Exportacion desconocida: " + tipo));
+    FormatoExportacion f = Arrays.stream(FormatoExportacion.values())
+        .filter(v -> v.extension().equalsIgnoreCase(formato))
+        .findFirst()
+        .orElseThrow(() -> new BusinessException("Formato de exportacion no soportado: " + formato));
+    boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+
+    response.setContentType(f.contentType() + ";charset=UTF-8");
+    response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+        "attachment; filename=\"" + exportacion.nombre() + "-" + LocalDate.now() + "." + f.extension() + "\"");
+    response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (gzip) {
+      response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+    }
+
+    OutputStream out = response.getOutputStream();
+    if (gzip) {
+      GZIPOutputStream comprimido = new GZIPOutputStream(out, props.bufferBytes());
+      exportacionService.exportar(exportacion, f, comprimido);
+      comprimido.finish();
+    } else {
+      exportacionService.exportar(exportacion, f, out);
+    }
+    out.flush();
+  }
+}
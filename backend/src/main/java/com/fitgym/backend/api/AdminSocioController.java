@@ -1,5 +1,8 @@
 package com.fitgym.backend.api;
 
+import com.fitgym.backend.api.auth.SocioActual;
+import com.fitgym.backend.api.auth.SocioAutenticado;
+import com.fitgym.backend.api.dto.SocioAdminPaginaResponse;
 import com.fitgym.backend.api.dto.SocioAdminResponse;
 import com.fitgym.backend.api.dto.SocioAdminUpdateRequest;
 import com.fitgym.backend.api.dto.SocioEstadoUpdateRequest;
@@ -9,12 +12,6 @@ import com.fitgym.backend.service.SocioService;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import com.fitgym.backend.api.dto.SocioSession;
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpSession;
-import org.springframework.http.HttpStatus;
-import org.springframework.web.server.ResponseStatusException;
-import java.util.List;
 
 
 @RestController
@@ -27,20 +24,26 @@ public class AdminSocioController {
     this.socioService = socioService;
   }
 
-    @GetMapping
-  public ResponseEntity<List<SocioAdminResponse>> listar(HttpServletRequest request) {
-    requireAdmin(request);
-
-    List<SocioAdminResponse> res = socioService.listarTodos().stream()
-        .map(AdminSocioController::toAdminResponse)
-        .toList();
-    return ResponseEntity.ok(res);
+  /**
+   * Directorio paginado: 50 socios por pagina (maximo 200), ordenados por id, con filtros opcionales
+   * por estado, idTarifa y ciudad, y "q" como subcadena del nombre o prefijo del correo.
+   * Para la pagina siguiente se envia el nextCursor de la respuesta anterior en "cursor".
+   */
+  @GetMapping
+  public ResponseEntity<SocioAdminPaginaResponse> listar(
+      @RequestParam(required = false) String estado,
+      @RequestParam(required = false) Long idTarifa,
+      @RequestParam(required = false) String ciudad,
+      @RequestParam(required = false) String q,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer size,
+      @SocioActual(admin = true) SocioAutenticado admin
+  ) {
+    return ResponseEntity.ok(socioService.directorio(estado, idTarifa, ciudad, q, cursor, size));
   }
 
   @GetMapping("/{id}")
-  public ResponseEntity<SocioAdminResponse> detalle(@PathVariable Long id, HttpServletRequest request) {
-    requireAdmin(request);
-
+  public ResponseEntity<SocioAdminResponse> detalle(@PathVariable Long id, @SocioActual(admin = true) SocioAutenticado admin) {
     Socio socio = socioService.obtenerPorId(id);
     return ResponseEntity.ok(toAdminResponse(socio));
   }
@@ -49,10 +52,8 @@ public class AdminSocioController {
   public ResponseEntity<SocioAdminResponse> actualizar(
       @PathVariable Long id,
       @Valid @RequestBody SocioAdminUpdateRequest req,
-      HttpServletRequest request
+      @SocioActual(admin = true) SocioAutenticado admin
   ) {
-    requireAdmin(request);
-
     Socio socio = socioService.actualizarComoAdmin(id, req);
     return ResponseEntity.ok(toAdminResponse(socio));
   }
@@ -61,10 +62,8 @@ public class AdminSocioController {
   public ResponseEntity<SocioAdminResponse> cambiarEstado(
       @PathVariable Long id,
       @Valid @RequestBody SocioEstadoUpdateRequest req,
-      HttpServletRequest request
+      @SocioActual(admin = true) SocioAutenticado admin
   ) {
-    requireAdmin(request);
-
     SocioEstado estado = SocioEstado.valueOf(req.estado.trim().toUpperCase());
     Socio socio = socioService.cambiarEstado(id, estado);
     return ResponseEntity.ok(toAdminResponse(socio));
@@ -88,22 +87,4 @@ public class AdminSocioController {
         s.getCodigoPostal()
     );
   }
-
-  private static final String SESSION_SOCIO_KEY = "socioLogin";
-private static final String ADMIN_EMAIL = "admin@gmail.com";
-
-private void requireAdmin(HttpServletRequest request) {
-  HttpSession session = request.getSession(false);
-  if (session == null) {
-    throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "No hay sesion activa.");
-  }
-  Object value = session.getAttribute(SESSION_SOCIO_KEY);
-  if (!(value instanceof SocioSession socioSession)) {
-    throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "No hay sesion activa.");
-  }
-  if (!ADMIN_EMAIL.equalsIgnoreCase(socioSession.toLoginResponse().correoElectronico())) {
-    throw new ResponseStatusException(HttpStatus.FORBIDDEN, "No autorizado.");
-  }
-}
-
 }
@@ -1,19 +1,19 @@
 package com.fitgym.backend.api;
 
+import com.fitgym.backend.api.auth.AutenticacionWeb;
+import com.fitgym.backend.api.auth.SocioActual;
+import com.fitgym.backend.api.auth.SocioAutenticado;
 import com.fitgym.backend.api.dto.MonederoRecargaRequest;
 import com.fitgym.backend.api.dto.MonederoRecargaResponse;
 import com.fitgym.backend.api.dto.MonederoVerifyResponse;
 import com.fitgym.backend.api.dto.SocioLoginResponse;
-import com.fitgym.backend.api.dto.SocioSession;
 import com.fitgym.backend.domain.PagoMonedero;
 import com.fitgym.backend.domain.PagoRegistroEstado;
 import com.fitgym.backend.domain.Socio;
-import com.fitgym.backend.service.InvalidCredentialsException;
 import com.fitgym.backend.service.PagoInitResult;
 import com.fitgym.backend.service.PagoMonederoService;
 import com.fitgym.backend.service.SocioService;
 import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpSession;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -24,45 +24,38 @@ public class MonederoController {
 
     private final PagoMonederoService pagoMonederoService;
     private final SocioService socioService;
-    private static final String SESSION_SOCIO_KEY = "socioLogin";
+    private final AutenticacionWeb autenticacion;
 
-    public MonederoController(PagoMonederoService pagoMonederoService, SocioService socioService) {
+    public MonederoController(
+            PagoMonederoService pagoMonederoService,
+            SocioService socioService,
+            AutenticacionWeb autenticacion
+    ) {
         this.pagoMonederoService = pagoMonederoService;
         this.socioService = socioService;
-    }
-
-    private SocioSession requireSession(HttpServletRequest request) {
-        HttpSession session = request.getSession(false);
-        if (session == null) throw new InvalidCredentialsException("No hay sesion activa.");
-
-        Object value = session.getAttribute(SESSION_SOCIO_KEY);
-        if (!(value instanceof SocioSession socioSession)) throw new InvalidCredentialsException("No hay sesion activa.");
-
-        return socioSession;
+        this.autenticacion = autenticacion;
     }
 
     @PostMapping("/recarga")
     public ResponseEntity<MonederoRecargaResponse> recargar(
             @Valid @RequestBody MonederoRecargaRequest req,
-            HttpServletRequest request
+            @SocioActual SocioAutenticado socio
     ) {
-        SocioSession socioSession = requireSession(request);
-
-        PagoInitResult result = pagoMonederoService.iniciarRecarga(socioSession.getId(), req.importe());
+        PagoInitResult result = pagoMonederoService.iniciarRecarga(socio.id(), req.importe());
         return ResponseEntity.ok(new MonederoRecargaResponse(result.paymentUrl(), result.token()));
     }
 
     @PostMapping("/verify/{token}")
     public ResponseEntity<MonederoVerifyResponse> verify(
             @PathVariable String token,
+            @SocioActual SocioAutenticado socioActual,
             HttpServletRequest request
     ) {
-        SocioSession socioSession = requireSession(request);
-
-        PagoMonedero pago = pagoMonederoService.verificarRecarga(token);
+        PagoMonedero pago = pagoMonederoService.consultarRecarga(token);
 
-        if (pago.getEstado() == PagoRegistroEstado.COMPLETED) {
-            Socio socio = socioService.obtenerPorId(socioSession.getId());
+        // En modo token el saldo no se guarda en sesion: no hay nada que refrescar
+        if (pago.getEstado() == PagoRegistroEstado.COMPLETED && !autenticacion.modoToken()) {
+            Socio socio = socioService.obtenerPorId(socioActual.id());
 
             SocioLoginResponse body = new SocioLoginResponse(
                     socio.getId(),
@@ -78,10 +71,7 @@ public class MonederoController {
                     socio.getCodigoPostal()
             );
 
-            HttpSession session = request.getSession(false);
-            if (session != null) {
-                session.setAttribute(SESSION_SOCIO_KEY, SocioSession.fromLoginResponse(body));
-            }
+            autenticacion.actualizarDatos(request, body);
         }
 
         return ResponseEntity.ok(new MonederoVerifyResponse(pago.getEstado().name(), pago.getFailureReason()));
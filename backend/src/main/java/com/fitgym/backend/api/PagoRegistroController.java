@@ -32,7 +32,7 @@ public class PagoRegistroController {
 
   @PostMapping("/verify/{token}")
   public ResponseEntity<PagoVerifyResponse> verify(@PathVariable @NotBlank String token) {
-    PagoRegistro pago = pagoRegistroService.verificarPago(token);
+    PagoRegistro pago = pagoRegistroService.consultarPago(token);
     return ResponseEntity.ok(new PagoVerifyResponse(
         pago.getEstado().name(),
         pago.getFailureReason()
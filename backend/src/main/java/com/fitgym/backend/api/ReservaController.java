@@ -1,12 +1,11 @@
 package com.fitgym.backend.api;
 
+import com.fitgym.backend.api.auth.SocioActual;
+import com.fitgym.backend.api.auth.SocioAutenticado;
 import com.fitgym.backend.api.dto.ReservaItemResponse;
+import com.fitgym.backend.api.dto.ReservaPaginaResponse;
 import com.fitgym.backend.api.dto.ReservaResponse;
-import com.fitgym.backend.api.dto.SocioSession;
-import com.fitgym.backend.service.InvalidCredentialsException;
 import com.fitgym.backend.service.ReservaService;
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpSession;
 import java.util.List;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -17,24 +16,11 @@ import com.fitgym.backend.api.dto.ReservaCancelResponse;
 public class ReservaController {
 
     private final ReservaService reservaService;
-    private static final String SESSION_SOCIO_KEY = "socioLogin";
 
     public ReservaController(ReservaService reservaService) {
         this.reservaService = reservaService;
     }
 
-    private SocioSession requireSession(HttpServletRequest request) {
-        HttpSession session = request.getSession(false);
-        if (session == null) throw new InvalidCredentialsException("No hay sesion activa.");
-
-        Object value = session.getAttribute(SESSION_SOCIO_KEY);
-        if (!(value instanceof SocioSession socioSession)) {
-            throw new InvalidCredentialsException("No hay sesion activa.");
-        }
-
-        return socioSession;
-    }
-
     @PostMapping
     public ResponseEntity<Boolean> crearReserva(@RequestBody ReservaResponse request) {
 
@@ -46,18 +32,29 @@ public class ReservaController {
     @GetMapping("/me")
     public ResponseEntity<List<ReservaItemResponse>> misReservas(
             @RequestParam(defaultValue = "5") int limit,
-            HttpServletRequest request
+            @SocioActual SocioAutenticado s
+    ) {
+        return ResponseEntity.ok(reservaService.listarReservasSocioDTO(s.id(), limit));
+    }
+
+    /**
+     * Historial completo paginado: 20 reservas por pagina (maximo 100), de la mas reciente a la mas antigua.
+     * Para la pagina siguiente se envia el nextCursor de la respuesta anterior en "cursor".
+     */
+    @GetMapping("/me/historial")
+    public ResponseEntity<ReservaPaginaResponse> historialReservas(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @SocioActual SocioAutenticado s
     ) {
-        SocioSession s = requireSession(request);
-        return ResponseEntity.ok(reservaService.listarReservasSocioDTO(s.getId(), limit));
+        return ResponseEntity.ok(reservaService.historialReservasSocio(s.id(), cursor, size));
     }
 
     @PostMapping("/me/{idActividad}/cancel")
     public ResponseEntity<ReservaCancelResponse> cancelarReserva(
             @PathVariable Long idActividad,
-            HttpServletRequest request
+            @SocioActual SocioAutenticado s
     ) {
-        SocioSession s = requireSession(request);
-        return ResponseEntity.ok(reservaService.cancelarReserva(s.getId(), idActividad));
+        return ResponseEntity.ok(reservaService.cancelarReserva(s.id(), idActividad));
     }
 }
\ No newline at end of file
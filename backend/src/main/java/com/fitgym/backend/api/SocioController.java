@@ -2,20 +2,20 @@ package com.fitgym.backend.api;
 
 import com.fitgym.backend.api.dto.SocioLoginRequest;
 import com.fitgym.backend.api.dto.SocioLoginResponse;
-import com.fitgym.backend.api.dto.SocioSession;
 import com.fitgym.backend.api.dto.SocioRegistroRequest;
 import com.fitgym.backend.api.dto.SocioResponse;
 import com.fitgym.backend.api.dto.EmailExistsResponse;
 import com.fitgym.backend.api.dto.SocioUpdateRequest;
 import com.fitgym.backend.api.dto.MembresiaResponse;
 import com.fitgym.backend.api.dto.SocioCambiarContrasenaRequest;
-import jakarta.validation.Valid;
+import com.fitgym.backend.api.auth.AutenticacionWeb;
+import com.fitgym.backend.api.auth.SocioActual;
+import com.fitgym.backend.api.auth.SocioAutenticado;
 import com.fitgym.backend.domain.Socio;
-import com.fitgym.backend.service.InvalidCredentialsException;
 import com.fitgym.backend.service.SocioService;
 import jakarta.validation.Valid;
 import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -31,16 +31,18 @@ import java.net.URI;
 public class SocioController {
 
   private final SocioService socioService;
-  private static final String SESSION_SOCIO_KEY = "socioLogin";
+  private final AutenticacionWeb autenticacion;
 
   /**
   * Constructor del controlador de socios.
   * Inyecta el servicio de socios mediante inyección de dependencias.
   *
   * @param socioService servicio que gestiona la lógica de negocio de los socios
+  * @param autenticacion sesion HTTP o token firmado, segun fitgym.auth.modo
   */
-  public SocioController(SocioService socioService) {
+  public SocioController(SocioService socioService, AutenticacionWeb autenticacion) {
     this.socioService = socioService;
+    this.autenticacion = autenticacion;
   }
 
   /**
@@ -119,28 +121,18 @@ public class SocioController {
    * Inicia sesion con correo y contrasena.
    *
    * Si las credenciales son correctas y el socio esta activo, crea una sesion HTTP
-   * y devuelve los datos del socio para la UI.
+   * (o emite el token de sesion en modo token) y devuelve los datos del socio para la UI.
    */
   @PostMapping("/login")
-  public ResponseEntity<SocioLoginResponse> login(@Valid @RequestBody SocioLoginRequest req, HttpServletRequest request) {
+  public ResponseEntity<SocioLoginResponse> login(
+      @Valid @RequestBody SocioLoginRequest req,
+      HttpServletRequest request,
+      HttpServletResponse response
+  ) {
     Socio socio = socioService.autenticar(req.correoElectronico, req.contrasena);
 
-    SocioLoginResponse body = new SocioLoginResponse(
-        socio.getId(),
-        socio.getNombre(),
-        socio.getCorreoElectronico(),
-        socio.getEstado().name(),
-        socio.getTarifa().getId(),
-        socio.getTarifa().getNombre(),
-        socio.getSaldoMonedero(),
-        socio.getTelefono(),
-        socio.getDireccion(),
-        socio.getCiudad(),
-        socio.getCodigoPostal()
-    );
-
-    HttpSession session = request.getSession(true);
-    session.setAttribute(SESSION_SOCIO_KEY, SocioSession.fromLoginResponse(body));
+    SocioLoginResponse body = toLoginResponse(socio);
+    autenticacion.iniciarSesion(request, response, body, socio.getVersionSesion());
 
     return ResponseEntity.ok(body);
   }
@@ -149,31 +141,20 @@ public class SocioController {
    * Devuelve la sesion actual si existe.
    *
    * Si no hay sesion activa, retorna 401 (Unauthorized).
+   * En modo token los datos no viajan en el token y se leen de BD.
    */
   @GetMapping("/me")
-  public ResponseEntity<SocioLoginResponse> me(HttpServletRequest request) {
-    HttpSession session = request.getSession(false);
-    if (session == null) {
-      throw new InvalidCredentialsException("No hay sesion activa.");
-    }
-
-    Object value = session.getAttribute(SESSION_SOCIO_KEY);
-    if (!(value instanceof SocioSession socioSession)) {
-      throw new InvalidCredentialsException("No hay sesion activa.");
-    }
-
-    return ResponseEntity.ok(socioSession.toLoginResponse());
+  public ResponseEntity<SocioLoginResponse> me(@SocioActual SocioAutenticado s, HttpServletRequest request) {
+    return ResponseEntity.ok(autenticacion.datosEnSesion(request)
+        .orElseGet(() -> toLoginResponse(socioService.obtenerPorId(s.id()))));
   }
 
   /**
-   * Cierra sesion e invalida la sesion HTTP.
+   * Cierra sesion: invalida la sesion HTTP o revoca el token actual.
    */
   @PostMapping("/logout")
-  public ResponseEntity<Void> logout(HttpServletRequest request) {
-    HttpSession session = request.getSession(false);
-    if (session != null) {
-      session.invalidate();
-    }
+  public ResponseEntity<Void> logout(HttpServletRequest request, HttpServletResponse response) {
+    autenticacion.cerrarSesion(request, response);
     return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
   }
 
@@ -181,21 +162,12 @@ public class SocioController {
   @PutMapping("/me")
   public ResponseEntity<SocioLoginResponse> updateMe(
           @Valid @RequestBody SocioUpdateRequest req,
+          @SocioActual SocioAutenticado s,
           HttpServletRequest request
   ) {
-      HttpSession session = request.getSession(false);
-      if (session == null) {
-          throw new InvalidCredentialsException("No hay sesion activa.");
-      }
-
-      Object value = session.getAttribute(SESSION_SOCIO_KEY);
-      if (!(value instanceof SocioSession socioSession)) {
-          throw new InvalidCredentialsException("No hay sesion activa.");
-      }
-
       // actualizar bd
       Socio socio = socioService.actualizarDatosPersonales(
-              socioSession.getId(),
+              s.id(),
               req.nombre(),
               req.telefono(),
               req.direccion(),
@@ -203,69 +175,60 @@ public class SocioController {
               req.codigoPostal()
       );
 
-      SocioLoginResponse body = new SocioLoginResponse(
-              socio.getId(),
-              socio.getNombre(),
-              socio.getCorreoElectronico(),
-              socio.getEstado().name(),
-              socio.getTarifa().getId(),
-              socio.getTarifa().getNombre(),
-              socio.getSaldoMonedero(),
-              socio.getTelefono(),
-              socio.getDireccion(),
-              socio.getCiudad(),
-              socio.getCodigoPostal()
-      );
-
-      session.setAttribute(SESSION_SOCIO_KEY, SocioSession.fromLoginResponse(body));
+      SocioLoginResponse body = toLoginResponse(socio);
+      autenticacion.actualizarDatos(request, body);
 
       return ResponseEntity.ok(body);
   }
 
     @GetMapping("/me/membresia")
-    public ResponseEntity<MembresiaResponse> membresia(HttpServletRequest request) {
-        HttpSession session = request.getSession(false);
-        if (session == null) throw new InvalidCredentialsException("No hay sesion activa.");
-
-        Object value = session.getAttribute(SESSION_SOCIO_KEY);
-        if (!(value instanceof SocioSession socioSession)) throw new InvalidCredentialsException("No hay sesion activa.");
-
-        return ResponseEntity.ok(socioService.obtenerMembresia(socioSession.getId()));
+    public ResponseEntity<MembresiaResponse> membresia(@SocioActual SocioAutenticado s) {
+        return ResponseEntity.ok(socioService.obtenerMembresia(s.id()));
     }
 
     @PutMapping("/me/password")
     public ResponseEntity<Void> changePassword(
             @Valid @RequestBody SocioCambiarContrasenaRequest req,
-            HttpServletRequest request
+            @SocioActual SocioAutenticado s,
+            HttpServletRequest request,
+            HttpServletResponse response
     ) {
-        HttpSession session = request.getSession(false);
-        if (session == null) throw new InvalidCredentialsException("No hay sesion activa.");
-
-        Object value = session.getAttribute(SESSION_SOCIO_KEY);
-        if (!(value instanceof SocioSession socioSession)) throw new InvalidCredentialsException("No hay sesion activa.");
-
-        socioService.cambiarContrasena(
-                socioSession.getId(),
+        int versionSesion = socioService.cambiarContrasena(
+                s.id(),
                 req.contrasenaActual(),
                 req.nuevaContrasena()
         );
 
-        // Forzar re-login por seguridad
-        session.invalidate();
+        // Forzar re-login por seguridad (en modo token, en todos los dispositivos)
+        autenticacion.revocarTodas(request, response, s.id(), versionSesion);
         return ResponseEntity.noContent().build();
     }
 
     @DeleteMapping("/me")
-    public ResponseEntity<Void> deleteMe(HttpServletRequest request) {
-        HttpSession session = request.getSession(false);
-        if (session == null) throw new InvalidCredentialsException("No hay sesion activa.");
-
-        Object value = session.getAttribute(SESSION_SOCIO_KEY);
-        if (!(value instanceof SocioSession socioSession)) throw new InvalidCredentialsException("No hay sesion activa.");
-
-        socioService.darseDeBaja(socioSession.getId());
+    public ResponseEntity<Void> deleteMe(
+            @SocioActual SocioAutenticado s,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) {
+        int versionSesion = socioService.darseDeBaja(s.id());
 
-        session.invalidate();
+        autenticacion.revocarTodas(request, response, s.id(), versionSesion);
         return ResponseEntity.noContent().build();
     }
+
+    private static SocioLoginResponse toLoginResponse(Socio socio) {
+        return new SocioLoginResponse(
+                socio.getId(),
+                socio.getNombre(),
+                socio.getCorreoElectronico(),
+                socio.getEstado().name(),
+                socio.getTarifa().getId(),
+                socio.getTarifa().getNombre(),
+                socio.getSaldoMonedero(),
+                socio.getTelefono(),
+                socio.getDireccion(),
+                socio.getCiudad(),
+                socio.getCodigoPostal()
+        );
+    }
 }
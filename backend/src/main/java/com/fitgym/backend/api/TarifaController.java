@@ -1,23 +1,39 @@
 package com.fitgym.backend.api;
 
 import com.fitgym.backend.domain.Tarifa;
-import com.fitgym.backend.repo.TarifaRepository;
+import com.fitgym.backend.service.CatalogoRevision;
+import com.fitgym.backend.service.referencia.DatosReferenciaService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.Duration;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/tarifas")
 public class TarifaController {
 
-  private final TarifaRepository repo;
+  private final DatosReferenciaService datosReferencia;
+  private final CatalogoRevision catalogoRevision;
 
-  public TarifaController(TarifaRepository repo) {
-    this.repo = repo;
+  public TarifaController(DatosReferenciaService datosReferencia, CatalogoRevision catalogoRevision) {
+    this.datosReferencia = datosReferencia;
+    this.catalogoRevision = catalogoRevision;
   }
 
   @GetMapping
-  public List<Tarifa> list() {
-    return repo.findAll();
+  public ResponseEntity<List<Tarifa>> list(WebRequest request) {
+    String etag = catalogoRevision.etagTarifas();
+    if (request.checkNotModified(etag, catalogoRevision.modificacionTarifas().toEpochMilli())) {
+      // 304 ya preparado por checkNotModified, sin tocar la BD
+      return null;
+    }
+    return ResponseEntity.ok()
+        .cacheControl(CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic())
+        .eTag(etag)
+        .lastModified(catalogoRevision.modificacionTarifas())
+        .body(datosReferencia.tarifas());
   }
 }
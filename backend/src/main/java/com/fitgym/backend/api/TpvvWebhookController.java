@@ -0,0 +1,72 @@
+package com.fitgym.backend.api;
+
+import com.fitgym.backend.service.WebhookTpvvService;
+import com.fitgym.backend.service.tpvv.FirmaWebhookTpvv;
+import com.fitgym.backend.service.tpvv.TpvvWebhookProperties;
+import com.fitgym.backend.service.tpvv.dto.TpvvWebhookEvent;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Webhook servidor a servidor por el que TPVV notifica el resultado de los pagos.
+ *
+ * Valida la firma sobre el cuerpo tal cual llega, encola la notificacion y responde 202 sin tocar la BD.
+ * 401 si la firma no es valida, 400 si el cuerpo no es una notificacion, 404 con el webhook desactivado
+ * y 503 con la cola llena (TPVV reintenta).
+ */
+@RestController
+@RequestMapping("/api/tpvv")
+public class TpvvWebhookController {
+
+  static final String CABECERA_FIRMA = "X-TPVV-Signature";
+  static final String CABECERA_TIMESTAMP = "X-TPVV-Timestamp";
+
+  private final WebhookTpvvService webhookService;
+  private final FirmaWebhookTpvv firma;
+  private final TpvvWebhookProperties props;
+  private final JsonMapper jsonMapper;
+
+  public TpvvWebhookController(
+      WebhookTpvvService webhookService,
+      FirmaWebhookTpvv firma,
+      TpvvWebhookProperties props,
+      JsonMapper jsonMapper
+  ) {
+    this.webhookService = webhookService;
+    this.firma = firma;
+    this.props = props;
+    this.jsonMapper = jsonMapper;
+  }
+
+  @PostMapping(value = "/webhook", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<Void> notificar(
+      @RequestHeader(name = CABECERA_TIMESTAMP, required = false) String timestamp,
+      @RequestHeader(name = CABECERA_FIRMA, required = false) String firmaRecibida,
+      @RequestBody byte[] cuerpo
+  ) {
+    if (!props.activo()) {
+      return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+    }
+    if (!firma.valida(timestamp, cuerpo, firmaRecibida)) {
+      return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+    }
+
+    TpvvWebhookEvent evento;
+    try {
+      evento = jsonMapper.readValue(cuerpo, TpvvWebhookEvent.class);
+    } catch (JacksonException ex) {
+      return ResponseEntity.badRequest().build();
+    }
+    if (evento == null || evento.token() == null || evento.token().isBlank()
+        || evento.status() == null || evento.status().isBlank()) {
+      return ResponseEntity.badRequest().build();
+    }
+
+    webhookService.encolar(evento);
+    return ResponseEntity.accepted().build();
+  }
+}
@@ -0,0 +1,225 @@
+package com.fitgym.backend.api.auth;
+
+import com.fitgym.backend.api.dto.SocioLoginResponse;
+import com.fitgym.backend.api.dto.SocioSession;
+import com.fitgym.backend.service.InvalidCredentialsException;
+import com.fitgym.backend.service.auth.AuthProperties;
+import com.fitgym.backend.service.auth.ClaimsSesion;
+import com.fitgym.backend.service.auth.RevocacionesSesion;
+import com.fitgym.backend.service.auth.TokenSesionService;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import java.time.Duration;
+import java.util.Optional;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Punto unico de autenticacion de los controladores.
+ *
+ * Con fitgym.auth.modo=sesion guarda un {@link SocioSession} en la HttpSession (comportamiento original).
+ * Con fitgym.auth.modo=token no hay estado en el servidor: el login deja un token firmado en una cookie
+ * HttpOnly y {@link TokenSesionFilter} lo valida en cada peticion, en cualquier nodo.
+ */
+@Component
+public class AutenticacionWeb {
+
+  public static final String SESSION_SOCIO_KEY = "socioLogin";
+  public static final String COOKIE_TOKEN = "FITGYM_SESION";
+
+  static final String ATRIBUTO_SOCIO = AutenticacionWeb.class.getName() + ".socio";
+  static final String ATRIBUTO_CLAIMS = AutenticacionWeb.class.getName() + ".claims";
+  static final String ATRIBUTO_CLAIMS_ANTERIORES = AutenticacionWeb.class.getName() + ".claimsAnteriores";
+
+  private static final String BEARER = "Bearer ";
+
+  private final AuthProperties props;
+  private final TokenSesionService tokens;
+  private final RevocacionesSesion revocaciones;
+
+  public AutenticacionWeb(AuthProperties props, TokenSesionService tokens, RevocacionesSesion revocaciones) {
+    this.props = props;
+    this.tokens = tokens;
+    this.revocaciones = revocaciones;
+  }
+
+  public boolean modoToken() {
+    return props.tokens();
+  }
+
+  public void iniciarSesion(
+      HttpServletRequest request, HttpServletResponse response, SocioLoginResponse socio, int versionSesion) {
+    if (!props.tokens()) {
+      request.getSession(true).setAttribute(SESSION_SOCIO_KEY, SocioSession.fromLoginResponse(socio));
+      return;
+    }
+    SocioAutenticado principal = SocioAutenticado.deCorreo(socio.id(), socio.correoElectronico());
+    ClaimsSesion claims = tokens.emitir(principal.id(), principal.admin(), versionSesion);
+    escribirCookie(response, tokens.codificar(claims), Duration.ofSeconds(tokens.ttlSegundos()));
+    guardarEnPeticion(request, claims);
+  }
+
+  /**
+   * Socio de la peticion, o null si no hay sesion. Es el camino caliente de cada peticion autenticada:
+   * solo lee un atributo ya resuelto (de la sesion o del filtro), sin crear objetos.
+   */
+  public SocioAutenticado actual(HttpServletRequest request) {
+    if (props.tokens()) {
+      return request.getAttribute(ATRIBUTO_SOCIO) instanceof SocioAutenticado socio ? socio : null;
+    }
+    HttpSession session = request.getSession(false);
+    if (session != null && session.getAttribute(SESSION_SOCIO_KEY) instanceof SocioSession socioSession) {
+      return socioSession.getPrincipal();
+    }
+    return null;
+  }
+
+  /** Socio de la peticion o 401 (InvalidCredentialsException). */
+  public SocioAutenticado requerirSocio(HttpServletRequest request) {
+    SocioAutenticado socio = actual(request);
+    if (socio == null) {
+      throw new InvalidCredentialsException("No hay sesion activa.");
+    }
+    return socio;
+  }
+
+  /** Socio administrador de la peticion; 401 sin sesion y 403 si no es admin. */
+  public SocioAutenticado requerirAdmin(HttpServletRequest request) {
+    SocioAutenticado socio = actual(request);
+    if (socio == null) {
+      throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "No hay sesion activa.");
+    }
+    if (!socio.admin()) {
+      throw new ResponseStatusException(HttpStatus.FORBIDDEN, "No autorizado.");
+    }
+    return socio;
+  }
+
+  /** Datos del socio guardados en la HttpSession; en modo token no se guardan (vacio). */
+  public Optional<SocioLoginResponse> datosEnSesion(HttpServletRequest request) {
+    if (props.tokens()) {
+      return Optional.empty();
+    }
+    HttpSession session = request.getSession(false);
+    if (session != null && session.getAttribute(SESSION_SOCIO_KEY) instanceof SocioSession socioSession) {
+      return Optional.of(socioSession.toLoginResponse());
+    }
+    return Optional.empty();
+  }
+
+  /** Refresca los datos del socio guardados en la HttpSession (sin efecto en modo token). */
+  public void actualizarDatos(HttpServletRequest request, SocioLoginResponse socio) {
+    if (props.tokens()) {
+      return;
+    }
+    HttpSession session = request.getSession(false);
+    if (session != null) {
+      session.setAttribute(SESSION_SOCIO_KEY, SocioSession.fromLoginResponse(socio));
+    }
+  }
+
+  /** Logout: invalida la sesion o revoca el token actual (y el anterior si se acaba de renovar). */
+  public void cerrarSesion(HttpServletRequest request, HttpServletResponse response) {
+    if (!props.tokens()) {
+      invalidarSesion(request);
+      return;
+    }
+    if (request.getAttribute(ATRIBUTO_CLAIMS) instanceof ClaimsSesion claims) {
+      revocaciones.revocarToken(claims);
+    }
+    if (request.getAttribute(ATRIBUTO_CLAIMS_ANTERIORES) instanceof ClaimsSesion anteriores) {
+      revocaciones.revocarToken(anteriores);
+    }
+    limpiarPeticion(request);
+    escribirCookie(response, "", Duration.ZERO);
+  }
+
+  /**
+   * Cierra todas las sesiones del socio tras cambiar la contrasena o darse de baja.
+   * En modo token revoca cualquier token con version de sesion anterior a la nueva.
+   */
+  public void revocarTodas(HttpServletRequest request, HttpServletResponse response, Long idSocio, int nuevaVersion) {
+    if (!props.tokens()) {
+      invalidarSesion(request);
+      return;
+    }
+    revocaciones.revocarSocio(idSocio, nuevaVersion);
+    limpiarPeticion(request);
+    escribirCookie(response, "", Duration.ZERO);
+  }
+
+  /**
+   * Valida el token de la cookie (o cabecera Authorization: Bearer) y deja sus claims en la peticion.
+   * Si ha pasado la mitad de su vida y venia en cookie, emite uno nuevo.
+   */
+  void cargarToken(HttpServletRequest request, HttpServletResponse response) {
+    String cookie = leerCookie(request);
+    String token = cookie != null ? cookie : leerBearer(request);
+    if (token == null) {
+      return;
+    }
+    Optional<ClaimsSesion> verificado = tokens.verificar(token);
+    if (verificado.isEmpty() || revocaciones.revocada(verificado.get())) {
+      return;
+    }
+    ClaimsSesion claims = verificado.get();
+    if (cookie != null && tokens.debeRenovarse(claims)) {
+      ClaimsSesion nuevas = tokens.renovar(claims);
+      escribirCookie(response, tokens.codificar(nuevas), Duration.ofSeconds(tokens.ttlSegundos()));
+      request.setAttribute(ATRIBUTO_CLAIMS_ANTERIORES, claims);
+      claims = nuevas;
+    }
+    guardarEnPeticion(request, claims);
+  }
+
+  private static void guardarEnPeticion(HttpServletRequest request, ClaimsSesion claims) {
+    request.setAttribute(ATRIBUTO_CLAIMS, claims);
+    request.setAttribute(ATRIBUTO_SOCIO, new SocioAutenticado(claims.idSocio(), claims.admin()));
+  }
+
+  private static void limpiarPeticion(HttpServletRequest request) {
+    request.removeAttribute(ATRIBUTO_CLAIMS);
+    request.removeAttribute(ATRIBUTO_SOCIO);
+  }
+
+  private static void invalidarSesion(HttpServletRequest request) {
+    HttpSession session = request.getSession(false);
+    if (session != null) {
+      session.invalidate();
+    }
+  }
+
+  private void escribirCookie(HttpServletResponse response, String valor, Duration maxAge) {
+    ResponseCookie cookie = ResponseCookie.from(COOKIE_TOKEN, valor)
+        .httpOnly(true)
+        .secure(props.cookieSegura())
+        .sameSite("Lax")
+        .path("/")
+        .maxAge(maxAge)
+        .build();
+    response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+  }
+
+  private static String leerCookie(HttpServletRequest request) {
+    Cookie[] cookies = request.getCookies();
+    if (cookies == null) {
+      return null;
+    }
+    for (Cookie c : cookies) {
+      if (COOKIE_TOKEN.equals(c.getName()) && !c.getValue().isEmpty()) {
+        return c.getValue();
+      }
+    }
+    return null;
+  }
+
+  private static String leerBearer(HttpServletRequest request) {
+    String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+    return header != null && header.startsWith(BEARER) ? header.substring(BEARER.length()) : null;
+  }
+}
@@ -0,0 +1,24 @@
+package com.fitgym.backend.api.auth;
+
+import java.util.List;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Registra la resolucion de {@code @SocioActual} en Spring MVC.
+ */
+@Configuration
+public class AutenticacionWebConfig implements WebMvcConfigurer {
+
+  private final SocioActualArgumentResolver socioActualResolver;
+
+  public AutenticacionWebConfig(SocioActualArgumentResolver socioActualResolver) {
+    this.socioActualResolver = socioActualResolver;
+  }
+
+  @Override
+  public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+    resolvers.add(socioActualResolver);
+  }
+}
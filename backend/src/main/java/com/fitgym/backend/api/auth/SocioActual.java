@@ -0,0 +1,20 @@
+package com.fitgym.backend.api.auth;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Inyecta el {@link SocioAutenticado} de la peticion en un parametro del controlador.
+ *
+ * Sin sesion responde 401; con admin = true, un socio que no es administrador recibe 403.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface SocioActual {
+
+  boolean admin() default false;
+}
@@ -0,0 +1,40 @@
+package com.fitgym.backend.api.auth;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.MethodParameter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Resuelve los parametros {@code @SocioActual SocioAutenticado} con {@link AutenticacionWeb}.
+ */
+@Component
+public class SocioActualArgumentResolver implements HandlerMethodArgumentResolver {
+
+  private final AutenticacionWeb autenticacion;
+
+  public SocioActualArgumentResolver(AutenticacionWeb autenticacion) {
+    this.autenticacion = autenticacion;
+  }
+
+  @Override
+  public boolean supportsParameter(MethodParameter parameter) {
+    return parameter.getParameterType() == SocioAutenticado.class
+        && parameter.hasParameterAnnotation(SocioActual.class);
+  }
+
+  @Override
+  public Object resolveArgument(
+      MethodParameter parameter,
+      ModelAndViewContainer mavContainer,
+      NativeWebRequest webRequest,
+      WebDataBinderFactory binderFactory
+  ) {
+    HttpServletRequest request = webRequest.getNativeRequest(HttpServletRequest.class);
+    SocioActual anotacion = parameter.getParameterAnnotation(SocioActual.class);
+    return anotacion.admin() ? autenticacion.requerirAdmin(request) : autenticacion.requerirSocio(request);
+  }
+}
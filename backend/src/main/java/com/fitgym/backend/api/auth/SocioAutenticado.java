@@ -0,0 +1,18 @@
+package com.fitgym.backend.api.auth;
+
+import java.io.Serializable;
+
+/**
+ * Socio que hace la peticion, resuelto desde la sesion HTTP o desde el token.
+ *
+ * Inmutable y con el rol ya calculado: se construye una vez en el login y se reutiliza
+ * en cada peticion sin volver a comparar el correo.
+ */
+public record SocioAutenticado(Long id, boolean admin) implements Serializable {
+
+  public static final String ADMIN_EMAIL = "admin@gmail.com";
+
+  public static SocioAutenticado deCorreo(Long id, String correoElectronico) {
+    return new SocioAutenticado(id, ADMIN_EMAIL.equalsIgnoreCase(correoElectronico));
+  }
+}
@@ -0,0 +1,38 @@
+package com.fitgym.backend.api.auth;
+
+import com.fitgym.backend.service.auth.AuthProperties;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * En modo token valida el token de sesion una sola vez por peticion, antes de llegar al controlador.
+ * En modo sesion no hace nada.
+ */
+@Component
+public class TokenSesionFilter extends OncePerRequestFilter {
+
+  private final AuthProperties props;
+  private final AutenticacionWeb autenticacion;
+
+  public TokenSesionFilter(AuthProperties props, AutenticacionWeb autenticacion) {
+    this.props = props;
+    this.autenticacion = autenticacion;
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !props.tokens();
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    autenticacion.cargarToken(request, response);
+    chain.doFilter(request, response);
+  }
+}
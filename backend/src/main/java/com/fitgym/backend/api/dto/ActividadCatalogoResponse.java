@@ -0,0 +1,14 @@
+package com.fitgym.backend.api.dto;
+
+import java.util.List;
+
+/**
+ * Pagina del catalogo de actividades.
+ *
+ * @param items: Actividades de la pagina, ordenadas por fecha, hora de inicio e id.
+ * @param nextCursor: Cursor opaco para pedir la pagina siguiente; null si no hay mas.
+ */
+public record ActividadCatalogoResponse(
+    List<ActividadResponse> items,
+    String nextCursor
+) {}
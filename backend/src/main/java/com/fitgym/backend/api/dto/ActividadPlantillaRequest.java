@@ -0,0 +1,55 @@
+package com.fitgym.backend.api.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Plantilla semanal de una actividad: se crea una clase por cada franja y semana entre desde y hasta,
+ * salvo en las fechas de excepciones y en los festivos configurados.
+ */
+public class ActividadPlantillaRequest {
+
+  @NotNull
+  @Size(min = 1, max = 120)
+  public String nombre;
+
+  @NotNull
+  public BigDecimal precioExtra;
+
+  @NotNull
+  @Min(1)
+  public Integer plazas;
+
+  @NotNull
+  public Long idMonitor;
+
+  @NotNull
+  public Long idSala;
+
+  @NotNull
+  public Long idTipoActividad;
+
+  @NotNull
+  public LocalDate desde;
+
+  @NotNull
+  public LocalDate hasta;
+
+  @NotEmpty
+  @Valid
+  public List<Franja> franjas;
+
+  // Fechas concretas sin clase (ademas de los festivos)
+  public List<LocalDate> excepciones = List.of();
+
+  public record Franja(@NotNull DayOfWeek diaSemana, @NotNull LocalTime horaIni, @NotNull LocalTime horaFin) {}
+}
@@ -0,0 +1,15 @@
+package com.fitgym.backend.api.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Resultado de expandir una plantilla: clases creadas, fechas saltadas (excepciones y festivos)
+ * y tiempo total de la operacion.
+ */
+public record ActividadPlantillaResponse(
+    int creadas,
+    int omitidas,
+    LocalDate desde,
+    LocalDate hasta,
+    long milisegundos
+) {}
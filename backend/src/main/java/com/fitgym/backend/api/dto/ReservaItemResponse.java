@@ -1,8 +1,11 @@
 package com.fitgym.backend.api.dto;
 
+import com.fitgym.backend.domain.ReservaEstado;
+
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.OffsetDateTime;
 
 public record ReservaItemResponse(
         Long idActividad,
@@ -11,5 +14,20 @@ public record ReservaItemResponse(
         LocalTime horaIni,
         LocalTime horaFin,
         String estado,
-        BigDecimal precioPagado
-) {}
\ No newline at end of file
+        BigDecimal precioPagado,
+        OffsetDateTime fechaAlta
+) {
+    // Usado por la proyeccion JPQL (select new ...), que entrega el estado como enum
+    public ReservaItemResponse(
+            Long idActividad,
+            String actividadNombre,
+            LocalDate fecha,
+            LocalTime horaIni,
+            LocalTime horaFin,
+            ReservaEstado estado,
+            BigDecimal precioPagado,
+            OffsetDateTime fechaAlta
+    ) {
+        this(idActividad, actividadNombre, fecha, horaIni, horaFin, estado.name(), precioPagado, fechaAlta);
+    }
+}
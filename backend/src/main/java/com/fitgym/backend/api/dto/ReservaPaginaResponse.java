@@ -0,0 +1,14 @@
+package com.fitgym.backend.api.dto;
+
+import java.util.List;
+
+/**
+ * Pagina del historial de reservas de un socio.
+ *
+ * @param items: Reservas de la pagina, de la mas reciente a la mas antigua.
+ * @param nextCursor: Cursor opaco para pedir la pagina siguiente; null si no hay mas.
+ */
+public record ReservaPaginaResponse(
+    List<ReservaItemResponse> items,
+    String nextCursor
+) {}
@@ -0,0 +1,14 @@
+package com.fitgym.backend.api.dto;
+
+import java.util.List;
+
+/**
+ * Pagina del directorio de socios de administracion.
+ *
+ * @param items: Socios de la pagina, ordenados por id.
+ * @param nextCursor: Cursor opaco para pedir la pagina siguiente; null si no hay mas.
+ */
+public record SocioAdminPaginaResponse(
+    List<SocioDirectorioResponse> items,
+    String nextCursor
+) {}
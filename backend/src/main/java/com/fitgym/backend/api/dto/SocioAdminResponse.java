@@ -1,5 +1,7 @@
 package com.fitgym.backend.api.dto;
 
+import com.fitgym.backend.domain.SocioEstado;
+
 import java.math.BigDecimal;
 
 public record SocioAdminResponse(
@@ -16,4 +18,24 @@ public record SocioAdminResponse(
     String direccion,
     String ciudad,
     String codigoPostal
-) {}
+) {
+  // Usado por la proyeccion JPQL (select new ...), que entrega el estado como enum
+  public SocioAdminResponse(
+      Long id,
+      String nombre,
+      String correoElectronico,
+      String telefono,
+      SocioEstado estado,
+      Long idTarifa,
+      String tarifaNombre,
+      Boolean pagoDomiciliado,
+      BigDecimal saldoMonedero,
+      Integer clasesGratis,
+      String direccion,
+      String ciudad,
+      String codigoPostal
+  ) {
+    this(id, nombre, correoElectronico, telefono, estado.name(), idTarifa, tarifaNombre, pagoDomiciliado,
+        saldoMonedero, clasesGratis, direccion, ciudad, codigoPostal);
+  }
+}
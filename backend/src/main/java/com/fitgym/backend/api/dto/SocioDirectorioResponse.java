@@ -0,0 +1,43 @@
+package com.fitgym.backend.api.dto;
+
+import com.fitgym.backend.domain.SocioEstado;
+
+/**
+ * Fila del directorio de socios de administracion.
+ *
+ * Como SocioAdminResponse pero sin el saldo del monedero: es un @Formula con subconsultas correlacionadas
+ * por fila y el listado no lo muestra. El saldo sale en el detalle y en las respuestas de edicion.
+ */
+public record SocioDirectorioResponse(
+    Long id,
+    String nombre,
+    String correoElectronico,
+    String telefono,
+    String estado,
+    Long idTarifa,
+    String tarifaNombre,
+    Boolean pagoDomiciliado,
+    Integer clasesGratis,
+    String direccion,
+    String ciudad,
+    String codigoPostal
+) {
+  // Usado por la proyeccion JPQL (select new ...), que entrega el estado como enum
+  public SocioDirectorioResponse(
+      Long id,
+      String nombre,
+      String correoElectronico,
+      String telefono,
+      SocioEstado estado,
+      Long idTarifa,
+      String tarifaNombre,
+      Boolean pagoDomiciliado,
+      Integer clasesGratis,
+      String direccion,
+      String ciudad,
+      String codigoPostal
+  ) {
+    this(id, nombre, correoElectronico, telefono, estado.name(), idTarifa, tarifaNombre, pagoDomiciliado,
+        clasesGratis, direccion, ciudad, codigoPostal);
+  }
+}
@@ -3,9 +3,7 @@ package com.fitgym.backend.api.dto;
 import java.io.Serializable;
 import java.math.BigDecimal;
 
-import com.fitgym.backend.api.dto.MembresiaResponse;
-import java.time.OffsetDateTime;
-import java.time.temporal.ChronoUnit;
+import com.fitgym.backend.api.auth.SocioAutenticado;
 
 /**
  * DTO interno para almacenar datos de sesion en HttpSession.
@@ -28,6 +26,8 @@ public class SocioSession implements Serializable {
   private final String direccion;
   private final String ciudad;
   private final String codigoPostal;
+  // Principal precalculado (id + rol) para no reconstruirlo en cada peticion
+  private final SocioAutenticado principal;
 
   public SocioSession(
       Long id,
@@ -53,6 +53,7 @@ public class SocioSession implements Serializable {
     this.direccion = direccion;
     this.ciudad = ciudad;
     this.codigoPostal = codigoPostal;
+    this.principal = SocioAutenticado.deCorreo(id, correoElectronico);
   }
 
   public static SocioSession fromLoginResponse(SocioLoginResponse response) {
@@ -79,4 +80,9 @@ public class SocioSession implements Serializable {
     public Long getId() {
         return id;
     }
+
+    public SocioAutenticado getPrincipal() {
+        // Sesiones serializadas antes de existir el campo
+        return principal != null ? principal : SocioAutenticado.deCorreo(id, correoElectronico);
+    }
 }
@@ -1,19 +1,23 @@
 package com.fitgym.backend.api.error;
 
 import com.fitgym.backend.service.BusinessException;
+import com.fitgym.backend.service.ConflictoHorarioException;
 import com.fitgym.backend.service.DuplicateEmailException;
 import com.fitgym.backend.service.InvalidCredentialsException;
 import com.fitgym.backend.service.PagoRegistroNoCompletadoException;
 import com.fitgym.backend.service.PagoRegistroNotFoundException;
+import com.fitgym.backend.service.ServicioSaturadoException;
 import com.fitgym.backend.service.SocioInactivoException;
 import com.fitgym.backend.service.TarifaNotFoundException;
 import com.fitgym.backend.service.TpvvCommunicationException;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.Instant;
 
@@ -57,6 +61,14 @@ public class GlobalExceptionHandler {
         return build(HttpStatus.CONFLICT, ex.getMessage(), req.getRequestURI());
     }
 
+    /**
+     * Maneja clases que se solapan en la misma sala o con el mismo monitor.
+     */
+    @ExceptionHandler(ConflictoHorarioException.class)
+    public ResponseEntity<ApiError> handleConflictoHorario(ConflictoHorarioException ex, HttpServletRequest req) {
+        return build(HttpStatus.CONFLICT, ex.getMessage(), req.getRequestURI());
+    }
+
     /**
      * Maneja tarifa no encontrada.
      * @param ex excepción de tarifa no encontrada capturada
@@ -92,6 +104,19 @@ public class GlobalExceptionHandler {
         return build(HttpStatus.BAD_GATEWAY, ex.getMessage(), req.getRequestURI());
     }
 
+    /**
+     * Maneja la saturacion de un recurso acotado (p.ej. cola de hashing llena o circuito TPVV abierto).
+     * Devuelve 503 con Retry-After en segundos enteros (redondeando hacia arriba, minimo 1) para que el
+     * cliente no reintente antes de que el recurso vuelva a admitir peticiones.
+     */
+    @ExceptionHandler(ServicioSaturadoException.class)
+    public ResponseEntity<ApiError> handleSaturado(ServicioSaturadoException ex, HttpServletRequest req) {
+        HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+        ApiError body = new ApiError(Instant.now(), status.value(), status.getReasonPhrase(), ex.getMessage(), req.getRequestURI());
+        long segundos = Math.max(1, (ex.getReintentarEn().toMillis() + 999) / 1000);
+        return ResponseEntity.status(status).header(HttpHeaders.RETRY_AFTER, Long.toString(segundos)).body(body);
+    }
+
     /**
      * Maneja credenciales invalidas en login.
      * @param ex excepcion de credenciales invalidas capturada
@@ -114,6 +139,18 @@ public class GlobalExceptionHandler {
         return build(HttpStatus.FORBIDDEN, ex.getMessage(), req.getRequestURI());
     }
 
+    /**
+     * Maneja las excepciones que ya traen su estado HTTP, como el 401/403 de los endpoints de administración.
+     * @param ex excepcion con estado capturada
+     * @param req objeto de la solicitud HTTP actual
+     * @return respuesta HTTP con el estado de la excepcion y su motivo
+     */
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<ApiError> handleResponseStatus(ResponseStatusException ex, HttpServletRequest req) {
+        HttpStatus status = HttpStatus.valueOf(ex.getStatusCode().value());
+        return build(status, ex.getReason() != null ? ex.getReason() : status.getReasonPhrase(), req.getRequestURI());
+    }
+
     /**
      * Maneja excepciones de validación de formularios.
      *
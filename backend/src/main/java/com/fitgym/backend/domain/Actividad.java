@@ -10,7 +10,8 @@ import java.time.LocalTime;
 @Table(name = "actividad")
 public class Actividad {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "actividad_seq")
+    @SequenceGenerator(name = "actividad_seq", sequenceName = "actividad_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 120)
@@ -6,7 +6,8 @@ import jakarta.persistence.*;
 @Table(name = "monitor")
 public class Monitor {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "monitor_seq")
+    @SequenceGenerator(name = "monitor_seq", sequenceName = "monitor_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 80)
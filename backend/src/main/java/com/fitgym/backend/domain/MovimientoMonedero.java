@@ -0,0 +1,57 @@
+package com.fitgym.backend.domain;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Apunte del libro del monedero (tabla movimiento_monedero).
+ *
+ * Solo se insertan, nunca se modifican ni se borran: el saldo de un socio es la suma de sus
+ * apuntes. El importe lleva signo (positivo abona, negativo carga) y la referencia identifica
+ * lo que lo origino: el token de la recarga o la reserva (socio:actividad).
+ */
+@Entity
+@Table(name = "movimiento_monedero")
+public class MovimientoMonedero {
+
+    // IDENTITY y no secuencia por bloques: la consolidacion exige que los ids sigan el orden de insercion
+    // entre nodos (un bloque reservado antes daria ids menores que la foto ya consolidada)
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "id_socio", nullable = false, updatable = false)
+    private Long idSocio;
+
+    @Column(nullable = false, updatable = false, precision = 12, scale = 2)
+    private BigDecimal importe;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false, length = 20)
+    private TipoMovimiento tipo;
+
+    @Column(length = 120, updatable = false)
+    private String referencia;
+
+    @Column(name = "creado_en", nullable = false, updatable = false)
+    private Instant creadoEn;
+
+    protected MovimientoMonedero() {
+    }
+
+    public MovimientoMonedero(Long idSocio, BigDecimal importe, TipoMovimiento tipo, String referencia, Instant creadoEn) {
+        this.idSocio = idSocio;
+        this.importe = importe;
+        this.tipo = tipo;
+        this.referencia = referencia;
+        this.creadoEn = creadoEn;
+    }
+
+    public Long getId() { return id; }
+    public Long getIdSocio() { return idSocio; }
+    public BigDecimal getImporte() { return importe; }
+    public TipoMovimiento getTipo() { return tipo; }
+    public String getReferencia() { return referencia; }
+    public Instant getCreadoEn() { return creadoEn; }
+}
@@ -19,7 +19,8 @@ import java.time.Instant;
 public class Pago {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pago_seq")
+    @SequenceGenerator(name = "pago_seq", sequenceName = "pago_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 120)
@@ -11,7 +11,8 @@ import org.hibernate.type.SqlTypes;
 public class PagoMonedero {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pago_monedero_seq")
+    @SequenceGenerator(name = "pago_monedero_seq", sequenceName = "pago_monedero_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true, length = 120)
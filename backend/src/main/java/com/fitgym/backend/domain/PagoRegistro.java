@@ -16,7 +16,8 @@ import java.time.Instant;
 public class PagoRegistro {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pago_registro_seq")
+  @SequenceGenerator(name = "pago_registro_seq", sequenceName = "pago_registro_id_seq", allocationSize = 50)
   private Long id;
 
   @Column(nullable = false, unique = true, length = 120)
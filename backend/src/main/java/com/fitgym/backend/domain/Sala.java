@@ -7,7 +7,8 @@ import jakarta.persistence.*;
 public class Sala {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sala_seq")
+  @SequenceGenerator(name = "sala_seq", sequenceName = "sala_id_seq", allocationSize = 50)
   private Long id;
 
   @Column(nullable = false, length = 200)
@@ -0,0 +1,45 @@
+package com.fitgym.backend.domain;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Foto del monedero de un socio (tabla saldo_monedero).
+ *
+ * saldo es la suma de sus abonos con id <= hastaMovimiento menos todos sus cargos, que se descuentan
+ * aqui en el momento con un UPDATE condicional; el saldo actual es saldo mas los abonos posteriores.
+ * Por eso saldo puede ser negativo mientras haya abonos sin consolidar que lo cubren.
+ */
+@Entity
+@Table(name = "saldo_monedero")
+public class SaldoMonedero {
+
+    @Id
+    @Column(name = "id_socio")
+    private Long idSocio;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal saldo;
+
+    @Column(name = "hasta_movimiento", nullable = false)
+    private long hastaMovimiento;
+
+    @Column(name = "actualizado_en", nullable = false)
+    private Instant actualizadoEn;
+
+    protected SaldoMonedero() {
+    }
+
+    public Long getIdSocio() { return idSocio; }
+    public BigDecimal getSaldo() { return saldo; }
+    public long getHastaMovimiento() { return hastaMovimiento; }
+    public Instant getActualizadoEn() { return actualizadoEn; }
+
+    /** Incorpora a la foto los abonos hasta el id indicado, cuya suma es delta. */
+    public void consolidar(BigDecimal delta, long hasta, Instant ahora) {
+        this.saldo = this.saldo.add(delta);
+        this.hastaMovimiento = hasta;
+        this.actualizadoEn = ahora;
+    }
+}
@@ -0,0 +1,56 @@
+package com.fitgym.backend.domain;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * Revocacion de tokens de sesion (modo fitgym.auth.modo=token).
+ *
+ * Cada fila revoca un token concreto (jti, en logout) o todos los tokens de un socio
+ * con version de sesion menor que versionMinima (cambio de contrasena, baja).
+ * Todos los nodos la leen periodicamente; las filas caducadas se purgan.
+ */
+@Entity
+@Table(name = "sesion_revocada")
+public class SesionRevocada {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 40)
+    private String jti;
+
+    @Column(name = "id_socio")
+    private Long idSocio;
+
+    @Column(name = "version_minima")
+    private Integer versionMinima;
+
+    @Column(name = "expira_en", nullable = false)
+    private Instant expiraEn;
+
+    protected SesionRevocada() {
+    }
+
+    public static SesionRevocada deToken(String jti, Instant expiraEn) {
+        SesionRevocada r = new SesionRevocada();
+        r.jti = jti;
+        r.expiraEn = expiraEn;
+        return r;
+    }
+
+    public static SesionRevocada deSocio(Long idSocio, int versionMinima, Instant expiraEn) {
+        SesionRevocada r = new SesionRevocada();
+        r.idSocio = idSocio;
+        r.versionMinima = versionMinima;
+        r.expiraEn = expiraEn;
+        return r;
+    }
+
+    public Long getId() { return id; }
+    public String getJti() { return jti; }
+    public Long getIdSocio() { return idSocio; }
+    public Integer getVersionMinima() { return versionMinima; }
+    public Instant getExpiraEn() { return expiraEn; }
+}
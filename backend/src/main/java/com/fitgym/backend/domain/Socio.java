@@ -1,6 +1,7 @@
 package com.fitgym.backend.domain;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Formula;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
@@ -23,7 +24,8 @@ import java.math.BigDecimal;
  * @param tarifa: Relación Many-to-One con la entidad Tarifa, representa la tarifa asociada al socio. Esta relación es obligatoria.
  * @param estado: Estado del socio, representado como un enum, no puede ser nulo.
  * @param pagoDomiciliado: Indica si el pago del socio está domiciliado, valor booleano que por defecto es falso.
- * @param saldoMonedero: Saldo del monedero del socio, no puede ser nulo y tiene precisión de 12 y escala de 2.
+ * @param saldoMonedero: Saldo del monedero del socio, de solo lectura: se calcula en la consulta a partir del
+ *                      libro del monedero (foto en saldo_monedero + abonos posteriores en movimiento_monedero).
  * @param direccion: Dirección del socio, puede ser nula y tiene un máximo de 200 caracteres.
  * @param ciudad: Ciudad del socio, puede ser nula y tiene un máximo de 80 caracteres.
  * @param codigoPostal: Código postal del socio, puede ser nulo y tiene un máximo de 10 caracteres.
@@ -40,7 +42,8 @@ import java.math.BigDecimal;
 public class Socio {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "socio_seq")
+  @SequenceGenerator(name = "socio_seq", sequenceName = "socio_id_seq", allocationSize = 50)
   private Long id;
 
   @Column(nullable = false, length = 80)
@@ -76,7 +79,14 @@ public class Socio {
   @Column(name = "pago_domiciliado", nullable = false)
   private boolean pagoDomiciliado = false;
 
-  @Column(name = "saldo_monedero", nullable = false, precision = 12, scale = 2)
+  // Solo lectura: los cambios de saldo son apuntes de MonederoService, nunca un UPDATE del socio
+  @Formula("""
+      (coalesce((select sm.saldo from saldo_monedero sm where sm.id_socio = id), 0)
+       + coalesce((select sum(mm.importe) from movimiento_monedero mm
+                   where mm.id_socio = id
+                     and mm.importe > 0
+                     and mm.id > coalesce((select sm.hasta_movimiento from saldo_monedero sm where sm.id_socio = id), 0)), 0))
+      """)
   private BigDecimal saldoMonedero = BigDecimal.ZERO;
 
   @Column(length = 200)
@@ -94,6 +104,10 @@ public class Socio {
   @Column(name="token_registro", length = 120)
   private String tokenRegistro;
 
+  // Se incrementa al cambiar la contrasena o darse de baja: invalida los tokens de sesion emitidos antes
+  @Column(name = "version_sesion", nullable = false)
+  private int versionSesion = 0;
+
   // Getters y Setters
   public Long getId() { return id; }
 
@@ -135,4 +149,7 @@ public class Socio {
 
   public String getTokenRegistro() { return tokenRegistro; }
   public void setTokenRegistro(String tokenRegistro) { this.tokenRegistro = tokenRegistro; }
+
+  public int getVersionSesion() { return versionSesion; }
+  public void setVersionSesion(int versionSesion) { this.versionSesion = versionSesion; }
 }
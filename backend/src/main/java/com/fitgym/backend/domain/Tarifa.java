@@ -8,7 +8,8 @@ import java.math.BigDecimal;
 public class Tarifa {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tarifa_seq")
+  @SequenceGenerator(name = "tarifa_seq", sequenceName = "tarifa_id_seq", allocationSize = 50)
   private Long id;
 
   @Column(nullable = false, length = 80)
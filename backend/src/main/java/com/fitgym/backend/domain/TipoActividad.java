@@ -7,7 +7,8 @@ import jakarta.persistence.*;
 public class TipoActividad {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tipo_actividad_seq")
+  @SequenceGenerator(name = "tipo_actividad_seq", sequenceName = "tipo_actividad_id_seq", allocationSize = 50)
   private Long id;
 
   @Column(nullable = false, length = 120)
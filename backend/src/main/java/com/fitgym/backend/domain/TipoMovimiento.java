@@ -0,0 +1,11 @@
+package com.fitgym.backend.domain;
+
+/**
+ * Origen de un apunte del monedero. Recargas y reembolsos suman; el pago de reservas resta.
+ */
+public enum TipoMovimiento {
+    RECARGA,
+    RESERVA,
+    REEMBOLSO,
+    AJUSTE
+}
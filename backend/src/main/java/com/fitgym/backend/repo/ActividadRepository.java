@@ -1,11 +1,141 @@
 package com.fitgym.backend.repo;
 
+import com.fitgym.backend.api.dto.ActividadAdminResponse;
+import com.fitgym.backend.api.dto.ActividadResponse;
 import com.fitgym.backend.domain.Actividad;
+import com.fitgym.backend.service.horario.FranjaOcupada;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface ActividadRepository extends JpaRepository<Actividad, Long>{
     Optional<Actividad> findByNombreIgnoreCase(String nombre);
+
+    /**
+     * Catalogo publico en una sola consulta: une monitor, sala y tipo y proyecta directamente al DTO
+     * (evita el 1 + 3N de recorrer las asociaciones lazy fila a fila).
+     */
+    @Query("""
+      select new com.fitgym.backend.api.dto.ActividadResponse(
+        a.id, a.nombre, a.horaIni, a.horaFin, a.precioExtra, a.fecha, a.plazas, a.disponibles,
+        m.nombre, s.descripcion, s.foto, t.nombre)
+      from Actividad a
+      join a.monitor m
+      join a.sala s
+      join a.tipoActividad t
+      order by a.fecha, a.horaIni, a.id
+    """)
+    List<ActividadResponse> findAllResumen();
+
+    /**
+     * Pagina del catalogo por rango de fechas y filtros opcionales, con paginacion keyset sobre
+     * (fecha, hora_ini, id): la pagina empieza justo despues del cursor y usa el indice
+     * idx_actividad_fecha_hora_id, asi que su coste no depende del historico acumulado.
+     */
+    @Query("""
+      select new com.fitgym.backend.api.dto.ActividadResponse(
+        a.id, a.nombre, a.horaIni, a.horaFin, a.precioExtra, a.fecha, a.plazas, a.disponibles,
+        m.nombre, s.descripcion, s.foto, t.nombre)
+      from Actividad a
+      join a.monitor m
+      join a.sala s
+      join a.tipoActividad t
+      where a.fecha between :desde and :hasta
+        and (a.fecha > :cursorFecha
+          or (a.fecha = :cursorFecha and a.horaIni > :cursorHora)
+          or (a.fecha = :cursorFecha and a.horaIni = :cursorHora and a.id > :cursorId))
+        and (:idTipoActividad is null or t.id = :idTipoActividad)
+        and (:idSala is null or s.id = :idSala)
+        and (:idMonitor is null or m.id = :idMonitor)
+      order by a.fecha, a.horaIni, a.id
+    """)
+    List<ActividadResponse> findCatalogo(@Param("desde") LocalDate desde,
+                                         @Param("hasta") LocalDate hasta,
+                                         @Param("cursorFecha") LocalDate cursorFecha,
+                                         @Param("cursorHora") LocalTime cursorHora,
+                                         @Param("cursorId") Long cursorId,
+                                         @Param("idTipoActividad") Long idTipoActividad,
+                                         @Param("idSala") Long idSala,
+                                         @Param("idMonitor") Long idMonitor,
+                                         Limit limit);
+
+    /**
+     * Listado de administracion en una sola consulta, con los ids y nombres de las asociaciones.
+     */
+    @Query("""
+      select new com.fitgym.backend.api.dto.ActividadAdminResponse(
+        a.id, a.nombre, a.horaIni, a.horaFin, a.precioExtra, a.fecha, a.plazas, a.disponibles,
+        m.id, m.nombre, s.id, s.descripcion, s.foto, t.id, t.nombre)
+      from Actividad a
+      join a.monitor m
+      join a.sala s
+      join a.tipoActividad t
+      order by a.fecha, a.horaIni, a.id
+    """)
+    List<ActividadAdminResponse> findAllAdmin();
+
+    /**
+     * Clases ya programadas entre dos fechas en la sala o con el monitor indicados (solo las columnas
+     * necesarias para detectar solapes en memoria).
+     */
+    @Query("""
+      select new com.fitgym.backend.service.horario.FranjaOcupada(a.id, a.fecha, a.horaIni, a.horaFin, a.sala.id, a.monitor.id)
+      from Actividad a
+      where a.fecha between :desde and :hasta
+        and (a.sala.id = :idSala or a.monitor.id = :idMonitor)
+    """)
+    List<FranjaOcupada> findOcupadas(@Param("desde") LocalDate desde,
+                                     @Param("hasta") LocalDate hasta,
+                                     @Param("idSala") Long idSala,
+                                     @Param("idMonitor") Long idMonitor);
+
+    /**
+     * Todas las clases desde una fecha, para construir el indice de ocupacion de salas y monitores.
+     */
+    @Query("""
+      select new com.fitgym.backend.service.horario.FranjaOcupada(a.id, a.fecha, a.horaIni, a.horaFin, a.sala.id, a.monitor.id)
+      from Actividad a
+      where a.fecha >= :desde
+    """)
+    List<FranjaOcupada> findOcupacionDesde(@Param("desde") LocalDate desde);
+
+    /**
+     * Ocupa una plaza de forma atomica: el WHERE garantiza que nunca se baja de 0
+     * aunque lleguen muchas reservas a la vez. Devuelve 1 si se ocupo la plaza y 0 si no quedaban.
+     * No toca el contexto de persistencia: ActividadService refresca la Actividad si ya estaba cargada.
+     */
+    @Modifying
+    @Query("""
+      update Actividad a
+      set a.disponibles = a.disponibles - 1
+      where a.id = :id and a.disponibles > 0
+    """)
+    int decrementarDisponibles(@Param("id") Long id);
+
+    /**
+     * Libera una plaza de forma atomica sin superar nunca el numero de plazas.
+     * Igual que decrementarDisponibles, ActividadService refresca la Actividad cargada.
+     */
+    @Modifying
+    @Query("""
+      update Actividad a
+      set a.disponibles = a.disponibles + 1
+      where a.id = :id and a.disponibles < a.plazas
+    """)
+    int incrementarDisponibles(@Param("id") Long id);
+
+    /**
+     * Escribe el valor de disponibles calculado en memoria (volcado del inventario de plazas).
+     */
+    @Modifying
+    @Query("update Actividad a set a.disponibles = :disponibles where a.id = :id")
+    int fijarDisponibles(@Param("id") Long id, @Param("disponibles") int disponibles);
 }
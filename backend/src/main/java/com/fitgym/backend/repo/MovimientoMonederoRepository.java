@@ -0,0 +1,43 @@
+package com.fitgym.backend.repo;
+
+import com.fitgym.backend.domain.MovimientoMonedero;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface MovimientoMonederoRepository extends JpaRepository<MovimientoMonedero, Long> {
+
+    /** Suma de los abonos del socio posteriores a la foto (id > desde); los cargos ya estan en la foto. */
+    @Query("""
+      select coalesce(sum(m.importe), 0)
+      from MovimientoMonedero m
+      where m.idSocio = :idSocio and m.id > :desde and m.importe > 0
+    """)
+    BigDecimal sumarAbonosDesde(@Param("idSocio") Long idSocio, @Param("desde") long desde);
+
+    /** Suma de los abonos del socio con id en (desde, hasta]. */
+    @Query("""
+      select coalesce(sum(m.importe), 0)
+      from MovimientoMonedero m
+      where m.idSocio = :idSocio and m.id > :desde and m.id <= :hasta and m.importe > 0
+    """)
+    BigDecimal sumarAbonosEntre(@Param("idSocio") Long idSocio, @Param("desde") long desde, @Param("hasta") long hasta);
+
+    /** Ultimo apunte del socio anterior a limite (lo que se puede consolidar sin pisar transacciones en curso). */
+    @Query("select max(m.id) from MovimientoMonedero m where m.idSocio = :idSocio and m.creadoEn < :limite")
+    Long ultimoAntesDe(@Param("idSocio") Long idSocio, @Param("limite") Instant limite);
+
+    /** Socios con apuntes anteriores a limite que aun no estan en su foto de saldo. */
+    @Query(value = """
+      select distinct m.id_socio
+      from movimiento_monedero m
+      left join saldo_monedero s on s.id_socio = m.id_socio
+      where m.id > coalesce(s.hasta_movimiento, 0)
+        and m.creado_en < :limite
+      limit :lote
+    """, nativeQuery = true)
+    List<Long> sociosPorConsolidar(@Param("limite") Instant limite, @Param("lote") int lote);
+}
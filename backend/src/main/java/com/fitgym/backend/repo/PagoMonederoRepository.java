@@ -1,9 +1,58 @@
 package com.fitgym.backend.repo;
 
 import com.fitgym.backend.domain.PagoMonedero;
+import com.fitgym.backend.domain.PagoRegistroEstado;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface PagoMonederoRepository extends JpaRepository<PagoMonedero, Long> {
     Optional<PagoMonedero> findByToken(String token);
-}
\ No newline at end of file
+
+    /**
+     * Guarda el resultado de TPVV solo si la recarga sigue PENDING.
+     * Devuelve 1 a la unica verificacion que hace la transicion; el resto recibe 0 y no abona nada.
+     */
+    @Modifying
+    @Query("""
+        update PagoMonedero p
+        set p.estado = :estado,
+            p.providerStatus = :providerStatus,
+            p.failureReason = :failureReason,
+            p.completedAt = :completedAt,
+            p.failedAt = :failedAt,
+            p.updatedAt = :ahora
+        where p.id = :id and p.estado = com.fitgym.backend.domain.PagoRegistroEstado.PENDING
+    """)
+    int resolverPendiente(@Param("id") Long id,
+                          @Param("estado") PagoRegistroEstado estado,
+                          @Param("providerStatus") String providerStatus,
+                          @Param("failureReason") String failureReason,
+                          @Param("completedAt") Instant completedAt,
+                          @Param("failedAt") Instant failedAt,
+                          @Param("ahora") Instant ahora);
+
+    /**
+     * Tokens PENDING sin tocar desde antes de limite, bloqueados para esta transaccion (ver PagoRegistroRepository).
+     */
+    @Query(value = """
+        select token from pago_monedero
+        where estado = 'PENDING' and updated_at < :limite
+        order by updated_at
+        limit :lote
+        for update skip locked
+        """, nativeQuery = true)
+    List<String> reclamarPendientes(@Param("limite") Instant limite, @Param("lote") int lote);
+
+    @Modifying
+    @Query("update PagoMonedero p set p.updatedAt = :ahora where p.token in :tokens")
+    int aplazar(@Param("tokens") Collection<String> tokens, @Param("ahora") Instant ahora);
+
+    @Query("select min(p.createdAt) from PagoMonedero p where p.estado = com.fitgym.backend.domain.PagoRegistroEstado.PENDING")
+    Instant pendienteMasAntiguo();
+}
@@ -1,9 +1,76 @@
 package com.fitgym.backend.repo;
 
 import com.fitgym.backend.domain.PagoRegistro;
+import com.fitgym.backend.domain.PagoRegistroEstado;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface PagoRegistroRepository extends JpaRepository<PagoRegistro, Long> {
   Optional<PagoRegistro> findByToken(String token);
+
+  /**
+   * Guarda el resultado de TPVV solo si el pago sigue PENDING (ver PagoMonederoRepository.resolverPendiente).
+   * Devuelve 0 si otra verificacion, el webhook o {@link #caducar} lo resolvieron antes: ese resultado no se pisa.
+   */
+  @Transactional
+  @Modifying
+  @Query("""
+      update PagoRegistro p
+      set p.estado = :estado,
+          p.providerStatus = :providerStatus,
+          p.failureReason = :failureReason,
+          p.completedAt = :completedAt,
+          p.failedAt = :failedAt,
+          p.updatedAt = :ahora
+      where p.id = :id and p.estado = com.fitgym.backend.domain.PagoRegistroEstado.PENDING
+      """)
+  int resolverPendiente(@Param("id") Long id,
+                        @Param("estado") PagoRegistroEstado estado,
+                        @Param("providerStatus") String providerStatus,
+                        @Param("failureReason") String failureReason,
+                        @Param("completedAt") Instant completedAt,
+                        @Param("failedAt") Instant failedAt,
+                        @Param("ahora") Instant ahora);
+
+  /**
+   * Tokens PENDING sin tocar desde antes de limite, bloqueados para esta transaccion.
+   * SKIP LOCKED: otro nodo reconciliando a la vez se salta estas filas en lugar de esperar.
+   * Hay que llamarlo dentro de una transaccion y, en ella, {@link #aplazar} los tokens devueltos.
+   */
+  @Query(value = """
+      select token from pago_registro
+      where estado = 'PENDING' and updated_at < :limite
+      order by updated_at
+      limit :lote
+      for update skip locked
+      """, nativeQuery = true)
+  List<String> reclamarPendientes(@Param("limite") Instant limite, @Param("lote") int lote);
+
+  /** Marca los pagos como tocados ahora: ningun nodo los vuelve a reclamar hasta que pase la edad minima. */
+  @Modifying
+  @Query("update PagoRegistro p set p.updatedAt = :ahora where p.token in :tokens")
+  int aplazar(@Param("tokens") Collection<String> tokens, @Param("ahora") Instant ahora);
+
+  /** Da por fallido un pago que sigue PENDING (TPVV no lo conoce o nunca se resolvio). */
+  @Transactional
+  @Modifying
+  @Query("""
+      update PagoRegistro p
+      set p.estado = com.fitgym.backend.domain.PagoRegistroEstado.FAILED,
+          p.failureReason = :motivo,
+          p.failedAt = :ahora,
+          p.updatedAt = :ahora
+      where p.token = :token and p.estado = com.fitgym.backend.domain.PagoRegistroEstado.PENDING
+      """)
+  int caducar(@Param("token") String token, @Param("motivo") String motivo, @Param("ahora") Instant ahora);
+
+  @Query("select min(p.createdAt) from PagoRegistro p where p.estado = com.fitgym.backend.domain.PagoRegistroEstado.PENDING")
+  Instant pendienteMasAntiguo();
 }
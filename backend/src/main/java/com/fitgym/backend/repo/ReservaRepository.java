@@ -1,18 +1,49 @@
 package com.fitgym.backend.repo;
 
+import com.fitgym.backend.api.dto.ReservaItemResponse;
 import com.fitgym.backend.domain.Reserva;
 import com.fitgym.backend.domain.ReservaId;
+import com.fitgym.backend.domain.ReservaEstado;
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 public interface ReservaRepository extends JpaRepository<Reserva, ReservaId>{
+    /**
+     * Historial de reservas de un socio en una sola consulta: une actividad y el pago de la reserva
+     * (1:1 por (id_socio, id_actividad)) y proyecta directamente al DTO, con el limite en SQL.
+     *
+     * Paginacion keyset sobre (fecha_alta desc, id_actividad desc): sin cursor se devuelve la primera pagina.
+     */
     @Query("""
-      select r
+      select new com.fitgym.backend.api.dto.ReservaItemResponse(
+        a.id, a.nombre, a.fecha, a.horaIni, a.horaFin, r.estado, coalesce(p.cantidad, 0), r.fecha)
       from Reserva r
+      join r.actividad a
+      left join Pago p
+        on p.idSocio = r.id.idSocio and p.idActividad = r.id.idActividad
+        and p.resultadoPago = com.fitgym.backend.domain.PagoResultado.OK
       where r.id.idSocio = :idSocio
-      order by r.fecha desc
+        and (:cursorFecha is null
+          or r.fecha < :cursorFecha
+          or (r.fecha = :cursorFecha and r.id.idActividad < :cursorIdActividad))
+      order by r.fecha desc, r.id.idActividad desc
     """)
-    List<Reserva> findBySocioOrderByFechaDesc(@Param("idSocio") Long idSocio);
+    List<ReservaItemResponse> findHistorialSocio(@Param("idSocio") Long idSocio,
+                                                 @Param("cursorFecha") OffsetDateTime cursorFecha,
+                                                 @Param("cursorIdActividad") Long cursorIdActividad,
+                                                 Limit limit);
+
+    @Query("""
+      select r.id.idActividad, count(r)
+      from Reserva r
+      where r.id.idActividad in :ids and r.estado = :estado
+      group by r.id.idActividad
+    """)
+    List<Object[]> contarPorActividad(@Param("ids") Collection<Long> ids,
+                                      @Param("estado") ReservaEstado estado);
 }
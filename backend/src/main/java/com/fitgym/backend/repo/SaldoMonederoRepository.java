@@ -0,0 +1,45 @@
+package com.fitgym.backend.repo;
+
+import com.fitgym.backend.domain.SaldoMonedero;
+import jakarta.persistence.LockModeType;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface SaldoMonederoRepository extends JpaRepository<SaldoMonedero, Long> {
+
+    /** Crea la foto vacia del socio si aun no existe (sin error si otra transaccion se adelanta). */
+    @Modifying
+    @Query(value = """
+      insert into saldo_monedero (id_socio, saldo, hasta_movimiento, actualizado_en)
+      values (:idSocio, 0, 0, :ahora)
+      on conflict do nothing
+    """, nativeQuery = true)
+    int crearSiNoExiste(@Param("idSocio") Long idSocio, @Param("ahora") Instant ahora);
+
+    /**
+     * Cargo condicional en una sola sentencia: resta el importe de la foto solo si el saldo (foto mas
+     * abonos posteriores) lo cubre. Dos cargos simultaneos del mismo socio se ordenan en la fila y el
+     * segundo reevalua la condicion con el saldo ya descontado. Devuelve 1 si se cargo, 0 si no habia
+     * saldo o el socio aun no tiene foto.
+     */
+    @Modifying
+    @Query("""
+      update SaldoMonedero s
+      set s.saldo = s.saldo - :importe, s.actualizadoEn = :ahora
+      where s.idSocio = :idSocio
+        and s.saldo + (select coalesce(sum(m.importe), 0) from MovimientoMonedero m
+                       where m.idSocio = s.idSocio and m.id > s.hastaMovimiento and m.importe > 0) >= :importe
+    """)
+    int cargar(@Param("idSocio") Long idSocio, @Param("importe") BigDecimal importe, @Param("ahora") Instant ahora);
+
+    /** SELECT ... FOR UPDATE de la foto: la consolidacion no se cruza con los cargos del socio. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from SaldoMonedero s where s.idSocio = :idSocio")
+    Optional<SaldoMonedero> bloquear(@Param("idSocio") Long idSocio);
+}
@@ -0,0 +1,20 @@
+package com.fitgym.backend.repo;
+
+import com.fitgym.backend.domain.SesionRevocada;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface SesionRevocadaRepository extends JpaRepository<SesionRevocada, Long> {
+
+    List<SesionRevocada> findByExpiraEnAfter(Instant ahora);
+
+    @Transactional
+    @Modifying
+    @Query("delete from SesionRevocada r where r.expiraEn < :ahora")
+    int purgarCaducadas(@Param("ahora") Instant ahora);
+}
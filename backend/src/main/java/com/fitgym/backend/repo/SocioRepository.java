@@ -1,7 +1,17 @@
 package com.fitgym.backend.repo;
 
+import com.fitgym.backend.api.dto.SocioDirectorioResponse;
 import com.fitgym.backend.domain.Socio;
+import com.fitgym.backend.domain.SocioEstado;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -24,5 +34,68 @@ import java.util.Optional;
 public interface SocioRepository extends JpaRepository<Socio, Long> {
   boolean existsByCorreoElectronicoIgnoreCase(String correoElectronico);
   Optional<Socio> findByCorreoElectronico(String correoElectronico);
+
+  // Los controladores leen la tarifa del socio devuelto; sin open-in-view tiene que venir cargada
+  @Override
+  @EntityGraph(attributePaths = "tarifa")
+  Optional<Socio> findById(Long id);
+
+  /**
+   * Pagina del directorio de admin en una sola consulta, con el nombre de la tarifa ya unido.
+   * Paginacion keyset sobre id (PK), asi que la pagina N cuesta lo mismo que la primera.
+   *
+   * La busqueda es una subcadena de lower(nombre) (indice trigram idx_socio_nombre_trgm) o un prefijo
+   * de lower(correo_electronico) (idx_socio_correo_lower); ciudad usa idx_socio_ciudad_lower. El estado
+   * va como lista (todos si no se filtra) para no comparar un parametro enum nulo en Postgres.
+   * Sin el saldo del monedero: su @Formula lanzaria dos subconsultas por fila.
+   */
+  @Query("""
+    select new com.fitgym.backend.api.dto.SocioDirectorioResponse(
+      s.id, s.nombre, s.correoElectronico, s.telefono, s.estado, t.id, t.nombre,
+      s.pagoDomiciliado, s.clasesGratis, s.direccion, s.ciudad, s.codigoPostal)
+    from Socio s
+    join s.tarifa t
+    where s.id > :cursorId
+      and s.estado in :estados
+      and (:idTarifa is null or t.id = :idTarifa)
+      and (:ciudad is null or lower(s.ciudad) = :ciudad)
+      and (:patronNombre is null
+        or lower(s.nombre) like :patronNombre escape '\\'
+        or lower(s.correoElectronico) like :prefijoCorreo escape '\\')
+    order by s.id
+  """)
+  List<SocioDirectorioResponse> findDirectorio(@Param("cursorId") Long cursorId,
+                                               @Param("estados") Collection<SocioEstado> estados,
+                                               @Param("idTarifa") Long idTarifa,
+                                               @Param("ciudad") String ciudad,
+                                               @Param("patronNombre") String patronNombre,
+                                               @Param("prefijoCorreo") String prefijoCorreo,
+                                               Limit limit);
+
+  // Login: trae la tarifa en la misma consulta para no necesitar transaccion abierta despues
+  @EntityGraph(attributePaths = "tarifa")
   Optional<Socio> findByCorreoElectronicoIgnoreCase(String correoElectronico);
+
+  /**
+   * Sustituye el hash de la contrasena solo si sigue siendo el leido (rehash tras login),
+   * para no pisar un cambio de contrasena concurrente. Devuelve 1 si se actualizo.
+   */
+  @Transactional
+  @Modifying
+  @Query("""
+    update Socio s
+    set s.contrasenaHash = :nuevo
+    where s.id = :id and s.contrasenaHash = :anterior
+  """)
+  int actualizarHashContrasena(@Param("id") Long id,
+                               @Param("anterior") String anterior,
+                               @Param("nuevo") String nuevo);
+
+  /**
+   * Consume una clase gratis solo si le queda alguna: comprobacion y escritura en la misma sentencia,
+   * sin bajar de 0 aunque lleguen varias reservas a la vez. Devuelve 1 si se consumio.
+   */
+  @Modifying
+  @Query("update Socio s set s.clasesGratis = s.clasesGratis - 1 where s.id = :id and s.clasesGratis > 0")
+  int consumirClaseGratis(@Param("id") Long id);
 }
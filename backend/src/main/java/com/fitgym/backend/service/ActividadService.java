@@ -1,14 +1,21 @@
 package com.fitgym.backend.service;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.List;
 
+import org.hibernate.Hibernate;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.fitgym.backend.repo.ActividadRepository;
 import com.fitgym.backend.repo.SocioRepository;
+import com.fitgym.backend.api.dto.ActividadCatalogoResponse;
 import com.fitgym.backend.api.dto.ActividadResponse;
 import com.fitgym.backend.domain.Actividad;
 import com.fitgym.backend.domain.Reserva;
@@ -22,6 +29,10 @@ import com.fitgym.backend.domain.TipoActividad;
 import com.fitgym.backend.repo.MonitorRepository;
 import com.fitgym.backend.repo.SalaRepository;
 import com.fitgym.backend.repo.TipoActividadRepository;
+import com.fitgym.backend.service.horario.FranjaOcupada;
+import com.fitgym.backend.service.horario.IndiceOcupacion;
+import com.fitgym.backend.service.inventory.SeatInventory;
+import jakarta.persistence.EntityManager;
 
 @Service
 public class ActividadService {
@@ -31,6 +42,14 @@ public class ActividadService {
     private final MonitorRepository monitorRepository;
     private final SalaRepository salaRepository;
     private final TipoActividadRepository tipoActividadRepository;
+    private final SeatInventory seatInventory;
+    private final CatalogoRevision catalogoRevision;
+    private final IndiceOcupacion indiceOcupacion;
+    private final EntityManager entityManager;
+
+    private static final int CATALOGO_SIZE_POR_DEFECTO = 20;
+    private static final int CATALOGO_SIZE_MAX = 100;
+    private static final long CATALOGO_DIAS_POR_DEFECTO = 31;
 
      
     public ActividadService(
@@ -38,64 +57,133 @@ public class ActividadService {
         SocioRepository socioRepository,
         MonitorRepository monitorRepository,
         SalaRepository salaRepository,
-        TipoActividadRepository tipoActividadRepository
+        TipoActividadRepository tipoActividadRepository,
+        SeatInventory seatInventory,
+        CatalogoRevision catalogoRevision,
+        IndiceOcupacion indiceOcupacion,
+        EntityManager entityManager
     ) {
             this.actividadRepository = actividadRepository;
             this.socioRepository = socioRepository;
             this.monitorRepository = monitorRepository;
             this.salaRepository = salaRepository;
             this.tipoActividadRepository = tipoActividadRepository;
+            this.seatInventory = seatInventory;
+            this.catalogoRevision = catalogoRevision;
+            this.indiceOcupacion = indiceOcupacion;
+            this.entityManager = entityManager;
     }
 
 
     //Metodo para recuperar todas las actividades que hay disponibles
+    //Una sola consulta con los joins de monitor, sala y tipo (sin N+1)
     @Transactional(readOnly = true)
     public List<ActividadResponse> recuperarTodasActividades() {
-        return actividadRepository.findAll()
-            .stream()
-            .map(actividad -> new ActividadResponse(
-                actividad.getId(),
-                actividad.getNombre(),
-                actividad.getHoraIni(),
-                actividad.getHoraFin(),
-                actividad.getPrecioExtra(),
-                actividad.getFecha(),
-                actividad.getPlazas(),
-                actividad.getDisponibles(),
-                actividad.getMonitor().getNombre(),
-                actividad.getSala().getDescripcion(),
-                actividad.getSala().getFoto(),
-                actividad.getTipoActividad().getNombre()
-            ))
-            .toList();
-
-            
+        return actividadRepository.findAllResumen();
+    }
+
+    //Catalogo paginado por rango de fechas y filtros, con cursor sobre (fecha, hora_ini, id)
+    @Transactional(readOnly = true)
+    public ActividadCatalogoResponse catalogo(
+        LocalDate desde,
+        LocalDate hasta,
+        Long idTipoActividad,
+        Long idSala,
+        Long idMonitor,
+        String cursor,
+        Integer size
+    ) {
+        LocalDate inicio = desde != null ? desde : LocalDate.now();
+        LocalDate fin = hasta != null ? hasta : inicio.plusDays(CATALOGO_DIAS_POR_DEFECTO);
+        if (fin.isBefore(inicio)) {
+            throw new BusinessException("El rango de fechas no es valido.");
+        }
+        int tamano = Math.min(Math.max(size != null ? size : CATALOGO_SIZE_POR_DEFECTO, 1), CATALOGO_SIZE_MAX);
+
+        // Sin cursor se arranca justo antes del rango: la condicion keyset deja pasar todo el rango.
+        LocalDate cursorFecha = inicio.minusDays(1);
+        LocalTime cursorHora = LocalTime.MIN;
+        Long cursorId = 0L;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] partes = decodificarCursor(cursor);
+            cursorFecha = LocalDate.parse(partes[0]);
+            cursorHora = LocalTime.parse(partes[1]);
+            cursorId = Long.valueOf(partes[2]);
+        }
+
+        // Se pide una fila de mas para saber si hay pagina siguiente sin hacer un count.
+        List<ActividadResponse> filas = actividadRepository.findCatalogo(
+            inicio, fin, cursorFecha, cursorHora, cursorId,
+            idTipoActividad, idSala, idMonitor, Limit.of(tamano + 1));
+
+        if (filas.size() <= tamano) {
+            return new ActividadCatalogoResponse(filas, null);
+        }
+        List<ActividadResponse> pagina = filas.subList(0, tamano);
+        ActividadResponse ultima = pagina.get(tamano - 1);
+        return new ActividadCatalogoResponse(List.copyOf(pagina), codificarCursor(ultima));
+    }
+
+    private static String codificarCursor(ActividadResponse a) {
+        String raw = a.fecha() + "|" + a.horaIni() + "|" + a.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodificarCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = raw.split("\\|");
+            if (partes.length != 3) {
+                throw new BusinessException("Cursor de paginacion invalido.");
+            }
+            LocalDate.parse(partes[0]);
+            LocalTime.parse(partes[1]);
+            Long.valueOf(partes[2]);
+            return partes;
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new BusinessException("Cursor de paginacion invalido.");
+        }
     }
 
         //Método para reservar una actividad
+        //Un único UPDATE condicional: sin leer-modificar-escribir, dos reservas simultáneas no pueden sobrevender
         @Transactional
         public boolean bajarDisponiblesEnClase(Long idClase) {
-            Actividad actividad = actividadRepository.findById(idClase).orElse(null);
+            if (actividadRepository.decrementarDisponibles(idClase) == 1) {
+                refrescarSiCargada(idClase);
+                catalogoRevision.actividadesModificadas();
+                return true;
+            }
 
-            if(actividad == null){
+            if (!actividadRepository.existsById(idClase)) {
                 throw new ActividadNoEncontradaException("No se ha encontrado la actividad");
             }
+            return false;
+        }
 
-            Integer totalDisponibles = actividad.getDisponibles();
-        
-            if (totalDisponibles >= 1) {
-                actividad.setDisponibles(totalDisponibles - 1);
+        //Método para liberar una plaza al cancelar una reserva
+        @Transactional
+        public boolean subirDisponiblesEnClase(Long idClase) {
+            if (actividadRepository.incrementarDisponibles(idClase) == 1) {
+                refrescarSiCargada(idClase);
+                catalogoRevision.actividadesModificadas();
                 return true;
             }
-            else{
-                return false;
+            return false;
+        }
+
+        //El UPDATE va directo a BD: si la transaccion ya tenia la actividad cargada, se refresca para que no
+        //se quede con el disponibles viejo (y un flush posterior de la entidad no lo vuelva a escribir).
+        //Sin clearAutomatically: vaciar el contexto perderia los cambios pendientes de la reserva
+        private void refrescarSiCargada(Long idClase) {
+            Actividad cargada = entityManager.getReference(Actividad.class, idClase);
+            if (Hibernate.isInitialized(cargada)) {
+                entityManager.refresh(cargada);
             }
         }
         @Transactional(readOnly = true)
     public List<ActividadAdminResponse> adminListar() {
-    return actividadRepository.findAll().stream()
-        .map(this::toAdminResponse)
-        .toList();
+    return actividadRepository.findAllAdmin();
     }
 
     @Transactional
@@ -109,6 +197,10 @@ public class ActividadService {
     TipoActividad tipo = tipoActividadRepository.findById(req.idTipoActividad)
         .orElseThrow(() -> new IllegalArgumentException("TipoActividad no encontrado: " + req.idTipoActividad));
 
+    validarHorarioYAforo(req, sala);
+    // sala y monitor libres en esa franja (antes de escribir nada)
+    indiceOcupacion.comprobar(List.of(new FranjaOcupada(null, req.fecha, req.horaIni, req.horaFin, sala.getId(), monitor.getId())));
+
     Actividad a = new Actividad();
     a.setNombre(req.nombre);
     a.setHoraIni(req.horaIni);
@@ -125,6 +217,9 @@ public class ActividadService {
     a.setTipoActividad(tipo);
 
     Actividad saved = actividadRepository.save(a);
+    // con el id ya asignado, la reserva vuelve a comprobar de forma atomica frente a altas simultaneas
+    indiceOcupacion.reservar(List.of(IndiceOcupacion.franja(saved)));
+    catalogoRevision.actividadesModificadas();
     return toAdminResponse(saved);
     }
 
@@ -142,11 +237,17 @@ public class ActividadService {
     TipoActividad tipo = tipoActividadRepository.findById(req.idTipoActividad)
         .orElseThrow(() -> new IllegalArgumentException("TipoActividad no encontrado: " + req.idTipoActividad));
 
+    validarHorarioYAforo(req, sala);
+    // mueve la clase en el indice de ocupacion; sin contar su propia franja anterior
+    indiceOcupacion.reservar(List.of(new FranjaOcupada(id, req.fecha, req.horaIni, req.horaFin, sala.getId(), monitor.getId())));
+
     // Ajuste de disponibles si cambian plazas:
     // mantenemos el número de reservas ya hechas
     int reservadas = a.getPlazas() - a.getDisponibles();
     a.setPlazas(req.plazas);
     a.setDisponibles(Math.max(req.plazas - reservadas, 0));
+    // con el inventario en memoria activo, su contador se ajusta al confirmar y el volcado corrige disponibles
+    seatInventory.cambiarPlazas(id, req.plazas);
 
     a.setNombre(req.nombre);
     a.setHoraIni(req.horaIni);
@@ -159,15 +260,22 @@ public class ActividadService {
     a.setTipoActividad(tipo);
     
     actividadRepository.save(a);
+    catalogoRevision.actividadesModificadas();
     return toAdminResponse(a);
     }
 
-    private ActividadAdminResponse toAdminResponse(Actividad a) {
-    // fuerza carga lazy
-    a.getMonitor().getNombre();
-    a.getSala().getDescripcion();
-    a.getTipoActividad().getNombre();
+    private static void validarHorarioYAforo(ActividadAdminRequest req, Sala sala) {
+    if (!req.horaFin.isAfter(req.horaIni)) {
+        throw new BusinessException("La hora de fin debe ser posterior a la de inicio.");
+    }
+    if (req.plazas > sala.getAforo()) {
+        throw new BusinessException("Las plazas (" + req.plazas + ") superan el aforo de la sala (" + sala.getAforo() + ").");
+    }
+    }
 
+    // Solo se usa tras crear/editar, con monitor, sala y tipo ya cargados por findById:
+    // no dispara consultas lazy adicionales.
+    private ActividadAdminResponse toAdminResponse(Actividad a) {
     return new ActividadAdminResponse(
         a.getId(),
         a.getNombre(),
@@ -0,0 +1,85 @@
+package com.fitgym.backend.service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Revision en memoria de los datos publicos cacheables (catalogo de actividades y tarifas).
+ *
+ * Cada escritura que cambia esos datos sube la revision despues del commit; los controladores
+ * la usan como ETag/Last-Modified y contestan 304 sin consultar la BD si el cliente ya la tiene.
+ * El prefijo de arranque invalida los ETag anteriores tras un reinicio (p.ej. cambios hechos a mano en BD).
+ *
+ * Es por JVM: con varios nodos de backend cada uno tendria su propia revision.
+ */
+@Component
+public class CatalogoRevision {
+
+  private final String arranque = Long.toString(System.currentTimeMillis(), 36);
+
+  private final AtomicReference<Revision> actividades = new AtomicReference<>(Revision.inicial());
+  private final AtomicReference<Revision> tarifas = new AtomicReference<>(Revision.inicial());
+
+  public String etagActividades() {
+    return etag("act", actividades.get());
+  }
+
+  public Instant modificacionActividades() {
+    return actividades.get().modificado();
+  }
+
+  public String etagTarifas() {
+    return etag("tar", tarifas.get());
+  }
+
+  public Instant modificacionTarifas() {
+    return tarifas.get().modificado();
+  }
+
+  /**
+   * Marca el catalogo de actividades como modificado (tras el commit si hay transaccion).
+   */
+  public void actividadesModificadas() {
+    alConfirmar(() -> actividades.updateAndGet(Revision::siguiente));
+  }
+
+  /**
+   * Marca las tarifas como modificadas (tras el commit si hay transaccion).
+   */
+  public void tarifasModificadas() {
+    alConfirmar(() -> tarifas.updateAndGet(Revision::siguiente));
+  }
+
+  private String etag(String recurso, Revision r) {
+    return "\"" + recurso + "-" + arranque + "-" + r.numero() + "\"";
+  }
+
+  private static void alConfirmar(Runnable accion) {
+    // Subir la revision antes del commit permitiria cachear datos viejos con el ETag nuevo.
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          accion.run();
+        }
+      });
+    } else {
+      accion.run();
+    }
+  }
+
+  private record Revision(long numero, Instant modificado) {
+    static Revision inicial() {
+      return new Revision(0, Instant.now().truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    Revision siguiente() {
+      // Last-Modified tiene resolucion de segundos
+      return new Revision(numero + 1, Instant.now().truncatedTo(ChronoUnit.SECONDS));
+    }
+  }
+}
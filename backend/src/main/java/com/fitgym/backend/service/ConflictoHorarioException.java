@@ -0,0 +1,10 @@
+package com.fitgym.backend.service;
+
+/**
+ * Excepcion de negocio para clases que se solapan en la misma sala o con el mismo monitor.
+ */
+public class ConflictoHorarioException extends BusinessException {
+  public ConflictoHorarioException(String message) {
+    super(message);
+  }
+}
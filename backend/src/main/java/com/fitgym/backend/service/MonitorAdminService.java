@@ -4,6 +4,7 @@ import com.fitgym.backend.api.dto.MonitorAdminRequest;
 import com.fitgym.backend.api.dto.MonitorAdminResponse;
 import com.fitgym.backend.domain.Monitor;
 import com.fitgym.backend.repo.MonitorRepository;
+import com.fitgym.backend.service.referencia.DatosReferenciaService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -15,10 +16,16 @@ public class MonitorAdminService {
 
   private final MonitorRepository monitorRepository;
   private final PasswordEncoder passwordEncoder;
+  private final DatosReferenciaService datosReferencia;
 
-  public MonitorAdminService(MonitorRepository monitorRepository, PasswordEncoder passwordEncoder) {
+  public MonitorAdminService(
+      MonitorRepository monitorRepository,
+      PasswordEncoder passwordEncoder,
+      DatosReferenciaService datosReferencia
+  ) {
     this.monitorRepository = monitorRepository;
     this.passwordEncoder = passwordEncoder;
+    this.datosReferencia = datosReferencia;
   }
 
   @Transactional(readOnly = true)
@@ -33,6 +40,7 @@ public class MonitorAdminService {
     Monitor m = new Monitor();
     aplicar(m, req);
     Monitor saved = monitorRepository.save(m);
+    datosReferencia.monitoresModificados();
     return toResponse(saved);
   }
 
@@ -42,6 +50,7 @@ public class MonitorAdminService {
         .orElseThrow(() -> new IllegalArgumentException("Monitor no encontrado: " + id));
     aplicar(m, req);
     Monitor saved = monitorRepository.save(m);
+    datosReferencia.monitoresModificados();
     return toResponse(saved);
   }
 
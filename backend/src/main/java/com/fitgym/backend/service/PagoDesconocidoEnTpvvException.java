@@ -0,0 +1,8 @@
+package com.fitgym.backend.service;
+
+/**
+ * TPVV responde 404 al verificar: el token no existe (o ya no existe) en la pasarela.
+ */
+public class PagoDesconocidoEnTpvvException extends TpvvCommunicationException {
+  public PagoDesconocidoEnTpvvException(String message) { super(message); }
+}
@@ -2,11 +2,14 @@ package com.fitgym.backend.service;
 
 import com.fitgym.backend.domain.PagoMonedero;
 import com.fitgym.backend.domain.PagoRegistroEstado;
-import com.fitgym.backend.domain.Socio;
+import com.fitgym.backend.domain.TipoMovimiento;
 import com.fitgym.backend.repo.PagoMonederoRepository;
 import com.fitgym.backend.repo.SocioRepository;
+import com.fitgym.backend.service.monedero.MonederoService;
 import com.fitgym.backend.service.tpvv.TpvvClient;
 import com.fitgym.backend.service.tpvv.TpvvProperties;
+import com.fitgym.backend.service.tpvv.TpvvWebhookProperties;
+import com.fitgym.backend.service.tpvv.VerificacionCompartida;
 import com.fitgym.backend.service.tpvv.dto.TpvvPaymentInitRequest;
 import com.fitgym.backend.service.tpvv.dto.TpvvPaymentInitResponse;
 import com.fitgym.backend.service.tpvv.dto.TpvvPaymentVerifyResponse;
@@ -15,36 +18,56 @@ import java.time.Instant;
 import java.util.Locale;
 import java.util.UUID;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Recargas del monedero con TPVV.
+ *
+ * Ningun metodo tiene transaccion abierta mientras espera a TPVV: lectura corta, llamada remota
+ * sin conexion JDBC y, al final, una transaccion corta con la transicion PENDING -> COMPLETED/FAILED
+ * condicionada, que solo una verificacion puede ganar. Las verificaciones simultaneas de un mismo
+ * token en este nodo ni siquiera llegan a competir: comparten una unica llamada a TPVV.
+ */
 @Service
 public class PagoMonederoService {
 
     private final PagoMonederoRepository pagoRepo;
     private final SocioRepository socioRepo;
+    private final MonederoService monederoService;
     private final TpvvClient tpvvClient;
     private final TpvvProperties props;
+    private final TpvvWebhookProperties webhook;
+    private final TransactionTemplate tx;
+    private final VerificacionCompartida<PagoMonedero> verificaciones = new VerificacionCompartida<>();
 
     public PagoMonederoService(
             PagoMonederoRepository pagoRepo,
             SocioRepository socioRepo,
+            MonederoService monederoService,
             TpvvClient tpvvClient,
-            TpvvProperties props
+            TpvvProperties props,
+            TpvvWebhookProperties webhook,
+            PlatformTransactionManager transactionManager
     ) {
         this.pagoRepo = pagoRepo;
         this.socioRepo = socioRepo;
+        this.monederoService = monederoService;
         this.tpvvClient = tpvvClient;
         this.props = props;
+        this.webhook = webhook;
+        this.tx = new TransactionTemplate(transactionManager);
     }
 
-    @Transactional
     public PagoInitResult iniciarRecarga(Long socioId, BigDecimal importe) {
         if (importe == null || importe.compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Importe inválido.");
         }
 
         // ensure socio exists
-        socioRepo.findById(socioId).orElseThrow(() -> new IllegalArgumentException("Socio no encontrado."));
+        if (!socioRepo.existsById(socioId)) {
+            throw new IllegalArgumentException("Socio no encontrado.");
+        }
 
         String externalReference = "WAL-" + UUID.randomUUID();
         if (props.callbackUrlMonedero() == null || props.callbackUrlMonedero().isBlank()) {
@@ -57,6 +80,7 @@ public class PagoMonederoService {
                 externalReference
         );
 
+        // Sin transaccion: la conexion no queda retenida mientras TPVV responde
         TpvvPaymentInitResponse response = tpvvClient.initPayment(payload);
         if (response == null || response.token() == null || response.paymentUrl() == null) {
             throw new TpvvCommunicationException("TPVV devolvió una respuesta incompleta.");
@@ -78,7 +102,6 @@ public class PagoMonederoService {
         return new PagoInitResult(paymentUrl, response.token());
     }
 
-    @Transactional
     public PagoMonedero verificarRecarga(String token) {
         PagoMonedero pago = pagoRepo.findByToken(token)
                 .orElseThrow(() -> new IllegalArgumentException("No existe una recarga con ese token."));
@@ -88,31 +111,93 @@ public class PagoMonederoService {
             return pago;
         }
 
-        TpvvPaymentVerifyResponse response = tpvvClient.verifyPayment(token);
-        if (response == null || response.status() == null) {
-            throw new TpvvCommunicationException("TPVV devolvió estado inválido.");
-        }
+        // Verificaciones simultaneas del mismo token comparten una llamada a TPVV
+        return verificaciones.verificar(token, () -> verificarEnTpvv(pago));
+    }
 
-        PagoRegistroEstado nuevoEstado = mapEstado(response.status());
-        pago.setEstado(nuevoEstado);
-        pago.setProviderStatus(response.status());
-        pago.setFailureReason(response.failureReason());
+    /**
+     * Estado de la recarga para el polling del frontend: con el webhook activo solo se pregunta a TPVV
+     * si sigue PENDING pasada la gracia (ver PagoRegistroService#consultarPago).
+     */
+    public PagoMonedero consultarRecarga(String token) {
+        PagoMonedero pago = pagoRepo.findByToken(token)
+                .orElseThrow(() -> new IllegalArgumentException("No existe una recarga con ese token."));
 
-        if (nuevoEstado == PagoRegistroEstado.COMPLETED) {
-            pago.setCompletedAt(Instant.now());
-            pago.setFailedAt(null);
+        if (pago.getEstado() == PagoRegistroEstado.PENDING && webhook.consultarTpvv(pago.getCreatedAt(), Instant.now())) {
+            return verificaciones.verificar(token, () -> verificarEnTpvv(pago));
+        }
+        return pago;
+    }
 
-            Socio socio = socioRepo.findById(pago.getIdSocio())
-                    .orElseThrow(() -> new IllegalArgumentException("Socio no encontrado."));
-            socio.setSaldoMonedero(socio.getSaldoMonedero().add(pago.getImporte()));
-            socioRepo.save(socio);
+    /**
+     * Aplica un resultado notificado por TPVV (webhook). Idempotente: la transicion condicionada
+     * solo abona una vez aunque la notificacion llegue repetida o a la vez que un /verify.
+     * Devuelve false si el token no es de una recarga.
+     */
+    public boolean notificarResultado(String token, String status, String failureReason) {
+        PagoMonedero pago = pagoRepo.findByToken(token).orElse(null);
+        if (pago == null) {
+            return false;
+        }
+        if (pago.getEstado() == PagoRegistroEstado.PENDING) {
+            aplicarResultado(pago, status, failureReason);
+        }
+        return true;
+    }
 
-        } else if (nuevoEstado == PagoRegistroEstado.FAILED) {
-            pago.setFailedAt(Instant.now());
-            pago.setCompletedAt(null);
+    private PagoMonedero verificarEnTpvv(PagoMonedero pago) {
+        TpvvPaymentVerifyResponse response = tpvvClient.verifyPayment(pago.getToken());
+        if (response == null || response.status() == null) {
+            throw new TpvvCommunicationException("TPVV devolvió estado inválido.");
         }
+        return aplicarResultado(pago, response.status(), response.failureReason());
+    }
 
-        return pagoRepo.save(pago);
+    private PagoMonedero aplicarResultado(PagoMonedero pago, String providerStatus, String failureReason) {
+        PagoRegistroEstado nuevoEstado = mapEstado(providerStatus);
+        if (nuevoEstado == PagoRegistroEstado.PENDING) {
+            pago.setProviderStatus(providerStatus);
+            return pago;
+        }
+
+        Instant ahora = Instant.now();
+        boolean completado = nuevoEstado == PagoRegistroEstado.COMPLETED;
+        tx.executeWithoutResult(status -> {
+            int actualizadas = pagoRepo.resolverPendiente(
+                    pago.getId(),
+                    nuevoEstado,
+                    providerStatus,
+                    failureReason,
+                    completado ? ahora : null,
+                    completado ? null : ahora,
+                    ahora
+            );
+            // Solo quien hace la transicion abona: dos verificaciones a la vez no duplican el saldo
+            if (actualizadas == 1 && completado) {
+                monederoService.abonar(pago.getIdSocio(), pago.getImporte(), TipoMovimiento.RECARGA, pago.getToken());
+            }
+        });
+
+        return pagoRepo.findByToken(pago.getToken()).orElse(pago);
+    }
+
+    /**
+     * Da por fallida una recarga que sigue PENDING, sin abonar nada. Devuelve false si entretanto se resolvio.
+     */
+    public boolean caducarRecarga(String token, String motivo) {
+        PagoMonedero pago = pagoRepo.findByToken(token)
+                .orElseThrow(() -> new IllegalArgumentException("No existe una recarga con ese token."));
+        Instant ahora = Instant.now();
+        Integer actualizadas = tx.execute(status -> pagoRepo.resolverPendiente(
+                pago.getId(),
+                PagoRegistroEstado.FAILED,
+                pago.getProviderStatus(),
+                motivo,
+                null,
+                ahora,
+                ahora
+        ));
+        return actualizadas != null && actualizadas == 1;
     }
 
     private PagoRegistroEstado mapEstado(String status) {
@@ -7,6 +7,8 @@ import com.fitgym.backend.repo.PagoRegistroRepository;
 import com.fitgym.backend.repo.TarifaRepository;
 import com.fitgym.backend.service.tpvv.TpvvClient;
 import com.fitgym.backend.service.tpvv.TpvvProperties;
+import com.fitgym.backend.service.tpvv.TpvvWebhookProperties;
+import com.fitgym.backend.service.tpvv.VerificacionCompartida;
 import com.fitgym.backend.service.tpvv.dto.TpvvPaymentInitRequest;
 import com.fitgym.backend.service.tpvv.dto.TpvvPaymentInitResponse;
 import com.fitgym.backend.service.tpvv.dto.TpvvPaymentVerifyResponse;
@@ -14,8 +16,9 @@ import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.Locale;
 import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Orquesta el flujo de pago de registro con TPVV.
@@ -23,28 +26,44 @@ import org.springframework.transaction.annotation.Transactional;
  * - inicia transacciones PENDING
  * - verifica el estado con TPVV
  * - valida que el pago este COMPLETED antes de registrar un socio
+ *
+ * Sin @Transactional a proposito: cada acceso a BD es una transaccion corta del repositorio y la
+ * llamada a TPVV (con sus timeouts y reintentos) se hace sin conexion JDBC retenida.
+ * Solo se persisten transiciones de PENDING a un estado final, con un update condicionado al estado
+ * (PagoRegistroRepository.resolverPendiente): repetir la verificacion, o que coincida con el webhook,
+ * el reconciliador o una caducidad, no pisa un resultado ya guardado.
+ *
+ * Un pago ya COMPLETED o FAILED se devuelve desde BD sin consultar a TPVV, y las verificaciones
+ * simultaneas de un mismo token (polling del frontend + alta del socio) comparten una unica llamada.
+ * Con el webhook de TPVV activo el resultado llega solo ({@link #notificarResultado}) y el polling del
+ * frontend ({@link #consultarPago}) lee el estado local sin llamar a TPVV.
  */
 @Service
 public class PagoRegistroService {
 
+  private static final Logger log = LoggerFactory.getLogger(PagoRegistroService.class);
+
   private final PagoRegistroRepository pagoRepo;
   private final TarifaRepository tarifaRepo;
   private final TpvvClient tpvvClient;
   private final TpvvProperties props;
+  private final TpvvWebhookProperties webhook;
+  private final VerificacionCompartida<PagoRegistro> verificaciones = new VerificacionCompartida<>();
 
   public PagoRegistroService(
       PagoRegistroRepository pagoRepo,
       TarifaRepository tarifaRepo,
       TpvvClient tpvvClient,
-      TpvvProperties props
+      TpvvProperties props,
+      TpvvWebhookProperties webhook
   ) {
     this.pagoRepo = pagoRepo;
     this.tarifaRepo = tarifaRepo;
     this.tpvvClient = tpvvClient;
     this.props = props;
+    this.webhook = webhook;
   }
 
-  @Transactional
   public PagoInitResult iniciarPago(Long idTarifa) {
     Tarifa tarifa = tarifaRepo.findById(idTarifa)
         .orElseThrow(() -> new TarifaNotFoundException("La tarifa indicada no existe."));
@@ -80,7 +99,6 @@ public class PagoRegistroService {
     return new PagoInitResult(paymentUrl, response.token());
   }
 
-  @Transactional
   public PagoInitResult iniciarPagoClase(Long precio){
     BigDecimal importe = new BigDecimal(precio);
     String externalReference = "REG-" + UUID.randomUUID();
@@ -113,33 +131,97 @@ public class PagoRegistroService {
     return new PagoInitResult(paymentUrl, response.token());
   }
 
-  @Transactional
   public PagoRegistro verificarPago(String token) {
     PagoRegistro pago = pagoRepo.findByToken(token)
         .orElseThrow(() -> new PagoRegistroNotFoundException("No existe un pago con ese token."));
 
-    TpvvPaymentVerifyResponse response = tpvvClient.verifyPayment(token);
+    // Estado final: TPVV ya no lo va a cambiar
+    if (pago.getEstado() != PagoRegistroEstado.PENDING) {
+      return pago;
+    }
+
+    return verificaciones.verificar(token, () -> verificarEnTpvv(pago));
+  }
+
+  /**
+   * Estado del pago para el polling del frontend. Con el webhook activo solo se pregunta a TPVV si
+   * el pago sigue PENDING pasada la gracia (notificacion perdida); sin webhook equivale a verificarPago.
+   */
+  public PagoRegistro consultarPago(String token) {
+    PagoRegistro pago = pagoRepo.findByToken(token)
+        .orElseThrow(() -> new PagoRegistroNotFoundException("No existe un pago con ese token."));
+
+    if (pago.getEstado() == PagoRegistroEstado.PENDING && webhook.consultarTpvv(pago.getCreatedAt(), Instant.now())) {
+      return verificaciones.verificar(token, () -> verificarEnTpvv(pago));
+    }
+    return pago;
+  }
+
+  /**
+   * Aplica un resultado notificado por TPVV (webhook). Idempotente: la transicion condicionada solo se
+   * guarda una vez aunque la notificacion llegue repetida o a la vez que un /verify o el reconciliador.
+   * Devuelve false si el token no es de un pago de registro.
+   */
+  public boolean notificarResultado(String token, String status, String failureReason) {
+    PagoRegistro pago = pagoRepo.findByToken(token).orElse(null);
+    if (pago == null) {
+      return false;
+    }
+    // El webhook no devuelve el pago: basta el numero de filas, sin releerlo
+    if (pago.getEstado() == PagoRegistroEstado.PENDING && mapEstado(status) != PagoRegistroEstado.PENDING
+        && resolver(pago, status, failureReason) == 0) {
+      log.debug("Notificacion de TPVV para el pago {} ya resuelto por otra via", token);
+    }
+    return true;
+  }
+
+  private PagoRegistro verificarEnTpvv(PagoRegistro pago) {
+    TpvvPaymentVerifyResponse response = tpvvClient.verifyPayment(pago.getToken());
     if (response == null || response.status() == null) {
       throw new TpvvCommunicationException("TPVV devolvio un estado invalido al verificar el pago.");
     }
+    return aplicarResultado(pago, response.status(), response.failureReason());
+  }
 
-    PagoRegistroEstado nuevoEstado = mapEstado(response.status());
-    pago.setEstado(nuevoEstado);
-    pago.setProviderStatus(response.status());
-    pago.setFailureReason(response.failureReason());
-
-    if (nuevoEstado == PagoRegistroEstado.COMPLETED) {
-      pago.setCompletedAt(Instant.now());
-      pago.setFailedAt(null);
-    } else if (nuevoEstado == PagoRegistroEstado.FAILED) {
-      pago.setFailedAt(Instant.now());
-      pago.setCompletedAt(null);
+  private PagoRegistro aplicarResultado(PagoRegistro pago, String status, String failureReason) {
+    PagoRegistroEstado nuevoEstado = mapEstado(status);
+    if (nuevoEstado == PagoRegistroEstado.PENDING) {
+      // TPVV aun no tiene resultado: nada que guardar
+      pago.setProviderStatus(status);
+      return pago;
     }
 
-    return pagoRepo.save(pago);
+    resolver(pago, status, failureReason);
+    // Se relee gane o no: si otro lo resolvio antes, lo que vale es lo que quedo guardado
+    return pagoRepo.findByToken(pago.getToken()).orElse(pago);
+  }
+
+  /**
+   * Guarda un resultado final si la fila sigue PENDING y devuelve las filas actualizadas (0 o 1).
+   * pago puede estar desfasado: un resultado tardio no devuelve a COMPLETED un pago caducado ni
+   * mueve el completedAt (y con el la renovacion de la membresia) de uno ya resuelto.
+   */
+  private int resolver(PagoRegistro pago, String status, String failureReason) {
+    Instant ahora = Instant.now();
+    boolean completado = mapEstado(status) == PagoRegistroEstado.COMPLETED;
+    return pagoRepo.resolverPendiente(
+        pago.getId(),
+        completado ? PagoRegistroEstado.COMPLETED : PagoRegistroEstado.FAILED,
+        status,
+        failureReason,
+        completado ? ahora : null,
+        completado ? null : ahora,
+        ahora
+    );
+  }
+
+  /**
+   * Da por fallido un pago que sigue PENDING. Devuelve false si entretanto se resolvio.
+   */
+  public boolean caducar(String token, String motivo) {
+    return pagoRepo.caducar(token, motivo, Instant.now()) == 1;
   }
 
-  @Transactional
   public void exigirPagoCompletado(String token, BigDecimal importeEsperado) {
     PagoRegistro pago = verificarPago(token);
 
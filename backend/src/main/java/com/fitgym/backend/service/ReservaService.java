@@ -1,11 +1,15 @@
 package com.fitgym.backend.service;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.List;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,30 +20,41 @@ import com.fitgym.backend.domain.Reserva;
 import com.fitgym.backend.domain.ReservaEstado;
 import com.fitgym.backend.domain.ReservaId;
 import com.fitgym.backend.domain.Socio;
+import com.fitgym.backend.domain.TipoMovimiento;
 import com.fitgym.backend.repo.ActividadRepository;
 import com.fitgym.backend.repo.PagoRepository;
 import com.fitgym.backend.repo.ReservaRepository;
 import com.fitgym.backend.repo.SocioRepository;
+import com.fitgym.backend.service.inventory.SeatInventory;
+import com.fitgym.backend.service.monedero.MonederoService;
 import com.fitgym.backend.api.dto.ReservaItemResponse;
 import com.fitgym.backend.api.dto.ReservaCancelResponse;
+import com.fitgym.backend.api.dto.ReservaPaginaResponse;
 import java.util.Optional;
 
 @Service
 public class ReservaService {
+    private static final int HISTORIAL_SIZE_POR_DEFECTO = 20;
+    private static final int HISTORIAL_SIZE_MAX = 100;
+
     private final ReservaRepository reservaRepository;
     private final ActividadRepository actividadRepository;
     private final SocioRepository socioRepository;
     private final ActividadService actividadService;
     private final SocioService socioService;
     private final PagoRepository pagoRepository;
+    private final SeatInventory seatInventory;
+    private final MonederoService monederoService;
 
-    public ReservaService(ReservaRepository reservaRepository, ActividadRepository actividadRepository, SocioRepository socioRepository, ActividadService actividadService, SocioService socioService, PagoRepository pagoRepository) {
+    public ReservaService(ReservaRepository reservaRepository, ActividadRepository actividadRepository, SocioRepository socioRepository, ActividadService actividadService, SocioService socioService, PagoRepository pagoRepository, SeatInventory seatInventory, MonederoService monederoService) {
         this.reservaRepository = reservaRepository;
         this.actividadRepository = actividadRepository;
         this.socioRepository = socioRepository;
         this.actividadService = actividadService;
         this.socioService = socioService;
         this.pagoRepository = pagoRepository;
+        this.seatInventory = seatInventory;
+        this.monederoService = monederoService;
     }
 
     //Método para reservar una actividad
@@ -55,29 +70,27 @@ public class ReservaService {
             throw new SocioInactivoException("El cliente no existe o no esta activo...");
         }
         else{
-            if(actividad.getDisponibles() <= 0){
+            //Con el inventario en memoria activo, disponibles en BD puede ir por detras: decide el inventario
+            if(!seatInventory.isEnabled() && actividad.getDisponibles() <= 0){
                 throw new ActividadSinPlazasException("No se pueden meter más usuarios en la actividad. Plazas a 0");
             }
             //Clase gratis
             BigDecimal zero = new BigDecimal("0");
             boolean respuesta = false;
             
-            List<Reserva> reservas = reservaRepository.findAll();
-            Reserva reservaCancelada = new Reserva();
-            for(Reserva reserva : reservas){
-                if(reserva.getSocio().getId() == idSocio && reserva.getActividad().getId() == idClase && reserva.getEstado() == ReservaEstado.CONFIRMADA){
-                    return respuesta = false;
-                }
-                else if(reserva.getSocio().getId() == idSocio && reserva.getActividad().getId() == idClase && reserva.getEstado() == ReservaEstado.CANCELADA){
-                    reservaCancelada = reserva;
-                }
+            //Buscamos la reserva previa por su PK (id_socio, id_actividad)
+            Reserva reservaCancelada = reservaRepository.findById(new ReservaId(idSocio, idClase))
+                    .orElseGet(Reserva::new);
+            if(reservaCancelada.getEstado() == ReservaEstado.CONFIRMADA){
+                return respuesta;
             }
 
             if(actividad.getPrecioExtra().compareTo(zero) <= 0){
+                //Bajamos disponibles en la actividad (si no quedan, se aborta y no se toca nada)
+                ocuparPlaza(idClase);
+
                 if(reservaCancelada.getEstado() == ReservaEstado.CANCELADA){
                     reservaCancelada.setEstado(ReservaEstado.CONFIRMADA);
-
-                    respuesta = actividadService.bajarDisponiblesEnClase(idClase);
                 }
                 else{
                     //Creamos reserva
@@ -88,42 +101,23 @@ public class ReservaService {
                     reserva.setActividad(actividad);
                     reserva.setFecha(OffsetDateTime.now());
                     reserva.setEstado(ReservaEstado.CONFIRMADA); 
-
-                    //Bajamos disponibles en la activida
-                    respuesta = actividadService.bajarDisponiblesEnClase(idClase);
-                    
-                    if(respuesta){
-                        reservaRepository.save(reserva);
-                    }
-                    else{
-                        throw new RuntimeException("No se ha podido terminar la reserva...");
-                    }
+                    reservaRepository.save(reserva);
                 }
 
-                return respuesta;
+                return true;
             }            
-            //Clase de pago incluida en tarifa
-            else if(actividad.getPrecioExtra().compareTo(zero) > 0 && socio.getClasesGratis() > 0){
+            //Clase de pago incluida en tarifa: la clase gratis se consume con un UPDATE condicional;
+            //si otra reserva se ha llevado la ultima, se paga con el monedero (rama siguiente)
+            else if(actividad.getPrecioExtra().compareTo(zero) > 0 && socio.getClasesGratis() > 0
+                    && socioService.disminuirClasesGratisDeTarifa(idSocio)){
+                //Bajamos disponibles en la actividad (si no quedan, la excepcion devuelve tambien la clase gratis)
+                ocuparPlaza(idClase);
+
                 //Creamos reserva y se hace el pago(aunque sea quitar la clase gratuita)
                 if(reservaCancelada.getEstado() == ReservaEstado.CANCELADA){
-                    //Bajamos disponibles en la activida y en las clases gratis del socio
-                    boolean respuestaDisponiblesClase = actividadService.bajarDisponiblesEnClase(idClase);
-                    boolean respuestaClasesCliente = socioService.disminuirClasesGratisDeTarifa(idSocio);
-
-                    if(respuestaClasesCliente && respuestaDisponiblesClase){
-                        respuesta = true;
-                    } 
-
-                    if(respuesta == true){
-                        reservaCancelada.setEstado(ReservaEstado.CONFIRMADA);
-
-                        List<Pago> pagos = pagoRepository.findAll();
-                        for(Pago pago : pagos){
-                            if(pago.getIdSocio() == idSocio && pago.getIdActividad() == idClase){
-                                pago.setResultadoPago(PagoResultado.OK);
-                            }
-                        }
-                    }
+                    reservaCancelada.setEstado(ReservaEstado.CONFIRMADA);
+
+                    confirmarPagoExistente(idSocio, idClase);
                 }
                 else{
                     Reserva reserva = new Reserva();
@@ -137,83 +131,59 @@ public class ReservaService {
                     Pago pago = new Pago();
                     //pago.setCantidad(actividad.getPrecioExtra());
                     pago.setCantidad(BigDecimal.ZERO);
-                    pago.setNombre("Reserva con clase gratis");
                     pago.setFechaPago(Instant.now());
                     pago.setIdActividad(idClase);
                     pago.setIdSocio(idSocio);
                     pago.setNombre("Pago reserva actividad");
                     pago.setResultadoPago(PagoResultado.OK);
 
-                    //Bajamos disponibles en la activida y en las clases gratis del socio
-                    boolean respuestaDisponiblesClase = actividadService.bajarDisponiblesEnClase(idClase);
-                    boolean respuestaClasesCliente = socioService.disminuirClasesGratisDeTarifa(idSocio);
-
-                    if(respuestaClasesCliente && respuestaDisponiblesClase){
-                        respuesta = true;
-                        reservaRepository.save(reserva);
-                        pagoRepository.save(pago);
-                    }
-                    else{
-                        throw new RuntimeException("No se ha podido terminar la reserva...");
-                    }
+                    reservaRepository.save(reserva);
+                    pagoRepository.save(pago);
                 }
                                 
-                return respuesta;
+                return true;
             }
             //Clase de pago no incluida en tarifa
-            else if(actividad.getPrecioExtra().compareTo(zero) > 0 && socio.getClasesGratis() <= 0){
+            else if(actividad.getPrecioExtra().compareTo(zero) > 0){
                 //Caso de sin dinero -> alerta en front de que no tiene fondos
                 //Caso de con dinero -> Bajar monedero del usuario y confirmar reserva
-                if (socio.getSaldoMonedero().compareTo(actividad.getPrecioExtra()) >= 0) {
-                    //Bajamos disponibles en la activida y en las clases gratis del socio
-                    boolean respuestaDisponiblesClase = actividadService.bajarDisponiblesEnClase(idClase);
+                //Bajamos disponibles en la actividad
+                ocuparPlaza(idClase);
 
-                    if(!respuestaDisponiblesClase){
-                        return false;
-                    }
+                //Bajamos el saldo: el cargo comprueba y descuenta en la misma sentencia y su resultado decide.
+                //Sin saldo, la excepcion deshace tambien la plaza ocupada
+                if(!monederoService.cargar(idSocio, actividad.getPrecioExtra(), TipoMovimiento.RESERVA, referenciaReserva(idSocio, idClase))){
+                    throw new RuntimeException("Saldo insuficiente");
+                }
 
-                    //Bajamos el saldo
-                    BigDecimal saldoRestante = socio.getSaldoMonedero().subtract(actividad.getPrecioExtra());
-                    socio.setSaldoMonedero(saldoRestante);
-                    socioRepository.save(socio);
+                //Creamos reserva
+                if(reservaCancelada.getEstado() == ReservaEstado.CANCELADA){
+                    reservaCancelada.setEstado(ReservaEstado.CONFIRMADA);
 
-                    //Creamos reserva
-                    if(reservaCancelada.getEstado() == ReservaEstado.CANCELADA){
-                        reservaCancelada.setEstado(ReservaEstado.CONFIRMADA);
-
-                        List<Pago> pagos = pagoRepository.findAll();
-                        for(Pago pago : pagos){
-                            if(pago.getIdSocio() == idSocio && pago.getIdActividad() == idClase){
-                                pago.setResultadoPago(PagoResultado.OK);
-                            }
-                        }
-                    }
-                    else{
-                        Reserva reserva = new Reserva();
-                        ReservaId reservaId = new ReservaId(socio.getId(), actividad.getId());
-                        reserva.setId(reservaId);
-                        reserva.setSocio(socio);
-                        reserva.setActividad(actividad);
-                        reserva.setFecha(OffsetDateTime.now());
-                        reserva.setEstado(ReservaEstado.CONFIRMADA);
-                        reservaRepository.save(reserva);
-
-                        //Guardamos el pago
-                        Pago pago = new Pago();
-                        pago.setCantidad(actividad.getPrecioExtra());
-                        pago.setFechaPago(Instant.now());
-                        pago.setIdActividad(idClase);
-                        pago.setIdSocio(idSocio);
-                        pago.setNombre("Pago reserva actividad");
-                        pago.setResultadoPago(PagoResultado.OK);
-                        pagoRepository.save(pago);
-                    }
-                    
-                    return true;
+                    confirmarPagoExistente(idSocio, idClase);
                 }
                 else{
-                    throw new RuntimeException("Saldo insuficiente");
+                    Reserva reserva = new Reserva();
+                    ReservaId reservaId = new ReservaId(socio.getId(), actividad.getId());
+                    reserva.setId(reservaId);
+                    reserva.setSocio(socio);
+                    reserva.setActividad(actividad);
+                    reserva.setFecha(OffsetDateTime.now());
+                    reserva.setEstado(ReservaEstado.CONFIRMADA);
+                    reservaRepository.save(reserva);
+
+                    //Guardamos el pago
+                    Pago pago = new Pago();
+                    pago.setCantidad(actividad.getPrecioExtra());
+                    pago.setFechaPago(Instant.now());
+                    pago.setIdActividad(idClase);
+                    pago.setIdSocio(idSocio);
+                    pago.setNombre("Pago reserva actividad");
+                    pago.setResultadoPago(PagoResultado.OK);
+                    pagoRepository.save(pago);
                 }
+                
+                return true;
             }
             else{
                 return false;
@@ -221,31 +191,79 @@ public class ReservaService {
         }
     }
 
+    // Ocupa una plaza (inventario en memoria o UPDATE condicional); si otra reserva se ha llevado la última, se aborta
+    private void ocuparPlaza(Long idClase) {
+        boolean ocupada = seatInventory.isEnabled()
+                ? seatInventory.tryAcquire(idClase)
+                : actividadService.bajarDisponiblesEnClase(idClase);
+        if(!ocupada){
+            throw new ActividadSinPlazasException("No se pueden meter más usuarios en la actividad. Plazas a 0");
+        }
+    }
+
+    // Referencia de los apuntes del monedero ligados a una reserva
+    private static String referenciaReserva(Long idSocio, Long idClase) {
+        return "reserva:" + idSocio + ":" + idClase;
+    }
+
+    // Reactiva el pago de una reserva cancelada usando el indice unico uq_pago_reserva
+    private void confirmarPagoExistente(Long idSocio, Long idClase) {
+        pagoRepository.findBySocioAndActividad(idSocio, idClase)
+                .ifPresent(pago -> pago.setResultadoPago(PagoResultado.OK));
+    }
+
     @Transactional(readOnly = true)
     public List<ReservaItemResponse> listarReservasSocioDTO(Long socioId, int limit) {
-        var list = reservaRepository.findBySocioOrderByFechaDesc(socioId);
-
-        return list.stream()
-                .limit(Math.max(0, limit))
-                .map(r -> {
-                    var a = r.getActividad();
-
-                    BigDecimal precioPagado = pagoRepository.findBySocioAndActividad(socioId, a.getId())
-                            .filter(p -> p.getResultadoPago() == PagoResultado.OK)
-                            .map(Pago::getCantidad)
-                            .orElse(BigDecimal.ZERO);
-
-                    return new ReservaItemResponse(
-                            a.getId(),
-                            a.getNombre(),
-                            a.getFecha(),
-                            a.getHoraIni(),
-                            a.getHoraFin(),
-                            r.getEstado().name(),
-                            precioPagado
-                    );
-                })
-                .toList();
+        if (limit <= 0) {
+            return List.of();
+        }
+        // Una sola consulta (reserva + actividad + pago) con el limite aplicado en SQL
+        return reservaRepository.findHistorialSocio(socioId, null, null, Limit.of(limit));
+    }
+
+    //Historial de reservas paginado con cursor sobre (fecha_alta, id_actividad), de la mas reciente a la mas antigua
+    @Transactional(readOnly = true)
+    public ReservaPaginaResponse historialReservasSocio(Long socioId, String cursor, Integer size) {
+        int tamano = Math.min(Math.max(size != null ? size : HISTORIAL_SIZE_POR_DEFECTO, 1), HISTORIAL_SIZE_MAX);
+
+        OffsetDateTime cursorFecha = null;
+        Long cursorIdActividad = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] partes = decodificarCursor(cursor);
+            cursorFecha = OffsetDateTime.parse(partes[0]);
+            cursorIdActividad = Long.valueOf(partes[1]);
+        }
+
+        // Se pide una fila de mas para saber si hay pagina siguiente sin hacer un count.
+        List<ReservaItemResponse> filas = reservaRepository.findHistorialSocio(
+                socioId, cursorFecha, cursorIdActividad, Limit.of(tamano + 1));
+
+        if (filas.size() <= tamano) {
+            return new ReservaPaginaResponse(filas, null);
+        }
+        List<ReservaItemResponse> pagina = filas.subList(0, tamano);
+        ReservaItemResponse ultima = pagina.get(tamano - 1);
+        return new ReservaPaginaResponse(List.copyOf(pagina), codificarCursor(ultima));
+    }
+
+    private static String codificarCursor(ReservaItemResponse r) {
+        String raw = r.fechaAlta() + "|" + r.idActividad();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodificarCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = raw.split("\\|");
+            if (partes.length != 2) {
+                throw new BusinessException("Cursor de paginacion invalido.");
+            }
+            OffsetDateTime.parse(partes[0]);
+            Long.valueOf(partes[1]);
+            return partes;
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new BusinessException("Cursor de paginacion invalido.");
+        }
     }
 
     @Transactional
@@ -257,20 +275,19 @@ public class ReservaService {
 
         // si ya está cancelada, devolvemos saldo actual sin cambios
         if (reserva.getEstado() == ReservaEstado.CANCELADA) {
-            Socio socio = socioRepository.findById(socioId)
-                    .orElseThrow(() -> new RuntimeException("Socio no encontrado"));
-            return new ReservaCancelResponse("CANCELADA", BigDecimal.ZERO, socio.getSaldoMonedero());
+            return new ReservaCancelResponse("CANCELADA", BigDecimal.ZERO, monederoService.saldo(socioId));
         }
 
         // marcar cancelada
         reserva.setEstado(ReservaEstado.CANCELADA);
         reservaRepository.save(reserva);
 
-        // liberar plaza en actividad
-        Actividad actividad = actividadRepository.findById(idActividad)
-                .orElseThrow(() -> new RuntimeException("Actividad no encontrada"));
-        actividad.setDisponibles(actividad.getDisponibles() + 1);
-        actividadRepository.save(actividad);
+        // liberar plaza en actividad (UPDATE atomico, sin leer-modificar-escribir)
+        if (seatInventory.isEnabled()) {
+            seatInventory.release(idActividad);
+        } else {
+            actividadService.subirDisponiblesEnClase(idActividad);
+        }
 
         // calcular reembolso: SOLO si hubo pago real (>0)
         BigDecimal reembolso = BigDecimal.ZERO;
@@ -284,15 +301,11 @@ public class ReservaService {
             }
         }
 
-        // aplicar reembolso al monedero si procede
-        Socio socio = socioRepository.findById(socioId)
-                .orElseThrow(() -> new RuntimeException("Socio no encontrado"));
-
+        // aplicar reembolso al monedero si procede (apunte de abono, sin tocar el socio)
         if (reembolso.compareTo(BigDecimal.ZERO) > 0) {
-            socio.setSaldoMonedero(socio.getSaldoMonedero().add(reembolso));
-            socioRepository.save(socio);
+            monederoService.abonar(socioId, reembolso, TipoMovimiento.REEMBOLSO, referenciaReserva(socioId, idActividad));
         }
 
-        return new ReservaCancelResponse("CANCELADA", reembolso, socio.getSaldoMonedero());
+        return new ReservaCancelResponse("CANCELADA", reembolso, monederoService.saldo(socioId));
     }
 }
@@ -1,5 +1,10 @@
 package com.fitgym.backend.service;
 
+import com.fitgym.backend.service.password.BoundedPasswordEncoder;
+import com.fitgym.backend.service.password.PasswordHashingProperties;
+import com.fitgym.backend.service.password.PerfilesHash;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -21,15 +26,20 @@ import org.springframework.security.crypto.password.PasswordEncoder;
  * componentes de la aplicación para asegurar que las contraseñas se manejen
  * de manera segura.
  *
+ * El hashing se ejecuta en un pool acotado ({@link BoundedPasswordEncoder}) para que
+ * una avalancha de logins no ocupe todos los hilos de peticion con trabajo de CPU.
+ * El coste de BCrypt se calibra al arrancar ({@link PerfilesHash}).
+ *
  * @return PasswordEncoder una instancia de BCryptPasswordEncoder configurada
  *         y lista para ser utilizada en la aplicación.
  */
 
 @Configuration
+@EnableConfigurationProperties(PasswordHashingProperties.class)
 public class SecurityBeans {
 
 @Bean
-  public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+  public PasswordEncoder passwordEncoder(PasswordHashingProperties props, MeterRegistry meterRegistry) {
+    return new BoundedPasswordEncoder(PerfilesHash.crear(props), props, meterRegistry);
   }
 }
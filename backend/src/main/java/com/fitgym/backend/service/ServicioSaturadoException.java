@@ -0,0 +1,24 @@
+package com.fitgym.backend.service;
+
+import java.time.Duration;
+
+/**
+ * El servidor no admite mas trabajo de este tipo ahora mismo (cola llena, circuito abierto).
+ *
+ * Se devuelve como 503 con Retry-After: por defecto un segundo, o lo que quede hasta que el recurso
+ * vuelva a admitir peticiones si se sabe (p.ej. el tiempo abierto del circuito TPVV).
+ */
+public class ServicioSaturadoException extends BusinessException {
+  private static final Duration REINTENTO_POR_DEFECTO = Duration.ofSeconds(1);
+
+  private final Duration reintentarEn;
+
+  public ServicioSaturadoException(String message) { this(message, REINTENTO_POR_DEFECTO); }
+
+  public ServicioSaturadoException(String message, Duration reintentarEn) {
+    super(message);
+    this.reintentarEn = reintentarEn;
+  }
+
+  public Duration getReintentarEn() { return reintentarEn; }
+}
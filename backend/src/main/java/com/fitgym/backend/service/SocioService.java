@@ -4,8 +4,16 @@ import com.fitgym.backend.domain.Socio;
 import com.fitgym.backend.domain.SocioEstado;
 import com.fitgym.backend.domain.Tarifa;
 import com.fitgym.backend.repo.SocioRepository;
-import com.fitgym.backend.repo.TarifaRepository;
+import com.fitgym.backend.service.referencia.DatosReferenciaService;
 import com.fitgym.backend.api.dto.MembresiaResponse;
+import com.fitgym.backend.api.dto.SocioAdminPaginaResponse;
+import com.fitgym.backend.api.dto.SocioDirectorioResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import org.springframework.data.domain.Limit;
 import java.time.OffsetDateTime;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -27,20 +35,23 @@ import java.time.ZoneOffset;
 public class SocioService {
 
   private final SocioRepository socioRepo;
-  private final TarifaRepository tarifaRepo;
+  private final DatosReferenciaService datosReferencia;
   private final PasswordEncoder passwordEncoder;
   private final PagoRegistroService pagoRegistroService;
   private final PagoRegistroRepository pagoRegistroRepo;
 
+  private static final int DIRECTORIO_SIZE_POR_DEFECTO = 50;
+  private static final int DIRECTORIO_SIZE_MAX = 200;
+
   public SocioService(
       SocioRepository socioRepo,
-      TarifaRepository tarifaRepo,
+      DatosReferenciaService datosReferencia,
       PasswordEncoder passwordEncoder,
       PagoRegistroService pagoRegistroService,
       PagoRegistroRepository pagoRegistroRepo
   ) {
     this.socioRepo = socioRepo;
-    this.tarifaRepo = tarifaRepo;
+    this.datosReferencia = datosReferencia;
     this.passwordEncoder = passwordEncoder;
     this.pagoRegistroService = pagoRegistroService;
       this.pagoRegistroRepo = pagoRegistroRepo;
@@ -48,8 +59,13 @@ public class SocioService {
 
   /**
    * Autentica a un socio por correo y contrasena.
+   *
+   * Sin transaccion propia: el socio (con su tarifa) se lee en una consulta y la conexion se
+   * devuelve al pool antes del hash, que puede esperar en la cola del pool de hashing.
+   *
+   * Si el hash guardado es de otro perfil o coste que el actual, se rehace con la contrasena
+   * recien validada (es el unico momento en que se conoce en claro).
    */
-  @Transactional(readOnly = true)
   public Socio autenticar(String correo, String passwordPlano) {
     Socio socio = socioRepo.findByCorreoElectronicoIgnoreCase(correo)
         .orElseThrow(() -> new InvalidCredentialsException("Credenciales invalidas."));
@@ -62,9 +78,12 @@ public class SocioService {
       throw new SocioInactivoException("Socio inactivo. Pendiente de aceptacion.");
     }
 
-    // Fuerza la carga de la tarifa dentro de la transaccion.
-    socio.getTarifa().getId();
-    socio.getTarifa().getNombre();
+    if (passwordEncoder.upgradeEncoding(socio.getContrasenaHash())) {
+      String nuevo = passwordEncoder.encode(passwordPlano);
+      if (socioRepo.actualizarHashContrasena(socio.getId(), socio.getContrasenaHash(), nuevo) == 1) {
+        socio.setContrasenaHash(nuevo);
+      }
+    }
 
     return socio;
   }
@@ -81,8 +100,10 @@ public class SocioService {
    * Registra un nuevo socio en el sistema.
    *
    * El backend valida que el pago TPVV este COMPLETED antes de persistir el socio.
+   *
+   * Sin transaccion envolvente: la verificacion en TPVV y el hash de la contrasena no retienen
+   * una conexion JDBC; el alta es un unico insert (la unicidad del correo la garantiza uq_socio_email).
    */
-  @Transactional
   public Socio registrar(
       String nombre,
       String correo,
@@ -98,7 +119,7 @@ public class SocioService {
       throw new DuplicateEmailException("Ya existe un socio con ese correo electronico.");
     }
 
-    Tarifa tarifa = tarifaRepo.findById(idTarifa)
+    Tarifa tarifa = datosReferencia.tarifa(idTarifa)
         .orElseThrow(() -> new TarifaNotFoundException("La tarifa indicada no existe."));
 
     // El backend es la fuente de verdad: valida en TPVV antes de registrar.
@@ -125,26 +146,73 @@ public class SocioService {
     return socioRepo.save(socio);
   }
 
-  // Metodo para disminuir las clases gratis de la tarifa
+  // Metodo para disminuir las clases gratis de la tarifa: UPDATE condicional, false si no le quedaban
   @Transactional
   public boolean disminuirClasesGratisDeTarifa(Long id){
-    Socio socio = socioRepo.findById(id).orElse(null);
+    return socioRepo.consumirClaseGratis(id) == 1;
+  }
 
-    if(socio == null){
-      return false;
-    }
+  /////////////
 
-    Integer total = socio.getClasesGratis();
-    socio.setClasesGratis(total-1);
+  /**
+   * Directorio de socios para administracion: filtros opcionales por estado, tarifa y ciudad, y
+   * busqueda por subcadena del nombre o prefijo del correo (sin distinguir mayusculas).
+   * Paginado con cursor sobre id; 50 socios por pagina por defecto (maximo 200).
+   */
+  @Transactional(readOnly = true)
+  public SocioAdminPaginaResponse directorio(
+      String estado,
+      Long idTarifa,
+      String ciudad,
+      String q,
+      String cursor,
+      Integer size
+  ) {
+    int tamano = Math.min(Math.max(size != null ? size : DIRECTORIO_SIZE_POR_DEFECTO, 1), DIRECTORIO_SIZE_MAX);
+    Collection<SocioEstado> estados = EnumSet.allOf(SocioEstado.class);
+    if (estado != null && !estado.isBlank()) {
+      try {
+        estados = EnumSet.of(SocioEstado.valueOf(estado.trim().toUpperCase()));
+      } catch (IllegalArgumentException ex) {
+        throw new BusinessException("Estado de socio no valido: " + estado);
+      }
+    }
+    String ciudadNormalizada = ciudad != null && !ciudad.isBlank() ? ciudad.trim().toLowerCase() : null;
+    String texto = q != null && !q.isBlank() ? escaparLike(q.trim().toLowerCase()) : null;
+
+    // Se pide una fila de mas para saber si hay pagina siguiente sin hacer un count.
+    List<SocioDirectorioResponse> filas = socioRepo.findDirectorio(
+        decodificarCursor(cursor), estados, idTarifa, ciudadNormalizada,
+        texto != null ? "%" + texto + "%" : null,
+        texto != null ? texto + "%" : null,
+        Limit.of(tamano + 1));
+
+    if (filas.size() <= tamano) {
+      return new SocioAdminPaginaResponse(filas, null);
+    }
+    List<SocioDirectorioResponse> pagina = filas.subList(0, tamano);
+    return new SocioAdminPaginaResponse(List.copyOf(pagina), codificarCursor(pagina.get(tamano - 1).id()));
+  }
 
-    return true;
+  // Los comodines que escriba el admin se buscan literalmente
+  private static String escaparLike(String texto) {
+    return texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
   }
 
-  /////////////
+  private static String codificarCursor(Long id) {
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(id.toString().getBytes(StandardCharsets.UTF_8));
+  }
 
-    @Transactional(readOnly = true)
-  public java.util.List<Socio> listarTodos() {
-    return socioRepo.findAll(org.springframework.data.domain.Sort.by("id").ascending());
+  // Sin cursor se empieza antes del primer id
+  private static Long decodificarCursor(String cursor) {
+    if (cursor == null || cursor.isBlank()) {
+      return 0L;
+    }
+    try {
+      return Long.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+    } catch (IllegalArgumentException ex) {
+      throw new BusinessException("Cursor de paginacion invalido.");
+    }
   }
 
   @Transactional(readOnly = true)
@@ -181,7 +249,7 @@ public class SocioService {
       socio.setPagoDomiciliado(req.pagoDomiciliado);
     }
 
-    Tarifa tarifa = tarifaRepo.findById(req.idTarifa)
+    Tarifa tarifa = datosReferencia.tarifa(req.idTarifa)
         .orElseThrow(() -> new TarifaNotFoundException("La tarifa indicada no existe."));
     socio.setTarifa(tarifa);
     socio.setClasesGratis(tarifa.getClasesGratisMes());
@@ -296,7 +364,7 @@ public class SocioService {
     }
 
     @Transactional
-    public void cambiarContrasena(Long socioId, String currentPassword, String newPassword) {
+    public int cambiarContrasena(Long socioId, String currentPassword, String newPassword) {
         Socio socio = socioRepo.findById(socioId)
                 .orElseThrow(() -> new RuntimeException("Socio no encontrado"));
 
@@ -307,15 +375,20 @@ public class SocioService {
 
         // guardar nuevo hash
         socio.setContrasenaHash(passwordEncoder.encode(newPassword));
+        // nueva version de sesion: invalida los tokens emitidos con la contrasena anterior
+        socio.setVersionSesion(socio.getVersionSesion() + 1);
         socioRepo.save(socio);
+        return socio.getVersionSesion();
     }
 
     @Transactional
-    public void darseDeBaja(Long socioId) {
+    public int darseDeBaja(Long socioId) {
         Socio socio = socioRepo.findById(socioId)
                 .orElseThrow(() -> new RuntimeException("Socio no encontrado"));
 
         socio.setEstado(SocioEstado.INACTIVO);
+        socio.setVersionSesion(socio.getVersionSesion() + 1);
         socioRepo.save(socio);
+        return socio.getVersionSesion();
     }
 }
@@ -0,0 +1,108 @@
+package com.fitgym.backend.service;
+
+import com.fitgym.backend.service.tpvv.TpvvWebhookProperties;
+import com.fitgym.backend.service.tpvv.dto.TpvvWebhookEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Cola de notificaciones del webhook de TPVV.
+ *
+ * El endpoint solo valida la firma y encola: responde en milisegundos y TPVV no espera a la BD.
+ * Las notificaciones se aplican en un pool pequeno con cola acotada; con la cola llena se rechaza
+ * con {@link ServicioSaturadoException} (503) para que TPVV reintente. Aplicar es idempotente: pagos
+ * de registro y recargas solo se resuelven con un update condicionado a PENDING, asi que los reenvios
+ * y los /verify simultaneos no pisan un resultado ya guardado.
+ * Si una notificacion se pierde (caida del nodo con la cola en memoria), el reconciliador la resuelve.
+ *
+ * Metricas: fitgym.tpvv.webhook (por resultado) y fitgym.tpvv.webhook.cola.
+ */
+@Service
+public class WebhookTpvvService implements AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(WebhookTpvvService.class);
+
+  enum Resultado { ENCOLADA, RECHAZADA, REGISTRO, MONEDERO, DESCONOCIDA, ERROR }
+
+  private final PagoRegistroService pagoRegistroService;
+  private final PagoMonederoService pagoMonederoService;
+  private final ThreadPoolExecutor executor;
+  private final Map<Resultado, Counter> notificaciones = new EnumMap<>(Resultado.class);
+
+  public WebhookTpvvService(
+      PagoRegistroService pagoRegistroService,
+      PagoMonederoService pagoMonederoService,
+      TpvvWebhookProperties props,
+      MeterRegistry meterRegistry
+  ) {
+    this.pagoRegistroService = pagoRegistroService;
+    this.pagoMonederoService = pagoMonederoService;
+    int hilos = Math.max(props.hilos(), 1);
+    this.executor = new ThreadPoolExecutor(
+        hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(Math.max(props.capacidadCola(), 1)),
+        Thread.ofPlatform().name("tpvv-webhook-", 0).daemon(true).factory(),
+        new ThreadPoolExecutor.AbortPolicy());
+    for (Resultado resultado : Resultado.values()) {
+      notificaciones.put(resultado, Counter.builder("fitgym.tpvv.webhook")
+          .description("Notificaciones del webhook de TPVV")
+          .tag("resultado", resultado.name().toLowerCase(Locale.ROOT))
+          .register(meterRegistry));
+    }
+    meterRegistry.gauge("fitgym.tpvv.webhook.cola", executor, e -> e.getQueue().size());
+  }
+
+  /**
+   * Encola la notificacion para aplicarla en segundo plano.
+   */
+  public void encolar(TpvvWebhookEvent evento) {
+    try {
+      executor.execute(() -> aplicar(evento));
+      contar(Resultado.ENCOLADA);
+    } catch (RejectedExecutionException ex) {
+      contar(Resultado.RECHAZADA);
+      throw new ServicioSaturadoException("Demasiadas notificaciones pendientes. Reintentar mas tarde.");
+    }
+  }
+
+  void aplicar(TpvvWebhookEvent evento) {
+    try {
+      if (pagoRegistroService.notificarResultado(evento.token(), evento.status(), evento.failureReason())) {
+        contar(Resultado.REGISTRO);
+      } else if (pagoMonederoService.notificarResultado(evento.token(), evento.status(), evento.failureReason())) {
+        contar(Resultado.MONEDERO);
+      } else {
+        contar(Resultado.DESCONOCIDA);
+        log.warn("Notificacion de TPVV para un token desconocido: {}", evento.token());
+      }
+    } catch (RuntimeException ex) {
+      contar(Resultado.ERROR);
+      log.warn("No se pudo aplicar la notificacion de TPVV del pago {}: {}", evento.token(), ex.getMessage());
+    }
+  }
+
+  /** Da unos segundos a las notificaciones encoladas antes de cerrar (el resto lo recoge el reconciliador). */
+  @Override
+  public void close() {
+    executor.shutdown();
+    try {
+      executor.awaitTermination(5, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void contar(Resultado resultado) {
+    notificaciones.get(resultado).increment();
+  }
+}
@@ -0,0 +1,12 @@
+package com.fitgym.backend.service.auth;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Activa las propiedades de autenticacion (modo sesion o token).
+ */
+@Configuration
+@EnableConfigurationProperties(AuthProperties.class)
+public class AuthConfig {
+}
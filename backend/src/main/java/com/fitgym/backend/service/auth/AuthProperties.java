@@ -0,0 +1,29 @@
+package com.fitgym.backend.service.auth;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuracion de la autenticacion de socios.
+ *
+ * @param modo: "sesion" (HttpSession del servlet, por defecto) o "token" (token firmado sin estado,
+ *              cualquier nodo del backend valida la peticion sin sesion compartida ni sticky sessions).
+ * @param secreto: Clave HMAC-SHA256 compartida por todos los nodos; obligatoria en modo token (minimo 32 bytes).
+ * @param ttl: Vida de cada token. Se renueva solo cuando ha pasado la mitad.
+ * @param cookieSegura: Marca la cookie del token como Secure (solo HTTPS).
+ */
+@ConfigurationProperties(prefix = "fitgym.auth")
+public record AuthProperties(
+    @DefaultValue(AuthProperties.SESION) String modo,
+    @DefaultValue("") String secreto,
+    @DefaultValue("15m") Duration ttl,
+    @DefaultValue("false") boolean cookieSegura
+) {
+  public static final String SESION = "sesion";
+  public static final String TOKEN = "token";
+
+  public boolean tokens() {
+    return TOKEN.equalsIgnoreCase(modo);
+  }
+}
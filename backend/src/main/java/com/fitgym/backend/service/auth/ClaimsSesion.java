@@ -0,0 +1,14 @@
+package com.fitgym.backend.service.auth;
+
+/**
+ * Contenido de un token de sesion.
+ *
+ * @param idSocio: Socio autenticado.
+ * @param admin: Rol precalculado en el login.
+ * @param version: Version de sesion del socio al emitir el token (ver Socio.versionSesion).
+ * @param emitidoEn: Epoch en segundos.
+ * @param expiraEn: Epoch en segundos.
+ * @param jti: Identificador unico del token, para revocarlo en el logout.
+ */
+public record ClaimsSesion(long idSocio, boolean admin, int version, long emitidoEn, long expiraEn, String jti) {
+}
@@ -0,0 +1,100 @@
+package com.fitgym.backend.service.auth;
+
+import com.fitgym.backend.domain.SesionRevocada;
+import com.fitgym.backend.repo.SesionRevocadaRepository;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Lista de revocacion de tokens de sesion.
+ *
+ * - logout: revoca el jti del token hasta su caducidad
+ * - cambio de contrasena o baja: revoca todos los tokens del socio con version de sesion menor
+ *
+ * La consulta por peticion es en memoria. Cada nodo persiste sus revocaciones en sesion_revocada
+ * y recarga las vigentes de todos los nodos periodicamente, asi que en otro nodo un token revocado
+ * puede seguir valiendo como mucho un intervalo de refresco. Las filas viven lo mismo que un token (ttl).
+ */
+@Component
+public class RevocacionesSesion {
+
+  private record VersionMinima(int version, Instant expira) {
+  }
+
+  private final SesionRevocadaRepository repo;
+  private final AuthProperties props;
+  private final Clock clock;
+
+  private final Map<String, Instant> tokens = new ConcurrentHashMap<>();
+  private final Map<Long, VersionMinima> socios = new ConcurrentHashMap<>();
+
+  @Autowired
+  public RevocacionesSesion(SesionRevocadaRepository repo, AuthProperties props) {
+    this(repo, props, Clock.systemUTC());
+  }
+
+  RevocacionesSesion(SesionRevocadaRepository repo, AuthProperties props, Clock clock) {
+    this.repo = repo;
+    this.props = props;
+    this.clock = clock;
+  }
+
+  public boolean revocada(ClaimsSesion claims) {
+    if (!tokens.isEmpty() && tokens.containsKey(claims.jti())) {
+      return true;
+    }
+    VersionMinima minima = socios.get(claims.idSocio());
+    return minima != null && claims.version() < minima.version();
+  }
+
+  public void revocarToken(ClaimsSesion claims) {
+    Instant expira = Instant.ofEpochSecond(claims.expiraEn());
+    tokens.put(claims.jti(), expira);
+    repo.save(SesionRevocada.deToken(claims.jti(), expira));
+  }
+
+  /** Revoca los tokens del socio emitidos con una version de sesion anterior a versionMinima. */
+  public void revocarSocio(long idSocio, int versionMinima) {
+    Instant expira = clock.instant().plus(props.ttl());
+    aplicarSocio(idSocio, new VersionMinima(versionMinima, expira));
+    repo.save(SesionRevocada.deSocio(idSocio, versionMinima, expira));
+  }
+
+  /**
+   * Recarga las revocaciones vigentes (tambien las de otros nodos) y olvida las caducadas.
+   * Se lee la tabla entera: solo contiene filas de los ultimos ttl minutos.
+   */
+  @Scheduled(fixedDelayString = "${fitgym.auth.refresco-revocaciones-ms:5000}")
+  public void refrescar() {
+    if (!props.tokens()) {
+      return;
+    }
+    Instant ahora = clock.instant();
+    for (SesionRevocada r : repo.findByExpiraEnAfter(ahora)) {
+      if (r.getJti() != null) {
+        tokens.put(r.getJti(), r.getExpiraEn());
+      } else if (r.getIdSocio() != null && r.getVersionMinima() != null) {
+        aplicarSocio(r.getIdSocio(), new VersionMinima(r.getVersionMinima(), r.getExpiraEn()));
+      }
+    }
+    tokens.values().removeIf(expira -> expira.isBefore(ahora));
+    socios.values().removeIf(v -> v.expira().isBefore(ahora));
+  }
+
+  @Scheduled(fixedDelayString = "${fitgym.auth.purga-revocaciones-ms:600000}")
+  public void purgar() {
+    if (!props.tokens()) {
+      return;
+    }
+    repo.purgarCaducadas(clock.instant());
+  }
+
+  private void aplicarSocio(long idSocio, VersionMinima nueva) {
+    socios.merge(idSocio, nueva, (actual, otra) -> otra.version() >= actual.version() ? otra : actual);
+  }
+}
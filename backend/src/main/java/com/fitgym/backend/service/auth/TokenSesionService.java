@@ -0,0 +1,135 @@
+package com.fitgym.backend.service.auth;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.Optional;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Emite y valida tokens de sesion firmados con HMAC-SHA256.
+ *
+ * Formato: base64url("1|idSocio|rol|version|iat|exp|jti") + "." + base64url(hmac).
+ * La validacion es solo CPU (sin BD ni sesion): comprueba la firma en tiempo constante y la caducidad.
+ * La revocacion (logout, cambio de contrasena) la resuelve {@link RevocacionesSesion}.
+ */
+@Component
+public class TokenSesionService {
+
+  private static final String ALGORITMO = "HmacSHA256";
+  private static final String FORMATO = "1";
+  private static final int MIN_BYTES_SECRETO = 32;
+
+  private static final Base64.Encoder B64 = Base64.getUrlEncoder().withoutPadding();
+  private static final Base64.Decoder B64D = Base64.getUrlDecoder();
+
+  /** Mac ya inicializado con la clave; nunca se usa directamente, solo se clona (Mac no es thread-safe). */
+  private final Mac prototipo;
+  private final long ttlSegundos;
+  private final Clock clock;
+  private final SecureRandom random = new SecureRandom();
+
+  @Autowired
+  public TokenSesionService(AuthProperties props) {
+    this(props, Clock.systemUTC());
+  }
+
+  TokenSesionService(AuthProperties props, Clock clock) {
+    byte[] secreto = props.secreto() == null ? new byte[0] : props.secreto().getBytes(StandardCharsets.UTF_8);
+    if (props.tokens() && secreto.length < MIN_BYTES_SECRETO) {
+      throw new IllegalStateException(
+          "fitgym.auth.secreto debe tener al menos " + MIN_BYTES_SECRETO + " bytes en modo token.");
+    }
+    this.prototipo = secreto.length == 0 ? null : nuevoMac(new SecretKeySpec(secreto, ALGORITMO));
+    this.ttlSegundos = props.ttl().toSeconds();
+    this.clock = clock;
+  }
+
+  public ClaimsSesion emitir(long idSocio, boolean admin, int version) {
+    long ahora = clock.instant().getEpochSecond();
+    byte[] jti = new byte[12];
+    random.nextBytes(jti);
+    return new ClaimsSesion(idSocio, admin, version, ahora, ahora + ttlSegundos, B64.encodeToString(jti));
+  }
+
+  /** Mismo socio, rol y version, con caducidad y jti nuevos. */
+  public ClaimsSesion renovar(ClaimsSesion claims) {
+    return emitir(claims.idSocio(), claims.admin(), claims.version());
+  }
+
+  /** Se renueva cuando ha consumido mas de la mitad de su vida. */
+  public boolean debeRenovarse(ClaimsSesion claims) {
+    return clock.instant().getEpochSecond() - claims.emitidoEn() > ttlSegundos / 2;
+  }
+
+  public long ttlSegundos() {
+    return ttlSegundos;
+  }
+
+  public String codificar(ClaimsSesion c) {
+    String contenido = FORMATO + "|" + c.idSocio() + "|" + (c.admin() ? "A" : "S") + "|" + c.version()
+        + "|" + c.emitidoEn() + "|" + c.expiraEn() + "|" + c.jti();
+    String payload = B64.encodeToString(contenido.getBytes(StandardCharsets.UTF_8));
+    return payload + "." + B64.encodeToString(firmar(payload));
+  }
+
+  /**
+   * Devuelve las claims si la firma es valida y el token no ha caducado; vacio en cualquier otro caso.
+   */
+  public Optional<ClaimsSesion> verificar(String token) {
+    if (prototipo == null || token == null) {
+      return Optional.empty();
+    }
+    int punto = token.indexOf('.');
+    if (punto <= 0 || punto != token.lastIndexOf('.')) {
+      return Optional.empty();
+    }
+    String payload = token.substring(0, punto);
+    try {
+      byte[] firma = B64D.decode(token.substring(punto + 1));
+      if (!MessageDigest.isEqual(firmar(payload), firma)) {
+        return Optional.empty();
+      }
+      String[] p = new String(B64D.decode(payload), StandardCharsets.UTF_8).split("\\|");
+      if (p.length != 7 || !FORMATO.equals(p[0])) {
+        return Optional.empty();
+      }
+      ClaimsSesion claims = new ClaimsSesion(
+          Long.parseLong(p[1]), "A".equals(p[2]), Integer.parseInt(p[3]),
+          Long.parseLong(p[4]), Long.parseLong(p[5]), p[6]);
+      if (claims.expiraEn() <= clock.instant().getEpochSecond()) {
+        return Optional.empty();
+      }
+      return Optional.of(claims);
+    } catch (IllegalArgumentException e) {
+      // base64 o numeros mal formados
+      return Optional.empty();
+    }
+  }
+
+  private byte[] firmar(String payload) {
+    try {
+      // Clonar evita Mac.getInstance + init (busqueda de proveedor y derivacion de la clave) en cada peticion
+      Mac mac = (Mac) prototipo.clone();
+      return mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+    } catch (CloneNotSupportedException e) {
+      throw new IllegalStateException("No se pudo firmar el token de sesion.", e);
+    }
+  }
+
+  private static Mac nuevoMac(SecretKeySpec clave) {
+    try {
+      Mac mac = Mac.getInstance(ALGORITMO);
+      mac.init(clave);
+      return mac;
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("No se pudo inicializar " + ALGORITMO + ".", e);
+    }
+  }
+}
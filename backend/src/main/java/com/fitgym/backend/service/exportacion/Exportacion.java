@@ -0,0 +1,37 @@
+package com.fitgym.backend.service.exportacion;
+
+/**
+ * Tablas que se pueden volcar enteras, con las columnas que salen (nunca contrasenas ni tokens).
+ * Ordenadas por clave primaria para que dos volcados seguidos sean comparables linea a linea.
+ */
+public enum Exportacion {
+  SOCIOS("socios", """
+      select s.id, s.nombre, s.correo_electronico, s.telefono, s.id_tarifa, t.nombre as tarifa,
+             s.estado, s.pago_domiciliado, s.clases_gratis, s.direccion, s.ciudad, s.codigo_postal
+      from socio s
+      join tarifa t on t.id = s.id_tarifa
+      order by s.id
+      """),
+  RESERVAS("reservas", """
+      select r.id_socio, r.id_actividad, r.fecha_alta, r.estado
+      from reserva r
+      order by r.id_socio, r.id_actividad
+      """),
+  PAGOS("pagos", """
+      select p.id, p.nombre, p.id_socio, p.id_actividad, p.fecha_pago, p.cantidad, p.resultado_pago
+      from pago p
+      order by p.id
+      """);
+
+  private final String nombre;
+  private final String sql;
+
+  Exportacion(String nombre, String sql) {
+    this.nombre = nombre;
+    this.sql = sql;
+  }
+
+  public String nombre() { return nombre; }
+
+  String sql() { return sql; }
+}
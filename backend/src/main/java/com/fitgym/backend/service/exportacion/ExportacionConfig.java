@@ -0,0 +1,12 @@
+package com.fitgym.backend.service.exportacion;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Activa las propiedades de los volcados de administracion.
+ */
+@Configuration
+@EnableConfigurationProperties(ExportacionProperties.class)
+public class ExportacionConfig {
+}
@@ -0,0 +1,17 @@
+package com.fitgym.backend.service.exportacion;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuracion de los volcados completos para administracion.
+ *
+ * @param fetchSize: Filas que el driver trae por viaje del cursor; acota la memoria del volcado
+ *                   independientemente del tamano de la tabla.
+ * @param bufferBytes: Buffer de escritura hacia la respuesta (y del gzip, si se usa).
+ */
+@ConfigurationProperties(prefix = "fitgym.exportacion")
+public record ExportacionProperties(
+    @DefaultValue("1000") int fetchSize,
+    @DefaultValue("65536") int bufferBytes
+) {}
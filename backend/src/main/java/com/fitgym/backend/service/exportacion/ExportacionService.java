@@ -0,0 +1,209 @@
+package com.fitgym.backend.service.exportacion;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.ObjectWriteContext;
+import tools.jackson.core.json.JsonFactory;
+
+/**
+ * Volcados completos de tablas para contabilidad, escritos en streaming.
+ *
+ * Cursor JDBC de solo avance con fetchSize: el driver trae las filas por bloques (en Postgres solo si
+ * la conexion no esta en autocommit, de ahi la transaccion de solo lectura) y cada fila se escribe en
+ * cuanto se lee, sin entidades ni listas intermedias. La memoria no depende del numero de filas.
+ */
+@Service
+public class ExportacionService {
+
+  private static final Logger log = LoggerFactory.getLogger(ExportacionService.class);
+
+  // Un objeto por linea, sin el espacio que Jackson pone por defecto entre valores raiz
+  private static final JsonFactory JSON = JsonFactory.builder().rootValueSeparator("\n").build();
+
+  private final JdbcTemplate jdbcTemplate;
+  private final ExportacionProperties props;
+
+  public ExportacionService(JdbcTemplate jdbcTemplate, ExportacionProperties props) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.props = props;
+  }
+
+  /**
+   * Escribe la tabla entera en out y devuelve las filas volcadas. No cierra out.
+   */
+  @Transactional(readOnly = true)
+  public long exportar(Exportacion exportacion, FormatoExportacion formato, OutputStream out) {
+    long inicio = System.nanoTime();
+    long filas = volcar(exportacion.sql(), formato, out);
+    log.info("Exportacion {} ({}): {} filas en {} ms", exportacion.nombre(), formato,
+        filas, (System.nanoTime() - inicio) / 1_000_000);
+    return filas;
+  }
+
+  // Sin @Transactional propio: exportar lo llama desde dentro y el proxy no intercepta esa llamada
+  long volcar(String sql, FormatoExportacion formato, OutputStream out) {
+    Long filas = jdbcTemplate.query(
+        con -> {
+          PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+          ps.setFetchSize(props.fetchSize());
+          return ps;
+        },
+        rs -> {
+          try {
+            return formato == FormatoExportacion.CSV ? escribirCsv(rs, out) : escribirNdjson(rs, out);
+          } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+          }
+        });
+    return filas != null ? filas : 0;
+  }
+
+  private long escribirCsv(ResultSet rs, OutputStream out) throws SQLException, IOException {
+    ResultSetMetaData meta = rs.getMetaData();
+    int columnas = meta.getColumnCount();
+    boolean[] numerica = new boolean[columnas + 1];
+    for (int i = 1; i <= columnas; i++) {
+      numerica[i] = esNumerica(meta.getColumnType(i));
+    }
+    // Sin cerrar: el flujo de salida es del que llama
+    Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), props.bufferBytes());
+    for (int i = 1; i <= columnas; i++) {
+      if (i > 1) {
+        w.write(',');
+      }
+      escribirCampoCsv(w, meta.getColumnLabel(i).toLowerCase());
+    }
+    w.write("\r\n");
+
+    long filas = 0;
+    while (rs.next()) {
+      for (int i = 1; i <= columnas; i++) {
+        if (i > 1) {
+          w.write(',');
+        }
+        String valor = rs.getString(i);
+        if (valor != null) {
+          escribirCampoCsv(w, numerica[i] ? valor : neutralizarFormula(valor));
+        }
+      }
+      w.write("\r\n");
+      filas++;
+    }
+    w.flush();
+    return filas;
+  }
+
+  /*
+   * Inyeccion de formulas: Excel o LibreOffice ejecutan como formula una celda que empieza por =, +, -, @,
+   * tabulador o retorno de carro. Con la comilla simple delante se muestra como texto. Solo en columnas de
+   * texto: un numero de la BD no puede traer una formula y un importe negativo debe seguir siendo numero.
+   */
+  static String neutralizarFormula(String valor) {
+    if (valor.isEmpty()) {
+      return valor;
+    }
+    char c = valor.charAt(0);
+    return c == '=' || c == '+' || c == '-' || c == '@' || c == '\t' || c == '\r' ? "'" + valor : valor;
+  }
+
+  private static boolean esNumerica(int tipo) {
+    return switch (tipo) {
+      case Types.BIGINT, Types.INTEGER, Types.SMALLINT, Types.TINYINT,
+           Types.NUMERIC, Types.DECIMAL, Types.DOUBLE, Types.FLOAT, Types.REAL -> true;
+      default -> false;
+    };
+  }
+
+  // RFC 4180: entre comillas solo si hace falta, con las comillas internas duplicadas
+  private static void escribirCampoCsv(Writer w, String valor) throws IOException {
+    boolean comillas = false;
+    for (int i = 0; i < valor.length() && !comillas; i++) {
+      char c = valor.charAt(i);
+      comillas = c == ',' || c == '"' || c == '\n' || c == '\r';
+    }
+    if (!comillas) {
+      w.write(valor);
+      return;
+    }
+    w.write('"');
+    w.write(valor.replace("\"", "\"\""));
+    w.write('"');
+  }
+
+  private long escribirNdjson(ResultSet rs, OutputStream out) throws SQLException {
+    ResultSetMetaData meta = rs.getMetaData();
+    int columnas = meta.getColumnCount();
+    String[] nombres = new String[columnas + 1];
+    int[] tipos = new int[columnas + 1];
+    for (int i = 1; i <= columnas; i++) {
+      nombres[i] = meta.getColumnLabel(i).toLowerCase();
+      tipos[i] = meta.getColumnType(i);
+    }
+
+    long filas = 0;
+    // Sin cerrar el generador: cerraria tambien el flujo de salida
+    JsonGenerator gen = JSON.createGenerator(ObjectWriteContext.empty(), out);
+    while (rs.next()) {
+      gen.writeStartObject();
+      for (int i = 1; i <= columnas; i++) {
+        gen.writeName(nombres[i]);
+        escribirValorJson(gen, rs, i, tipos[i]);
+      }
+      gen.writeEndObject();
+      filas++;
+    }
+    if (filas > 0) {
+      gen.writeRaw('\n');
+    }
+    gen.flush();
+    return filas;
+  }
+
+  // Numeros y booleanos con su tipo JSON; el resto (fechas, enums, texto) como el texto de la BD
+  private static void escribirValorJson(JsonGenerator gen, ResultSet rs, int i, int tipo) throws SQLException {
+    switch (tipo) {
+      case Types.BIGINT, Types.INTEGER, Types.SMALLINT, Types.TINYINT -> {
+        long v = rs.getLong(i);
+        if (rs.wasNull()) {
+          gen.writeNull();
+        } else {
+          gen.writeNumber(v);
+        }
+      }
+      case Types.NUMERIC, Types.DECIMAL, Types.DOUBLE, Types.FLOAT, Types.REAL -> {
+        BigDecimal v = rs.getBigDecimal(i);
+        if (v == null) {
+          gen.writeNull();
+        } else {
+          gen.writeNumber(v);
+        }
+      }
+      case Types.BOOLEAN, Types.BIT -> {
+        boolean v = rs.getBoolean(i);
+        if (rs.wasNull()) {
+          gen.writeNull();
+        } else {
+          gen.writeBoolean(v);
+        }
+      }
+      default -> gen.writeString(rs.getString(i));
+    }
+  }
+}
@@ -0,0 +1,20 @@
+package com.fitgym.backend.service.exportacion;
+
+/**
+ * Formatos de volcado: CSV con cabecera o un objeto JSON por linea (NDJSON).
+ */
+public enum FormatoExportacion {
+  CSV("text/csv", "csv"),
+  NDJSON("application/x-ndjson", "ndjson");
+
+  private final String contentType;
+  private final String extension;
+
+  FormatoExportacion(String contentType, String extension) {
+    this.contentType = contentType;
+    this.extension = extension;
+  }
+
+  public String contentType() { return contentType; }
+  public String extension() { return extension; }
+}
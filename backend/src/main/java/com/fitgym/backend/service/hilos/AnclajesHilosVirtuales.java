@@ -0,0 +1,134 @@
+package com.fitgym.backend.service.hilos;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Diagnostico de anclajes (pinning) de hilos virtuales.
+ *
+ * En Java 21 un hilo virtual que se bloquea dentro de un synchronized (o en codigo nativo) no libera
+ * su carrier: con suficientes a la vez se agotan los carriers y el servidor se para aunque haya
+ * miles de hilos virtuales. Con el modo de hilos virtuales activo se escucha el evento JFR
+ * jdk.VirtualThreadPinned en proceso y se mide cada anclaje por origen (primer paquete de la pila que no
+ * es del JDK, p. ej. org.hibernate.engine o com.fitgym.backend). La primera vez que aparece un origen se
+ * registra la pila completa en el log.
+ *
+ * Metrica: fitgym.hilos.virtuales.anclaje (duracion de cada anclaje), etiquetada por origen.
+ */
+@Component
+public class AnclajesHilosVirtuales implements SmartLifecycle {
+
+  private static final Logger log = LoggerFactory.getLogger(AnclajesHilosVirtuales.class);
+  private static final String EVENTO = "jdk.VirtualThreadPinned";
+  private static final List<String> PAQUETES_JDK = List.of("java.", "jdk.", "sun.", "javax.");
+
+  private final HilosVirtualesProperties props;
+  private final boolean activo;
+  private final MeterRegistry meterRegistry;
+  private final Map<String, Timer> porOrigen = new ConcurrentHashMap<>();
+  private volatile RecordingStream stream;
+
+  @Autowired
+  public AnclajesHilosVirtuales(HilosVirtualesProperties props, Environment environment, MeterRegistry meterRegistry) {
+    this(props, Threading.VIRTUAL.isActive(environment) && props.diagnosticoAnclajes(), meterRegistry);
+  }
+
+  AnclajesHilosVirtuales(HilosVirtualesProperties props, boolean activo, MeterRegistry meterRegistry) {
+    this.props = props;
+    this.activo = activo;
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public void start() {
+    if (!activo || stream != null) {
+      return;
+    }
+    RecordingStream rs = new RecordingStream();
+    rs.enable(EVENTO).withThreshold(props.umbralAnclaje()).withStackTrace();
+    rs.onEvent(EVENTO, this::registrar);
+    rs.startAsync();
+    stream = rs;
+    log.info("Diagnostico de anclajes de hilos virtuales activo (umbral {} ms).", props.umbralAnclaje().toMillis());
+  }
+
+  @Override
+  public void stop() {
+    RecordingStream rs = stream;
+    stream = null;
+    if (rs != null) {
+      rs.close();
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return stream != null;
+  }
+
+  void registrar(RecordedEvent evento) {
+    RecordedStackTrace pila = evento.getStackTrace();
+    String origen = origen(pila);
+    Timer timer = porOrigen.computeIfAbsent(origen, o -> {
+      log.warn("Hilo virtual anclado {} ms en {}:\n{}", evento.getDuration().toMillis(), o, formatear(pila));
+      return Timer.builder("fitgym.hilos.virtuales.anclaje")
+          .description("Bloqueos de hilos virtuales anclados a su carrier")
+          .tag("origen", o)
+          .register(meterRegistry);
+    });
+    timer.record(evento.getDuration());
+  }
+
+  private static String origen(RecordedStackTrace pila) {
+    if (pila == null) {
+      return "desconocido";
+    }
+    for (RecordedFrame frame : pila.getFrames()) {
+      if (!frame.isJavaFrame() || frame.getMethod() == null) {
+        continue;
+      }
+      String clase = frame.getMethod().getType().getName();
+      if (PAQUETES_JDK.stream().noneMatch(clase::startsWith)) {
+        return paquete(clase);
+      }
+    }
+    return "jdk";
+  }
+
+  /** Los tres primeros segmentos del paquete: acota la cardinalidad de la etiqueta. */
+  private static String paquete(String clase) {
+    String[] partes = clase.split("\\.");
+    int segmentos = Math.min(3, Math.max(partes.length - 1, 1));
+    StringBuilder sb = new StringBuilder(partes[0]);
+    for (int i = 1; i < segmentos; i++) {
+      sb.append('.').append(partes[i]);
+    }
+    return sb.toString();
+  }
+
+  private static String formatear(RecordedStackTrace pila) {
+    if (pila == null) {
+      return "  (sin pila)";
+    }
+    return pila.getFrames().stream()
+        .filter(f -> f.getMethod() != null)
+        .map(f -> "  at " + f.getMethod().getType().getName() + "." + f.getMethod().getName()
+            + (f.getLineNumber() > 0 ? ":" + f.getLineNumber() : ""))
+        .collect(Collectors.joining("\n"));
+  }
+}
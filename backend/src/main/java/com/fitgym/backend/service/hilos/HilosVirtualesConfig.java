@@ -0,0 +1,12 @@
+package com.fitgym.backend.service.hilos;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Activa las propiedades del diagnostico de hilos virtuales.
+ */
+@Configuration
+@EnableConfigurationProperties(HilosVirtualesProperties.class)
+public class HilosVirtualesConfig {
+}
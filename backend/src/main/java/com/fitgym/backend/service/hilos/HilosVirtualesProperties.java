@@ -0,0 +1,17 @@
+package com.fitgym.backend.service.hilos;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Diagnostico del modo de hilos virtuales (spring.threads.virtual.enabled).
+ *
+ * @param diagnosticoAnclajes: Con hilos virtuales, registra (JFR) los hilos que se bloquean anclados a su carrier.
+ * @param umbralAnclaje: Duracion minima de un anclaje para registrarlo.
+ */
+@ConfigurationProperties(prefix = "fitgym.hilos-virtuales")
+public record HilosVirtualesProperties(
+    @DefaultValue("true") boolean diagnosticoAnclajes,
+    @DefaultValue("20ms") Duration umbralAnclaje
+) {}
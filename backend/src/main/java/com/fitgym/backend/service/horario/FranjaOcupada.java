@@ -0,0 +1,15 @@
+package com.fitgym.backend.service.horario;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Clase programada en una sala y con un monitor, para comprobar solapes sin cargar entidades.
+ * El id es null mientras la clase aun no se ha insertado.
+ */
+public record FranjaOcupada(Long id, LocalDate fecha, LocalTime horaIni, LocalTime horaFin, Long idSala, Long idMonitor) {
+
+  boolean solapa(LocalTime ini, LocalTime fin) {
+    return horaIni.isBefore(fin) && ini.isBefore(horaFin);
+  }
+}
@@ -0,0 +1,12 @@
+package com.fitgym.backend.service.horario;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Activa las propiedades de las plantillas de horario.
+ */
+@Configuration
+@EnableConfigurationProperties(HorarioProperties.class)
+public class HorarioConfig {
+}
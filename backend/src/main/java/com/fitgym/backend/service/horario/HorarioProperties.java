@@ -0,0 +1,24 @@
+package com.fitgym.backend.service.horario;
+
+import java.time.LocalDate;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuracion de la creacion de clases a partir de plantillas semanales.
+ *
+ * @param festivos: Dias sin clases para todas las plantillas.
+ * @param maxActividades: Clases como mucho por plantilla (una temporada cabe de sobra).
+ * @param tamanoTramo: Clases por tramo de insercion; cada tramo se vuelca en lotes JDBC y se libera
+ *                     del contexto de persistencia para no acumular miles de entidades.
+ * @param diasHistorico: Dias hacia atras que entran en el indice de ocupacion; las fechas anteriores
+ *                       se comprueban contra la BD.
+ */
+@ConfigurationProperties(prefix = "fitgym.horarios")
+public record HorarioProperties(
+    @DefaultValue List<LocalDate> festivos,
+    @DefaultValue("20000") int maxActividades,
+    @DefaultValue("500") int tamanoTramo,
+    @DefaultValue("30") int diasHistorico
+) {}
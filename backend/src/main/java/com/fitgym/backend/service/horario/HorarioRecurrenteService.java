@@ -0,0 +1,168 @@
+package com.fitgym.backend.service.horario;
+
+import com.fitgym.backend.api.dto.ActividadPlantillaRequest;
+import com.fitgym.backend.api.dto.ActividadPlantillaRequest.Franja;
+import com.fitgym.backend.api.dto.ActividadPlantillaResponse;
+import com.fitgym.backend.domain.Actividad;
+import com.fitgym.backend.domain.Monitor;
+import com.fitgym.backend.domain.Sala;
+import com.fitgym.backend.domain.TipoActividad;
+import com.fitgym.backend.repo.ActividadRepository;
+import com.fitgym.backend.repo.MonitorRepository;
+import com.fitgym.backend.repo.SalaRepository;
+import com.fitgym.backend.repo.TipoActividadRepository;
+import com.fitgym.backend.service.BusinessException;
+import com.fitgym.backend.service.CatalogoRevision;
+import jakarta.persistence.EntityManager;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Crea de una vez todas las clases de una plantilla semanal (p. ej. un cuatrimestre entero).
+ *
+ * Un solo viaje para monitor, sala y tipo; los solapes (con lo ya programado y entre las propias
+ * franjas) se comprueban contra el IndiceOcupacion antes de insertar nada. Las clases se insertan en tramos de tamanoTramo dentro de la misma
+ * transaccion: cada tramo sale en lotes JDBC (ids de secuencia por bloques) y se libera del contexto
+ * de persistencia. Si hay conflictos no se crea ninguna.
+ */
+@Service
+public class HorarioRecurrenteService {
+
+  private static final Logger log = LoggerFactory.getLogger(HorarioRecurrenteService.class);
+
+  private final ActividadRepository actividadRepository;
+  private final MonitorRepository monitorRepository;
+  private final SalaRepository salaRepository;
+  private final TipoActividadRepository tipoActividadRepository;
+  private final CatalogoRevision catalogoRevision;
+  private final IndiceOcupacion indiceOcupacion;
+  private final HorarioProperties props;
+  private final EntityManager em;
+
+  public HorarioRecurrenteService(
+      ActividadRepository actividadRepository,
+      MonitorRepository monitorRepository,
+      SalaRepository salaRepository,
+      TipoActividadRepository tipoActividadRepository,
+      CatalogoRevision catalogoRevision,
+      IndiceOcupacion indiceOcupacion,
+      HorarioProperties props,
+      EntityManager em
+  ) {
+    this.actividadRepository = actividadRepository;
+    this.monitorRepository = monitorRepository;
+    this.salaRepository = salaRepository;
+    this.tipoActividadRepository = tipoActividadRepository;
+    this.catalogoRevision = catalogoRevision;
+    this.indiceOcupacion = indiceOcupacion;
+    this.props = props;
+    this.em = em;
+  }
+
+  @Transactional
+  public ActividadPlantillaResponse crearDesdePlantilla(ActividadPlantillaRequest req) {
+    long inicio = System.nanoTime();
+    validar(req);
+
+    Monitor monitor = monitorRepository.findById(req.idMonitor)
+        .orElseThrow(() -> new BusinessException("Monitor no encontrado: " + req.idMonitor));
+    Sala sala = salaRepository.findById(req.idSala)
+        .orElseThrow(() -> new BusinessException("Sala no encontrada: " + req.idSala));
+    TipoActividad tipo = tipoActividadRepository.findById(req.idTipoActividad)
+        .orElseThrow(() -> new BusinessException("TipoActividad no encontrado: " + req.idTipoActividad));
+    if (req.plazas > sala.getAforo()) {
+      throw new BusinessException("Las plazas (" + req.plazas + ") superan el aforo de la sala (" + sala.getAforo() + ").");
+    }
+
+    Set<LocalDate> saltadas = new HashSet<>(props.festivos());
+    if (req.excepciones != null) {
+      saltadas.addAll(req.excepciones);
+    }
+    Map<DayOfWeek, List<Franja>> franjasPorDia = new EnumMap<>(DayOfWeek.class);
+    for (Franja franja : req.franjas) {
+      franjasPorDia.computeIfAbsent(franja.diaSemana(), d -> new ArrayList<>()).add(franja);
+    }
+
+    List<Actividad> nuevas = new ArrayList<>();
+    List<FranjaOcupada> franjas = new ArrayList<>();
+    int omitidas = 0;
+    for (LocalDate fecha = req.desde; !fecha.isAfter(req.hasta); fecha = fecha.plusDays(1)) {
+      List<Franja> delDia = franjasPorDia.get(fecha.getDayOfWeek());
+      if (delDia == null) {
+        continue;
+      }
+      if (saltadas.contains(fecha)) {
+        omitidas += delDia.size();
+        continue;
+      }
+      for (Franja franja : delDia) {
+        nuevas.add(actividad(req, fecha, franja, monitor, sala, tipo));
+        franjas.add(new FranjaOcupada(null, fecha, franja.horaIni(), franja.horaFin(), sala.getId(), monitor.getId()));
+      }
+      if (nuevas.size() > props.maxActividades()) {
+        throw new BusinessException("La plantilla genera mas de " + props.maxActividades() + " clases.");
+      }
+    }
+
+    // Todos los conflictos de una vez antes de escribir; tras insertar, la reserva en el indice vuelve
+    // a comprobar de forma atomica por si otra alta se ha colado entre medias (y entonces no se crea nada)
+    indiceOcupacion.comprobar(franjas);
+    insertarPorTramos(nuevas);
+    indiceOcupacion.reservar(nuevas.stream().map(IndiceOcupacion::franja).toList());
+    if (!nuevas.isEmpty()) {
+      catalogoRevision.actividadesModificadas();
+    }
+
+    long ms = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+    log.info("Plantilla '{}': {} clases creadas ({} omitidas) entre {} y {} en {} ms",
+        req.nombre, nuevas.size(), omitidas, req.desde, req.hasta, ms);
+    return new ActividadPlantillaResponse(nuevas.size(), omitidas, req.desde, req.hasta, ms);
+  }
+
+  private void insertarPorTramos(List<Actividad> nuevas) {
+    int tramo = Math.max(props.tamanoTramo(), 1);
+    for (int desde = 0; desde < nuevas.size(); desde += tramo) {
+      actividadRepository.saveAll(nuevas.subList(desde, Math.min(desde + tramo, nuevas.size())));
+      em.flush();
+      em.clear();
+    }
+  }
+
+  private void validar(ActividadPlantillaRequest req) {
+    if (req.hasta.isBefore(req.desde)) {
+      throw new BusinessException("La fecha final es anterior a la inicial.");
+    }
+    for (Franja franja : req.franjas) {
+      if (!franja.horaFin().isAfter(franja.horaIni())) {
+        throw new BusinessException("Franja " + franja.diaSemana() + " " + franja.horaIni() + ": la hora de fin debe ser posterior a la de inicio.");
+      }
+    }
+  }
+
+  private static Actividad actividad(ActividadPlantillaRequest req, LocalDate fecha, Franja franja,
+                                     Monitor monitor, Sala sala, TipoActividad tipo) {
+    Actividad a = new Actividad();
+    a.setNombre(req.nombre);
+    a.setFecha(fecha);
+    a.setHoraIni(franja.horaIni());
+    a.setHoraFin(franja.horaFin());
+    a.setPrecioExtra(req.precioExtra);
+    a.setPlazas(req.plazas);
+    a.setDisponibles(req.plazas);
+    a.setMonitor(monitor);
+    a.setSala(sala);
+    a.setTipoActividad(tipo);
+    return a;
+  }
+}
@@ -0,0 +1,348 @@
+package com.fitgym.backend.service.horario;
+
+import com.fitgym.backend.domain.Actividad;
+import com.fitgym.backend.repo.ActividadRepository;
+import com.fitgym.backend.service.ConflictoHorarioException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Indice en memoria de la ocupacion de salas y monitores, para detectar solapes sin ir a la BD.
+ *
+ * Cada (sala, fecha) y (monitor, fecha) tiene su agenda: las clases ordenadas por hora de inicio y la
+ * duracion de la mas larga. Una clase [ini, fin) solo puede solapar con las que empiezan dentro de
+ * [ini - duracionMax, fin), asi que cada consulta es un subSet del TreeSet: O(log n) mas las pocas
+ * clases de esa ventana. Vale igual para una edicion suelta que para validar miles de clases de una
+ * plantilla.
+ *
+ * Se construye en el primer uso con las clases desde hoy - diasHistorico; las fechas anteriores se
+ * comprueban contra la BD. El horizonte avanza con los dias: el primer uso de cada dia suelta las agendas
+ * que han quedado por detras, asi que el indice no crece con el tiempo. Las altas y ediciones de admin se
+ * reservan en el indice dentro de su transaccion y se deshacen si no llega a confirmarse. Es por JVM, como
+ * CatalogoRevision: lo que se cambie a mano en BD o desde otro nodo no se ve hasta reiniciar.
+ */
+@Component
+public class IndiceOcupacion {
+
+  private static final int CONFLICTOS_EN_MENSAJE = 5;
+
+  private static final Comparator<FranjaOcupada> POR_INICIO = Comparator.comparing(FranjaOcupada::horaIni)
+      .thenComparing(FranjaOcupada::horaFin)
+      .thenComparing(FranjaOcupada::id, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+  private final ActividadRepository actividadRepository;
+  private final HorarioProperties props;
+  private final Clock clock;
+
+  // ReentrantReadWriteLock y no synchronized: con hilos virtuales, esperar un monitor ancla el hilo a su carrier
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Map<Clave, Agenda> agendas = new HashMap<>();
+  private final Map<Long, FranjaOcupada> porId = new HashMap<>();
+  // Ultima reserva aun sin confirmar de cada clase
+  private final Map<Long, Pendiente> pendientes = new HashMap<>();
+  // Primera fecha indexada; null hasta la primera carga
+  private volatile LocalDate horizonte;
+
+  @Autowired
+  public IndiceOcupacion(ActividadRepository actividadRepository, HorarioProperties props) {
+    this(actividadRepository, props, Clock.systemDefaultZone());
+  }
+
+  IndiceOcupacion(ActividadRepository actividadRepository, HorarioProperties props, Clock clock) {
+    this.actividadRepository = actividadRepository;
+    this.props = props;
+    this.clock = clock;
+  }
+
+  /**
+   * Lanza ConflictoHorarioException si alguna clase solapa con las ya programadas o con otra de la
+   * lista. No reserva nada. Conviene llamarlo antes de escribir en la transaccion: la primera carga
+   * del indice no debe ver filas que aun pueden deshacerse.
+   */
+  public void comprobar(List<FranjaOcupada> franjas) {
+    List<String> conflictos = null;
+    while (conflictos == null) {
+      LocalDate desde = actualizarHorizonte();
+      Map<Clave, Agenda> historico = historico(franjas, desde);
+      lock.readLock().lock();
+      try {
+        // Si el horizonte avanzo mientras se leia el historico, faltarian las fechas que ha soltado
+        if (desde.equals(horizonte)) {
+          conflictos = buscarConflictos(franjas, historico);
+        }
+      } finally {
+        lock.readLock().unlock();
+      }
+    }
+    if (!conflictos.isEmpty()) {
+      throw conflicto(conflictos);
+    }
+  }
+
+  /**
+   * Comprueba y reserva de forma atomica las clases (ya con id). Las que estaban indexadas (ediciones)
+   * sustituyen a su franja anterior. Dentro de una transaccion, la reserva se deshace si no confirma.
+   */
+  public void reservar(List<FranjaOcupada> franjas) {
+    boolean enTransaccion = TransactionSynchronizationManager.isSynchronizationActive();
+    List<Pendiente> reservadas = new ArrayList<>();
+    while (true) {
+      LocalDate desde = actualizarHorizonte();
+      Map<Clave, Agenda> historico = historico(franjas, desde);
+      lock.writeLock().lock();
+      try {
+        if (!desde.equals(horizonte)) {
+          continue;
+        }
+        List<String> conflictos = buscarConflictos(franjas, historico);
+        if (!conflictos.isEmpty()) {
+          throw conflicto(conflictos);
+        }
+        for (FranjaOcupada f : franjas) {
+          Pendiente reserva = new Pendiente(f, quitar(f.id()));
+          anadir(f);
+          // Una reserva sin confirmar de la misma clase pasa a depender de esta (ver terminar)
+          Pendiente previa = enTransaccion ? pendientes.put(f.id(), reserva) : pendientes.remove(f.id());
+          if (previa != null) {
+            previa.siguiente = reserva;
+          }
+          reservadas.add(reserva);
+        }
+        break;
+      } finally {
+        lock.writeLock().unlock();
+      }
+    }
+    if (enTransaccion) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          terminar(reservadas, status == STATUS_COMMITTED);
+        }
+      });
+    }
+  }
+
+  /**
+   * Franja que ocupa una clase ya persistida (con id).
+   */
+  public static FranjaOcupada franja(Actividad a) {
+    return new FranjaOcupada(a.getId(), a.getFecha(), a.getHoraIni(), a.getHoraFin(), a.getSala().getId(), a.getMonitor().getId());
+  }
+
+  /**
+   * Carga el indice en el primer uso y, en el primero de cada dia, adelanta el horizonte soltando las
+   * agendas que quedan por detras. Devuelve el horizonte vigente.
+   */
+  private LocalDate actualizarHorizonte() {
+    LocalDate desde = LocalDate.now(clock).minusDays(props.diasHistorico());
+    LocalDate actual = horizonte;
+    if (actual != null && !desde.isAfter(actual)) {
+      return actual;
+    }
+    lock.writeLock().lock();
+    try {
+      if (horizonte == null) {
+        horizonte = desde;
+        for (FranjaOcupada f : actividadRepository.findOcupacionDesde(desde)) {
+          anadir(f);
+        }
+      } else if (desde.isAfter(horizonte)) {
+        horizonte = desde;
+        agendas.keySet().removeIf(clave -> clave.fecha().isBefore(desde));
+        porId.values().removeIf(f -> f.fecha().isBefore(desde));
+      }
+      return horizonte;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  // Agendas de las fechas anteriores al horizonte, leidas de la BD solo para esta comprobacion:
+  // una consulta por rango para cada pareja (sala, monitor) de la lista
+  private Map<Clave, Agenda> historico(List<FranjaOcupada> franjas, LocalDate desde) {
+    Map<List<Long>, LocalDate[]> rangos = new HashMap<>();
+    for (FranjaOcupada f : franjas) {
+      if (f.fecha().isBefore(desde)) {
+        LocalDate[] rango = rangos.computeIfAbsent(List.of(f.idSala(), f.idMonitor()), k -> new LocalDate[] {f.fecha(), f.fecha()});
+        rango[0] = f.fecha().isBefore(rango[0]) ? f.fecha() : rango[0];
+        rango[1] = f.fecha().isAfter(rango[1]) ? f.fecha() : rango[1];
+      }
+    }
+    Map<Clave, Agenda> historico = new HashMap<>();
+    rangos.forEach((recursos, rango) -> {
+      for (FranjaOcupada o : actividadRepository.findOcupadas(rango[0], rango[1], recursos.get(0), recursos.get(1))) {
+        for (Clave clave : claves(o)) {
+          // la misma clase puede venir en dos consultas; el TreeSet no la duplica
+          historico.computeIfAbsent(clave, c -> new Agenda()).anadir(o);
+        }
+      }
+    });
+    return historico;
+  }
+
+  private List<String> buscarConflictos(List<FranjaOcupada> franjas, Map<Clave, Agenda> historico) {
+    // Las clases que se estan moviendo no chocan con su propia franja anterior
+    Set<Long> moviendose = new HashSet<>();
+    for (FranjaOcupada f : franjas) {
+      if (f.id() != null) {
+        moviendose.add(f.id());
+      }
+    }
+    Map<Clave, Agenda> lote = new HashMap<>();
+    List<String> conflictos = new ArrayList<>();
+    for (FranjaOcupada f : franjas) {
+      Map<Clave, Agenda> origen = f.fecha().isBefore(horizonte) ? historico : agendas;
+      for (Clave clave : claves(f)) {
+        FranjaOcupada choque = Agenda.solape(origen.get(clave), f, moviendose);
+        if (choque == null) {
+          choque = Agenda.solape(lote.get(clave), f, Set.of());
+        }
+        if (choque != null) {
+          conflictos.add(f.fecha() + " " + f.horaIni() + "-" + f.horaFin()
+              + (clave.recurso() == Recurso.SALA ? " (sala ocupada " : " (monitor ocupado ")
+              + choque.horaIni() + "-" + choque.horaFin() + ")");
+          break;
+        }
+      }
+      // Cada clase de la lista tambien ocupa: detecta las que se pisan entre si
+      for (Clave clave : claves(f)) {
+        lote.computeIfAbsent(clave, c -> new Agenda()).anadir(f);
+      }
+    }
+    return conflictos;
+  }
+
+  /**
+   * Cierra las reservas de una transaccion. Si no confirmo, cada clase vuelve a su franja anterior, pero
+   * solo si nadie la ha vuelto a reservar despues: si otra edicion posterior la sustituyo, el indice ya
+   * tiene la franja buena y lo que se corrige es la anterior de esa edicion, por si tampoco confirma.
+   */
+  private void terminar(List<Pendiente> reservas, boolean confirmada) {
+    lock.writeLock().lock();
+    try {
+      for (Pendiente reserva : reservas) {
+        Long id = reserva.franja.id();
+        boolean ultima = pendientes.get(id) == reserva;
+        if (ultima) {
+          pendientes.remove(id);
+        }
+        if (confirmada) {
+          continue;
+        }
+        if (ultima) {
+          quitar(id);
+          if (reserva.anterior != null) {
+            anadir(reserva.anterior);
+          }
+        } else if (reserva.siguiente != null) {
+          reserva.siguiente.anterior = reserva.anterior;
+        }
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void anadir(FranjaOcupada f) {
+    if (f.fecha().isBefore(horizonte)) {
+      return;
+    }
+    porId.put(f.id(), f);
+    for (Clave clave : claves(f)) {
+      agendas.computeIfAbsent(clave, c -> new Agenda()).anadir(f);
+    }
+  }
+
+  private FranjaOcupada quitar(Long id) {
+    FranjaOcupada f = id != null ? porId.remove(id) : null;
+    if (f != null) {
+      for (Clave clave : claves(f)) {
+        Agenda agenda = agendas.get(clave);
+        if (agenda != null && agenda.quitar(f)) {
+          agendas.remove(clave);
+        }
+      }
+    }
+    return f;
+  }
+
+  private static List<Clave> claves(FranjaOcupada f) {
+    return List.of(new Clave(Recurso.SALA, f.idSala(), f.fecha()), new Clave(Recurso.MONITOR, f.idMonitor(), f.fecha()));
+  }
+
+  private static ConflictoHorarioException conflicto(List<String> conflictos) {
+    return new ConflictoHorarioException(conflictos.size() + " clases se solapan con otras de la sala o del monitor: "
+        + String.join(", ", conflictos.subList(0, Math.min(CONFLICTOS_EN_MENSAJE, conflictos.size())))
+        + (conflictos.size() > CONFLICTOS_EN_MENSAJE ? ", ..." : ""));
+  }
+
+  private enum Recurso { SALA, MONITOR }
+
+  private record Clave(Recurso recurso, Long id, LocalDate fecha) {}
+
+  /**
+   * Reserva de una clase aun sin confirmar y la franja que tenia antes (null si es nueva o no estaba
+   * indexada). siguiente es la reserva posterior de la misma clase que la tomo como anterior.
+   */
+  private static final class Pendiente {
+    private final FranjaOcupada franja;
+    private FranjaOcupada anterior;
+    private Pendiente siguiente;
+
+    Pendiente(FranjaOcupada franja, FranjaOcupada anterior) {
+      this.franja = franja;
+      this.anterior = anterior;
+    }
+  }
+
+  /**
+   * Clases de una sala o de un monitor en un dia, ordenadas por hora de inicio.
+   */
+  private static final class Agenda {
+
+    private final TreeSet<FranjaOcupada> franjas = new TreeSet<>(POR_INICIO);
+    // En segundos; no baja al quitar clases, la ventana de busqueda solo queda algo mas ancha
+    private int duracionMax;
+
+    void anadir(FranjaOcupada f) {
+      franjas.add(f);
+      duracionMax = Math.max(duracionMax, f.horaFin().toSecondOfDay() - f.horaIni().toSecondOfDay());
+    }
+
+    // Devuelve true si la agenda queda vacia
+    boolean quitar(FranjaOcupada f) {
+      franjas.remove(f);
+      return franjas.isEmpty();
+    }
+
+    static FranjaOcupada solape(Agenda agenda, FranjaOcupada f, Set<Long> excluidas) {
+      if (agenda == null) {
+        return null;
+      }
+      int desde = f.horaIni().toSecondOfDay() - agenda.duracionMax;
+      FranjaOcupada min = new FranjaOcupada(null, f.fecha(), desde <= 0 ? LocalTime.MIN : LocalTime.ofSecondOfDay(desde), LocalTime.MIN, null, null);
+      FranjaOcupada max = new FranjaOcupada(null, f.fecha(), f.horaFin(), LocalTime.MIN, null, null);
+      for (FranjaOcupada o : agenda.franjas.subSet(min, true, max, false)) {
+        if (o.solapa(f.horaIni(), f.horaFin()) && (o.id() == null || !excluidas.contains(o.id()))) {
+          return o;
+        }
+      }
+      return null;
+    }
+  }
+}
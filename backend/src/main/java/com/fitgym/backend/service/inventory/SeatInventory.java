@@ -0,0 +1,368 @@
+package com.fitgym.backend.service.inventory;
+
+import com.fitgym.backend.domain.Actividad;
+import com.fitgym.backend.domain.ReservaEstado;
+import com.fitgym.backend.repo.ActividadRepository;
+import com.fitgym.backend.repo.ReservaRepository;
+import com.fitgym.backend.service.ActividadNoEncontradaException;
+import com.fitgym.backend.service.CatalogoRevision;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Inventario de plazas en memoria para aperturas de clases muy demandadas.
+ *
+ * - admite o rechaza una reserva con un contador por actividad, sin tocar la fila de actividad
+ * - si la transaccion de la reserva hace rollback, devuelve la plaza
+ * - vuelca los contadores modificados a actividad.disponibles en lotes pequenos (write-behind)
+ * - una reconciliacion periodica corrige desviaciones contra el numero de reservas CONFIRMADA
+ *
+ * Cada contador lleva la cuenta de las ocupaciones y liberaciones cuya transaccion aun no ha acabado:
+ * la reconciliacion solo corrige contadores sin ninguna en curso y sin cambios mientras contaba en BD.
+ *
+ * Mientras esta activo, actividad.disponibles en BD puede ir por detras como mucho un intervalo de volcado.
+ */
+@Component
+public class SeatInventory {
+
+  private static final Logger log = LoggerFactory.getLogger(SeatInventory.class);
+
+  private final ActividadRepository actividadRepository;
+  private final ReservaRepository reservaRepository;
+  private final TransactionTemplate tx;
+  private final SeatInventoryProperties props;
+  private final CatalogoRevision catalogoRevision;
+
+  private final Map<Long, Plazas> plazas = new ConcurrentHashMap<>();
+  private final Set<Long> pendientes = ConcurrentHashMap.newKeySet();
+
+  public SeatInventory(
+      ActividadRepository actividadRepository,
+      ReservaRepository reservaRepository,
+      PlatformTransactionManager transactionManager,
+      SeatInventoryProperties props,
+      CatalogoRevision catalogoRevision
+  ) {
+    this.actividadRepository = actividadRepository;
+    this.reservaRepository = reservaRepository;
+    this.tx = new TransactionTemplate(transactionManager);
+    this.props = props;
+    this.catalogoRevision = catalogoRevision;
+  }
+
+  public boolean isEnabled() {
+    return props.enabled();
+  }
+
+  /**
+   * Intenta ocupar una plaza. Si hay una transaccion activa y acaba en rollback, la plaza se devuelve.
+   */
+  public boolean tryAcquire(Long idActividad) {
+    Plazas p = plazasDe(idActividad);
+    boolean enTransaccion = TransactionSynchronizationManager.isSynchronizationActive();
+    if (!p.ocupar(enTransaccion)) {
+      return false;
+    }
+    pendientes.add(idActividad);
+
+    if (enTransaccion) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          // tras un rollback la plaza vuelve al contador
+          boolean devolver = status != STATUS_COMMITTED;
+          p.terminar(devolver);
+          if (devolver) {
+            pendientes.add(idActividad);
+          }
+        }
+      });
+    }
+    return true;
+  }
+
+  /**
+   * Libera una plaza. Dentro de una transaccion solo se aplica si esta confirma.
+   */
+  public void release(Long idActividad) {
+    Plazas p = plazasDe(idActividad);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      p.empezarLiberacion();
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          p.terminar(status == STATUS_COMMITTED);
+          pendientes.add(idActividad);
+        }
+      });
+    } else {
+      p.liberar();
+      pendientes.add(idActividad);
+    }
+  }
+
+  /**
+   * Aplica al contador en memoria el nuevo numero de plazas que pone un admin, cuando su transaccion
+   * confirma: disponibles se mueve lo mismo que las plazas, sin perder las reservas que entren mientras.
+   * El contador se queda en el mapa, asi que nunca se vuelve a cargar de una fila de BD a medio cambiar.
+   */
+  public void cambiarPlazas(Long idActividad, int nuevasPlazas) {
+    if (!isEnabled()) {
+      return;
+    }
+    Runnable aplicar = () -> {
+      Plazas p = plazas.get(idActividad);
+      // Sin contador no hay nada que ajustar: el primero que lo cargue ya leera la fila nueva
+      if (p != null) {
+        p.cambiarTotal(nuevasPlazas);
+        // la edicion ha escrito en la fila un disponibles calculado sobre BD: el volcado pone el de memoria
+        pendientes.add(idActividad);
+      }
+    };
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          aplicar.run();
+        }
+      });
+    } else {
+      aplicar.run();
+    }
+  }
+
+  /**
+   * Vuelca a BD los contadores modificados, en lotes de flushBatchSize filas por transaccion.
+   */
+  @Scheduled(fixedDelayString = "${fitgym.seat-inventory.flush-interval-ms:500}")
+  public void flush() {
+    if (!isEnabled() || pendientes.isEmpty()) {
+      return;
+    }
+
+    Iterator<Long> it = pendientes.iterator();
+    while (it.hasNext()) {
+      List<Long> lote = new ArrayList<>(props.flushBatchSize());
+      while (it.hasNext() && lote.size() < props.flushBatchSize()) {
+        Long id = it.next();
+        it.remove();
+        lote.add(id);
+      }
+
+      try {
+        tx.executeWithoutResult(s -> {
+          for (Long id : lote) {
+            Plazas p = plazas.get(id);
+            if (p != null) {
+              actividadRepository.fijarDisponibles(id, p.disponibles());
+            }
+          }
+        });
+        // El catalogo lee disponibles de BD: cambia cuando se vuelca, no cuando se reserva
+        catalogoRevision.actividadesModificadas();
+      } catch (RuntimeException ex) {
+        // se reintenta en el siguiente volcado
+        pendientes.addAll(lote);
+        log.warn("No se pudo volcar el inventario de plazas: {}", ex.getMessage());
+        return;
+      }
+    }
+  }
+
+  /**
+   * Recalcula disponibles = plazas - reservas CONFIRMADA para las actividades en memoria
+   * y corrige los contadores que se hayan desviado.
+   *
+   * Solo se tocan contadores sin ocupaciones ni liberaciones en curso al hacer la foto y sin ningun
+   * cambio desde entonces: entonces el recuento de BD refleja exactamente lo que hay en memoria.
+   * El resto se deja para la siguiente vuelta.
+   */
+  @Scheduled(fixedDelayString = "${fitgym.seat-inventory.reconcile-interval-ms:60000}")
+  public void reconcile() {
+    if (!isEnabled() || plazas.isEmpty()) {
+      return;
+    }
+
+    // Foto (version de cada contador quieto) antes de contar
+    Map<Long, Long> versiones = new HashMap<>();
+    plazas.forEach((id, p) -> {
+      long version = p.versionSiQuieto();
+      if (version >= 0) {
+        versiones.put(id, version);
+      }
+    });
+    if (versiones.isEmpty()) {
+      return;
+    }
+
+    Map<Long, Long> confirmadas = new HashMap<>();
+    for (Object[] fila : reservaRepository.contarPorActividad(versiones.keySet(), ReservaEstado.CONFIRMADA)) {
+      confirmadas.put((Long) fila[0], (Long) fila[1]);
+    }
+
+    versiones.forEach((id, version) -> {
+      Plazas p = plazas.get(id);
+      if (p == null) {
+        return;
+      }
+      int anterior = p.corregir(version, confirmadas.getOrDefault(id, 0L).intValue());
+      if (anterior >= 0) {
+        pendientes.add(id);
+        log.info("Inventario de plazas corregido para actividad {}: {} -> {}", id, anterior, p.disponibles());
+      }
+    });
+  }
+
+  private Plazas plazasDe(Long idActividad) {
+    Plazas p = plazas.get(idActividad);
+    if (p != null) {
+      return p;
+    }
+    // Se carga fuera del mapa para no bloquear a otras actividades durante la consulta.
+    Actividad a = actividadRepository.findById(idActividad).orElse(null);
+    if (a == null) {
+      throw new ActividadNoEncontradaException("No se ha encontrado la actividad");
+    }
+    Plazas nueva = new Plazas(a.getPlazas(), a.getDisponibles());
+    Plazas previa = plazas.putIfAbsent(idActividad, nueva);
+    return previa != null ? previa : nueva;
+  }
+
+  /**
+   * Contador de una actividad. Un ReentrantLock por actividad y no synchronized: con hilos virtuales,
+   * esperar un monitor ancla el hilo a su carrier. Cada operacion dentro es de unos pocos nanosegundos.
+   */
+  private static final class Plazas {
+    private final ReentrantLock lock = new ReentrantLock();
+    private int total;
+    private int disponibles;
+    // Ocupaciones y liberaciones cuya transaccion aun no ha terminado
+    private int enCurso;
+    // Sube con cada cambio; la reconciliacion la usa para saber si algo se movio mientras contaba
+    private long version;
+
+    private Plazas(int total, int disponibles) {
+      this.total = total;
+      this.disponibles = disponibles;
+    }
+
+    boolean ocupar(boolean enTransaccion) {
+      lock.lock();
+      try {
+        if (disponibles <= 0) {
+          return false;
+        }
+        disponibles--;
+        if (enTransaccion) {
+          enCurso++;
+        }
+        version++;
+        return true;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    void empezarLiberacion() {
+      lock.lock();
+      try {
+        enCurso++;
+        version++;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /** Fin de la transaccion de una ocupacion o liberacion; devolver = sumar la plaza al contador. */
+    void terminar(boolean devolver) {
+      lock.lock();
+      try {
+        enCurso--;
+        if (devolver) {
+          disponibles = Math.min(disponibles + 1, total);
+        }
+        version++;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    void liberar() {
+      lock.lock();
+      try {
+        disponibles = Math.min(disponibles + 1, total);
+        version++;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /** Mueve disponibles lo mismo que las plazas; nada si ya tenia ese total (cargado tras el cambio). */
+    void cambiarTotal(int nuevoTotal) {
+      lock.lock();
+      try {
+        if (total == nuevoTotal) {
+          return;
+        }
+        disponibles = Math.min(Math.max(disponibles + nuevoTotal - total, 0), nuevoTotal);
+        total = nuevoTotal;
+        version++;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    int disponibles() {
+      lock.lock();
+      try {
+        return disponibles;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /** Version actual si no hay nada en curso, o -1. */
+    long versionSiQuieto() {
+      lock.lock();
+      try {
+        return enCurso == 0 ? version : -1;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    /**
+     * Fija disponibles = total - confirmadas si el contador sigue en la version de la foto (sin nada en
+     * curso). Devuelve el valor anterior si lo ha cambiado, o -1.
+     */
+    int corregir(long versionFoto, int confirmadas) {
+      lock.lock();
+      try {
+        int esperado = Math.max(total - confirmadas, 0);
+        if (version != versionFoto || disponibles == esperado) {
+          return -1;
+        }
+        int anterior = disponibles;
+        disponibles = esperado;
+        version++;
+        return anterior;
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+}
@@ -0,0 +1,15 @@
+package com.fitgym.backend.service.inventory;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Activa las propiedades del inventario de plazas y las tareas programadas
+ * (volcado a BD y reconciliacion).
+ */
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(SeatInventoryProperties.class)
+public class SeatInventoryConfig {
+}
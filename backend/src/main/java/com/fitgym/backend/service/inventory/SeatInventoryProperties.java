@@ -0,0 +1,16 @@
+package com.fitgym.backend.service.inventory;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuracion del inventario de plazas en memoria.
+ *
+ * Desactivado por defecto: solo es correcto con un unico nodo de backend,
+ * porque los contadores viven en la JVM.
+ */
+@ConfigurationProperties(prefix = "fitgym.seat-inventory")
+public record SeatInventoryProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("50") int flushBatchSize
+) {}
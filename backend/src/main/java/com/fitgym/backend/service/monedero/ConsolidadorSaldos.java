@@ -0,0 +1,64 @@
+package com.fitgym.backend.service.monedero;
+
+import com.fitgym.backend.repo.MovimientoMonederoRepository;
+import java.time.Instant;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adelanta periodicamente la foto de saldo de los socios con apuntes nuevos, para que calcular el
+ * saldo no tenga que sumar todo el historial. Puede ejecutarse en varios nodos a la vez: cada socio
+ * se consolida bajo el cerrojo de su foto y una segunda pasada no encuentra nada que hacer.
+ */
+@Component
+public class ConsolidadorSaldos {
+
+  private static final Logger log = LoggerFactory.getLogger(ConsolidadorSaldos.class);
+
+  private final MonederoProperties props;
+  private final MovimientoMonederoRepository movimientos;
+  private final MonederoService monedero;
+
+  public ConsolidadorSaldos(MonederoProperties props, MovimientoMonederoRepository movimientos, MonederoService monedero) {
+    this.props = props;
+    this.movimientos = movimientos;
+    this.monedero = monedero;
+  }
+
+  @Scheduled(
+      initialDelayString = "${fitgym.monedero.retraso-inicial-ms:120000}",
+      fixedDelayString = "${fitgym.monedero.intervalo-ms:300000}")
+  public void consolidar() {
+    if (!props.consolidacion()) {
+      return;
+    }
+    try {
+      consolidarHasta(Instant.now().minus(props.margen()));
+    } catch (RuntimeException ex) {
+      log.warn("No se pudo consolidar el saldo de los monederos: {}", ex.getMessage());
+    }
+  }
+
+  /**
+   * Consolida, por lotes, todos los apuntes anteriores a limite. Devuelve los socios consolidados.
+   */
+  int consolidarHasta(Instant limite) {
+    int lote = Math.max(props.lote(), 1);
+    int socios = 0;
+    while (true) {
+      List<Long> pendientes = movimientos.sociosPorConsolidar(limite, lote);
+      long avance = 0;
+      for (Long idSocio : pendientes) {
+        avance += monedero.consolidar(idSocio, limite);
+      }
+      socios += pendientes.size();
+      // Sin avance el siguiente lote seria el mismo: se deja para la siguiente pasada
+      if (pendientes.size() < lote || avance == 0) {
+        return socios;
+      }
+    }
+  }
+}
@@ -0,0 +1,12 @@
+package com.fitgym.backend.service.monedero;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Activa las propiedades del libro del monedero.
+ */
+@Configuration
+@EnableConfigurationProperties(MonederoProperties.class)
+public class MonederoConfig {
+}
@@ -0,0 +1,21 @@
+package com.fitgym.backend.service.monedero;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuracion de la consolidacion del libro del monedero.
+ *
+ * @param consolidacion: Activa la tarea que vuelca los apuntes antiguos en la foto de saldo de cada socio.
+ * @param margen: Edad minima de un apunte para consolidarlo. Debe superar con holgura la duracion de
+ *                cualquier transaccion que inserte apuntes: un id menor que se confirme despues de
+ *                consolidar quedaria fuera del saldo.
+ * @param lote: Socios consolidados por pasada.
+ */
+@ConfigurationProperties(prefix = "fitgym.monedero")
+public record MonederoProperties(
+    @DefaultValue("true") boolean consolidacion,
+    @DefaultValue("5m") Duration margen,
+    @DefaultValue("200") int lote
+) {}
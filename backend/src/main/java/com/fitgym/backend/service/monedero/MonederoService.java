@@ -0,0 +1,103 @@
+package com.fitgym.backend.service.monedero;
+
+import com.fitgym.backend.domain.MovimientoMonedero;
+import com.fitgym.backend.domain.SaldoMonedero;
+import com.fitgym.backend.domain.TipoMovimiento;
+import com.fitgym.backend.repo.MovimientoMonederoRepository;
+import com.fitgym.backend.repo.SaldoMonederoRepository;
+import java.math.BigDecimal;
+import java.time.Instant;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Monedero de los socios como libro de apuntes (movimiento_monedero) en el que solo se inserta.
+ *
+ * saldo = foto (saldo_monedero: abonos consolidados menos todos los cargos) + abonos posteriores a la foto.
+ *
+ * - Abonos (recargas, reembolsos): un INSERT y nada mas; no bloquean ni compiten con nadie.
+ * - Cargos (reservas): un UPDATE condicional de la foto que descuenta el importe solo si el saldo
+ *   lo cubre (comprobacion y escritura en la misma sentencia, sin SELECT ... FOR UPDATE previo),
+ *   mas el INSERT del apunte negativo. Dos cargos del mismo socio se ordenan en la fila de la foto;
+ *   los de socios distintos y los abonos no se esperan entre si.
+ * - ConsolidadorSaldos adelanta la foto con los abonos, para que el saldo se calcule con pocos apuntes.
+ *
+ * Los metodos se unen a la transaccion del llamante: el cargo y su apunte se confirman o se deshacen
+ * con la reserva o la recarga que los origina.
+ */
+@Service
+public class MonederoService {
+
+    private final MovimientoMonederoRepository movimientos;
+    private final SaldoMonederoRepository saldos;
+
+    public MonederoService(MovimientoMonederoRepository movimientos, SaldoMonederoRepository saldos) {
+        this.movimientos = movimientos;
+        this.saldos = saldos;
+    }
+
+    @Transactional(readOnly = true)
+    public BigDecimal saldo(Long idSocio) {
+        SaldoMonedero foto = saldos.findById(idSocio).orElse(null);
+        BigDecimal base = foto != null ? foto.getSaldo() : BigDecimal.ZERO;
+        long desde = foto != null ? foto.getHastaMovimiento() : 0L;
+        return base.add(movimientos.sumarAbonosDesde(idSocio, desde));
+    }
+
+    /**
+     * Anota un abono (importe positivo).
+     */
+    @Transactional
+    public void abonar(Long idSocio, BigDecimal importe, TipoMovimiento tipo, String referencia) {
+        if (importe == null || importe.signum() <= 0) {
+            throw new IllegalArgumentException("El importe a abonar debe ser positivo.");
+        }
+        movimientos.save(new MovimientoMonedero(idSocio, importe, tipo, referencia, Instant.now()));
+    }
+
+    /**
+     * Anota un cargo (importe positivo, se guarda en negativo) si el saldo alcanza.
+     * Devuelve false, sin anotar nada, si no hay saldo suficiente.
+     */
+    @Transactional
+    public boolean cargar(Long idSocio, BigDecimal importe, TipoMovimiento tipo, String referencia) {
+        if (importe == null || importe.signum() <= 0) {
+            throw new IllegalArgumentException("El importe a cargar debe ser positivo.");
+        }
+        Instant ahora = Instant.now();
+        int cargados = saldos.cargar(idSocio, importe, ahora);
+        if (cargados == 0) {
+            // Primer cargo del socio: sin foto no hay fila que actualizar
+            saldos.crearSiNoExiste(idSocio, ahora);
+            cargados = saldos.cargar(idSocio, importe, ahora);
+        }
+        if (cargados == 0) {
+            return false;
+        }
+        movimientos.save(new MovimientoMonedero(idSocio, importe.negate(), tipo, referencia, ahora));
+        return true;
+    }
+
+    /**
+     * Vuelca en la foto del socio sus abonos anteriores a limite. Devuelve cuantos ids avanzo la foto
+     * (0 si no habia nada que consolidar).
+     */
+    @Transactional
+    public long consolidar(Long idSocio, Instant limite) {
+        Instant ahora = Instant.now();
+        SaldoMonedero foto = bloquearFoto(idSocio, ahora);
+        Long hasta = movimientos.ultimoAntesDe(idSocio, limite);
+        if (hasta == null || hasta <= foto.getHastaMovimiento()) {
+            return 0;
+        }
+        long desde = foto.getHastaMovimiento();
+        foto.consolidar(movimientos.sumarAbonosEntre(idSocio, desde, hasta), hasta, ahora);
+        return hasta - desde;
+    }
+
+    private SaldoMonedero bloquearFoto(Long idSocio, Instant ahora) {
+        saldos.crearSiNoExiste(idSocio, ahora);
+        return saldos.bloquear(idSocio)
+                .orElseThrow(() -> new IllegalStateException("Sin foto de saldo para el socio " + idSocio));
+    }
+}
@@ -0,0 +1,113 @@
+package com.fitgym.backend.service.password;
+
+import com.fitgym.backend.service.ServicioSaturadoException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PasswordEncoder que ejecuta el hashing (BCrypt) en un pool acotado en lugar de en el hilo de la peticion.
+ *
+ * BCrypt es CPU puro: en una avalancha de logins, hacerlo en los hilos de Tomcat los ocupa todos y
+ * endpoints baratos como el catalogo se quedan sin CPU. Con el pool, como mucho hay tantos hashes
+ * en paralelo como hilos (por defecto, nucleos), el resto espera en una cola acotada y, si la cola
+ * esta llena, se rechaza al momento con {@link ServicioSaturadoException} (503) en lugar de acumular espera.
+ *
+ * Metricas: fitgym.password.hash.queue (espera en cola), fitgym.password.hash.time (duracion del hash),
+ * fitgym.password.hash.rejected (rechazos por cola llena), etiquetadas por operacion (encode/matches).
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, AutoCloseable {
+
+  private final PasswordEncoder delegate;
+  private final ThreadPoolExecutor executor;
+  private final Counter rechazos;
+  private final Metricas encode;
+  private final Metricas matches;
+
+  public BoundedPasswordEncoder(PasswordEncoder delegate, PasswordHashingProperties props, MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    int hilos = props.hilosEfectivos();
+    this.executor = new ThreadPoolExecutor(
+        hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(Math.max(props.queueCapacity(), 1)),
+        Thread.ofPlatform().name("password-hash-", 0).daemon(true).factory(),
+        new ThreadPoolExecutor.AbortPolicy());
+    this.rechazos = Counter.builder("fitgym.password.hash.rejected")
+        .description("Hashes rechazados por cola llena")
+        .register(meterRegistry);
+    meterRegistry.gauge("fitgym.password.hash.queue.size", executor, e -> e.getQueue().size());
+    this.encode = Metricas.de(meterRegistry, "encode");
+    this.matches = Metricas.de(meterRegistry, "matches");
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return ejecutar(encode, () -> delegate.encode(rawPassword));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return ejecutar(matches, () -> delegate.matches(rawPassword, encodedPassword));
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+
+  @Override
+  public void close() {
+    executor.shutdown();
+  }
+
+  private <T> T ejecutar(Metricas metricas, Callable<T> hash) {
+    long encolado = System.nanoTime();
+
+    Future<T> futuro;
+    try {
+      futuro = executor.submit(() -> {
+        metricas.espera().record(System.nanoTime() - encolado, TimeUnit.NANOSECONDS);
+        return metricas.duracion().recordCallable(hash);
+      });
+    } catch (RejectedExecutionException ex) {
+      rechazos.increment();
+      throw new ServicioSaturadoException("Servidor ocupado. Intentalo de nuevo en unos segundos.");
+    }
+
+    try {
+      return futuro.get();
+    } catch (InterruptedException ex) {
+      futuro.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Hash de contrasena interrumpido.", ex);
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof RuntimeException re) {
+        throw re;
+      }
+      throw new IllegalStateException("Error al calcular el hash de la contrasena.", ex.getCause());
+    }
+  }
+
+  private record Metricas(Timer espera, Timer duracion) {
+    static Metricas de(MeterRegistry registry, String operacion) {
+      return new Metricas(
+          Timer.builder("fitgym.password.hash.queue")
+              .description("Espera en cola del hash")
+              .tag("operacion", operacion)
+              .register(registry),
+          Timer.builder("fitgym.password.hash.time")
+              .description("Duracion del hash")
+              .tag("operacion", operacion)
+              .register(registry));
+    }
+  }
+}
@@ -0,0 +1,29 @@
+package com.fitgym.backend.service.password;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuracion del hashing de contrasenas.
+ *
+ * @param threads: Hilos del pool; 0 usa el numero de nucleos disponibles.
+ * @param queueCapacity: Hashes que pueden esperar en cola; por encima se responde 503.
+ * @param algoritmo: Perfil con el que se generan los hashes nuevos ("bcrypt" o "pbkdf2").
+ *                   Los hashes existentes de otro perfil se siguen aceptando y se rehacen en el login.
+ * @param objetivoMs: Latencia objetivo por hash con BCrypt; el coste se calibra al arrancar en esta maquina.
+ * @param costeMinimo: Coste BCrypt por debajo del cual no se baja nunca, aunque la maquina sea lenta.
+ * @param coste: Coste BCrypt fijo; 0 calibra al arrancar.
+ */
+@ConfigurationProperties(prefix = "fitgym.password-hashing")
+public record PasswordHashingProperties(
+    @DefaultValue("0") int threads,
+    @DefaultValue("64") int queueCapacity,
+    @DefaultValue(PerfilesHash.BCRYPT) String algoritmo,
+    @DefaultValue("100") int objetivoMs,
+    @DefaultValue("10") int costeMinimo,
+    @DefaultValue("0") int coste
+) {
+  public int hilosEfectivos() {
+    return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+  }
+}
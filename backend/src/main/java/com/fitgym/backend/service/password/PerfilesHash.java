@@ -0,0 +1,97 @@
+package com.fitgym.backend.service.password;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.Map;
+
+/**
+ * Perfiles de hashing de contrasenas y calibracion del coste.
+ *
+ * Los hashes nuevos llevan el perfil como prefijo ("{bcrypt}$2a$12$...") y BCrypt guarda su coste
+ * dentro del propio hash, asi que siempre se sabe con que parametros se genero cada uno. Los hashes
+ * antiguos sin prefijo (semillas, GenBcrypt) se validan como BCrypt.
+ *
+ * upgradeEncoding() indica que un hash debe rehacerse cuando no es del perfil actual o su coste BCrypt
+ * es menor que el calibrado; SocioService lo rehace en el siguiente login correcto. Un coste mayor no se
+ * rebaja: si la calibracion sale mas baja (maquina mas rapida un dia, mas lenta otro) no se debilitan hashes.
+ */
+public final class PerfilesHash {
+
+  public static final String BCRYPT = "bcrypt";
+  // Parametros fijos de Spring Security 5.8 (PBKDF2-HMAC-SHA256, 310000 iteraciones) identificados por el id
+  public static final String PBKDF2 = "pbkdf2@SpringSecurity_v5_8";
+
+  private static final int COSTE_MAXIMO = 16;
+  private static final Logger log = LoggerFactory.getLogger(PerfilesHash.class);
+
+  private PerfilesHash() {}
+
+  public static PasswordEncoder crear(PasswordHashingProperties props) {
+    int coste = props.coste() > 0 ? props.coste() : calibrarCosteBCrypt(props.objetivoMs(), props.costeMinimo());
+    String idNuevos = "pbkdf2".equalsIgnoreCase(props.algoritmo()) ? PBKDF2 : BCRYPT;
+    log.info("Hashing de contrasenas: perfil {} (coste BCrypt {})", idNuevos, coste);
+
+    BCryptCalibrado bcrypt = new BCryptCalibrado(coste);
+    DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(idNuevos, Map.of(
+        BCRYPT, bcrypt,
+        PBKDF2, Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8()));
+    encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+    return encoder;
+  }
+
+  /**
+   * Mayor coste BCrypt cuyo hash tarda como mucho objetivoMs en esta maquina (nunca menos de costeMinimo).
+   *
+   * Cada punto de coste duplica el trabajo, asi que basta con medir el coste minimo y extrapolar.
+   */
+  static int calibrarCosteBCrypt(int objetivoMs, int costeMinimo) {
+    BCryptPasswordEncoder base = new BCryptPasswordEncoder(costeMinimo);
+    base.encode("calentamiento");
+
+    long mejor = Long.MAX_VALUE;
+    for (int i = 0; i < 3; i++) {
+      long inicio = System.nanoTime();
+      base.encode("calibracion");
+      mejor = Math.min(mejor, System.nanoTime() - inicio);
+    }
+
+    int coste = costeMinimo;
+    double ms = mejor / 1e6;
+    while (coste < COSTE_MAXIMO && ms * 2 <= objetivoMs) {
+      coste++;
+      ms *= 2;
+    }
+    return coste;
+  }
+
+  /**
+   * BCrypt que pide rehacer el hash si su coste es menor que el calibrado. A diferencia de
+   * BCryptPasswordEncoder, un hash con formato inesperado no lanza excepcion: simplemente no se rehace.
+   */
+  static final class BCryptCalibrado extends BCryptPasswordEncoder {
+    private final int coste;
+
+    BCryptCalibrado(int coste) {
+      super(coste);
+      this.coste = coste;
+    }
+
+    @Override
+    protected boolean upgradeEncodingNonNull(String encodedPassword) {
+      // formato $2a$NN$...
+      if (encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$') {
+        return false;
+      }
+      try {
+        return Integer.parseInt(encodedPassword.substring(4, 6)) < coste;
+      } catch (NumberFormatException ex) {
+        return false;
+      }
+    }
+  }
+}
@@ -0,0 +1,12 @@
+package com.fitgym.backend.service.reconciliacion;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Activa las propiedades del reconciliador de pagos PENDING.
+ */
+@Configuration
+@EnableConfigurationProperties(ReconciliacionProperties.class)
+public class ReconciliacionConfig {
+}
@@ -0,0 +1,25 @@
+package com.fitgym.backend.service.reconciliacion;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuracion del reconciliador de pagos PENDING.
+ *
+ * @param enabled: Activa la tarea programada (se puede tener en todos los nodos a la vez).
+ * @param edadMinima: Tiempo sin tocar antes de reclamar un pago; tambien es lo que espera un pago
+ *                    reclamado (por este u otro nodo) antes de volver a intentarse.
+ * @param lote: Pagos reclamados por transaccion.
+ * @param concurrencia: Verificaciones a TPVV en paralelo; por debajo de tpvv.resiliencia.max-concurrentes
+ *                      para dejar hueco a las peticiones de los usuarios.
+ * @param caducidad: Edad a partir de la cual un pago que TPVV sigue dando por PENDING se marca FAILED.
+ */
+@ConfigurationProperties(prefix = "fitgym.reconciliacion")
+public record ReconciliacionProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("2m") Duration edadMinima,
+    @DefaultValue("50") int lote,
+    @DefaultValue("4") int concurrencia,
+    @DefaultValue("24h") Duration caducidad
+) {}
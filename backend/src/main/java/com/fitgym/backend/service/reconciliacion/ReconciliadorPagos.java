@@ -0,0 +1,256 @@
+package com.fitgym.backend.service.reconciliacion;
+
+import com.fitgym.backend.domain.PagoRegistroEstado;
+import com.fitgym.backend.repo.PagoMonederoRepository;
+import com.fitgym.backend.repo.PagoRegistroRepository;
+import com.fitgym.backend.service.PagoDesconocidoEnTpvvException;
+import com.fitgym.backend.service.PagoMonederoService;
+import com.fitgym.backend.service.PagoRegistroService;
+import com.fitgym.backend.service.ServicioSaturadoException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Resuelve en segundo plano los pagos (alta y monedero) que se quedaron PENDING porque el navegador
+ * nunca volvio a llamar a /verify.
+ *
+ * Cada ciclo reclama lotes de pagos PENDING sin tocar desde hace edadMinima con
+ * SELECT ... FOR UPDATE SKIP LOCKED y les pone updated_at = ahora en la misma transaccion corta:
+ * varios nodos pueden reconciliar a la vez sin verificar dos veces el mismo pago. Despues los verifica
+ * en hilos virtuales, como mucho concurrencia a la vez, con los mismos metodos que los endpoints
+ * /verify (transicion condicionada y abono del monedero incluidos). Los pagos que TPVV no conoce (404)
+ * o que siguen PENDING pasada la caducidad se marcan FAILED. Si el circuito de TPVV esta abierto se
+ * deja el resto para el siguiente ciclo.
+ *
+ * Metricas: fitgym.pagos.reconciliados (por tipo y resultado), fitgym.pagos.reconciliacion (duracion
+ * del ciclo) y fitgym.pagos.pendientes.lag (segundos del PENDING mas antiguo), etiquetadas por tipo.
+ */
+@Component
+public class ReconciliadorPagos {
+
+  private static final Logger log = LoggerFactory.getLogger(ReconciliadorPagos.class);
+
+  enum Resultado { COMPLETADO, FALLIDO, PENDIENTE, CADUCADO, APLAZADO, ERROR }
+
+  /** Estado de un pago tras verificarlo. */
+  record Verificado(PagoRegistroEstado estado, Instant createdAt) {}
+
+  private final ReconciliacionProperties props;
+  private final TransactionTemplate tx;
+  private final Clock clock;
+  private final Cola registro;
+  private final Cola monedero;
+
+  @Autowired
+  public ReconciliadorPagos(
+      ReconciliacionProperties props,
+      PagoRegistroRepository pagoRegistroRepo,
+      PagoMonederoRepository pagoMonederoRepo,
+      PagoRegistroService pagoRegistroService,
+      PagoMonederoService pagoMonederoService,
+      PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry
+  ) {
+    this(props, pagoRegistroRepo, pagoMonederoRepo, pagoRegistroService, pagoMonederoService,
+        transactionManager, meterRegistry, Clock.systemUTC());
+  }
+
+  ReconciliadorPagos(
+      ReconciliacionProperties props,
+      PagoRegistroRepository pagoRegistroRepo,
+      PagoMonederoRepository pagoMonederoRepo,
+      PagoRegistroService pagoRegistroService,
+      PagoMonederoService pagoMonederoService,
+      PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry,
+      Clock clock
+  ) {
+    this.props = props;
+    this.tx = new TransactionTemplate(transactionManager);
+    this.clock = clock;
+    this.registro = new Cola("registro", meterRegistry,
+        (limite, lote) -> {
+          List<String> tokens = pagoRegistroRepo.reclamarPendientes(limite, lote);
+          if (!tokens.isEmpty()) {
+            pagoRegistroRepo.aplazar(tokens, clock.instant());
+          }
+          return tokens;
+        },
+        token -> {
+          var pago = pagoRegistroService.verificarPago(token);
+          return new Verificado(pago.getEstado(), pago.getCreatedAt());
+        },
+        pagoRegistroService::caducar,
+        pagoRegistroRepo::pendienteMasAntiguo);
+    this.monedero = new Cola("monedero", meterRegistry,
+        (limite, lote) -> {
+          List<String> tokens = pagoMonederoRepo.reclamarPendientes(limite, lote);
+          if (!tokens.isEmpty()) {
+            pagoMonederoRepo.aplazar(tokens, clock.instant());
+          }
+          return tokens;
+        },
+        token -> {
+          var pago = pagoMonederoService.verificarRecarga(token);
+          return new Verificado(pago.getEstado(), pago.getCreatedAt());
+        },
+        pagoMonederoService::caducarRecarga,
+        pagoMonederoRepo::pendienteMasAntiguo);
+  }
+
+  @Scheduled(
+      initialDelayString = "${fitgym.reconciliacion.retraso-inicial-ms:60000}",
+      fixedDelayString = "${fitgym.reconciliacion.intervalo-ms:30000}")
+  public void reconciliar() {
+    if (!props.enabled()) {
+      return;
+    }
+    for (Cola cola : List.of(registro, monedero)) {
+      try {
+        cola.duracion.record(() -> reconciliar(cola));
+        cola.actualizarLag(clock.instant());
+      } catch (RuntimeException ex) {
+        log.warn("No se pudo reconciliar los pagos de {}: {}", cola.tipo, ex.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Reclama y verifica lotes hasta que no quedan pagos listos o TPVV deja de aceptar llamadas.
+   * Devuelve los pagos procesados.
+   */
+  private int reconciliar(Cola cola) {
+    AtomicBoolean tpvvNoDisponible = new AtomicBoolean();
+    int lote = Math.max(props.lote(), 1);
+    int procesados = 0;
+    while (!tpvvNoDisponible.get()) {
+      Instant ahora = clock.instant();
+      List<String> tokens = tx.execute(status -> cola.reclamar.apply(ahora.minus(props.edadMinima()), lote));
+      if (tokens == null || tokens.isEmpty()) {
+        break;
+      }
+      verificar(cola, tokens, ahora, tpvvNoDisponible);
+      procesados += tokens.size();
+      if (tokens.size() < lote) {
+        break;
+      }
+    }
+    return procesados;
+  }
+
+  private void verificar(Cola cola, List<String> tokens, Instant ahora, AtomicBoolean tpvvNoDisponible) {
+    Semaphore cupo = new Semaphore(Math.max(props.concurrencia(), 1));
+    try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (String token : tokens) {
+        cupo.acquireUninterruptibly();
+        hilos.execute(() -> {
+          try {
+            cola.contar(tpvvNoDisponible.get() ? Resultado.APLAZADO : verificarUno(cola, token, ahora, tpvvNoDisponible));
+          } finally {
+            cupo.release();
+          }
+        });
+      }
+    }
+  }
+
+  private Resultado verificarUno(Cola cola, String token, Instant ahora, AtomicBoolean tpvvNoDisponible) {
+    try {
+      Verificado pago = cola.verificar.apply(token);
+      if (pago.estado() == PagoRegistroEstado.COMPLETED) {
+        return Resultado.COMPLETADO;
+      }
+      if (pago.estado() == PagoRegistroEstado.FAILED) {
+        return Resultado.FALLIDO;
+      }
+      if (!caducado(pago, ahora)) {
+        return Resultado.PENDIENTE;
+      }
+      String motivo = "Caducado: TPVV no lo resolvio en " + props.caducidad().toHours() + " h.";
+      return cola.caducar.apply(token, motivo) ? Resultado.CADUCADO : Resultado.PENDIENTE;
+    } catch (PagoDesconocidoEnTpvvException ex) {
+      return cola.caducar.apply(token, "TPVV no reconoce el pago.") ? Resultado.CADUCADO : Resultado.PENDIENTE;
+    } catch (ServicioSaturadoException ex) {
+      // Circuito abierto o TPVV saturado: el resto del lote espera al siguiente ciclo
+      tpvvNoDisponible.set(true);
+      return Resultado.APLAZADO;
+    } catch (RuntimeException ex) {
+      log.debug("No se pudo reconciliar el pago {} de {}: {}", token, cola.tipo, ex.getMessage());
+      return Resultado.ERROR;
+    }
+  }
+
+  private boolean caducado(Verificado pago, Instant ahora) {
+    return pago.createdAt() != null && pago.createdAt().isBefore(ahora.minus(props.caducidad()));
+  }
+
+  /** Acceso a BD, verificacion y metricas de un tipo de pago. */
+  static final class Cola {
+    private final String tipo;
+    private final BiFunction<Instant, Integer, List<String>> reclamar;
+    private final Function<String, Verificado> verificar;
+    private final BiFunction<String, String, Boolean> caducar;
+    private final Supplier<Instant> masAntiguo;
+    private final Map<Resultado, Counter> reconciliados = new EnumMap<>(Resultado.class);
+    private final Timer duracion;
+    private final AtomicLong lagSegundos = new AtomicLong();
+
+    Cola(String tipo, MeterRegistry registry,
+         BiFunction<Instant, Integer, List<String>> reclamar,
+         Function<String, Verificado> verificar,
+         BiFunction<String, String, Boolean> caducar,
+         Supplier<Instant> masAntiguo) {
+      this.tipo = tipo;
+      this.reclamar = reclamar;
+      this.verificar = verificar;
+      this.caducar = caducar;
+      this.masAntiguo = masAntiguo;
+      for (Resultado resultado : Resultado.values()) {
+        reconciliados.put(resultado, Counter.builder("fitgym.pagos.reconciliados")
+            .description("Pagos PENDING procesados por el reconciliador")
+            .tag("tipo", tipo)
+            .tag("resultado", resultado.name().toLowerCase(Locale.ROOT))
+            .register(registry));
+      }
+      this.duracion = Timer.builder("fitgym.pagos.reconciliacion")
+          .description("Duracion de un ciclo de reconciliacion")
+          .tag("tipo", tipo)
+          .register(registry);
+      registry.gauge("fitgym.pagos.pendientes.lag", List.of(Tag.of("tipo", tipo)),
+          lagSegundos, AtomicLong::get);
+    }
+
+    void contar(Resultado resultado) {
+      reconciliados.get(resultado).increment();
+    }
+
+    void actualizarLag(Instant ahora) {
+      Instant antiguo = masAntiguo.get();
+      lagSegundos.set(antiguo == null ? 0 : Math.max(Duration.between(antiguo, ahora).toSeconds(), 0));
+    }
+  }
+}
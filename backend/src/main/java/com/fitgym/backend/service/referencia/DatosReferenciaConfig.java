@@ -0,0 +1,16 @@
+package com.fitgym.backend.service.referencia;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Activa la cache de Spring para los datos de referencia.
+ *
+ * El proveedor (Caffeine), los nombres de las caches, el tamano maximo y el TTL
+ * se configuran en application.yaml (spring.cache.*). Con el actuator, Spring Boot
+ * publica los aciertos/fallos de cada cache como cache.gets{result=hit|miss}.
+ */
+@Configuration
+@EnableCaching
+public class DatosReferenciaConfig {
+}
@@ -0,0 +1,127 @@
+package com.fitgym.backend.service.referencia;
+
+import com.fitgym.backend.api.dto.IdNombreResponse;
+import com.fitgym.backend.api.dto.SalaLookupResponse;
+import com.fitgym.backend.domain.Tarifa;
+import com.fitgym.backend.repo.MonitorRepository;
+import com.fitgym.backend.repo.SalaRepository;
+import com.fitgym.backend.repo.TarifaRepository;
+import com.fitgym.backend.repo.TipoActividadRepository;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Lectura cacheada de los datos de referencia (tarifas, monitores, salas y tipos de actividad).
+ *
+ * Son tablas que cambian muy pocas veces al ano, asi que registro, tarifas y lookups de admin
+ * se sirven desde una cache en memoria acotada y con TTL en lugar de ir a la BD en cada peticion.
+ * Las escrituras conocidas (alta/edicion de monitores) invalidan la cache tras el commit;
+ * el TTL cubre los cambios hechos directamente en BD.
+ *
+ * Las tarifas se guardan como entidades separadas del contexto de persistencia: se pueden
+ * asignar como referencia (p.ej. a un socio) pero no se deben modificar.
+ */
+@Service
+public class DatosReferenciaService {
+
+  public static final String TARIFAS = "tarifas";
+  public static final String TARIFA = "tarifa";
+  public static final String MONITORES = "monitores";
+  public static final String SALAS = "salas";
+  public static final String TIPOS_ACTIVIDAD = "tipos-actividad";
+
+  private final TarifaRepository tarifaRepository;
+  private final MonitorRepository monitorRepository;
+  private final SalaRepository salaRepository;
+  private final TipoActividadRepository tipoActividadRepository;
+  private final CacheManager cacheManager;
+
+  public DatosReferenciaService(
+      TarifaRepository tarifaRepository,
+      MonitorRepository monitorRepository,
+      SalaRepository salaRepository,
+      TipoActividadRepository tipoActividadRepository,
+      CacheManager cacheManager
+  ) {
+    this.tarifaRepository = tarifaRepository;
+    this.monitorRepository = monitorRepository;
+    this.salaRepository = salaRepository;
+    this.tipoActividadRepository = tipoActividadRepository;
+    this.cacheManager = cacheManager;
+  }
+
+  @Cacheable(TARIFAS)
+  public List<Tarifa> tarifas() {
+    return List.copyOf(tarifaRepository.findAll());
+  }
+
+  /**
+   * Tarifa por id. Las tarifas inexistentes no se cachean.
+   */
+  @Cacheable(cacheNames = TARIFA, unless = "#result == null")
+  public Optional<Tarifa> tarifa(Long id) {
+    return tarifaRepository.findById(id);
+  }
+
+  @Cacheable(MONITORES)
+  public List<IdNombreResponse> monitores() {
+    return monitorRepository.findAll().stream()
+        .map(m -> new IdNombreResponse(m.getId(), m.getNombre()))
+        .toList();
+  }
+
+  @Cacheable(SALAS)
+  public List<SalaLookupResponse> salas() {
+    return salaRepository.findAll().stream()
+        .map(s -> new SalaLookupResponse(s.getId(), s.getDescripcion(), s.getFoto()))
+        .toList();
+  }
+
+  @Cacheable(TIPOS_ACTIVIDAD)
+  public List<IdNombreResponse> tiposActividad() {
+    return tipoActividadRepository.findAll().stream()
+        .map(t -> new IdNombreResponse(t.getId(), t.getNombre()))
+        .toList();
+  }
+
+  public void monitoresModificados() {
+    invalidar(MONITORES);
+  }
+
+  public void tarifasModificadas() {
+    invalidar(TARIFAS, TARIFA);
+  }
+
+  /**
+   * Vacia las caches indicadas tras el commit (o al momento si no hay transaccion).
+   *
+   * Vaciarlas antes del commit dejaria que una lectura concurrente volviera a cachear los datos viejos.
+   */
+  private void invalidar(String... nombres) {
+    Runnable accion = () -> {
+      for (String nombre : nombres) {
+        Cache cache = cacheManager.getCache(nombre);
+        if (cache != null) {
+          cache.clear();
+        }
+      }
+    };
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          accion.run();
+        }
+      });
+    } else {
+      accion.run();
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package com.fitgym.backend.service.tpvv;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Circuit breaker del cliente TPVV por fallos consecutivos.
+ *
+ * CERRADO deja pasar todo; tras fallosParaAbrir fallos seguidos pasa a ABIERTO y rechaza sin llamar
+ * durante tiempoAbierto. Despues deja pasar una unica sonda (SEMIABIERTO): si va bien se cierra,
+ * si falla vuelve a abrirse. Solo cuentan como fallo los errores del gateway (timeouts, 5xx), no los 4xx.
+ *
+ * Usa ReentrantLock y no synchronized: con hilos virtuales, esperar un monitor ancla el hilo a su carrier.
+ */
+final class CircuitoTpvv {
+
+  enum Estado { CERRADO, ABIERTO, SEMIABIERTO }
+
+  private final int fallosParaAbrir;
+  private final Duration tiempoAbierto;
+  private final Clock clock;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private volatile Estado estado = Estado.CERRADO;
+  private int fallosSeguidos;
+  private Instant abiertoHasta = Instant.MIN;
+  private boolean sondaEnCurso;
+
+  CircuitoTpvv(int fallosParaAbrir, Duration tiempoAbierto, Clock clock) {
+    this.fallosParaAbrir = Math.max(fallosParaAbrir, 1);
+    this.tiempoAbierto = tiempoAbierto;
+    this.clock = clock;
+  }
+
+  /**
+   * Indica si la llamada puede salir. En SEMIABIERTO solo la primera obtiene permiso (la sonda).
+   */
+  boolean permitir() {
+    if (estado == Estado.CERRADO) {
+      return true;
+    }
+    lock.lock();
+    try {
+      if (estado == Estado.ABIERTO && !clock.instant().isBefore(abiertoHasta)) {
+        estado = Estado.SEMIABIERTO;
+        sondaEnCurso = false;
+      }
+      return switch (estado) {
+        case CERRADO -> true;
+        case ABIERTO -> false;
+        case SEMIABIERTO -> {
+          if (sondaEnCurso) {
+            yield false;
+          }
+          sondaEnCurso = true;
+          yield true;
+        }
+      };
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  void registrarExito() {
+    lock.lock();
+    try {
+      estado = Estado.CERRADO;
+      fallosSeguidos = 0;
+      sondaEnCurso = false;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  void registrarFallo() {
+    lock.lock();
+    try {
+      fallosSeguidos++;
+      if (estado == Estado.SEMIABIERTO || fallosSeguidos >= fallosParaAbrir) {
+        estado = Estado.ABIERTO;
+        abiertoHasta = clock.instant().plus(tiempoAbierto);
+        sondaEnCurso = false;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * La llamada con permiso no llego a salir (p.ej. sin hueco en el bulkhead): no cuenta ni como exito ni como fallo.
+   */
+  void liberar() {
+    lock.lock();
+    try {
+      sondaEnCurso = false;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Tiempo hasta que el circuito deje pasar la siguiente sonda; cero si ya la deja pasar (o esta cerrado).
+   */
+  Duration restanteAbierto() {
+    if (estado != Estado.ABIERTO) {
+      return Duration.ZERO;
+    }
+    lock.lock();
+    try {
+      Duration restante = Duration.between(clock.instant(), abiertoHasta);
+      return restante.isNegative() ? Duration.ZERO : restante;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  Estado estado() {
+    return estado;
+  }
+}
@@ -0,0 +1,96 @@
+package com.fitgym.backend.service.tpvv;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.util.HexFormat;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Firma de las notificaciones del webhook de TPVV.
+ *
+ * TPVV envia X-TPVV-Timestamp (segundos epoch) y X-TPVV-Signature = "sha256=" + hex(HMAC-SHA256(secreto,
+ * timestamp + "." + cuerpo)). Se comprueba en tiempo constante y se rechazan timestamps fuera de la tolerancia.
+ */
+@Component
+public class FirmaWebhookTpvv {
+
+  private static final String ALGORITMO = "HmacSHA256";
+  private static final String PREFIJO = "sha256=";
+  private static final HexFormat HEX = HexFormat.of();
+
+  /** Mac ya inicializado con la clave; solo se clona (Mac no es thread-safe). */
+  private final Mac prototipo;
+  private final long toleranciaSegundos;
+  private final Clock clock;
+
+  @Autowired
+  public FirmaWebhookTpvv(TpvvWebhookProperties props) {
+    this(props, Clock.systemUTC());
+  }
+
+  FirmaWebhookTpvv(TpvvWebhookProperties props, Clock clock) {
+    this.prototipo = props.activo() ? nuevoMac(props.secreto()) : null;
+    this.toleranciaSegundos = props.tolerancia().toSeconds();
+    this.clock = clock;
+  }
+
+  public boolean valida(String timestamp, byte[] cuerpo, String firma) {
+    if (prototipo == null || timestamp == null || firma == null || !firma.startsWith(PREFIJO)) {
+      return false;
+    }
+    long enviado;
+    try {
+      enviado = Long.parseLong(timestamp);
+    } catch (NumberFormatException ex) {
+      return false;
+    }
+    if (Math.abs(clock.instant().getEpochSecond() - enviado) > toleranciaSegundos) {
+      return false;
+    }
+    byte[] recibida;
+    try {
+      recibida = HEX.parseHex(firma.substring(PREFIJO.length()));
+    } catch (IllegalArgumentException ex) {
+      return false;
+    }
+    return MessageDigest.isEqual(calcular(timestamp, cuerpo), recibida);
+  }
+
+  /** Valor de X-TPVV-Signature para un timestamp y un cuerpo. */
+  public String firmar(String timestamp, byte[] cuerpo) {
+    if (prototipo == null) {
+      throw new IllegalStateException("tpvv.webhook.secreto no configurado.");
+    }
+    return PREFIJO + HEX.formatHex(calcular(timestamp, cuerpo));
+  }
+
+  private byte[] calcular(String timestamp, byte[] cuerpo) {
+    Mac mac = clonar();
+    mac.update(timestamp.getBytes(StandardCharsets.US_ASCII));
+    mac.update((byte) '.');
+    return mac.doFinal(cuerpo);
+  }
+
+  private Mac clonar() {
+    try {
+      return (Mac) prototipo.clone();
+    } catch (CloneNotSupportedException ex) {
+      throw new IllegalStateException("El proveedor de " + ALGORITMO + " no permite clonar Mac.", ex);
+    }
+  }
+
+  private static Mac nuevoMac(String secreto) {
+    try {
+      Mac mac = Mac.getInstance(ALGORITMO);
+      mac.init(new SecretKeySpec(secreto.getBytes(StandardCharsets.UTF_8), ALGORITMO));
+      return mac;
+    } catch (GeneralSecurityException ex) {
+      throw new IllegalStateException("No se pudo inicializar " + ALGORITMO + ".", ex);
+    }
+  }
+}
@@ -1,57 +1,170 @@
 package com.fitgym.backend.service.tpvv;
 
+import com.fitgym.backend.service.PagoDesconocidoEnTpvvException;
+import com.fitgym.backend.service.ServicioSaturadoException;
 import com.fitgym.backend.service.TpvvCommunicationException;
 import com.fitgym.backend.service.tpvv.dto.TpvvPaymentInitRequest;
 import com.fitgym.backend.service.tpvv.dto.TpvvPaymentInitResponse;
 import com.fitgym.backend.service.tpvv.dto.TpvvPaymentVerifyResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Clock;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientResponseException;
 
 /**
  * Cliente HTTP para comunicar con la API de TPVV.
+ *
+ * Cada llamada pasa por un circuit breaker ({@link CircuitoTpvv}) y un bulkhead (semaforo de
+ * maxConcurrentes): con TPVV caido o saturado se responde 503 al momento en lugar de dejar cada
+ * peticion esperando el timeout. Solo verify se reintenta (es idempotente), con backoff exponencial
+ * y jitter completo; init nunca, para no crear dos pagos.
+ *
+ * Metricas: fitgym.tpvv.llamada (latencia por intento, con histograma) etiquetada por operacion y
+ * resultado (ok, rechazo = 4xx, error = timeout/5xx/respuesta invalida), fitgym.tpvv.rechazadas
+ * (por motivo: circuito, concurrencia), fitgym.tpvv.reintentos, fitgym.tpvv.en_vuelo y
+ * fitgym.tpvv.circuito.abierto.
  */
 @Component
 public class TpvvClient {
 
   private final RestClient restClient;
   private final TpvvProperties props;
+  private final TpvvResilienciaProperties resiliencia;
+  private final CircuitoTpvv circuito;
+  private final Semaphore concurrentes;
+  private final Metricas init;
+  private final Metricas verify;
 
-  public TpvvClient(RestClient tpvvRestClient, TpvvProperties props) {
+  public TpvvClient(
+      RestClient tpvvRestClient,
+      TpvvProperties props,
+      TpvvResilienciaProperties resiliencia,
+      MeterRegistry meterRegistry
+  ) {
     this.restClient = tpvvRestClient;
     this.props = props;
+    this.resiliencia = resiliencia;
+    this.circuito = new CircuitoTpvv(resiliencia.fallosParaAbrir(), resiliencia.tiempoAbierto(), Clock.systemUTC());
+    int maxConcurrentes = Math.max(resiliencia.maxConcurrentes(), 1);
+    this.concurrentes = new Semaphore(maxConcurrentes);
+    this.init = Metricas.de(meterRegistry, "init");
+    this.verify = Metricas.de(meterRegistry, "verify");
+    meterRegistry.gauge("fitgym.tpvv.en_vuelo", concurrentes, s -> maxConcurrentes - s.availablePermits());
+    meterRegistry.gauge("fitgym.tpvv.circuito.abierto", circuito,
+        c -> c.estado() == CircuitoTpvv.Estado.CERRADO ? 0 : 1);
   }
 
   public TpvvPaymentInitResponse initPayment(TpvvPaymentInitRequest payload) {
     validateApiKey();
-    try {
-      return restClient.post()
-          .uri("/api/v1/payments/init")
-          .contentType(MediaType.APPLICATION_JSON)
-          .header("X-API-KEY", props.apiKey())
-          .body(payload)
-          .retrieve()
-          .body(TpvvPaymentInitResponse.class);
-    } catch (RestClientResponseException ex) {
-      throw new TpvvCommunicationException("TPVV rechazo la solicitud de init. Codigo: " + ex.getStatusCode().value());
-    } catch (Exception ex) {
-      throw new TpvvCommunicationException("No se pudo iniciar el pago en TPVV.");
-    }
+    return llamar(init, 0,
+        "TPVV rechazo la solicitud de init. Codigo: ",
+        "No se pudo iniciar el pago en TPVV.",
+        () -> restClient.post()
+            .uri("/api/v1/payments/init")
+            .contentType(MediaType.APPLICATION_JSON)
+            .header("X-API-KEY", props.apiKey())
+            .body(payload)
+            .retrieve()
+            .body(TpvvPaymentInitResponse.class));
   }
 
   public TpvvPaymentVerifyResponse verifyPayment(String token) {
     validateApiKey();
+    return llamar(verify, resiliencia.reintentosVerify(),
+        "TPVV rechazo la verificacion. Codigo: ",
+        "No se pudo verificar el pago en TPVV.",
+        () -> restClient.get()
+            .uri("/api/v1/payments/verify/{token}", token)
+            .header("X-API-KEY", props.apiKey())
+            .retrieve()
+            .body(TpvvPaymentVerifyResponse.class));
+  }
+
+  private <T> T llamar(Metricas metricas, int reintentos, String mensajeRechazo, String mensajeError, Supplier<T> llamada) {
+    for (int intento = 0; ; intento++) {
+      try {
+        return intentar(metricas, mensajeRechazo, mensajeError, llamada);
+      } catch (FalloTransitorio ex) {
+        if (intento >= reintentos) {
+          throw new TpvvCommunicationException(ex.getMessage());
+        }
+        metricas.reintentos().increment();
+        esperarBackoff(intento, ex.getMessage());
+      }
+    }
+  }
+
+  private <T> T intentar(Metricas metricas, String mensajeRechazo, String mensajeError, Supplier<T> llamada) {
+    if (!circuito.permitir()) {
+      metricas.circuitoAbierto().increment();
+      throw new ServicioSaturadoException("TPVV no esta disponible. Intentalo de nuevo en unos segundos.",
+          circuito.restanteAbierto());
+    }
+    if (!obtenerPermiso()) {
+      circuito.liberar();
+      metricas.sinHueco().increment();
+      throw new ServicioSaturadoException("Demasiados pagos en curso. Intentalo de nuevo en unos segundos.");
+    }
+
+    long inicio = System.nanoTime();
     try {
-      return restClient.get()
-          .uri("/api/v1/payments/verify/{token}", token)
-          .header("X-API-KEY", props.apiKey())
-          .retrieve()
-          .body(TpvvPaymentVerifyResponse.class);
+      T respuesta = llamada.get();
+      circuito.registrarExito();
+      metricas.ok().record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+      return respuesta;
     } catch (RestClientResponseException ex) {
-      throw new TpvvCommunicationException("TPVV rechazo la verificacion. Codigo: " + ex.getStatusCode().value());
-    } catch (Exception ex) {
-      throw new TpvvCommunicationException("No se pudo verificar el pago en TPVV.");
+      int codigo = ex.getStatusCode().value();
+      if (ex.getStatusCode().is5xxServerError()) {
+        circuito.registrarFallo();
+        metricas.error().record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        throw new FalloTransitorio(mensajeRechazo + codigo);
+      }
+      // TPVV responde: un 4xx no es un fallo del gateway ni se arregla reintentando
+      circuito.registrarExito();
+      metricas.rechazo().record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+      if (codigo == 404 && metricas == verify) {
+        throw new PagoDesconocidoEnTpvvException(mensajeRechazo + codigo);
+      }
+      throw new TpvvCommunicationException(mensajeRechazo + codigo);
+    } catch (ResourceAccessException ex) {
+      circuito.registrarFallo();
+      metricas.error().record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+      throw new FalloTransitorio(mensajeError);
+    } catch (RuntimeException ex) {
+      circuito.registrarFallo();
+      metricas.error().record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+      throw new TpvvCommunicationException(mensajeError);
+    } finally {
+      concurrentes.release();
+    }
+  }
+
+  private boolean obtenerPermiso() {
+    try {
+      return concurrentes.tryAcquire(resiliencia.esperaPermiso().toNanos(), TimeUnit.NANOSECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private void esperarBackoff(int intento, String mensajeError) {
+    long base = resiliencia.backoffBase().toMillis();
+    long techo = Math.min(resiliencia.backoffMax().toMillis(), base << Math.min(intento, 20));
+    try {
+      Thread.sleep(ThreadLocalRandom.current().nextLong(techo + 1));
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new TpvvCommunicationException(mensajeError);
     }
   }
 
@@ -60,4 +173,45 @@ public class TpvvClient {
       throw new TpvvCommunicationException("TPVV API key no configurada.");
     }
   }
+
+  /**
+   * Timeout o 5xx: cuenta para el circuito y, en verify, se reintenta.
+   */
+  private static final class FalloTransitorio extends RuntimeException {
+    FalloTransitorio(String message) {
+      super(message, null, false, false);
+    }
+  }
+
+  private record Metricas(Timer ok, Timer rechazo, Timer error, Counter reintentos, Counter circuitoAbierto, Counter sinHueco) {
+    static Metricas de(MeterRegistry registry, String operacion) {
+      return new Metricas(
+          temporizador(registry, operacion, "ok"),
+          temporizador(registry, operacion, "rechazo"),
+          temporizador(registry, operacion, "error"),
+          Counter.builder("fitgym.tpvv.reintentos")
+              .description("Reintentos de llamadas a TPVV")
+              .tag("operacion", operacion)
+              .register(registry),
+          rechazadas(registry, operacion, "circuito"),
+          rechazadas(registry, operacion, "concurrencia"));
+    }
+
+    private static Timer temporizador(MeterRegistry registry, String operacion, String resultado) {
+      return Timer.builder("fitgym.tpvv.llamada")
+          .description("Latencia de cada intento de llamada a TPVV")
+          .tag("operacion", operacion)
+          .tag("resultado", resultado)
+          .publishPercentileHistogram()
+          .register(registry);
+    }
+
+    private static Counter rechazadas(MeterRegistry registry, String operacion, String motivo) {
+      return Counter.builder("fitgym.tpvv.rechazadas")
+          .description("Llamadas a TPVV rechazadas sin salir")
+          .tag("operacion", operacion)
+          .tag("motivo", motivo)
+          .register(registry);
+    }
+  }
 }
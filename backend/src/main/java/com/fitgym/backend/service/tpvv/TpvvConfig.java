@@ -1,10 +1,12 @@
 package com.fitgym.backend.service.tpvv;
 
 import java.net.http.HttpClient;
-import java.time.Duration;
+import java.util.concurrent.Executors;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestClient;
 
@@ -12,17 +14,42 @@ import org.springframework.web.client.RestClient;
  * Configura el cliente HTTP para comunicacion con TPVV.
  */
 @Configuration
-@EnableConfigurationProperties(TpvvProperties.class)
+@EnableConfigurationProperties({TpvvProperties.class, TpvvResilienciaProperties.class, TpvvWebhookProperties.class})
 public class TpvvConfig {
 
+  /**
+   * Un unico HttpClient compartido: reutiliza conexiones (keep-alive en HTTP/1.1, multiplexadas en HTTP/2)
+   * en lugar de abrir una por pago. HTTP/2 se negocia por ALPN y, si TPVV no lo soporta, se usa HTTP/1.1.
+   *
+   * Con spring.threads.virtual.enabled el trabajo interno del cliente (conexion, lectura de la respuesta)
+   * tambien va en hilos virtuales, en lugar del pool cacheado de hilos de plataforma por defecto.
+   */
   @Bean
-  public RestClient tpvvRestClient(RestClient.Builder builder, TpvvProperties props) {
-    HttpClient httpClient = HttpClient.newBuilder()
-        .connectTimeout(Duration.ofSeconds(5))
-        .build();
+  public RestClient tpvvRestClient(
+      RestClient.Builder builder,
+      TpvvProperties props,
+      TpvvResilienciaProperties resiliencia,
+      Environment environment
+  ) {
+    return crearRestClient(builder, props, resiliencia, Threading.VIRTUAL.isActive(environment));
+  }
+
+  static RestClient crearRestClient(
+      RestClient.Builder builder,
+      TpvvProperties props,
+      TpvvResilienciaProperties resiliencia,
+      boolean hilosVirtuales
+  ) {
+    HttpClient.Builder httpBuilder = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_2)
+        .connectTimeout(resiliencia.connectTimeout());
+    if (hilosVirtuales) {
+      httpBuilder.executor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+    HttpClient httpClient = httpBuilder.build();
 
     JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
-    requestFactory.setReadTimeout(Duration.ofSeconds(10));
+    requestFactory.setReadTimeout(resiliencia.readTimeout());
 
     return builder
         .baseUrl(props.baseUrl())
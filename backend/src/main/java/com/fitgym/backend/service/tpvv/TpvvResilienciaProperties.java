@@ -0,0 +1,31 @@
+package com.fitgym.backend.service.tpvv;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Limites y tiempos del cliente TPVV.
+ *
+ * @param maxConcurrentes: Llamadas a TPVV en vuelo a la vez; el resto espera como mucho esperaPermiso.
+ * @param esperaPermiso: Espera maxima por un hueco; si no llega, se responde 503 en lugar de encolar.
+ * @param reintentosVerify: Reintentos de verify (idempotente) ante timeouts o 5xx. Init nunca se reintenta.
+ * @param backoffBase: Base del backoff exponencial con jitter completo entre reintentos.
+ * @param backoffMax: Techo del backoff entre reintentos.
+ * @param fallosParaAbrir: Fallos seguidos (timeouts o 5xx) que abren el circuito.
+ * @param tiempoAbierto: Tiempo que el circuito rechaza al momento antes de dejar pasar una sonda.
+ * @param connectTimeout: Timeout de conexion HTTP.
+ * @param readTimeout: Timeout de respuesta por intento.
+ */
+@ConfigurationProperties(prefix = "tpvv.resiliencia")
+public record TpvvResilienciaProperties(
+    @DefaultValue("16") int maxConcurrentes,
+    @DefaultValue("100ms") Duration esperaPermiso,
+    @DefaultValue("2") int reintentosVerify,
+    @DefaultValue("200ms") Duration backoffBase,
+    @DefaultValue("2s") Duration backoffMax,
+    @DefaultValue("5") int fallosParaAbrir,
+    @DefaultValue("30s") Duration tiempoAbierto,
+    @DefaultValue("2s") Duration connectTimeout,
+    @DefaultValue("5s") Duration readTimeout
+) {}
@@ -0,0 +1,36 @@
+package com.fitgym.backend.service.tpvv;
+
+import java.time.Duration;
+import java.time.Instant;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuracion del webhook de TPVV (notificaciones servidor a servidor del resultado de los pagos).
+ *
+ * @param secreto: Clave HMAC compartida con TPVV. Vacia desactiva el webhook y los /verify consultan a TPVV.
+ * @param tolerancia: Diferencia maxima entre el timestamp firmado y el reloj local (evita reenvios antiguos).
+ * @param hilos: Hilos que aplican las notificaciones encoladas.
+ * @param capacidadCola: Notificaciones pendientes de aplicar; con la cola llena se responde 503 y TPVV reintenta.
+ * @param gracia: Con el webhook activo, /verify solo consulta a TPVV si el pago sigue PENDING pasado este tiempo
+ *                (notificacion perdida o retrasada).
+ */
+@ConfigurationProperties(prefix = "tpvv.webhook")
+public record TpvvWebhookProperties(
+    @DefaultValue("") String secreto,
+    @DefaultValue("5m") Duration tolerancia,
+    @DefaultValue("2") int hilos,
+    @DefaultValue("1000") int capacidadCola,
+    @DefaultValue("30s") Duration gracia
+) {
+  public boolean activo() {
+    return secreto != null && !secreto.isBlank();
+  }
+
+  /**
+   * Si un /verify de un pago PENDING creado en creadoEn debe preguntar a TPVV o basta con el estado local.
+   */
+  public boolean consultarTpvv(Instant creadoEn, Instant ahora) {
+    return !activo() || creadoEn == null || creadoEn.isBefore(ahora.minus(gracia));
+  }
+}
@@ -0,0 +1,55 @@
+package com.fitgym.backend.service.tpvv;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa las verificaciones simultaneas de un mismo token en una sola llamada a TPVV.
+ *
+ * La primera peticion de un token hace la verificacion; las que llegan mientras esta en curso esperan
+ * y reciben el mismo resultado (o la misma excepcion). Al terminar se olvida el token: no es una cache,
+ * la siguiente verificacion vuelve a consultar. Pensado para el polling del frontend sobre /verify.
+ */
+public final class VerificacionCompartida<T> {
+
+  private final ConcurrentHashMap<String, CompletableFuture<T>> enCurso = new ConcurrentHashMap<>();
+
+  public T verificar(String token, Supplier<T> verificacion) {
+    CompletableFuture<T> propia = new CompletableFuture<>();
+    CompletableFuture<T> existente = enCurso.putIfAbsent(token, propia);
+    if (existente != null) {
+      return esperar(existente);
+    }
+
+    try {
+      T resultado = verificacion.get();
+      propia.complete(resultado);
+      return resultado;
+    } catch (RuntimeException | Error ex) {
+      propia.completeExceptionally(ex);
+      throw ex;
+    } finally {
+      enCurso.remove(token, propia);
+    }
+  }
+
+  int enCurso() {
+    return enCurso.size();
+  }
+
+  private T esperar(CompletableFuture<T> futuro) {
+    try {
+      return futuro.join();
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof RuntimeException re) {
+        throw re;
+      }
+      if (ex.getCause() instanceof Error err) {
+        throw err;
+      }
+      throw ex;
+    }
+  }
+}
@@ -0,0 +1,7 @@
+package com.fitgym.backend.service.tpvv.dto;
+
+public record TpvvWebhookEvent(
+    String token,
+    String status,
+    String failureReason
+) {}
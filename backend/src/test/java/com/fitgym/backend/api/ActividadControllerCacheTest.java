@@ -0,0 +1,88 @@
+package com.fitgym.backend.api;
+
+import com.fitgym.backend.api.error.GlobalExceptionHandler;
+import com.fitgym.backend.service.ActividadService;
+import com.fitgym.backend.service.CatalogoRevision;
+import com.fitgym.backend.service.referencia.DatosReferenciaService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests de la cache HTTP (ETag + Cache-Control) del catalogo y de las tarifas.
+ *
+ * Un cliente con el ETag vigente recibe 304 sin que se consulte el servicio/BD.
+ */
+class ActividadControllerCacheTest {
+
+  private MockMvc mockMvc;
+  private ActividadService actividadService;
+  private DatosReferenciaService datosReferencia;
+  private CatalogoRevision revision;
+
+  @BeforeEach
+  void setUp() {
+    actividadService = Mockito.mock(ActividadService.class);
+    datosReferencia = Mockito.mock(DatosReferenciaService.class);
+    revision = new CatalogoRevision();
+
+    when(actividadService.recuperarTodasActividades()).thenReturn(List.of());
+    when(datosReferencia.tarifas()).thenReturn(List.of());
+
+    mockMvc = MockMvcBuilders.standaloneSetup(
+            new ActividadController(actividadService, revision),
+            new TarifaController(datosReferencia, revision))
+        .setControllerAdvice(new GlobalExceptionHandler())
+        .build();
+  }
+
+  @Test
+  void servicios_devuelve_etag_y_304_si_no_ha_cambiado() throws Exception {
+    String etag = mockMvc.perform(get("/api/actividades/servicios"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Cache-Control", "no-cache, public"))
+        .andReturn().getResponse().getHeader("ETag");
+
+    mockMvc.perform(get("/api/actividades/servicios").header("If-None-Match", etag))
+        .andExpect(status().isNotModified());
+
+    verify(actividadService, times(1)).recuperarTodasActividades();
+  }
+
+  @Test
+  void servicios_vuelve_a_200_tras_una_modificacion() throws Exception {
+    String etag = mockMvc.perform(get("/api/actividades/servicios"))
+        .andReturn().getResponse().getHeader("ETag");
+
+    revision.actividadesModificadas();
+
+    mockMvc.perform(get("/api/actividades/servicios").header("If-None-Match", etag))
+        .andExpect(status().isOk());
+
+    verify(actividadService, times(2)).recuperarTodasActividades();
+  }
+
+  @Test
+  void tarifas_devuelve_304_con_el_etag_vigente() throws Exception {
+    String etag = mockMvc.perform(get("/api/tarifas"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Cache-Control", "max-age=300, public"))
+        .andReturn().getResponse().getHeader("ETag");
+
+    mockMvc.perform(get("/api/tarifas").header("If-None-Match", etag))
+        .andExpect(status().isNotModified());
+
+    verify(datosReferencia, times(1)).tarifas();
+  }
+}
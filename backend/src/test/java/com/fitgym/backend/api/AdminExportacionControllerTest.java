@@ -0,0 +1,121 @@
+package com.fitgym.backend.api;
+
+import com.fitgym.backend.api.auth.AutenticacionWeb;
+import com.fitgym.backend.api.auth.SocioActualArgumentResolver;
+import com.fitgym.backend.api.dto.SocioSession;
+import com.fitgym.backend.api.error.GlobalExceptionHandler;
+import com.fitgym.backend.service.exportacion.Exportacion;
+import com.fitgym.backend.service.exportacion.ExportacionProperties;
+import com.fitgym.backend.service.exportacion.ExportacionService;
+import com.fitgym.backend.service.exportacion.FormatoExportacion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Volcados de administracion: solo para el admin, tipo y formato sin distinguir mayusculas y gzip al vuelo
+ * cuando el cliente lo acepta.
+ */
+class AdminExportacionControllerTest {
+
+  private static final String CSV = "id,nombre\r\n1,Ana\r\n";
+
+  private MockMvc mockMvc;
+  private ExportacionService exportacionService;
+
+  @BeforeEach
+  void setUp() {
+    exportacionService = Mockito.mock(ExportacionService.class);
+    doAnswer(inv -> {
+      inv.getArgument(2, OutputStream.class).write(CSV.getBytes(StandardCharsets.UTF_8));
+      return 1L;
+    }).when(exportacionService).exportar(any(), any(), any());
+
+    AutenticacionWeb autenticacion = SocioControllerAuthTest.sesionHttp();
+    mockMvc = MockMvcBuilders.standaloneSetup(
+            new AdminExportacionController(exportacionService, new ExportacionProperties(1000, 65536)))
+        .setControllerAdvice(new GlobalExceptionHandler())
+        .setCustomArgumentResolvers(new SocioActualArgumentResolver(autenticacion))
+        .build();
+  }
+
+  @Test
+  void sin_sesion_devuelve_401_y_un_socio_normal_403() throws Exception {
+    mockMvc.perform(get("/api/admin/exportaciones/socios"))
+        .andExpect(status().isUnauthorized());
+    mockMvc.perform(get("/api/admin/exportaciones/socios").session(sesion("test@fitgym.com")))
+        .andExpect(status().isForbidden());
+
+    verifyNoInteractions(exportacionService);
+  }
+
+  @Test
+  void resuelve_tipo_y_formato_sin_distinguir_mayusculas() throws Exception {
+    mockMvc.perform(get("/api/admin/exportaciones/RESERVAS").param("formato", "NDJSON")
+            .session(sesion("admin@gmail.com")))
+        .andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.parseMediaType("application/x-ndjson")))
+        .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, containsString("filename=\"reservas-")))
+        .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, containsString(".ndjson\"")))
+        .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+
+    verify(exportacionService).exportar(eq(Exportacion.RESERVAS), eq(FormatoExportacion.NDJSON), any());
+  }
+
+  @Test
+  void tipo_o_formato_desconocido_devuelve_400_sin_exportar() throws Exception {
+    mockMvc.perform(get("/api/admin/exportaciones/monitores").session(sesion("admin@gmail.com")))
+        .andExpect(status().isBadRequest());
+    mockMvc.perform(get("/api/admin/exportaciones/pagos").param("formato", "xlsx").session(sesion("admin@gmail.com")))
+        .andExpect(status().isBadRequest());
+
+    verifyNoInteractions(exportacionService);
+  }
+
+  @Test
+  void con_accept_encoding_gzip_comprime_la_respuesta() throws Exception {
+    byte[] cuerpo = mockMvc.perform(get("/api/admin/exportaciones/pagos")
+            .header(HttpHeaders.ACCEPT_ENCODING, "deflate, GZIP")
+            .session(sesion("admin@gmail.com")))
+        .andExpect(status().isOk())
+        .andExpect(content().contentTypeCompatibleWith(MediaType.parseMediaType("text/csv")))
+        .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+        .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+        .andReturn().getResponse().getContentAsByteArray();
+
+    try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(cuerpo))) {
+      assertThat(new String(gzip.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(CSV);
+    }
+    verify(exportacionService).exportar(eq(Exportacion.PAGOS), eq(FormatoExportacion.CSV), any());
+  }
+
+  private static MockHttpSession sesion(String correo) {
+    MockHttpSession session = new MockHttpSession();
+    session.setAttribute(AutenticacionWeb.SESSION_SOCIO_KEY, new SocioSession(
+        1L, "Test", correo, "ACTIVO", 10L, "Basico", BigDecimal.ZERO, null, null, null, null));
+    return session;
+  }
+}
@@ -1,5 +1,7 @@
 package com.fitgym.backend.api;
 
+import com.fitgym.backend.api.auth.AutenticacionWeb;
+import com.fitgym.backend.api.auth.SocioActualArgumentResolver;
 import com.fitgym.backend.api.dto.SocioSession;
 import com.fitgym.backend.api.error.GlobalExceptionHandler;
 import com.fitgym.backend.domain.PagoMonedero;
@@ -38,10 +40,12 @@ class MonederoControllerTest {
         pagoMonederoService = Mockito.mock(PagoMonederoService.class);
         socioService = Mockito.mock(SocioService.class);
 
-        MonederoController controller = new MonederoController(pagoMonederoService, socioService);
+        AutenticacionWeb autenticacion = SocioControllerAuthTest.sesionHttp();
+        MonederoController controller = new MonederoController(pagoMonederoService, socioService, autenticacion);
 
         mockMvc = MockMvcBuilders.standaloneSetup(controller)
                 .setControllerAdvice(new GlobalExceptionHandler())
+                .setCustomArgumentResolvers(new SocioActualArgumentResolver(autenticacion))
                 .build();
     }
 
@@ -84,7 +88,7 @@ class MonederoControllerTest {
         pago.setEstado(PagoRegistroEstado.COMPLETED);
         pago.setFailureReason(null);
 
-        when(pagoMonederoService.verificarRecarga("tok123")).thenReturn(pago);
+        when(pagoMonederoService.consultarRecarga("tok123")).thenReturn(pago);
 
         Tarifa tarifa = Mockito.mock(Tarifa.class);
         when(tarifa.getId()).thenReturn(10L);
@@ -127,4 +131,4 @@ class MonederoControllerTest {
         socio.setSaldoMonedero(BigDecimal.valueOf(50)); // cualquier valor válido
         return socio;
     }
-}
\ No newline at end of file
+}
@@ -53,7 +53,7 @@ class PagoRegistroControllerTest {
     pago.setEstado(PagoRegistroEstado.FAILED);
     pago.setFailureReason("Saldo insuficiente");
 
-    when(pagoRegistroService.verificarPago("tok")).thenReturn(pago);
+    when(pagoRegistroService.consultarPago("tok")).thenReturn(pago);
 
     mockMvc.perform(post("/api/pagos/verify/tok"))
         .andExpect(status().isOk())
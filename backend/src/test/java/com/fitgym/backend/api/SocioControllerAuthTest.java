@@ -1,5 +1,7 @@
 package com.fitgym.backend.api;
 
+import com.fitgym.backend.api.auth.AutenticacionWeb;
+import com.fitgym.backend.api.auth.SocioActualArgumentResolver;
 import com.fitgym.backend.api.dto.SocioSession;
 import com.fitgym.backend.api.error.GlobalExceptionHandler;
 import com.fitgym.backend.domain.Socio;
@@ -8,6 +10,9 @@ import com.fitgym.backend.domain.Tarifa;
 import com.fitgym.backend.service.InvalidCredentialsException;
 import com.fitgym.backend.service.SocioInactivoException;
 import com.fitgym.backend.service.SocioService;
+import com.fitgym.backend.service.auth.AuthProperties;
+import com.fitgym.backend.service.auth.RevocacionesSesion;
+import com.fitgym.backend.service.auth.TokenSesionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -25,6 +30,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 
 /**
  * Tests de controller para el flujo de autenticacion de socios.
@@ -42,9 +48,11 @@ class SocioControllerAuthTest {
   @BeforeEach
   void setUp() {
     socioService = Mockito.mock(SocioService.class);
-    SocioController controller = new SocioController(socioService);
+    AutenticacionWeb autenticacion = sesionHttp();
+    SocioController controller = new SocioController(socioService, autenticacion);
     mockMvc = MockMvcBuilders.standaloneSetup(controller)
         .setControllerAdvice(new GlobalExceptionHandler())
+        .setCustomArgumentResolvers(new SocioActualArgumentResolver(autenticacion))
         .build();
   }
 
@@ -258,4 +266,12 @@ class SocioControllerAuthTest {
     socio.setSaldoMonedero(BigDecimal.ZERO);
     return socio;
   }
+
+  /** Autenticacion en modo sesion HTTP (por defecto). */
+  static AutenticacionWeb sesionHttp() {
+    return new AutenticacionWeb(
+        new AuthProperties(AuthProperties.SESION, "", Duration.ofMinutes(15), false),
+        Mockito.mock(TokenSesionService.class),
+        Mockito.mock(RevocacionesSesion.class));
+  }
 }
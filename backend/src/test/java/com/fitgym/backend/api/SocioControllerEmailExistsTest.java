@@ -21,7 +21,7 @@ class SocioControllerEmailExistsTest {
   @BeforeEach
   void setUp() {
     socioService = Mockito.mock(SocioService.class);
-    SocioController controller = new SocioController(socioService);
+    SocioController controller = new SocioController(socioService, SocioControllerAuthTest.sesionHttp());
     mockMvc = MockMvcBuilders.standaloneSetup(controller)
         .setControllerAdvice(new GlobalExceptionHandler())
         .build();
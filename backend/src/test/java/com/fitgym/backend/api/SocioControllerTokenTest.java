@@ -0,0 +1,135 @@
+package com.fitgym.backend.api;
+
+import com.fitgym.backend.api.auth.AutenticacionWeb;
+import com.fitgym.backend.api.auth.SocioActualArgumentResolver;
+import com.fitgym.backend.api.auth.TokenSesionFilter;
+import com.fitgym.backend.api.error.GlobalExceptionHandler;
+import com.fitgym.backend.domain.Socio;
+import com.fitgym.backend.domain.SocioEstado;
+import com.fitgym.backend.domain.Tarifa;
+import com.fitgym.backend.repo.SesionRevocadaRepository;
+import com.fitgym.backend.service.SocioService;
+import com.fitgym.backend.service.auth.AuthProperties;
+import com.fitgym.backend.service.auth.RevocacionesSesion;
+import com.fitgym.backend.service.auth.TokenSesionService;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests de controller en modo token (fitgym.auth.modo=token): sin HttpSession,
+ * el login deja una cookie firmada y el logout la revoca.
+ */
+class SocioControllerTokenTest {
+
+  private MockMvc mockMvc;
+  private SocioService socioService;
+
+  @BeforeEach
+  void setUp() {
+    socioService = Mockito.mock(SocioService.class);
+    AuthProperties props = new AuthProperties(
+        AuthProperties.TOKEN, "0123456789abcdef0123456789abcdef", Duration.ofMinutes(15), false);
+    AutenticacionWeb autenticacion = new AutenticacionWeb(
+        props,
+        new TokenSesionService(props),
+        new RevocacionesSesion(Mockito.mock(SesionRevocadaRepository.class), props));
+
+    mockMvc = MockMvcBuilders.standaloneSetup(new SocioController(socioService, autenticacion))
+        .setControllerAdvice(new GlobalExceptionHandler())
+        .setCustomArgumentResolvers(new SocioActualArgumentResolver(autenticacion))
+        .addFilters(new TokenSesionFilter(props, autenticacion))
+        .build();
+  }
+
+  @Test
+  void login_emite_cookie_sin_sesion_y_me_la_acepta() throws Exception {
+    Cookie cookie = login();
+
+    assertThat(cookie.isHttpOnly()).isTrue();
+    mockMvc.perform(get("/api/socios/me").cookie(cookie))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.correoElectronico").value("test@fitgym.com"));
+  }
+
+  @Test
+  void token_manipulado_devuelve_401() throws Exception {
+    Cookie cookie = login();
+
+    mockMvc.perform(get("/api/socios/me").cookie(new Cookie(AutenticacionWeb.COOKIE_TOKEN, cookie.getValue() + "A")))
+        .andExpect(status().isUnauthorized());
+  }
+
+  @Test
+  void logout_revoca_el_token() throws Exception {
+    Cookie cookie = login();
+
+    mockMvc.perform(post("/api/socios/logout").cookie(cookie))
+        .andExpect(status().isNoContent());
+
+    mockMvc.perform(get("/api/socios/me").cookie(cookie))
+        .andExpect(status().isUnauthorized());
+  }
+
+  @Test
+  void cambiar_contrasena_revoca_los_tokens_anteriores() throws Exception {
+    Cookie cookie = login();
+    when(socioService.cambiarContrasena(1L, "Password123", "Password456")).thenReturn(1);
+
+    mockMvc.perform(put("/api/socios/me/password")
+            .cookie(cookie)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"contrasenaActual\":\"Password123\",\"nuevaContrasena\":\"Password456\"}"))
+        .andExpect(status().isNoContent());
+
+    mockMvc.perform(get("/api/socios/me").cookie(cookie))
+        .andExpect(status().isUnauthorized());
+  }
+
+  private Cookie login() throws Exception {
+    Socio socio = buildSocio();
+    when(socioService.autenticar("test@fitgym.com", "Password123")).thenReturn(socio);
+    when(socioService.obtenerPorId(1L)).thenReturn(socio);
+
+    var result = mockMvc.perform(post("/api/socios/login")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"correoElectronico\":\"test@fitgym.com\",\"contrasena\":\"Password123\"}"))
+        .andExpect(status().isOk())
+        .andReturn();
+
+    assertThat(result.getRequest().getSession(false)).isNull();
+    Cookie cookie = result.getResponse().getCookie(AutenticacionWeb.COOKIE_TOKEN);
+    assertThat(cookie).isNotNull();
+    return cookie;
+  }
+
+  private Socio buildSocio() {
+    Tarifa tarifa = Mockito.mock(Tarifa.class);
+    when(tarifa.getId()).thenReturn(10L);
+    when(tarifa.getNombre()).thenReturn("Basico");
+
+    Socio socio = Mockito.mock(Socio.class);
+    when(socio.getId()).thenReturn(1L);
+    when(socio.getNombre()).thenReturn("Test");
+    when(socio.getCorreoElectronico()).thenReturn("test@fitgym.com");
+    when(socio.getEstado()).thenReturn(SocioEstado.ACTIVO);
+    when(socio.getTarifa()).thenReturn(tarifa);
+    when(socio.getSaldoMonedero()).thenReturn(BigDecimal.ZERO);
+    return socio;
+  }
+}
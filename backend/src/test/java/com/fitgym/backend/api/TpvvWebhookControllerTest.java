@@ -0,0 +1,130 @@
+package com.fitgym.backend.api;
+
+import com.fitgym.backend.api.error.GlobalExceptionHandler;
+import com.fitgym.backend.service.ServicioSaturadoException;
+import com.fitgym.backend.service.WebhookTpvvService;
+import com.fitgym.backend.service.tpvv.FirmaWebhookTpvv;
+import com.fitgym.backend.service.tpvv.TpvvWebhookProperties;
+import com.fitgym.backend.service.tpvv.dto.TpvvWebhookEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class TpvvWebhookControllerTest {
+
+  private static final String CUERPO = "{\"token\":\"tok\",\"status\":\"COMPLETED\",\"failureReason\":null}";
+
+  private MockMvc mockMvc;
+  private WebhookTpvvService webhookService;
+  private FirmaWebhookTpvv firma;
+
+  @BeforeEach
+  void setUp() {
+    webhookService = Mockito.mock(WebhookTpvvService.class);
+    mockMvc = montar(new TpvvWebhookProperties("secreto-compartido-con-tpvv", Duration.ofMinutes(5), 1, 10,
+        Duration.ofSeconds(30)));
+  }
+
+  @Test
+  void con_firma_valida_encola_y_responde_202() throws Exception {
+    String ts = ahora();
+
+    mockMvc.perform(notificacion(ts, firma.firmar(ts, bytes(CUERPO)), CUERPO))
+        .andExpect(status().isAccepted());
+
+    verify(webhookService).encolar(new TpvvWebhookEvent("tok", "COMPLETED", null));
+  }
+
+  @Test
+  void con_firma_de_otro_cuerpo_responde_401_sin_encolar() throws Exception {
+    String ts = ahora();
+    String otro = CUERPO.replace("COMPLETED", "FAILED");
+
+    mockMvc.perform(notificacion(ts, firma.firmar(ts, bytes(CUERPO)), otro))
+        .andExpect(status().isUnauthorized());
+    mockMvc.perform(notificacion(ts, null, CUERPO))
+        .andExpect(status().isUnauthorized());
+
+    verify(webhookService, never()).encolar(any());
+  }
+
+  @Test
+  void con_timestamp_fuera_de_tolerancia_responde_401() throws Exception {
+    String viejo = String.valueOf(Instant.now().minus(Duration.ofMinutes(10)).getEpochSecond());
+
+    mockMvc.perform(notificacion(viejo, firma.firmar(viejo, bytes(CUERPO)), CUERPO))
+        .andExpect(status().isUnauthorized());
+
+    verify(webhookService, never()).encolar(any());
+  }
+
+  @Test
+  void sin_token_responde_400() throws Exception {
+    String ts = ahora();
+    String cuerpo = "{\"status\":\"COMPLETED\"}";
+
+    mockMvc.perform(notificacion(ts, firma.firmar(ts, bytes(cuerpo)), cuerpo))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void con_la_cola_llena_responde_503_para_que_tpvv_reintente() throws Exception {
+    doThrow(new ServicioSaturadoException("Demasiadas notificaciones pendientes."))
+        .when(webhookService).encolar(any());
+    String ts = ahora();
+
+    mockMvc.perform(notificacion(ts, firma.firmar(ts, bytes(CUERPO)), CUERPO))
+        .andExpect(status().isServiceUnavailable())
+        .andExpect(header().exists("Retry-After"));
+  }
+
+  @Test
+  void con_el_webhook_desactivado_responde_404() throws Exception {
+    MockMvc desactivado = montar(new TpvvWebhookProperties("", Duration.ofMinutes(5), 1, 10, Duration.ofSeconds(30)));
+
+    desactivado.perform(notificacion(ahora(), "sha256=00", CUERPO))
+        .andExpect(status().isNotFound());
+  }
+
+  private MockMvc montar(TpvvWebhookProperties props) {
+    firma = new FirmaWebhookTpvv(props);
+    TpvvWebhookController controller =
+        new TpvvWebhookController(webhookService, firma, props, JsonMapper.builder().build());
+    return MockMvcBuilders.standaloneSetup(controller)
+        .setControllerAdvice(new GlobalExceptionHandler())
+        .build();
+  }
+
+  private static MockHttpServletRequestBuilder notificacion(String ts, String firmaCabecera, String cuerpo) {
+    MockHttpServletRequestBuilder peticion = post("/api/tpvv/webhook")
+        .contentType(MediaType.APPLICATION_JSON)
+        .header(TpvvWebhookController.CABECERA_TIMESTAMP, ts)
+        .content(cuerpo);
+    return firmaCabecera == null ? peticion : peticion.header(TpvvWebhookController.CABECERA_FIRMA, firmaCabecera);
+  }
+
+  private static String ahora() {
+    return String.valueOf(Instant.now().getEpochSecond());
+  }
+
+  private static byte[] bytes(String s) {
+    return s.getBytes(StandardCharsets.UTF_8);
+  }
+}
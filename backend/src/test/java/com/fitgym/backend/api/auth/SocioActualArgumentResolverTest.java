@@ -0,0 +1,159 @@
+package com.fitgym.backend.api.auth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fitgym.backend.api.dto.SocioSession;
+import com.fitgym.backend.service.InvalidCredentialsException;
+import com.fitgym.backend.service.auth.AuthProperties;
+import com.fitgym.backend.service.auth.RevocacionesSesion;
+import com.fitgym.backend.service.auth.TokenSesionService;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+class SocioActualArgumentResolverTest {
+
+  private AutenticacionWeb autenticacion;
+  private SocioActualArgumentResolver resolver;
+
+  @SuppressWarnings("unused")
+  private static class Handlers {
+    void socio(@SocioActual SocioAutenticado s) {
+    }
+
+    void admin(@SocioActual(admin = true) SocioAutenticado s) {
+    }
+
+    void sinAnotacion(SocioAutenticado s) {
+    }
+  }
+
+  @BeforeEach
+  void setUp() {
+    autenticacion = new AutenticacionWeb(
+        new AuthProperties(AuthProperties.SESION, "", Duration.ofMinutes(15), false),
+        Mockito.mock(TokenSesionService.class),
+        Mockito.mock(RevocacionesSesion.class));
+    resolver = new SocioActualArgumentResolver(autenticacion);
+  }
+
+  private static MethodParameter parametro(String metodo) throws Exception {
+    return new MethodParameter(Handlers.class.getDeclaredMethod(metodo, SocioAutenticado.class), 0);
+  }
+
+  private static MockHttpServletRequest conSesion(String correo) {
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    MockHttpSession session = new MockHttpSession();
+    session.setAttribute(AutenticacionWeb.SESSION_SOCIO_KEY, new SocioSession(
+        1L, "Test", correo, "ACTIVO", 10L, "Basico", BigDecimal.ZERO, null, null, null, null));
+    request.setSession(session);
+    return request;
+  }
+
+  private Object resolver(String metodo, MockHttpServletRequest request) throws Exception {
+    return resolver.resolveArgument(parametro(metodo), null, new ServletWebRequest(request), null);
+  }
+
+  @Test
+  void solo_resuelve_parametros_anotados() throws Exception {
+    assertThat(resolver.supportsParameter(parametro("socio"))).isTrue();
+    assertThat(resolver.supportsParameter(parametro("sinAnotacion"))).isFalse();
+  }
+
+  @Test
+  void resuelve_el_socio_de_la_sesion_con_el_rol_precalculado() throws Exception {
+    assertThat(resolver("socio", conSesion("test@fitgym.com"))).isEqualTo(new SocioAutenticado(1L, false));
+    assertThat(resolver("admin", conSesion("ADMIN@gmail.com"))).isEqualTo(new SocioAutenticado(1L, true));
+  }
+
+  @Test
+  void sin_sesion_401_y_sin_rol_admin_403() {
+    assertThatThrownBy(() -> resolver("socio", new MockHttpServletRequest()))
+        .isInstanceOf(InvalidCredentialsException.class);
+    assertThatThrownBy(() -> resolver("admin", new MockHttpServletRequest()))
+        .isInstanceOfSatisfying(ResponseStatusException.class,
+            e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED));
+    assertThatThrownBy(() -> resolver("admin", conSesion("test@fitgym.com")))
+        .isInstanceOfSatisfying(ResponseStatusException.class,
+            e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN));
+  }
+
+  @Test
+  void devuelve_el_principal_precalculado_de_la_sesion_sin_reconstruirlo() throws Exception {
+    MockHttpServletRequest request = conSesion("admin@gmail.com");
+    SocioSession socioSession = (SocioSession) request.getSession(false).getAttribute(AutenticacionWeb.SESSION_SOCIO_KEY);
+
+    assertThat(resolver("admin", request)).isSameAs(socioSession.getPrincipal());
+    assertThat(resolver("socio", request)).isSameAs(resolver("admin", request));
+  }
+
+  /**
+   * La comprobacion de admin por peticion no asigna memoria: antes se reconstruia un SocioLoginResponse
+   * para comparar el correo, ahora se lee el principal precalculado. Los bytes por operacion del camino
+   * anterior salen en el mensaje como referencia.
+   */
+  @Test
+  void la_comprobacion_de_admin_no_asigna_memoria() {
+    MockHttpServletRequest request = conSesion("admin@gmail.com");
+    int iteraciones = 100_000;
+    com.sun.management.ThreadMXBean hilos = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long hilo = Thread.currentThread().threadId();
+
+    long sumidero = 0;
+    long bytes0 = hilos.getThreadAllocatedBytes(hilo);
+    for (int i = 0; i < iteraciones; i++) {
+      sumidero += comprobacionAnterior(request) ? 1 : 0;
+    }
+    double bytesAntes = (double) (hilos.getThreadAllocatedBytes(hilo) - bytes0) / iteraciones;
+
+    bytes0 = hilos.getThreadAllocatedBytes(hilo);
+    for (int i = 0; i < iteraciones; i++) {
+      sumidero += autenticacion.requerirAdmin(request).admin() ? 1 : 0;
+    }
+    double bytesDespues = (double) (hilos.getThreadAllocatedBytes(hilo) - bytes0) / iteraciones;
+
+    assertThat(sumidero).isEqualTo(2L * iteraciones);
+    assertThat(bytesDespues)
+        .as("bytes/op: antes %.1f, despues %.1f", bytesAntes, bytesDespues)
+        .isLessThan(1.0);
+  }
+
+  /** Comprobacion que hacia cada controlador de admin antes del resolver. */
+  private static boolean comprobacionAnterior(MockHttpServletRequest request) {
+    Object value = request.getSession(false).getAttribute(AutenticacionWeb.SESSION_SOCIO_KEY);
+    return value instanceof SocioSession s
+        && SocioAutenticado.ADMIN_EMAIL.equalsIgnoreCase(s.toLoginResponse().correoElectronico());
+  }
+
+  @Test
+  void en_modo_token_resuelve_el_principal_que_deja_el_filtro() throws Exception {
+    AutenticacionWeb conTokens = new AutenticacionWeb(
+        new AuthProperties(AuthProperties.TOKEN, "", Duration.ofMinutes(15), false),
+        Mockito.mock(TokenSesionService.class),
+        Mockito.mock(RevocacionesSesion.class));
+    SocioActualArgumentResolver resolverTokens = new SocioActualArgumentResolver(conTokens);
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    SocioAutenticado socio = new SocioAutenticado(7L, false);
+    request.setAttribute(AutenticacionWeb.ATRIBUTO_SOCIO, socio);
+
+    assertThat(resolverTokens.resolveArgument(parametro("socio"), null, new ServletWebRequest(request), null))
+        .isSameAs(socio);
+    assertThatThrownBy(() -> resolverTokens.resolveArgument(parametro("admin"), null, new ServletWebRequest(request), null))
+        .isInstanceOfSatisfying(ResponseStatusException.class,
+            e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN));
+    // Sin token valido el filtro no deja principal aunque haya sesion HTTP
+    assertThatThrownBy(() -> resolverTokens.resolveArgument(parametro("socio"), null,
+        new ServletWebRequest(conSesion("test@fitgym.com")), null))
+        .isInstanceOf(InvalidCredentialsException.class);
+  }
+}
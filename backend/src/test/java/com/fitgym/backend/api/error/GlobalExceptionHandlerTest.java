@@ -5,13 +5,17 @@ import com.fitgym.backend.service.DuplicateEmailException;
 import com.fitgym.backend.service.InvalidCredentialsException;
 import com.fitgym.backend.service.PagoRegistroNoCompletadoException;
 import com.fitgym.backend.service.PagoRegistroNotFoundException;
+import com.fitgym.backend.service.ServicioSaturadoException;
 import com.fitgym.backend.service.SocioInactivoException;
 import com.fitgym.backend.service.TarifaNotFoundException;
 import com.fitgym.backend.service.TpvvCommunicationException;
+import java.time.Duration;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -199,6 +203,27 @@ class GlobalExceptionHandlerTest {
     assertNotNull(error.getTimestamp());
   }
 
+  /**
+   * Verifica que una {@link ResponseStatusException} (401/403 de administración) conserve su estado
+   * y su motivo en lugar de acabar en el 500 genérico.
+   */
+  @Test
+  void handleResponseStatus_keepsStatus_andReason() {
+    GlobalExceptionHandler handler = new GlobalExceptionHandler();
+    MockHttpServletRequest req = new MockHttpServletRequest("GET", "/api/admin/socios");
+
+    ResponseEntity<ApiError> res = handler.handleResponseStatus(
+        new ResponseStatusException(HttpStatus.FORBIDDEN, "No autorizado."), req);
+
+    assertEquals(HttpStatus.FORBIDDEN, res.getStatusCode());
+
+    ApiError error = res.getBody();
+    assertNotNull(error);
+    assertEquals(HttpStatus.FORBIDDEN.value(), error.getStatus());
+    assertEquals("No autorizado.", error.getMessage());
+    assertEquals("/api/admin/socios", error.getPath());
+  }
+
   /**
    * Verifica que, cuando se produce una excepción genérica no controlada,
    * el {@link GlobalExceptionHandler} devuelva una respuesta con código de
@@ -225,4 +250,42 @@ class GlobalExceptionHandlerTest {
     assertEquals("/api/algo", error.getPath());
     assertNotNull(error.getTimestamp());
   }
+
+  /**
+   * Verifica que {@link ServicioSaturadoException} se traduzca en 503
+   * con la cabecera Retry-After.
+   */
+  @Test
+  void handleSaturado_returnsServiceUnavailable_withRetryAfter() {
+    GlobalExceptionHandler handler = new GlobalExceptionHandler();
+    MockHttpServletRequest req = new MockHttpServletRequest("POST", "/api/socios/login");
+
+    ResponseEntity<ApiError> res = handler.handleSaturado(new ServicioSaturadoException("Servidor ocupado."), req);
+
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE, res.getStatusCode());
+    assertEquals("1", res.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+    ApiError error = res.getBody();
+    assertNotNull(error);
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), error.getStatus());
+    assertEquals("/api/socios/login", error.getPath());
+  }
+
+  /**
+   * Verifica que el Retry-After use el tiempo que indica la excepcion (p.ej. lo que le queda
+   * abierto al circuito TPVV), redondeado hacia arriba a segundos.
+   */
+  @Test
+  void handleSaturado_usesRemainingTime_forRetryAfter() {
+    GlobalExceptionHandler handler = new GlobalExceptionHandler();
+    MockHttpServletRequest req = new MockHttpServletRequest("POST", "/api/pagos/registro");
+
+    ResponseEntity<ApiError> res = handler.handleSaturado(
+        new ServicioSaturadoException("TPVV no esta disponible.", Duration.ofMillis(29_200)), req);
+    ResponseEntity<ApiError> yaCerrado = handler.handleSaturado(
+        new ServicioSaturadoException("TPVV no esta disponible.", Duration.ZERO), req);
+
+    assertEquals("30", res.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    assertEquals("1", yaCerrado.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+  }
 }
@@ -0,0 +1,38 @@
+package com.fitgym.backend.repo;
+
+import org.hibernate.boot.model.TypeContributions;
+import org.hibernate.boot.model.TypeContributor;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.SqlTypes;
+import org.hibernate.type.descriptor.jdbc.VarcharJdbcType;
+
+/**
+ * Solo en tests: el dialecto de H2 no sabe enlazar los enums con nombre de Postgres (NAMED_ENUM) y los
+ * manda como binario. Aqui viajan como texto hacia los dominios que crea {@link #BD}.
+ * Registrado en META-INF/services.
+ */
+public class EnumsPostgresEnH2 implements TypeContributor {
+
+  /**
+   * Parametro INIT de la URL de H2 que crea socio_estado, pago_resultado y tpvv_pago_estado como dominios,
+   * para que create-drop cree socio, pago y los pagos TPVV. La barra va doble porque Spring lee la propiedad
+   * con el formato de .properties y H2 necesita ver "\\;" para no cortar la URL.
+   */
+  public static final String DOMINIOS = "INIT=CREATE DOMAIN IF NOT EXISTS socio_estado AS VARCHAR(20)\\\\;"
+      + "CREATE DOMAIN IF NOT EXISTS pago_resultado AS VARCHAR(10)\\\\;"
+      + "CREATE DOMAIN IF NOT EXISTS tpvv_pago_estado AS VARCHAR(20)";
+
+  /** BD propia de los tests de repositorio, con los {@link #DOMINIOS}. */
+  public static final String BD = "spring.datasource.url=jdbc:h2:mem:fitgym_repo;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;"
+      + DOMINIOS;
+
+  @Override
+  public void contribute(TypeContributions typeContributions, ServiceRegistry serviceRegistry) {
+    typeContributions.contributeJdbcType(new VarcharJdbcType() {
+      @Override
+      public int getJdbcTypeCode() {
+        return SqlTypes.NAMED_ENUM;
+      }
+    });
+  }
+}
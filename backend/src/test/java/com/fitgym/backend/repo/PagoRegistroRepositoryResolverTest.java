@@ -0,0 +1,63 @@
+package com.fitgym.backend.repo;
+
+import com.fitgym.backend.domain.PagoRegistro;
+import com.fitgym.backend.domain.PagoRegistroEstado;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Ejecuta en H2 el update condicionado de PagoRegistroRepository.resolverPendiente: resuelve un pago
+ * PENDING una sola vez y no pisa uno ya caducado por el reconciliador.
+ */
+@SpringBootTest(properties = {EnumsPostgresEnH2.BD, "spring.jpa.hibernate.ddl-auto=create-drop"})
+class PagoRegistroRepositoryResolverTest {
+
+  @Autowired private PagoRegistroRepository pagoRepo;
+
+  @Test
+  void resuelve_un_pago_pendiente_una_sola_vez() {
+    PagoRegistro pago = pendiente();
+    Instant completado = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+    assertEquals(1, pagoRepo.resolverPendiente(pago.getId(), PagoRegistroEstado.COMPLETED, "COMPLETED", null,
+        completado, null, completado));
+    assertEquals(0, pagoRepo.resolverPendiente(pago.getId(), PagoRegistroEstado.COMPLETED, "COMPLETED", null,
+        completado.plusSeconds(60), null, completado.plusSeconds(60)));
+
+    PagoRegistro guardado = pagoRepo.findByToken(pago.getToken()).orElseThrow();
+    assertEquals(PagoRegistroEstado.COMPLETED, guardado.getEstado());
+    // El segundo resultado no mueve completedAt (ni la renovacion de la membresia)
+    assertEquals(completado, guardado.getCompletedAt());
+  }
+
+  @Test
+  void un_verify_tardio_no_devuelve_a_completed_un_pago_caducado() {
+    PagoRegistro pago = pendiente();
+    assertEquals(1, pagoRepo.caducar(pago.getToken(), "Caducado", Instant.now()));
+
+    // pago es la copia leida antes de caducar: sigue PENDING en memoria
+    assertEquals(0, pagoRepo.resolverPendiente(pago.getId(), PagoRegistroEstado.COMPLETED, "COMPLETED", null,
+        Instant.now(), null, Instant.now()));
+
+    PagoRegistro guardado = pagoRepo.findByToken(pago.getToken()).orElseThrow();
+    assertEquals(PagoRegistroEstado.FAILED, guardado.getEstado());
+    assertEquals("Caducado", guardado.getFailureReason());
+    assertNull(guardado.getCompletedAt());
+  }
+
+  private PagoRegistro pendiente() {
+    PagoRegistro pago = new PagoRegistro();
+    pago.setToken("tok-" + System.nanoTime());
+    pago.setImporte(new BigDecimal("29.90"));
+    pago.setCallbackUrl("http://localhost:5173/registro");
+    return pagoRepo.save(pago);
+  }
+}
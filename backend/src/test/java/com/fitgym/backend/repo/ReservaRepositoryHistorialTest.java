@@ -0,0 +1,138 @@
+package com.fitgym.backend.repo;
+
+import com.fitgym.backend.api.dto.ReservaItemResponse;
+import com.fitgym.backend.domain.Actividad;
+import com.fitgym.backend.domain.Monitor;
+import com.fitgym.backend.domain.Pago;
+import com.fitgym.backend.domain.PagoResultado;
+import com.fitgym.backend.domain.Reserva;
+import com.fitgym.backend.domain.ReservaEstado;
+import com.fitgym.backend.domain.ReservaId;
+import com.fitgym.backend.domain.Sala;
+import com.fitgym.backend.domain.Socio;
+import com.fitgym.backend.domain.TipoActividad;
+import com.fitgym.backend.service.ActividadesDePrueba;
+import com.fitgym.backend.service.SociosDePrueba;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Ejecuta en H2 la consulta del historial de reservas (ReservaRepository.findHistorialSocio):
+ * join con actividad, pago opcional con coalesce, primera pagina sin cursor, keyset y limite en SQL.
+ */
+@SpringBootTest(properties = {EnumsPostgresEnH2.BD, "spring.jpa.hibernate.ddl-auto=create-drop"})
+class ReservaRepositoryHistorialTest {
+
+  private static final OffsetDateTime BASE = OffsetDateTime.of(2030, 1, 10, 12, 0, 0, 0, ZoneOffset.UTC);
+
+  @Autowired private ReservaRepository reservaRepo;
+  @Autowired private ActividadRepository actividadRepo;
+  @Autowired private PagoRepository pagoRepo;
+  @Autowired private SocioRepository socioRepo;
+  @Autowired private TarifaRepository tarifaRepo;
+  @Autowired private MonitorRepository monitorRepo;
+  @Autowired private SalaRepository salaRepo;
+  @Autowired private TipoActividadRepository tipoRepo;
+
+  private Socio socio;
+  private Actividad gratis;
+  private Actividad pagada;
+  private Actividad fallida;
+  private Actividad mismaFecha;
+
+  @BeforeEach
+  void setUp() {
+    socio = socioRepo.save(SociosDePrueba.socio(tarifaRepo.save(SociosDePrueba.tarifa()), "historial" + System.nanoTime() + "@fitgym.com"));
+    Socio otro = socioRepo.save(SociosDePrueba.socio(socio.getTarifa(), "otro" + System.nanoTime() + "@fitgym.com"));
+
+    Monitor monitor = monitorRepo.save(ActividadesDePrueba.monitor("historial@fitgym.com"));
+    Sala sala = salaRepo.save(ActividadesDePrueba.sala("Sala historial", 20));
+    TipoActividad tipo = tipoRepo.save(ActividadesDePrueba.tipo("Yoga", "Movilidad"));
+    gratis = actividadRepo.save(clase("Gratis", monitor, sala, tipo));
+    pagada = actividadRepo.save(clase("Pagada", monitor, sala, tipo));
+    fallida = actividadRepo.save(clase("Pago fallido", monitor, sala, tipo));
+    mismaFecha = actividadRepo.save(clase("Misma fecha", monitor, sala, tipo));
+
+    reservar(socio, gratis, BASE.minusDays(3), ReservaEstado.CONFIRMADA);
+    reservar(socio, pagada, BASE.minusDays(2), ReservaEstado.CONFIRMADA);
+    reservar(socio, fallida, BASE.minusDays(1), ReservaEstado.CANCELADA);
+    reservar(socio, mismaFecha, BASE.minusDays(1), ReservaEstado.CONFIRMADA);
+    reservar(otro, gratis, BASE, ReservaEstado.CONFIRMADA);
+
+    pagar(socio, pagada, "7.50", PagoResultado.OK);
+    pagar(socio, fallida, "9.00", PagoResultado.FAIL);
+  }
+
+  @Test
+  void sin_cursor_devuelve_las_mas_recientes_del_socio_con_el_importe_pagado() {
+    List<ReservaItemResponse> filas = reservaRepo.findHistorialSocio(socio.getId(), null, null, Limit.of(10));
+
+    // Empate en fecha_alta: desempata id_actividad descendente
+    Long primeroEnEmpate = Math.max(fallida.getId(), mismaFecha.getId());
+    Long segundoEnEmpate = Math.min(fallida.getId(), mismaFecha.getId());
+    assertEquals(List.of(primeroEnEmpate, segundoEnEmpate, pagada.getId(), gratis.getId()),
+        filas.stream().map(ReservaItemResponse::idActividad).toList());
+
+    ReservaItemResponse conPago = filas.get(2);
+    assertEquals(0, new BigDecimal("7.50").compareTo(conPago.precioPagado()));
+    // Sin pago o con pago FAIL, coalesce(p.cantidad, 0)
+    ReservaItemResponse sinPago = filas.get(3);
+    assertEquals(0, BigDecimal.ZERO.compareTo(sinPago.precioPagado()));
+    ReservaItemResponse cancelada = filas.stream().filter(f -> f.idActividad().equals(fallida.getId())).findFirst().orElseThrow();
+    assertEquals(0, BigDecimal.ZERO.compareTo(cancelada.precioPagado()));
+    assertEquals("CANCELADA", cancelada.estado());
+  }
+
+  @Test
+  void el_cursor_continua_tras_la_ultima_fila_y_el_limite_va_en_sql() {
+    List<ReservaItemResponse> primera = reservaRepo.findHistorialSocio(socio.getId(), null, null, Limit.of(1));
+    assertEquals(1, primera.size());
+
+    ReservaItemResponse ultima = primera.get(0);
+    List<ReservaItemResponse> resto = reservaRepo.findHistorialSocio(
+        socio.getId(), ultima.fechaAlta(), ultima.idActividad(), Limit.of(10));
+
+    assertEquals(3, resto.size());
+    assertEquals(Math.min(fallida.getId(), mismaFecha.getId()), resto.get(0).idActividad());
+    assertEquals(gratis.getId(), resto.get(2).idActividad());
+  }
+
+  private static Actividad clase(String nombre, Monitor monitor, Sala sala, TipoActividad tipo) {
+    return ActividadesDePrueba.clase(nombre, LocalDate.of(2030, 2, 1), LocalTime.of(9, 0), LocalTime.of(10, 0), 20,
+        monitor, sala, tipo);
+  }
+
+  private void reservar(Socio s, Actividad a, OffsetDateTime fecha, ReservaEstado estado) {
+    Reserva r = new Reserva();
+    r.setId(new ReservaId(s.getId(), a.getId()));
+    r.setSocio(s);
+    r.setActividad(a);
+    r.setFecha(fecha);
+    r.setEstado(estado);
+    reservaRepo.save(r);
+  }
+
+  private void pagar(Socio s, Actividad a, String cantidad, PagoResultado resultado) {
+    Pago p = new Pago();
+    p.setNombre("Pago reserva actividad");
+    p.setIdSocio(s.getId());
+    p.setIdActividad(a.getId());
+    p.setFechaPago(Instant.now());
+    p.setCantidad(new BigDecimal(cantidad));
+    p.setResultadoPago(resultado);
+    pagoRepo.save(p);
+  }
+}
@@ -0,0 +1,105 @@
+package com.fitgym.backend.repo;
+
+import com.fitgym.backend.api.dto.SocioDirectorioResponse;
+import com.fitgym.backend.domain.Socio;
+import com.fitgym.backend.domain.SocioEstado;
+import com.fitgym.backend.domain.Tarifa;
+import com.fitgym.backend.service.SociosDePrueba;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Ejecuta en H2 la consulta del directorio de admin (SocioRepository.findDirectorio): enlace de la
+ * lista de estados enum, escape de los comodines de LIKE, filtros opcionales y keyset con limite.
+ * Cada test usa una ciudad propia para no ver los socios de otros tests de la misma BD.
+ */
+@SpringBootTest(properties = {EnumsPostgresEnH2.BD, "spring.jpa.hibernate.ddl-auto=create-drop"})
+class SocioRepositoryDirectorioTest {
+
+  private static final Set<SocioEstado> TODOS = EnumSet.allOf(SocioEstado.class);
+
+  @Autowired private SocioRepository socioRepo;
+  @Autowired private TarifaRepository tarifaRepo;
+
+  private String ciudad;
+  private Tarifa basica;
+  private Tarifa premium;
+  private Socio ana;
+  private Socio comodin;
+  private Socio inactivo;
+  private Socio premiumSocio;
+
+  @BeforeEach
+  void setUp() {
+    ciudad = "ciudad" + System.nanoTime();
+    basica = tarifaRepo.save(SociosDePrueba.tarifa());
+    Tarifa otra = SociosDePrueba.tarifa();
+    otra.setNombre("Premium");
+    premium = tarifaRepo.save(otra);
+
+    ana = guardar("Ana Lopez", "ana.lopez", basica, SocioEstado.ACTIVO);
+    // "_" y "%" literales: sin escape, "ana_50%" tambien casaria con "Anax50y"
+    comodin = guardar("Ana_50% Ruiz", "ruiz", basica, SocioEstado.ACTIVO);
+    guardar("Anax50y", "otra", basica, SocioEstado.ACTIVO);
+    inactivo = guardar("Luis Gil", "luis", basica, SocioEstado.INACTIVO);
+    premiumSocio = guardar("Marta Sanz", "marta", premium, SocioEstado.ACTIVO);
+  }
+
+  @Test
+  void filtra_por_estado_tarifa_y_ciudad() {
+    assertEquals(List.of(inactivo.getId()),
+        ids(socioRepo.findDirectorio(0L, EnumSet.of(SocioEstado.INACTIVO), null, ciudad, null, null, Limit.of(10))));
+    assertEquals(List.of(premiumSocio.getId()),
+        ids(socioRepo.findDirectorio(0L, TODOS, premium.getId(), ciudad, null, null, Limit.of(10))));
+
+    SocioDirectorioResponse fila = socioRepo.findDirectorio(0L, TODOS, premium.getId(), ciudad, null, null, Limit.of(10)).get(0);
+    assertEquals("ACTIVO", fila.estado());
+    assertEquals("Premium", fila.tarifaNombre());
+  }
+
+  @Test
+  void la_busqueda_escapa_los_comodines_y_mira_nombre_o_prefijo_de_correo() {
+    assertEquals(List.of(comodin.getId()),
+        ids(socioRepo.findDirectorio(0L, TODOS, null, ciudad, "%ana\\_50\\%%", "ana\\_50\\%%", Limit.of(10))));
+    // Sin comodines en el texto: subcadena del nombre o prefijo del correo
+    assertEquals(List.of(ana.getId()),
+        ids(socioRepo.findDirectorio(0L, TODOS, null, ciudad, "%lopez%", "lopez%", Limit.of(10))));
+    assertEquals(List.of(comodin.getId()),
+        ids(socioRepo.findDirectorio(0L, TODOS, null, ciudad, "%ruiz%", "ruiz%", Limit.of(10))));
+    assertEquals(List.of(inactivo.getId()),
+        ids(socioRepo.findDirectorio(0L, TODOS, null, ciudad, "%zzz%", "luis%", Limit.of(10))));
+  }
+
+  @Test
+  void el_keyset_continua_tras_el_cursor_y_respeta_el_limite() {
+    List<Long> todos = ids(socioRepo.findDirectorio(0L, TODOS, null, ciudad, null, null, Limit.of(10)));
+    assertEquals(5, todos.size());
+
+    List<Long> primera = ids(socioRepo.findDirectorio(0L, TODOS, null, ciudad, null, null, Limit.of(2)));
+    List<Long> segunda = ids(socioRepo.findDirectorio(primera.get(1), TODOS, null, ciudad, null, null, Limit.of(2)));
+
+    assertEquals(todos.subList(0, 2), primera);
+    assertEquals(todos.subList(2, 4), segunda);
+  }
+
+  private Socio guardar(String nombre, String usuario, Tarifa tarifa, SocioEstado estado) {
+    Socio socio = SociosDePrueba.socio(tarifa, usuario + System.nanoTime() + "@fitgym.com");
+    socio.setNombre(nombre);
+    socio.setCiudad(ciudad);
+    socio.setEstado(estado);
+    return socioRepo.save(socio);
+  }
+
+  private static List<Long> ids(List<SocioDirectorioResponse> filas) {
+    return filas.stream().map(SocioDirectorioResponse::id).toList();
+  }
+}
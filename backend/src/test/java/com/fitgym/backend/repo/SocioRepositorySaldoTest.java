@@ -0,0 +1,63 @@
+package com.fitgym.backend.repo;
+
+import com.fitgym.backend.domain.Socio;
+import com.fitgym.backend.domain.TipoMovimiento;
+import com.fitgym.backend.service.SociosDePrueba;
+import com.fitgym.backend.service.monedero.MonederoService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Lee el saldo del monedero a traves del @Formula de Socio (subconsultas sobre saldo_monedero y
+ * movimiento_monedero) y comprueba que coincide con el que calcula MonederoService, antes y despues
+ * de consolidar.
+ */
+@SpringBootTest(properties = {EnumsPostgresEnH2.BD, "spring.jpa.hibernate.ddl-auto=create-drop"})
+class SocioRepositorySaldoTest {
+
+  @Autowired private SocioRepository socioRepo;
+  @Autowired private TarifaRepository tarifaRepo;
+  @Autowired private MonederoService monedero;
+
+  @Test
+  void socio_sin_movimientos_tiene_saldo_cero() {
+    Socio socio = nuevoSocio();
+
+    assertSaldo("0.00", socio.getId());
+  }
+
+  @Test
+  void el_saldo_del_formula_cuadra_con_el_libro_antes_y_despues_de_consolidar() {
+    Long id = nuevoSocio().getId();
+
+    monedero.abonar(id, new BigDecimal("10.00"), TipoMovimiento.RECARGA, "r1");
+    monedero.abonar(id, new BigDecimal("5.00"), TipoMovimiento.RECARGA, "r2");
+    monedero.cargar(id, new BigDecimal("3.00"), TipoMovimiento.RESERVA, "c1");
+    // Sin consolidar: foto con el cargo (-3) mas los abonos posteriores a ella
+    assertSaldo("12.00", id);
+
+    monedero.consolidar(id, Instant.now().plusSeconds(1));
+    assertSaldo("12.00", id);
+
+    // Los abonos posteriores a la foto se suman; los ya consolidados no se cuentan dos veces
+    monedero.abonar(id, new BigDecimal("2.50"), TipoMovimiento.RECARGA, "r3");
+    assertSaldo("14.50", id);
+  }
+
+  private Socio nuevoSocio() {
+    return socioRepo.save(SociosDePrueba.socio(tarifaRepo.save(SociosDePrueba.tarifa()), "saldo" + System.nanoTime() + "@fitgym.com"));
+  }
+
+  private void assertSaldo(String esperado, Long idSocio) {
+    // Fuera de transaccion: cada findById carga la entidad de nuevo y evalua el @Formula
+    BigDecimal formula = socioRepo.findById(idSocio).orElseThrow().getSaldoMonedero();
+    assertEquals(0, new BigDecimal(esperado).compareTo(formula), "formula: " + formula);
+    assertEquals(0, monedero.saldo(idSocio).compareTo(formula), "libro: " + monedero.saldo(idSocio));
+  }
+}
@@ -0,0 +1,119 @@
+package com.fitgym.backend.service;
+
+import com.fitgym.backend.api.dto.ActividadCatalogoResponse;
+import com.fitgym.backend.api.dto.ActividadResponse;
+import com.fitgym.backend.domain.Monitor;
+import com.fitgym.backend.domain.Sala;
+import com.fitgym.backend.domain.TipoActividad;
+import com.fitgym.backend.repo.ActividadRepository;
+import com.fitgym.backend.repo.MonitorRepository;
+import com.fitgym.backend.repo.SalaRepository;
+import com.fitgym.backend.repo.TipoActividadRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests del catalogo paginado de actividades (rango de fechas, filtros y cursor keyset).
+ */
+@SpringBootTest(properties = {
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class ActividadServiceCatalogoTest {
+
+  private static final LocalDate HOY = LocalDate.of(2030, 3, 10);
+
+  @Autowired private ActividadService actividadService;
+  @Autowired private ActividadRepository actividadRepo;
+  @Autowired private MonitorRepository monitorRepo;
+  @Autowired private SalaRepository salaRepo;
+  @Autowired private TipoActividadRepository tipoRepo;
+
+  private Monitor monitor;
+  private Sala sala;
+  private TipoActividad tipo;
+
+  @BeforeEach
+  void setUp() {
+    monitor = monitorRepo.save(ActividadesDePrueba.monitor("laura@fitgym.com"));
+    sala = salaRepo.save(ActividadesDePrueba.sala("Sala catalogo " + System.nanoTime(), 20));
+    tipo = tipoRepo.save(ActividadesDePrueba.tipo("Yoga", "Movilidad"));
+  }
+
+  @Test
+  void recorre_todas_las_paginas_en_orden_sin_repetir_ni_saltar() {
+    // Historico: no debe aparecer
+    crear(HOY.minusDays(5), LocalTime.of(9, 0));
+    for (int dia = 0; dia < 3; dia++) {
+      crear(HOY.plusDays(dia), LocalTime.of(18, 0));
+      crear(HOY.plusDays(dia), LocalTime.of(9, 0));
+      crear(HOY.plusDays(dia), LocalTime.of(9, 0));
+    }
+
+    List<ActividadResponse> vistas = new ArrayList<>();
+    String cursor = null;
+    int paginas = 0;
+    do {
+      ActividadCatalogoResponse pagina = actividadService.catalogo(
+          HOY, HOY.plusDays(10), null, sala.getId(), null, cursor, 4);
+      vistas.addAll(pagina.items());
+      cursor = pagina.nextCursor();
+      paginas++;
+    } while (cursor != null);
+
+    assertEquals(9, vistas.size());
+    assertEquals(3, paginas);
+    for (int i = 1; i < vistas.size(); i++) {
+      ActividadResponse prev = vistas.get(i - 1);
+      ActividadResponse cur = vistas.get(i);
+      int cmp = prev.fecha().compareTo(cur.fecha());
+      if (cmp == 0) cmp = prev.horaIni().compareTo(cur.horaIni());
+      if (cmp == 0) cmp = prev.id().compareTo(cur.id());
+      assertEquals(-1, Integer.signum(cmp));
+    }
+  }
+
+  @Test
+  void filtra_por_rango_y_limita_el_tamano_de_pagina() {
+    for (int i = 0; i < 120; i++) {
+      crear(HOY, LocalTime.of(6, 0).plusMinutes(i));
+    }
+    crear(HOY.plusDays(40), LocalTime.of(9, 0));
+
+    ActividadCatalogoResponse pagina = actividadService.catalogo(
+        HOY, HOY, null, sala.getId(), monitor.getId(), null, 1000);
+
+    assertEquals(100, pagina.items().size());
+    assertNotNull(pagina.nextCursor());
+
+    ActividadCatalogoResponse resto = actividadService.catalogo(
+        HOY, HOY, null, sala.getId(), monitor.getId(), pagina.nextCursor(), 1000);
+    assertEquals(20, resto.items().size());
+    assertNull(resto.nextCursor());
+  }
+
+  @Test
+  void cursor_invalido_o_rango_invertido_lanzan_business_exception() {
+    assertThrows(BusinessException.class,
+        () -> actividadService.catalogo(HOY, HOY, null, null, null, "no-es-un-cursor", 10));
+    assertThrows(BusinessException.class,
+        () -> actividadService.catalogo(HOY, HOY.minusDays(1), null, null, null, null, 10));
+  }
+
+  private void crear(LocalDate fecha, LocalTime horaIni) {
+    actividadRepo.save(ActividadesDePrueba.clase("Clase " + fecha + " " + horaIni, fecha,
+        horaIni, horaIni.plusMinutes(45), 20, monitor, sala, tipo));
+  }
+}
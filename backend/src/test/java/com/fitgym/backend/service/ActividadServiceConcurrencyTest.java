@@ -0,0 +1,106 @@
+package com.fitgym.backend.service;
+
+import com.fitgym.backend.domain.Actividad;
+import com.fitgym.backend.repo.ActividadRepository;
+import com.fitgym.backend.repo.MonitorRepository;
+import com.fitgym.backend.repo.SalaRepository;
+import com.fitgym.backend.repo.TipoActividadRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test de concurrencia de la reserva de plazas.
+ *
+ * Lanza cientos de reservas simultaneas contra una clase de 20 plazas y comprueba
+ * que el UPDATE condicional no sobrevende ni deja el contador en negativo.
+ */
+@SpringBootTest(properties = "spring.jpa.hibernate.ddl-auto=create-drop")
+class ActividadServiceConcurrencyTest {
+
+  private static final int PLAZAS = 20;
+  private static final int HILOS = 300;
+
+  @Autowired private ActividadService actividadService;
+  @Autowired private ActividadRepository actividadRepo;
+  @Autowired private MonitorRepository monitorRepo;
+  @Autowired private SalaRepository salaRepo;
+  @Autowired private TipoActividadRepository tipoRepo;
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  @Test
+  void reservas_simultaneas_no_sobrevenden_plazas() throws Exception {
+    Long idClase = crearClase(PLAZAS).getId();
+
+    ExecutorService pool = Executors.newFixedThreadPool(HILOS);
+    CountDownLatch salida = new CountDownLatch(1);
+    AtomicInteger ocupadas = new AtomicInteger();
+    List<Future<?>> tareas = new ArrayList<>();
+
+    for (int i = 0; i < HILOS; i++) {
+      tareas.add(pool.submit(() -> {
+        salida.await();
+        if (actividadService.bajarDisponiblesEnClase(idClase)) {
+          ocupadas.incrementAndGet();
+        }
+        return null;
+      }));
+    }
+
+    salida.countDown();
+    for (Future<?> tarea : tareas) {
+      tarea.get(30, TimeUnit.SECONDS);
+    }
+    pool.shutdown();
+
+    assertEquals(PLAZAS, ocupadas.get());
+    assertEquals(0, actividadRepo.findById(idClase).orElseThrow().getDisponibles());
+  }
+
+  @Test
+  void liberar_plaza_no_supera_las_plazas_totales() {
+    Long idClase = crearClase(2).getId();
+
+    actividadService.subirDisponiblesEnClase(idClase);
+
+    assertEquals(2, actividadRepo.findById(idClase).orElseThrow().getDisponibles());
+  }
+
+  @Test
+  void la_actividad_ya_cargada_en_la_transaccion_ve_el_nuevo_disponibles() {
+    Long idClase = crearClase(5).getId();
+
+    new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+      Actividad cargada = actividadRepo.findById(idClase).orElseThrow();
+
+      actividadService.bajarDisponiblesEnClase(idClase);
+      assertEquals(4, cargada.getDisponibles());
+
+      actividadService.subirDisponiblesEnClase(idClase);
+      assertEquals(5, cargada.getDisponibles());
+    });
+  }
+
+  private Actividad crearClase(int plazas) {
+    return actividadRepo.save(ActividadesDePrueba.clase("Spinning 07:00", LocalDate.now().plusDays(1),
+        LocalTime.of(7, 0), LocalTime.of(8, 0), plazas,
+        monitorRepo.save(ActividadesDePrueba.monitor("monitor@fitgym.com")),
+        salaRepo.save(ActividadesDePrueba.sala("Sala Ciclo", plazas)),
+        tipoRepo.save(ActividadesDePrueba.tipo("Spinning", "Ciclo indoor"))));
+  }
+}
@@ -0,0 +1,83 @@
+package com.fitgym.backend.service;
+
+import com.fitgym.backend.repo.ActividadRepository;
+import com.fitgym.backend.repo.MonitorRepository;
+import com.fitgym.backend.repo.SalaRepository;
+import com.fitgym.backend.repo.TipoActividadRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Comprueba con las estadisticas de Hibernate que los listados de actividades
+ * lanzan un numero de consultas constante, independiente del numero de filas.
+ */
+@SpringBootTest(properties = {
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class ActividadServiceQueryCountTest {
+
+  @Autowired private ActividadService actividadService;
+  @Autowired private ActividadRepository actividadRepo;
+  @Autowired private MonitorRepository monitorRepo;
+  @Autowired private SalaRepository salaRepo;
+  @Autowired private TipoActividadRepository tipoRepo;
+  @Autowired private EntityManagerFactory emf;
+
+  private Statistics stats;
+
+  @BeforeEach
+  void setUp() {
+    stats = emf.unwrap(SessionFactory.class).getStatistics();
+  }
+
+  @Test
+  void catalogo_publico_usa_una_consulta_con_1_o_con_n_actividades() {
+    crearActividades(1);
+    long conPocas = contarConsultas(() -> actividadService.recuperarTodasActividades());
+
+    crearActividades(25);
+    long conMuchas = contarConsultas(() -> actividadService.recuperarTodasActividades());
+
+    assertEquals(1, conPocas);
+    assertEquals(conPocas, conMuchas);
+  }
+
+  @Test
+  void listado_admin_usa_una_consulta_con_1_o_con_n_actividades() {
+    crearActividades(1);
+    long conPocas = contarConsultas(() -> actividadService.adminListar());
+
+    crearActividades(25);
+    long conMuchas = contarConsultas(() -> actividadService.adminListar());
+
+    assertEquals(1, conPocas);
+    assertEquals(conPocas, conMuchas);
+  }
+
+  private long contarConsultas(Runnable accion) {
+    stats.clear();
+    accion.run();
+    return stats.getPrepareStatementCount();
+  }
+
+  private void crearActividades(int n) {
+    for (int i = 0; i < n; i++) {
+      actividadRepo.save(ActividadesDePrueba.clase("Clase " + i, LocalDate.now().plusDays(i),
+          LocalTime.of(9, 0), LocalTime.of(10, 0), 20,
+          monitorRepo.save(ActividadesDePrueba.monitor("monitor" + i + "@fitgym.com")),
+          salaRepo.save(ActividadesDePrueba.sala("Sala " + i, 20)),
+          tipoRepo.save(ActividadesDePrueba.tipo("Tipo " + i, "Descripcion"))));
+    }
+  }
+}
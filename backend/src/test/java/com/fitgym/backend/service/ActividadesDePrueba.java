@@ -0,0 +1,64 @@
+package com.fitgym.backend.service;
+
+import com.fitgym.backend.domain.Actividad;
+import com.fitgym.backend.domain.Monitor;
+import com.fitgym.backend.domain.Sala;
+import com.fitgym.backend.domain.TipoActividad;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Entidades de prueba (monitor, sala, tipo y clase) con todos los campos obligatorios rellenos.
+ * Solo las construye: cada test las guarda con sus repositorios o con el EntityManager.
+ */
+public final class ActividadesDePrueba {
+
+  private ActividadesDePrueba() {
+  }
+
+  public static Monitor monitor(String correo) {
+    Monitor monitor = new Monitor();
+    monitor.setNombre("Monitor");
+    monitor.setDni("DNI-" + System.nanoTime());
+    monitor.setCorreoElectronico(correo);
+    monitor.setContrasenya("hash");
+    monitor.setTelefono("600000000");
+    monitor.setCiudad("Alicante");
+    monitor.setDireccion("C/ Sol 1");
+    monitor.setCodigoPostal("03001");
+    return monitor;
+  }
+
+  public static Sala sala(String descripcion, int aforo) {
+    Sala sala = new Sala();
+    sala.setDescripcion(descripcion);
+    sala.setAforo(aforo);
+    return sala;
+  }
+
+  public static TipoActividad tipo(String nombre, String descripcion) {
+    TipoActividad tipo = new TipoActividad();
+    tipo.setNombre(nombre);
+    tipo.setDescripcion(descripcion);
+    return tipo;
+  }
+
+  /** Clase gratuita con todas sus plazas libres. */
+  public static Actividad clase(String nombre, LocalDate fecha, LocalTime horaIni, LocalTime horaFin, int plazas,
+      Monitor monitor, Sala sala, TipoActividad tipo) {
+    Actividad actividad = new Actividad();
+    actividad.setNombre(nombre);
+    actividad.setFecha(fecha);
+    actividad.setHoraIni(horaIni);
+    actividad.setHoraFin(horaFin);
+    actividad.setPrecioExtra(BigDecimal.ZERO);
+    actividad.setPlazas(plazas);
+    actividad.setDisponibles(plazas);
+    actividad.setMonitor(monitor);
+    actividad.setSala(sala);
+    actividad.setTipoActividad(tipo);
+    return actividad;
+  }
+}
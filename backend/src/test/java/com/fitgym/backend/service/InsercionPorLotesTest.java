@@ -0,0 +1,96 @@
+package com.fitgym.backend.service;
+
+import com.fitgym.backend.domain.Actividad;
+import com.fitgym.backend.domain.Monitor;
+import com.fitgym.backend.domain.Sala;
+import com.fitgym.backend.domain.TipoActividad;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Insercion masiva de actividades: numero de sentencias con y sin lotes JDBC.
+ *
+ * Con ids de secuencia por bloques (pooled-lo) Hibernate agrupa los INSERT en lotes JDBC. La linea base
+ * fuerza lotes de 1 fila, que es lo que pasaba con IDENTITY (un INSERT y un viaje por fila para leer el id).
+ * No se mide tiempo: en H2 en memoria el viaje es casi gratis y lo que no depende del motor es el numero
+ * de sentencias, que es lo que se comprueba.
+ */
+@SpringBootTest(properties = {
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class InsercionPorLotesTest {
+
+  private static final int FILAS = 1_000;
+  private static final int FILAS_POR_TRANSACCION = 500;
+
+  @Autowired private EntityManager em;
+  @Autowired private EntityManagerFactory emf;
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  @Test
+  void insertar_actividades_en_lotes_usa_una_sentencia_por_lote() {
+    TransactionTemplate tx = new TransactionTemplate(transactionManager);
+    Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+    Object[] dependencias = tx.execute(status -> crearDependencias());
+
+    stats.clear();
+    insertar(tx, dependencias, FILAS, 1);
+    long sentenciasFilaAFila = stats.getPrepareStatementCount();
+
+    stats.clear();
+    insertar(tx, dependencias, FILAS, 50);
+    long sentenciasEnLotes = stats.getPrepareStatementCount();
+
+    assertTrue(sentenciasFilaAFila >= FILAS, "fila a fila: " + sentenciasFilaAFila);
+    // Un lote de INSERT y un nextval por cada 50 filas
+    assertTrue(sentenciasEnLotes <= FILAS / 50 * 2 + FILAS / FILAS_POR_TRANSACCION,
+        "en lotes: " + sentenciasEnLotes);
+  }
+
+  /** Inserta filas actividades en transacciones de FILAS_POR_TRANSACCION con el tamano de lote indicado. */
+  private void insertar(TransactionTemplate tx, Object[] dependencias, int filas, int tamanoLote) {
+    for (int hechas = 0; hechas < filas; hechas += FILAS_POR_TRANSACCION) {
+      int desde = hechas;
+      tx.executeWithoutResult(status -> {
+        em.unwrap(Session.class).setJdbcBatchSize(tamanoLote);
+        Monitor monitor = em.getReference(Monitor.class, ((Monitor) dependencias[0]).getId());
+        Sala sala = em.getReference(Sala.class, ((Sala) dependencias[1]).getId());
+        TipoActividad tipo = em.getReference(TipoActividad.class, ((TipoActividad) dependencias[2]).getId());
+        for (int i = desde; i < Math.min(desde + FILAS_POR_TRANSACCION, filas); i++) {
+          em.persist(actividad(i, monitor, sala, tipo));
+        }
+        em.flush();
+        em.clear();
+      });
+    }
+  }
+
+  private Object[] crearDependencias() {
+    Monitor monitor = ActividadesDePrueba.monitor("lotes@fitgym.com");
+    Sala sala = ActividadesDePrueba.sala("Sala lotes", 30);
+    TipoActividad tipo = ActividadesDePrueba.tipo("Pilates", "Suelo");
+    em.persist(monitor);
+    em.persist(sala);
+    em.persist(tipo);
+    return new Object[] {monitor, sala, tipo};
+  }
+
+  private static Actividad actividad(int i, Monitor monitor, Sala sala, TipoActividad tipo) {
+    return ActividadesDePrueba.clase("Pilates " + i, LocalDate.of(2026, 1, 1).plusDays(i % 365),
+        LocalTime.of(7 + i % 12, 0), LocalTime.of(8 + i % 12, 0), 20, monitor, sala, tipo);
+  }
+}
@@ -7,21 +7,38 @@ import com.fitgym.backend.repo.PagoRegistroRepository;
 import com.fitgym.backend.repo.TarifaRepository;
 import com.fitgym.backend.service.tpvv.TpvvClient;
 import com.fitgym.backend.service.tpvv.TpvvProperties;
+import com.fitgym.backend.service.tpvv.TpvvWebhookProperties;
 import com.fitgym.backend.service.tpvv.dto.TpvvPaymentInitResponse;
 import com.fitgym.backend.service.tpvv.dto.TpvvPaymentVerifyResponse;
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.when;
 
 class PagoRegistroServiceTest {
@@ -29,6 +46,7 @@ class PagoRegistroServiceTest {
   private PagoRegistroRepository pagoRepo;
   private TarifaRepository tarifaRepo;
   private TpvvClient tpvvClient;
+  private TpvvProperties props;
   private PagoRegistroService service;
 
   @BeforeEach
@@ -37,14 +55,14 @@ class PagoRegistroServiceTest {
     tarifaRepo = Mockito.mock(TarifaRepository.class);
     tpvvClient = Mockito.mock(TpvvClient.class);
 
-    TpvvProperties props = new TpvvProperties(
+    props = new TpvvProperties(
         "https://tpv.example",
         "sk_test",
         "http://localhost:5173/registro",
         "http://localhost:5173/perfil"
     );
 
-    service = new PagoRegistroService(pagoRepo, tarifaRepo, tpvvClient, props);
+    service = new PagoRegistroService(pagoRepo, tarifaRepo, tpvvClient, props, webhook(""));
   }
 
   @Test
@@ -77,7 +95,7 @@ class PagoRegistroServiceTest {
     pago.setImporte(new BigDecimal("10.00"));
     when(pagoRepo.findByToken("tok")).thenReturn(Optional.of(pago));
     when(tpvvClient.verifyPayment("tok")).thenReturn(new TpvvPaymentVerifyResponse("COMPLETED", null));
-    when(pagoRepo.save(any(PagoRegistro.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    comoLaBd(pago);
 
     PagoRegistro result = service.verificarPago("tok");
 
@@ -94,7 +112,7 @@ class PagoRegistroServiceTest {
     pago.setImporte(new BigDecimal("10.00"));
     when(pagoRepo.findByToken("tok")).thenReturn(Optional.of(pago));
     when(tpvvClient.verifyPayment("tok")).thenReturn(new TpvvPaymentVerifyResponse("FAILED", "Saldo insuficiente"));
-    when(pagoRepo.save(any(PagoRegistro.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    comoLaBd(pago);
 
     PagoRegistro result = service.verificarPago("tok");
 
@@ -112,7 +130,6 @@ class PagoRegistroServiceTest {
     pago.setImporte(new BigDecimal("10.00"));
     when(pagoRepo.findByToken("tok")).thenReturn(Optional.of(pago));
     when(tpvvClient.verifyPayment("tok")).thenReturn(new TpvvPaymentVerifyResponse("PENDING", null));
-    when(pagoRepo.save(any(PagoRegistro.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
     assertThrows(PagoRegistroNoCompletadoException.class,
         () -> service.exigirPagoCompletado("tok", new BigDecimal("10.00")));
@@ -125,9 +142,219 @@ class PagoRegistroServiceTest {
     pago.setImporte(new BigDecimal("10.00"));
     when(pagoRepo.findByToken("tok")).thenReturn(Optional.of(pago));
     when(tpvvClient.verifyPayment("tok")).thenReturn(new TpvvPaymentVerifyResponse("COMPLETED", null));
-    when(pagoRepo.save(any(PagoRegistro.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    comoLaBd(pago);
 
     assertThrows(PagoRegistroNoCompletadoException.class,
         () -> service.exigirPagoCompletado("tok", new BigDecimal("20.00")));
   }
+
+  @Test
+  void verificarPago_en_estado_final_no_consulta_tpvv() {
+    PagoRegistro pago = new PagoRegistro();
+    pago.setToken("tok");
+    pago.setImporte(new BigDecimal("10.00"));
+    pago.setEstado(PagoRegistroEstado.COMPLETED);
+    when(pagoRepo.findByToken("tok")).thenReturn(Optional.of(pago));
+
+    service.exigirPagoCompletado("tok", new BigDecimal("10.00"));
+    PagoRegistro result = service.verificarPago("tok");
+
+    assertEquals(PagoRegistroEstado.COMPLETED, result.getEstado());
+    Mockito.verify(tpvvClient, never()).verifyPayment(anyString());
+    Mockito.verify(pagoRepo, never()).resolverPendiente(any(), any(), any(), any(), any(), any(), any());
+  }
+
+  @Test
+  void verificarPago_simultaneas_del_mismo_token_comparten_una_llamada() throws Exception {
+    int peticiones = 8;
+    PagoRegistro pago = new PagoRegistro();
+    pago.setToken("tok");
+    pago.setImporte(new BigDecimal("10.00"));
+    comoLaBd(pago);
+
+    CountDownLatch leidas = new CountDownLatch(peticiones);
+    CountDownLatch enTpvv = new CountDownLatch(1);
+    CountDownLatch soltar = new CountDownLatch(1);
+    when(pagoRepo.findByToken("tok")).thenAnswer(invocation -> {
+      leidas.countDown();
+      return Optional.of(pago);
+    });
+    when(tpvvClient.verifyPayment("tok")).thenAnswer(invocation -> {
+      enTpvv.countDown();
+      soltar.await(5, TimeUnit.SECONDS);
+      return new TpvvPaymentVerifyResponse("COMPLETED", null);
+    });
+
+    ExecutorService clientes = Executors.newFixedThreadPool(peticiones);
+    try {
+      List<Future<PagoRegistro>> resultados = new ArrayList<>();
+      for (int i = 0; i < peticiones; i++) {
+        resultados.add(clientes.submit(() -> service.verificarPago("tok")));
+      }
+      // Todas han leido el pago PENDING mientras la primera espera a TPVV
+      assertTrue(enTpvv.await(5, TimeUnit.SECONDS));
+      assertTrue(leidas.await(5, TimeUnit.SECONDS));
+      Thread.sleep(50);
+      soltar.countDown();
+
+      for (Future<PagoRegistro> resultado : resultados) {
+        PagoRegistro verificado = resultado.get(5, TimeUnit.SECONDS);
+        assertSame(pago, verificado);
+        assertEquals(PagoRegistroEstado.COMPLETED, verificado.getEstado());
+      }
+    } finally {
+      soltar.countDown();
+      clientes.shutdownNow();
+    }
+
+    Mockito.verify(tpvvClient, times(1)).verifyPayment("tok");
+    Mockito.verify(pagoRepo, times(1)).resolverPendiente(any(), any(), any(), any(), any(), any(), any());
+  }
+
+  @Test
+  void verificarPago_simultaneas_comparten_tambien_el_error() throws Exception {
+    PagoRegistro pago = new PagoRegistro();
+    pago.setToken("tok");
+    when(pagoRepo.findByToken("tok")).thenReturn(Optional.of(pago));
+
+    CountDownLatch enTpvv = new CountDownLatch(1);
+    CountDownLatch soltar = new CountDownLatch(1);
+    when(tpvvClient.verifyPayment("tok")).thenAnswer(invocation -> {
+      enTpvv.countDown();
+      soltar.await(5, TimeUnit.SECONDS);
+      throw new TpvvCommunicationException("No se pudo verificar el pago en TPVV.");
+    });
+
+    ExecutorService clientes = Executors.newFixedThreadPool(2);
+    try {
+      Future<PagoRegistro> primera = clientes.submit(() -> service.verificarPago("tok"));
+      assertTrue(enTpvv.await(5, TimeUnit.SECONDS));
+      Future<PagoRegistro> segunda = clientes.submit(() -> service.verificarPago("tok"));
+      Thread.sleep(50);
+      soltar.countDown();
+
+      for (Future<PagoRegistro> f : List.of(primera, segunda)) {
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> f.get(5, TimeUnit.SECONDS));
+        assertTrue(ex.getCause() instanceof TpvvCommunicationException);
+      }
+    } finally {
+      soltar.countDown();
+      clientes.shutdownNow();
+    }
+
+    Mockito.verify(tpvvClient, times(1)).verifyPayment("tok");
+  }
+
+  @Test
+  void consultarPago_con_webhook_activo_lee_el_estado_local_sin_llamar_a_tpvv() {
+    service = new PagoRegistroService(pagoRepo, tarifaRepo, tpvvClient, props, webhook("secreto-webhook"));
+    PagoRegistro pago = Mockito.spy(new PagoRegistro());
+    pago.setToken("tok");
+    when(pago.getCreatedAt()).thenReturn(Instant.now());
+    when(pagoRepo.findByToken("tok")).thenReturn(Optional.of(pago));
+
+    PagoRegistro result = service.consultarPago("tok");
+
+    assertEquals(PagoRegistroEstado.PENDING, result.getEstado());
+    Mockito.verify(tpvvClient, never()).verifyPayment(anyString());
+  }
+
+  @Test
+  void consultarPago_con_webhook_activo_consulta_tpvv_pasada_la_gracia() {
+    service = new PagoRegistroService(pagoRepo, tarifaRepo, tpvvClient, props, webhook("secreto-webhook"));
+    PagoRegistro pago = Mockito.spy(new PagoRegistro());
+    pago.setToken("tok");
+    when(pago.getCreatedAt()).thenReturn(Instant.now().minusSeconds(120));
+    when(pagoRepo.findByToken("tok")).thenReturn(Optional.of(pago));
+    when(tpvvClient.verifyPayment("tok")).thenReturn(new TpvvPaymentVerifyResponse("COMPLETED", null));
+    comoLaBd(pago);
+
+    assertEquals(PagoRegistroEstado.COMPLETED, service.consultarPago("tok").getEstado());
+  }
+
+  @Test
+  void notificarResultado_aplica_la_transicion_una_sola_vez() {
+    PagoRegistro pago = new PagoRegistro();
+    pago.setToken("tok");
+    when(pagoRepo.findByToken("tok")).thenReturn(Optional.of(pago));
+    comoLaBd(pago);
+
+    assertTrue(service.notificarResultado("tok", "COMPLETED", null));
+    assertTrue(service.notificarResultado("tok", "FAILED", "Reenvio tardio"));
+
+    assertEquals(PagoRegistroEstado.COMPLETED, pago.getEstado());
+    assertNull(pago.getFailureReason());
+    Mockito.verify(pagoRepo, times(1)).resolverPendiente(any(), any(), any(), any(), any(), any(), any());
+    Mockito.verify(tpvvClient, never()).verifyPayment(anyString());
+  }
+
+  @Test
+  void verificarPago_tardio_no_pisa_un_pago_ya_caducado() {
+    // Leido PENDING antes de que el reconciliador lo caducase; TPVV contesta despues
+    PagoRegistro leido = new PagoRegistro();
+    leido.setToken("tok");
+    PagoRegistro caducado = new PagoRegistro();
+    caducado.setToken("tok");
+    caducado.setEstado(PagoRegistroEstado.FAILED);
+    caducado.setFailureReason("Caducado");
+    caducado.setFailedAt(Instant.now());
+    when(pagoRepo.findByToken("tok")).thenReturn(Optional.of(leido), Optional.of(caducado));
+    when(tpvvClient.verifyPayment("tok")).thenReturn(new TpvvPaymentVerifyResponse("COMPLETED", null));
+    comoLaBd(caducado);
+
+    PagoRegistro result = service.verificarPago("tok");
+
+    assertSame(caducado, result);
+    assertEquals(PagoRegistroEstado.FAILED, result.getEstado());
+    assertEquals("Caducado", result.getFailureReason());
+    assertNull(result.getCompletedAt());
+    Mockito.verify(pagoRepo, never()).save(any(PagoRegistro.class));
+  }
+
+  @Test
+  void notificarResultado_tras_un_verify_no_cambia_el_resultado_guardado() {
+    PagoRegistro leido = new PagoRegistro();
+    leido.setToken("tok");
+    PagoRegistro enBd = new PagoRegistro();
+    enBd.setToken("tok");
+    when(pagoRepo.findByToken("tok")).thenReturn(Optional.of(leido));
+    comoLaBd(enBd);
+    assertTrue(service.notificarResultado("tok", "COMPLETED", null));
+    Instant completado = enBd.getCompletedAt();
+
+    // Webhook reenviado con el pago aun leido como PENDING: el update no encuentra la fila PENDING
+    assertTrue(service.notificarResultado("tok", "FAILED", "Reenvio tardio"));
+
+    assertEquals(PagoRegistroEstado.COMPLETED, enBd.getEstado());
+    assertSame(completado, enBd.getCompletedAt());
+    assertNull(enBd.getFailureReason());
+  }
+
+  @Test
+  void notificarResultado_de_un_token_ajeno_devuelve_false() {
+    when(pagoRepo.findByToken("otro")).thenReturn(Optional.empty());
+
+    assertFalse(service.notificarResultado("otro", "COMPLETED", null));
+  }
+
+  /**
+   * resolverPendiente como el update de la BD: solo cambia pago si sigue PENDING y devuelve las filas tocadas.
+   */
+  private void comoLaBd(PagoRegistro pago) {
+    when(pagoRepo.resolverPendiente(any(), any(), any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+      if (pago.getEstado() != PagoRegistroEstado.PENDING) {
+        return 0;
+      }
+      pago.setEstado(invocation.getArgument(1));
+      pago.setProviderStatus(invocation.getArgument(2));
+      pago.setFailureReason(invocation.getArgument(3));
+      pago.setCompletedAt(invocation.getArgument(4));
+      pago.setFailedAt(invocation.getArgument(5));
+      return 1;
+    });
+  }
+
+  private static TpvvWebhookProperties webhook(String secreto) {
+    return new TpvvWebhookProperties(secreto, Duration.ofMinutes(5), 1, 10, Duration.ofSeconds(30));
+  }
 }
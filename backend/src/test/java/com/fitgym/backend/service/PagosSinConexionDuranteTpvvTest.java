@@ -0,0 +1,155 @@
+package com.fitgym.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fitgym.backend.domain.PagoMonedero;
+import com.fitgym.backend.domain.PagoRegistro;
+import com.fitgym.backend.domain.PagoRegistroEstado;
+import com.fitgym.backend.domain.Socio;
+import com.fitgym.backend.domain.Tarifa;
+import com.fitgym.backend.domain.TipoMovimiento;
+import com.fitgym.backend.repo.PagoMonederoRepository;
+import com.fitgym.backend.repo.PagoRegistroRepository;
+import com.fitgym.backend.repo.SocioRepository;
+import com.fitgym.backend.repo.TarifaRepository;
+import com.fitgym.backend.service.monedero.MonederoService;
+import com.fitgym.backend.service.tpvv.TpvvClient;
+import com.fitgym.backend.service.tpvv.dto.TpvvPaymentInitResponse;
+import com.fitgym.backend.service.tpvv.dto.TpvvPaymentVerifyResponse;
+import com.zaxxer.hikari.HikariDataSource;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+/**
+ * Simula un TPVV lento y comprueba que los flujos de pago no retienen conexiones JDBC mientras esperan.
+ *
+ * Con un pool de 2 conexiones, 7 pagos quedan a la vez dentro de la llamada a TPVV; si alguno
+ * tuviera la transaccion abierta, el resto no llegaria a TPVV (timeout de conexion de 250 ms).
+ * Los repositorios son mocks: la unica conexion que se podria retener es la de la transaccion del servicio.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.hikari.maximum-pool-size=2",
+    "spring.datasource.hikari.connection-timeout=250"
+})
+class PagosSinConexionDuranteTpvvTest {
+
+  private static final int PAGOS = 7;
+
+  @Autowired private PagoRegistroService pagoRegistroService;
+  @Autowired private PagoMonederoService pagoMonederoService;
+  @Autowired private SocioService socioService;
+  @Autowired private HikariDataSource dataSource;
+  @Autowired private JdbcTemplate jdbc;
+
+  @MockitoBean private TpvvClient tpvvClient;
+  @MockitoBean private PagoRegistroRepository pagoRegistroRepo;
+  @MockitoBean private PagoMonederoRepository pagoMonederoRepo;
+  @MockitoBean private SocioRepository socioRepo;
+  @MockitoBean private TarifaRepository tarifaRepo;
+  @MockitoBean private MonederoService monederoService;
+
+  @Test
+  void tpvv_lento_no_agota_el_pool_de_conexiones() throws Exception {
+    CountDownLatch dentroDeTpvv = new CountDownLatch(PAGOS);
+    CountDownLatch soltarTpvv = new CountDownLatch(1);
+    AtomicInteger tokens = new AtomicInteger();
+    prepararDatos();
+
+    when(tpvvClient.initPayment(any())).thenAnswer(inv -> {
+      esperarTpvv(dentroDeTpvv, soltarTpvv);
+      String token = "t" + tokens.incrementAndGet();
+      return new TpvvPaymentInitResponse("/checkout?token=" + token, token);
+    });
+    when(tpvvClient.verifyPayment(anyString())).thenAnswer(inv -> {
+      esperarTpvv(dentroDeTpvv, soltarTpvv);
+      return new TpvvPaymentVerifyResponse("COMPLETED", null);
+    });
+
+    ExecutorService pool = Executors.newFixedThreadPool(PAGOS);
+    try {
+      List<Future<?>> pagos = new ArrayList<>();
+      pagos.add(pool.submit(() -> pagoRegistroService.iniciarPago(1L)));
+      pagos.add(pool.submit(() -> pagoRegistroService.iniciarPago(1L)));
+      pagos.add(pool.submit(() -> pagoRegistroService.iniciarPagoClase(12L)));
+      pagos.add(pool.submit(() -> pagoRegistroService.verificarPago("reg")));
+      pagos.add(pool.submit(() -> pagoMonederoService.iniciarRecarga(1L, BigDecimal.TEN)));
+      pagos.add(pool.submit(() -> pagoMonederoService.verificarRecarga("wal")));
+      pagos.add(pool.submit(() -> socioService.registrar(
+          "Nuevo", "nuevo@fitgym.com", "Password123", null, 1L, null, null, null, "reg-alta")));
+
+      // Los 7 esperan a TPVV a la vez con un pool de 2: ninguno tiene conexion
+      assertThat(dentroDeTpvv.await(5, TimeUnit.SECONDS)).isTrue();
+      assertThat(dataSource.getHikariPoolMXBean().getActiveConnections()).isZero();
+      assertThat(jdbc.queryForObject("select 1", Integer.class)).isEqualTo(1);
+
+      soltarTpvv.countDown();
+      for (Future<?> pago : pagos) {
+        pago.get(10, TimeUnit.SECONDS);
+      }
+    } finally {
+      soltarTpvv.countDown();
+      pool.shutdownNow();
+    }
+
+    verify(monederoService, times(1)).abonar(1L, new BigDecimal("25.00"), TipoMovimiento.RECARGA, "wal");
+  }
+
+  private void prepararDatos() {
+    Tarifa tarifa = new Tarifa();
+    tarifa.setCuota(new BigDecimal("30.00"));
+    tarifa.setClasesGratisMes(0);
+    when(tarifaRepo.findById(1L)).thenReturn(Optional.of(tarifa));
+
+    PagoRegistro pagoRegistro = new PagoRegistro();
+    pagoRegistro.setToken("reg");
+    pagoRegistro.setImporte(new BigDecimal("30.00"));
+    when(pagoRegistroRepo.findByToken("reg")).thenReturn(Optional.of(pagoRegistro));
+    PagoRegistro pagoAlta = new PagoRegistro();
+    pagoAlta.setToken("reg-alta");
+    pagoAlta.setImporte(new BigDecimal("30.00"));
+    // Tras el update condicionado el servicio relee el pago ya COMPLETED
+    PagoRegistro altaCompletada = new PagoRegistro();
+    altaCompletada.setToken("reg-alta");
+    altaCompletada.setImporte(new BigDecimal("30.00"));
+    altaCompletada.setEstado(PagoRegistroEstado.COMPLETED);
+    when(pagoRegistroRepo.findByToken("reg-alta")).thenReturn(Optional.of(pagoAlta), Optional.of(altaCompletada));
+    when(pagoRegistroRepo.resolverPendiente(any(), any(), any(), any(), any(), any(), any())).thenReturn(1);
+    when(pagoRegistroRepo.save(any(PagoRegistro.class))).thenAnswer(inv -> inv.getArgument(0));
+
+    PagoMonedero recarga = new PagoMonedero();
+    recarga.setToken("wal");
+    recarga.setIdSocio(1L);
+    recarga.setImporte(new BigDecimal("25.00"));
+    when(pagoMonederoRepo.findByToken("wal")).thenReturn(Optional.of(recarga));
+    when(pagoMonederoRepo.resolverPendiente(any(), any(), any(), any(), any(), any(), any())).thenReturn(1);
+    when(pagoMonederoRepo.save(any(PagoMonedero.class))).thenAnswer(inv -> inv.getArgument(0));
+
+    when(socioRepo.existsById(1L)).thenReturn(true);
+    when(socioRepo.existsByCorreoElectronicoIgnoreCase(eq("nuevo@fitgym.com"))).thenReturn(false);
+    when(socioRepo.save(any(Socio.class))).thenAnswer(inv -> inv.getArgument(0));
+  }
+
+  private static void esperarTpvv(CountDownLatch dentro, CountDownLatch soltar) throws InterruptedException {
+    dentro.countDown();
+    soltar.await(10, TimeUnit.SECONDS);
+  }
+}
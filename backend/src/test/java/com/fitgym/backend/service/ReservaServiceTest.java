@@ -0,0 +1,290 @@
+package com.fitgym.backend.service;
+
+import com.fitgym.backend.api.dto.ReservaCancelResponse;
+import com.fitgym.backend.api.dto.ReservaItemResponse;
+import com.fitgym.backend.api.dto.ReservaPaginaResponse;
+import com.fitgym.backend.domain.Actividad;
+import com.fitgym.backend.domain.Pago;
+import com.fitgym.backend.domain.PagoResultado;
+import com.fitgym.backend.domain.Reserva;
+import com.fitgym.backend.domain.ReservaEstado;
+import com.fitgym.backend.domain.ReservaId;
+import com.fitgym.backend.domain.Socio;
+import com.fitgym.backend.domain.TipoMovimiento;
+import com.fitgym.backend.repo.ActividadRepository;
+import com.fitgym.backend.repo.PagoRepository;
+import com.fitgym.backend.repo.ReservaRepository;
+import com.fitgym.backend.repo.SocioRepository;
+import com.fitgym.backend.service.inventory.SeatInventory;
+import com.fitgym.backend.service.monedero.MonederoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests unitarios del flujo de reserva.
+ *
+ * Comprueba que la reserva previa y su pago se resuelven por clave
+ * (PK de reserva y uq_pago_reserva) sin recorrer las tablas completas.
+ */
+class ReservaServiceTest {
+
+  private ReservaRepository reservaRepo;
+  private ActividadRepository actividadRepo;
+  private SocioRepository socioRepo;
+  private ActividadService actividadService;
+  private SocioService socioService;
+  private PagoRepository pagoRepo;
+  private SeatInventory seatInventory;
+  private MonederoService monederoService;
+
+  private ReservaService reservaService;
+
+  @BeforeEach
+  void setUp() {
+    reservaRepo = Mockito.mock(ReservaRepository.class);
+    actividadRepo = Mockito.mock(ActividadRepository.class);
+    socioRepo = Mockito.mock(SocioRepository.class);
+    actividadService = Mockito.mock(ActividadService.class);
+    socioService = Mockito.mock(SocioService.class);
+    pagoRepo = Mockito.mock(PagoRepository.class);
+
+    seatInventory = Mockito.mock(SeatInventory.class);
+    monederoService = Mockito.mock(MonederoService.class);
+
+    reservaService = new ReservaService(reservaRepo, actividadRepo, socioRepo, actividadService, socioService, pagoRepo, seatInventory, monederoService);
+  }
+
+  @Test
+  void reservarClase_con_reserva_confirmada_devuelve_false_sin_recorrer_tabla() {
+    Actividad actividad = buildActividad(7L, BigDecimal.ZERO);
+    Socio socio = buildSocio(1L, 0, BigDecimal.ZERO);
+    when(actividadRepo.findById(7L)).thenReturn(Optional.of(actividad));
+    when(socioRepo.findById(1L)).thenReturn(Optional.of(socio));
+    when(reservaRepo.findById(new ReservaId(1L, 7L)))
+        .thenReturn(Optional.of(buildReserva(ReservaEstado.CONFIRMADA)));
+
+    assertFalse(reservaService.reservarClase(7L, 1L));
+
+    verify(reservaRepo, never()).findAll();
+    verify(actividadService, never()).bajarDisponiblesEnClase(any());
+  }
+
+  @Test
+  void reservarClase_nueva_reserva_gratis_se_guarda() {
+    Actividad actividad = buildActividad(7L, BigDecimal.ZERO);
+    Socio socio = buildSocio(1L, 0, BigDecimal.ZERO);
+    when(actividadRepo.findById(7L)).thenReturn(Optional.of(actividad));
+    when(socioRepo.findById(1L)).thenReturn(Optional.of(socio));
+    when(reservaRepo.findById(new ReservaId(1L, 7L))).thenReturn(Optional.empty());
+    when(actividadService.bajarDisponiblesEnClase(7L)).thenReturn(true);
+
+    assertTrue(reservaService.reservarClase(7L, 1L));
+
+    verify(reservaRepo).save(any(Reserva.class));
+    verify(reservaRepo, never()).findAll();
+  }
+
+  @Test
+  void reservarClase_sin_plaza_atomica_lanza_y_no_guarda_reserva() {
+    Actividad actividad = buildActividad(7L, new BigDecimal("5.00"));
+    Socio socio = buildSocio(1L, 0, new BigDecimal("20.00"));
+    when(actividadRepo.findById(7L)).thenReturn(Optional.of(actividad));
+    when(socioRepo.findById(1L)).thenReturn(Optional.of(socio));
+    when(reservaRepo.findById(new ReservaId(1L, 7L))).thenReturn(Optional.empty());
+    when(actividadService.bajarDisponiblesEnClase(7L)).thenReturn(false);
+
+    assertThrows(ActividadSinPlazasException.class, () -> reservaService.reservarClase(7L, 1L));
+
+    assertEquals(new BigDecimal("20.00"), socio.getSaldoMonedero());
+    verify(reservaRepo, never()).save(any(Reserva.class));
+    verify(pagoRepo, never()).save(any(Pago.class));
+  }
+
+  @Test
+  void reservarClase_reactiva_reserva_cancelada_y_su_pago_por_indice() {
+    Actividad actividad = buildActividad(7L, new BigDecimal("5.00"));
+    Socio socio = buildSocio(1L, 0, new BigDecimal("20.00"));
+    Reserva cancelada = buildReserva(ReservaEstado.CANCELADA);
+    Pago pago = new Pago();
+    pago.setResultadoPago(PagoResultado.FAIL);
+
+    when(actividadRepo.findById(7L)).thenReturn(Optional.of(actividad));
+    when(socioRepo.findById(1L)).thenReturn(Optional.of(socio));
+    when(reservaRepo.findById(new ReservaId(1L, 7L))).thenReturn(Optional.of(cancelada));
+    when(actividadService.bajarDisponiblesEnClase(7L)).thenReturn(true);
+    when(pagoRepo.findBySocioAndActividad(1L, 7L)).thenReturn(Optional.of(pago));
+    when(monederoService.cargar(1L, new BigDecimal("5.00"), TipoMovimiento.RESERVA, "reserva:1:7")).thenReturn(true);
+
+    assertTrue(reservaService.reservarClase(7L, 1L));
+
+    assertEquals(ReservaEstado.CONFIRMADA, cancelada.getEstado());
+    assertEquals(PagoResultado.OK, pago.getResultadoPago());
+    verify(pagoRepo, never()).findAll();
+    verify(reservaRepo, never()).findAll();
+  }
+
+  @Test
+  void reservarClase_de_pago_carga_el_monedero_con_un_apunte() {
+    Actividad actividad = buildActividad(7L, new BigDecimal("5.00"));
+    Socio socio = buildSocio(1L, 0, new BigDecimal("20.00"));
+    when(actividadRepo.findById(7L)).thenReturn(Optional.of(actividad));
+    when(socioRepo.findById(1L)).thenReturn(Optional.of(socio));
+    when(reservaRepo.findById(new ReservaId(1L, 7L))).thenReturn(Optional.empty());
+    when(actividadService.bajarDisponiblesEnClase(7L)).thenReturn(true);
+    when(monederoService.cargar(1L, new BigDecimal("5.00"), TipoMovimiento.RESERVA, "reserva:1:7")).thenReturn(true);
+
+    assertTrue(reservaService.reservarClase(7L, 1L));
+
+    verify(socioRepo, never()).save(any(Socio.class));
+    verify(pagoRepo).save(any(Pago.class));
+  }
+
+  @Test
+  void reservarClase_sin_saldo_al_cargar_lanza_y_no_guarda_reserva() {
+    Actividad actividad = buildActividad(7L, new BigDecimal("5.00"));
+    // El saldo leido con el socio alcanza, pero otro cargo se adelanta y el UPDATE condicional no descuenta
+    Socio socio = buildSocio(1L, 0, new BigDecimal("5.00"));
+    when(actividadRepo.findById(7L)).thenReturn(Optional.of(actividad));
+    when(socioRepo.findById(1L)).thenReturn(Optional.of(socio));
+    when(reservaRepo.findById(new ReservaId(1L, 7L))).thenReturn(Optional.empty());
+    when(actividadService.bajarDisponiblesEnClase(7L)).thenReturn(true);
+    when(monederoService.cargar(any(), any(), any(), any())).thenReturn(false);
+
+    RuntimeException ex = assertThrows(RuntimeException.class, () -> reservaService.reservarClase(7L, 1L));
+
+    assertEquals("Saldo insuficiente", ex.getMessage());
+    verify(reservaRepo, never()).save(any(Reserva.class));
+    verify(pagoRepo, never()).save(any(Pago.class));
+  }
+
+  @Test
+  void reservarClase_con_clase_gratis_la_consume_sin_tocar_el_monedero() {
+    Actividad actividad = buildActividad(7L, new BigDecimal("5.00"));
+    Socio socio = buildSocio(1L, 1, BigDecimal.ZERO);
+    when(actividadRepo.findById(7L)).thenReturn(Optional.of(actividad));
+    when(socioRepo.findById(1L)).thenReturn(Optional.of(socio));
+    when(reservaRepo.findById(new ReservaId(1L, 7L))).thenReturn(Optional.empty());
+    when(actividadService.bajarDisponiblesEnClase(7L)).thenReturn(true);
+    when(socioService.disminuirClasesGratisDeTarifa(1L)).thenReturn(true);
+
+    assertTrue(reservaService.reservarClase(7L, 1L));
+
+    verify(monederoService, never()).cargar(any(), any(), any(), any());
+  }
+
+  @Test
+  void reservarClase_si_otra_reserva_gasta_la_ultima_clase_gratis_paga_con_el_monedero() {
+    Actividad actividad = buildActividad(7L, new BigDecimal("5.00"));
+    // Leido con 1 clase gratis, pero el UPDATE condicional ya no encuentra ninguna
+    Socio socio = buildSocio(1L, 1, new BigDecimal("20.00"));
+    when(actividadRepo.findById(7L)).thenReturn(Optional.of(actividad));
+    when(socioRepo.findById(1L)).thenReturn(Optional.of(socio));
+    when(reservaRepo.findById(new ReservaId(1L, 7L))).thenReturn(Optional.empty());
+    when(actividadService.bajarDisponiblesEnClase(7L)).thenReturn(true);
+    when(socioService.disminuirClasesGratisDeTarifa(1L)).thenReturn(false);
+    when(monederoService.cargar(1L, new BigDecimal("5.00"), TipoMovimiento.RESERVA, "reserva:1:7")).thenReturn(true);
+
+    assertTrue(reservaService.reservarClase(7L, 1L));
+
+    verify(monederoService).cargar(1L, new BigDecimal("5.00"), TipoMovimiento.RESERVA, "reserva:1:7");
+  }
+
+  @Test
+  void cancelarReserva_pagada_abona_el_reembolso_en_el_monedero() {
+    Reserva confirmada = buildReserva(ReservaEstado.CONFIRMADA);
+    Pago pago = new Pago();
+    pago.setCantidad(new BigDecimal("5.00"));
+    pago.setResultadoPago(PagoResultado.OK);
+    when(reservaRepo.findById(new ReservaId(1L, 7L))).thenReturn(Optional.of(confirmada));
+    when(pagoRepo.findBySocioAndActividad(1L, 7L)).thenReturn(Optional.of(pago));
+    when(monederoService.saldo(1L)).thenReturn(new BigDecimal("25.00"));
+
+    ReservaCancelResponse res = reservaService.cancelarReserva(1L, 7L);
+
+    verify(monederoService).abonar(1L, new BigDecimal("5.00"), TipoMovimiento.REEMBOLSO, "reserva:1:7");
+    assertEquals(new BigDecimal("5.00"), res.reembolso());
+    assertEquals(new BigDecimal("25.00"), res.saldoMonedero());
+    verify(socioRepo, never()).save(any(Socio.class));
+  }
+
+  @Test
+  void listarReservasSocioDTO_aplica_el_limite_en_la_consulta() {
+    when(reservaRepo.findHistorialSocio(1L, null, null, Limit.of(5))).thenReturn(List.of(item(7L, 0)));
+
+    List<ReservaItemResponse> res = reservaService.listarReservasSocioDTO(1L, 5);
+
+    assertEquals(1, res.size());
+    verify(pagoRepo, never()).findBySocioAndActividad(any(), any());
+  }
+
+  @Test
+  void historialReservasSocio_devuelve_cursor_que_continua_tras_la_ultima_fila() {
+    ReservaItemResponse r1 = item(9L, 0);
+    ReservaItemResponse r2 = item(8L, 1);
+    ReservaItemResponse r3 = item(7L, 2);
+    when(reservaRepo.findHistorialSocio(1L, null, null, Limit.of(3))).thenReturn(List.of(r1, r2, r3));
+    when(reservaRepo.findHistorialSocio(1L, r2.fechaAlta(), 8L, Limit.of(3))).thenReturn(List.of(r3));
+
+    ReservaPaginaResponse primera = reservaService.historialReservasSocio(1L, null, 2);
+    ReservaPaginaResponse segunda = reservaService.historialReservasSocio(1L, primera.nextCursor(), 2);
+
+    assertEquals(List.of(r1, r2), primera.items());
+    assertEquals(List.of(r3), segunda.items());
+    assertNull(segunda.nextCursor());
+  }
+
+  @Test
+  void historialReservasSocio_con_cursor_invalido_lanza_business_exception() {
+    assertThrows(BusinessException.class, () -> reservaService.historialReservasSocio(1L, "no-es-un-cursor", 10));
+  }
+
+  private ReservaItemResponse item(Long idActividad, int horasAntes) {
+    return new ReservaItemResponse(idActividad, "Clase " + idActividad, LocalDate.of(2026, 3, 1),
+        LocalTime.of(9, 0), LocalTime.of(10, 0), ReservaEstado.CONFIRMADA, BigDecimal.ZERO,
+        OffsetDateTime.of(2026, 2, 1, 12, 0, 0, 123456000, ZoneOffset.UTC).minusHours(horasAntes));
+  }
+
+  private Actividad buildActividad(Long id, BigDecimal precioExtra) {
+    Actividad actividad = new Actividad();
+    ReflectionTestUtils.setField(actividad, "id", id);
+    actividad.setPrecioExtra(precioExtra);
+    actividad.setPlazas(20);
+    actividad.setDisponibles(20);
+    return actividad;
+  }
+
+  private Socio buildSocio(Long id, int clasesGratis, BigDecimal saldo) {
+    Socio socio = new Socio();
+    ReflectionTestUtils.setField(socio, "id", id);
+    socio.setClasesGratis(clasesGratis);
+    socio.setSaldoMonedero(saldo);
+    return socio;
+  }
+
+  private Reserva buildReserva(ReservaEstado estado) {
+    Reserva reserva = new Reserva();
+    reserva.setEstado(estado);
+    return reserva;
+  }
+}
@@ -4,8 +4,10 @@ import com.fitgym.backend.domain.Socio;
 import com.fitgym.backend.domain.SocioEstado;
 import com.fitgym.backend.domain.Tarifa;
 import com.fitgym.backend.repo.SocioRepository;
-import com.fitgym.backend.repo.TarifaRepository;
+import com.fitgym.backend.service.referencia.DatosReferenciaService;
 import com.fitgym.backend.repo.PagoRegistroRepository;
+import com.fitgym.backend.service.password.PasswordHashingProperties;
+import com.fitgym.backend.service.password.PerfilesHash;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -16,6 +18,12 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -25,11 +33,12 @@ import static org.mockito.Mockito.when;
  * - permita el acceso con credenciales correctas y estado ACTIVO
  * - rechace credenciales invalidas (401)
  * - rechace socios INACTIVOS (403)
+ * - rehaga el hash en el login si es de otro perfil o coste
  */
 class SocioServiceAuthTest {
 
   private SocioRepository socioRepo;
-  private TarifaRepository tarifaRepo;
+  private DatosReferenciaService datosReferencia;
   private PasswordEncoder passwordEncoder;
   private PagoRegistroService pagoRegistroService;
   private SocioService socioService;
@@ -38,10 +47,10 @@ class SocioServiceAuthTest {
   @BeforeEach
   void setUp() {
     socioRepo = Mockito.mock(SocioRepository.class);
-    tarifaRepo = Mockito.mock(TarifaRepository.class);
+    datosReferencia = Mockito.mock(DatosReferenciaService.class);
     passwordEncoder = new BCryptPasswordEncoder();
     pagoRegistroService = Mockito.mock(PagoRegistroService.class);
-    socioService = new SocioService(socioRepo, tarifaRepo, passwordEncoder, pagoRegistroService, pagoRegistroRepo);
+    socioService = new SocioService(socioRepo, datosReferencia, passwordEncoder, pagoRegistroService, pagoRegistroRepo);
   }
 
   @Test
@@ -74,6 +83,35 @@ class SocioServiceAuthTest {
         () -> socioService.autenticar("test@fitgym.com", "Password123"));
   }
 
+  @Test
+  void autenticar_con_hash_de_otro_perfil_lo_rehace_con_el_actual() {
+    PasswordEncoder perfilActual = PerfilesHash.crear(
+        new PasswordHashingProperties(1, 1, PerfilesHash.BCRYPT, 100, 4, 4));
+    SocioService servicio = new SocioService(socioRepo, datosReferencia, perfilActual, pagoRegistroService, pagoRegistroRepo);
+    // hash antiguo: BCrypt coste 10 sin prefijo de perfil
+    Socio socio = buildSocio("test@fitgym.com", "Password123", SocioEstado.ACTIVO);
+    String anterior = socio.getContrasenaHash();
+
+    when(socioRepo.findByCorreoElectronicoIgnoreCase("test@fitgym.com")).thenReturn(Optional.of(socio));
+    when(socioRepo.actualizarHashContrasena(any(), eq(anterior), startsWith("{bcrypt}$2a$04$"))).thenReturn(1);
+
+    servicio.autenticar("test@fitgym.com", "Password123");
+
+    assertTrue(socio.getContrasenaHash().startsWith("{bcrypt}$2a$04$"));
+    assertTrue(perfilActual.matches("Password123", socio.getContrasenaHash()));
+  }
+
+  @Test
+  void autenticar_con_hash_del_perfil_actual_no_lo_rehace() {
+    Socio socio = buildSocio("test@fitgym.com", "Password123", SocioEstado.ACTIVO);
+
+    when(socioRepo.findByCorreoElectronicoIgnoreCase("test@fitgym.com")).thenReturn(Optional.of(socio));
+
+    socioService.autenticar("test@fitgym.com", "Password123");
+
+    verify(socioRepo, never()).actualizarHashContrasena(any(), any(), any());
+  }
+
   private Socio buildSocio(String email, String rawPassword, SocioEstado estado) {
     Tarifa tarifa = Mockito.mock(Tarifa.class);
     when(tarifa.getId()).thenReturn(1L);
@@ -0,0 +1,94 @@
+package com.fitgym.backend.service;
+
+import com.fitgym.backend.api.dto.SocioAdminPaginaResponse;
+import com.fitgym.backend.api.dto.SocioDirectorioResponse;
+import com.fitgym.backend.domain.SocioEstado;
+import com.fitgym.backend.repo.PagoRegistroRepository;
+import com.fitgym.backend.repo.SocioRepository;
+import com.fitgym.backend.service.referencia.DatosReferenciaService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Limit;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests unitarios del directorio de socios de administracion (SocioService.directorio):
+ * paso de filtros a la consulta, escapado de la busqueda y paginacion con cursor.
+ * La consulta en si se ejecuta sobre H2 en SocioRepositoryDirectorioTest.
+ */
+class SocioServiceDirectorioTest {
+
+  private SocioRepository socioRepo;
+  private SocioService socioService;
+
+  @BeforeEach
+  void setUp() {
+    socioRepo = Mockito.mock(SocioRepository.class);
+    socioService = new SocioService(socioRepo, Mockito.mock(DatosReferenciaService.class), null,
+        Mockito.mock(PagoRegistroService.class), Mockito.mock(PagoRegistroRepository.class));
+  }
+
+  @Test
+  void sin_filtros_pide_todos_los_estados_y_una_fila_de_mas() {
+    when(socioRepo.findDirectorio(any(), any(), any(), any(), any(), any(), any())).thenReturn(filas(1, 3));
+
+    SocioAdminPaginaResponse res = socioService.directorio(null, null, null, " ", null, null);
+
+    assertEquals(3, res.items().size());
+    assertNull(res.nextCursor());
+    verify(socioRepo).findDirectorio(eq(0L), eq(EnumSet.allOf(SocioEstado.class)), isNull(), isNull(),
+        isNull(), isNull(), eq(Limit.of(51)));
+  }
+
+  @Test
+  void filtros_normalizados_y_comodines_escapados() {
+    when(socioRepo.findDirectorio(any(), any(), any(), any(), any(), any(), any())).thenReturn(List.of());
+
+    socioService.directorio("inactivo", 2L, " Alicante ", "  Ana_50% ", null, 20);
+
+    verify(socioRepo).findDirectorio(eq(0L), eq(EnumSet.of(SocioEstado.INACTIVO)), eq(2L), eq("alicante"),
+        eq("%ana\\_50\\%%"), eq("ana\\_50\\%%"), eq(Limit.of(21)));
+  }
+
+  @Test
+  void el_cursor_de_una_pagina_llena_continua_tras_su_ultimo_id() {
+    when(socioRepo.findDirectorio(eq(0L), any(), any(), any(), any(), any(), any())).thenReturn(filas(1, 11));
+    when(socioRepo.findDirectorio(eq(10L), any(), any(), any(), any(), any(), any())).thenReturn(filas(11, 12));
+
+    SocioAdminPaginaResponse primera = socioService.directorio(null, null, null, null, null, 10);
+    SocioAdminPaginaResponse segunda = socioService.directorio(null, null, null, null, primera.nextCursor(), 10);
+
+    assertEquals(10, primera.items().size());
+    assertEquals(10L, primera.items().get(9).id());
+    assertEquals(List.of(11L, 12L), segunda.items().stream().map(SocioDirectorioResponse::id).toList());
+    assertNull(segunda.nextCursor());
+  }
+
+  @Test
+  void estado_o_cursor_invalidos_son_error_de_negocio() {
+    assertThrows(BusinessException.class, () -> socioService.directorio("BORRADO", null, null, null, null, null));
+    assertThrows(BusinessException.class, () -> socioService.directorio(null, null, null, null, "no-es-un-cursor", null));
+  }
+
+  private static List<SocioDirectorioResponse> filas(long desde, long hasta) {
+    List<SocioDirectorioResponse> filas = new ArrayList<>();
+    LongStream.rangeClosed(desde, hasta).forEach(id -> filas.add(new SocioDirectorioResponse(
+        id, "Socio " + id, "socio" + id + "@fitgym.com", null, SocioEstado.ACTIVO, 1L, "Basica",
+        false, 0, null, "Alicante", null)));
+    return filas;
+  }
+}
@@ -8,7 +8,7 @@ import com.fitgym.backend.domain.SocioEstado;
 import com.fitgym.backend.domain.Tarifa;
 import com.fitgym.backend.repo.PagoRegistroRepository;
 import com.fitgym.backend.repo.SocioRepository;
-import com.fitgym.backend.repo.TarifaRepository;
+import com.fitgym.backend.service.referencia.DatosReferenciaService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -26,7 +26,7 @@ import static org.mockito.Mockito.when;
 class SocioServiceMembresiaTest {
 
     private SocioRepository socioRepo;
-    private TarifaRepository tarifaRepo;
+    private DatosReferenciaService datosReferencia;
     private PasswordEncoder passwordEncoder;
     private PagoRegistroService pagoRegistroService;
     private PagoRegistroRepository pagoRegistroRepo;
@@ -36,12 +36,12 @@ class SocioServiceMembresiaTest {
     @BeforeEach
     void setUp() {
         socioRepo = Mockito.mock(SocioRepository.class);
-        tarifaRepo = Mockito.mock(TarifaRepository.class);
+        datosReferencia = Mockito.mock(DatosReferenciaService.class);
         passwordEncoder = new BCryptPasswordEncoder();
         pagoRegistroService = Mockito.mock(PagoRegistroService.class);
         pagoRegistroRepo = Mockito.mock(PagoRegistroRepository.class);
 
-        socioService = new SocioService(socioRepo, tarifaRepo, passwordEncoder, pagoRegistroService, pagoRegistroRepo);
+        socioService = new SocioService(socioRepo, datosReferencia, passwordEncoder, pagoRegistroService, pagoRegistroRepo);
     }
 
     @Test
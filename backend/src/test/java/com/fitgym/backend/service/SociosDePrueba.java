@@ -0,0 +1,41 @@
+package com.fitgym.backend.service;
+
+import com.fitgym.backend.domain.Socio;
+import com.fitgym.backend.domain.SocioEstado;
+import com.fitgym.backend.domain.Tarifa;
+
+import java.math.BigDecimal;
+
+/**
+ * Tarifas y socios de prueba con todos los campos obligatorios rellenos. Solo los construye.
+ */
+public final class SociosDePrueba {
+
+  private SociosDePrueba() {
+  }
+
+  public static Tarifa tarifa() {
+    Tarifa tarifa = new Tarifa();
+    tarifa.setNombre("Basica");
+    tarifa.setCuota(new BigDecimal("29.90"));
+    tarifa.setDescripcion("Acceso a sala");
+    tarifa.setClasesGratisMes(2);
+    return tarifa;
+  }
+
+  /** Socio ACTIVO de Alicante. */
+  public static Socio socio(Tarifa tarifa, String correo) {
+    Socio socio = new Socio();
+    socio.setNombre("Socio");
+    socio.setCorreoElectronico(correo);
+    socio.setContrasenaHash("hash");
+    socio.setTelefono("600000000");
+    socio.setTarifa(tarifa);
+    socio.setEstado(SocioEstado.ACTIVO);
+    socio.setDireccion("C/ Mar 2");
+    socio.setCiudad("Alicante");
+    socio.setCodigoPostal("03002");
+    socio.setClasesGratis(0);
+    return socio;
+  }
+}
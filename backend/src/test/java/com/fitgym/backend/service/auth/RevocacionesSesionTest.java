@@ -0,0 +1,69 @@
+package com.fitgym.backend.service.auth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fitgym.backend.domain.SesionRevocada;
+import com.fitgym.backend.repo.SesionRevocadaRepository;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RevocacionesSesionTest {
+
+  private static final Instant AHORA = Instant.parse("2026-01-10T10:00:00Z");
+
+  private SesionRevocadaRepository repo;
+  private RevocacionesSesion revocaciones;
+
+  @BeforeEach
+  void setUp() {
+    repo = mock(SesionRevocadaRepository.class);
+    AuthProperties props = new AuthProperties(AuthProperties.TOKEN, "", Duration.ofMinutes(15), false);
+    revocaciones = new RevocacionesSesion(repo, props, Clock.fixed(AHORA, ZoneOffset.UTC));
+  }
+
+  private static ClaimsSesion claims(long idSocio, int version, String jti) {
+    long t = AHORA.getEpochSecond();
+    return new ClaimsSesion(idSocio, false, version, t, t + 900, jti);
+  }
+
+  @Test
+  void logout_revoca_solo_ese_token_y_lo_persiste() {
+    revocaciones.revocarToken(claims(1L, 0, "a"));
+
+    assertThat(revocaciones.revocada(claims(1L, 0, "a"))).isTrue();
+    assertThat(revocaciones.revocada(claims(1L, 0, "b"))).isFalse();
+    verify(repo).save(any(SesionRevocada.class));
+  }
+
+  @Test
+  void cambio_de_contrasena_revoca_las_versiones_anteriores_del_socio() {
+    revocaciones.revocarSocio(1L, 2);
+
+    assertThat(revocaciones.revocada(claims(1L, 1, "a"))).isTrue();
+    assertThat(revocaciones.revocada(claims(1L, 2, "b"))).isFalse();
+    assertThat(revocaciones.revocada(claims(2L, 0, "c"))).isFalse();
+  }
+
+  @Test
+  void refrescar_aplica_las_revocaciones_de_otros_nodos() {
+    when(repo.findByExpiraEnAfter(AHORA)).thenReturn(List.of(
+        SesionRevocada.deToken("x", AHORA.plusSeconds(60)),
+        SesionRevocada.deSocio(5L, 4, AHORA.plusSeconds(60))));
+
+    revocaciones.refrescar();
+
+    assertThat(revocaciones.revocada(claims(1L, 0, "x"))).isTrue();
+    assertThat(revocaciones.revocada(claims(5L, 3, "y"))).isTrue();
+    verify(repo, never()).save(any());
+  }
+}
@@ -0,0 +1,117 @@
+package com.fitgym.backend.service.auth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fitgym.backend.api.dto.SocioSession;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpSession;
+
+class TokenSesionServiceTest {
+
+  private static final String SECRETO = "0123456789abcdef0123456789abcdef";
+  private static final Instant T0 = Instant.parse("2026-01-10T10:00:00Z");
+
+  private static AuthProperties props(String secreto) {
+    return new AuthProperties(AuthProperties.TOKEN, secreto, Duration.ofMinutes(15), false);
+  }
+
+  private static TokenSesionService servicio(Instant ahora) {
+    return new TokenSesionService(props(SECRETO), Clock.fixed(ahora, ZoneOffset.UTC));
+  }
+
+  @Test
+  void emitir_y_verificar_devuelve_las_mismas_claims() {
+    TokenSesionService tokens = servicio(T0);
+    ClaimsSesion claims = tokens.emitir(7L, true, 3);
+
+    assertThat(tokens.verificar(tokens.codificar(claims))).contains(claims);
+    assertThat(claims.expiraEn() - claims.emitidoEn()).isEqualTo(900);
+  }
+
+  @Test
+  void token_manipulado_o_de_otra_clave_se_rechaza() {
+    TokenSesionService tokens = servicio(T0);
+    String token = tokens.codificar(tokens.emitir(7L, false, 0));
+
+    String otroPayload = tokens.codificar(tokens.emitir(8L, true, 0)).split("\\.")[0];
+    String firma = token.split("\\.")[1];
+
+    assertThat(tokens.verificar(otroPayload + "." + firma)).isEmpty();
+    assertThat(tokens.verificar(token + "x")).isEmpty();
+    assertThat(tokens.verificar("basura")).isEmpty();
+    assertThat(new TokenSesionService(props("fedcba9876543210fedcba9876543210"), Clock.fixed(T0, ZoneOffset.UTC))
+        .verificar(token)).isEmpty();
+  }
+
+  @Test
+  void token_caducado_se_rechaza_y_se_renueva_pasada_la_mitad() {
+    String token = servicio(T0).codificar(servicio(T0).emitir(7L, false, 0));
+
+    TokenSesionService aLos10Min = servicio(T0.plus(Duration.ofMinutes(10)));
+    assertThat(aLos10Min.verificar(token)).isPresent();
+    assertThat(aLos10Min.debeRenovarse(aLos10Min.verificar(token).get())).isTrue();
+
+    assertThat(servicio(T0.plus(Duration.ofMinutes(15))).verificar(token)).isEmpty();
+  }
+
+  @Test
+  void modo_token_sin_secreto_suficiente_no_arranca() {
+    assertThatThrownBy(() -> new TokenSesionService(props("corto")))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  /**
+   * Coste por peticion de validar el token frente a leer el SocioSession de la HttpSession (sin JMH).
+   * Validar el token (HMAC-SHA256 y parseo) debe seguir en microsegundos; las dos medidas salen en el
+   * mensaje si falla. Tarda y depende de la maquina: solo con mvn test -Dfitgym.test.lento=true
+   */
+  @Test
+  @EnabledIfSystemProperty(named = "fitgym.test.lento", matches = "true")
+  void validar_el_token_por_peticion_cuesta_microsegundos_como_la_sesion_http() {
+    TokenSesionService tokens = new TokenSesionService(props(SECRETO));
+    String token = tokens.codificar(tokens.emitir(7L, false, 0));
+
+    MockHttpServletRequest request = new MockHttpServletRequest();
+    MockHttpSession session = new MockHttpSession();
+    session.setAttribute("socioLogin", new SocioSession(
+        7L, "Test", "test@fitgym.com", "ACTIVO", 1L, "Basico", BigDecimal.ZERO, null, null, null, null));
+    request.setSession(session);
+
+    int iteraciones = 200_000;
+    long sumidero = 0;
+    // Calentamiento para medir el codigo ya compilado por el JIT
+    for (int i = 0; i < iteraciones; i++) {
+      sumidero += tokens.verificar(token).get().idSocio();
+      sumidero += leerSesion(request);
+    }
+
+    long t0 = System.nanoTime();
+    for (int i = 0; i < iteraciones; i++) {
+      sumidero += tokens.verificar(token).get().idSocio();
+    }
+    long nsToken = (System.nanoTime() - t0) / iteraciones;
+
+    t0 = System.nanoTime();
+    for (int i = 0; i < iteraciones; i++) {
+      sumidero += leerSesion(request);
+    }
+    long nsSesion = (System.nanoTime() - t0) / iteraciones;
+
+    assertThat(sumidero).isEqualTo(7L * iteraciones * 4);
+    assertThat(nsToken)
+        .as("token HMAC %d ns/op, HttpSession %d ns/op", nsToken, nsSesion)
+        .isLessThan(20_000);
+  }
+
+  private static long leerSesion(MockHttpServletRequest request) {
+    return request.getSession(false).getAttribute("socioLogin") instanceof SocioSession s ? s.getId() : 0;
+  }
+}
@@ -0,0 +1,197 @@
+package com.fitgym.backend.service.exportacion;
+
+import com.fitgym.backend.domain.Actividad;
+import com.fitgym.backend.domain.Reserva;
+import com.fitgym.backend.domain.ReservaEstado;
+import com.fitgym.backend.domain.ReservaId;
+import com.fitgym.backend.domain.Socio;
+import com.fitgym.backend.repo.ActividadRepository;
+import com.fitgym.backend.repo.EnumsPostgresEnH2;
+import com.fitgym.backend.repo.MonitorRepository;
+import com.fitgym.backend.repo.ReservaRepository;
+import com.fitgym.backend.repo.SalaRepository;
+import com.fitgym.backend.repo.SocioRepository;
+import com.fitgym.backend.repo.TarifaRepository;
+import com.fitgym.backend.repo.TipoActividadRepository;
+import com.fitgym.backend.service.ActividadesDePrueba;
+import com.fitgym.backend.service.SociosDePrueba;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Volcados en streaming: formato de CSV y NDJSON, formulas neutralizadas, una exportacion real sobre las
+ * tablas (con los enums de Postgres como dominios de H2) y memoria constante con un millon de filas de
+ * system_range, con ejecucion perezosa para que H2 no materialice el resultado (como el cursor de Postgres).
+ *
+ * El del millon de filas tarda y solo se ejecuta con: mvn test -Dfitgym.test.lento=true
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:fitgym_export;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;LAZY_QUERY_EXECUTION=TRUE;"
+        + EnumsPostgresEnH2.DOMINIOS,
+    "spring.jpa.hibernate.ddl-auto=create-drop"})
+class ExportacionServiceTest {
+
+  private static final int FILAS = 1_000_000;
+  private static final long TECHO_MEMORIA = 32L * 1024 * 1024;
+
+  private static final String MILLON = """
+      select x as id, 'Socio ' || x as nombre, 'socio' || x || '@fitgym.com' as correo_electronico,
+             cast(x as numeric(10, 2)) / 7 as cantidad, mod(x, 2) = 0 as pago_domiciliado
+      from system_range(1, %d)
+      """.formatted(FILAS);
+
+  @Autowired private ExportacionService exportacion;
+  @Autowired private ObjectMapper mapper;
+  @Autowired private ReservaRepository reservaRepo;
+  @Autowired private ActividadRepository actividadRepo;
+  @Autowired private SocioRepository socioRepo;
+  @Autowired private TarifaRepository tarifaRepo;
+  @Autowired private MonitorRepository monitorRepo;
+  @Autowired private SalaRepository salaRepo;
+  @Autowired private TipoActividadRepository tipoRepo;
+
+  @Test
+  void csv_con_cabecera_y_campos_entrecomillados_solo_cuando_hace_falta() {
+    String csv = volcar("""
+        select 1 as id, 'Perez, Ana' as nombre, 'dice "hola"' as nota, cast(null as varchar) as ciudad
+        union all
+        select 2, 'Luis', 'linea1' || char(10) || 'linea2', 'Elche'
+        """, FormatoExportacion.CSV);
+
+    assertEquals("id,nombre,nota,ciudad\r\n"
+        + "1,\"Perez, Ana\",\"dice \"\"hola\"\"\",\r\n"
+        + "2,Luis,\"linea1\nlinea2\",Elche\r\n", csv);
+  }
+
+  @Test
+  void csv_neutraliza_las_formulas_en_texto_pero_no_los_importes_negativos() {
+    String csv = volcar("""
+        select '=HYPERLINK("http://x")' as nombre, '-2+3' as nota, '@SUMA(A1)' as ciudad, '+34 600' as telefono,
+               char(9) || 'tab' as tab, char(13) || 'cr' as cr, 'Ana' as normal, cast(-3.50 as numeric(10, 2)) as cantidad
+        """, FormatoExportacion.CSV);
+
+    assertEquals("nombre,nota,ciudad,telefono,tab,cr,normal,cantidad\r\n"
+        + "\"'=HYPERLINK(\"\"http://x\"\")\",'-2+3,'@SUMA(A1),'+34 600,'\ttab,\"'\rcr\",Ana,-3.50\r\n", csv);
+  }
+
+  @Test
+  void exporta_las_reservas_de_la_tabla() {
+    Socio socio = socioRepo.save(SociosDePrueba.socio(tarifaRepo.save(SociosDePrueba.tarifa()), "export@fitgym.com"));
+    Actividad clase = actividadRepo.save(ActividadesDePrueba.clase("Pilates", LocalDate.of(2030, 2, 1),
+        LocalTime.of(9, 0), LocalTime.of(10, 0), 20, monitorRepo.save(ActividadesDePrueba.monitor("export@fitgym.com")),
+        salaRepo.save(ActividadesDePrueba.sala("Sala export", 20)), tipoRepo.save(ActividadesDePrueba.tipo("Pilates", "Core"))));
+    Reserva reserva = new Reserva();
+    reserva.setId(new ReservaId(socio.getId(), clase.getId()));
+    reserva.setSocio(socio);
+    reserva.setActividad(clase);
+    reserva.setFecha(OffsetDateTime.now());
+    reserva.setEstado(ReservaEstado.CONFIRMADA);
+    reservaRepo.save(reserva);
+
+    ByteArrayOutputStream csv = new ByteArrayOutputStream();
+    assertEquals(1, exportacion.exportar(Exportacion.RESERVAS, FormatoExportacion.CSV, csv));
+    List<String> lineas = csv.toString(StandardCharsets.UTF_8).lines().toList();
+    assertEquals(2, lineas.size());
+    assertEquals("id_socio,id_actividad,fecha_alta,estado", lineas.get(0));
+    assertTrue(lineas.get(1).startsWith(socio.getId() + "," + clase.getId() + ","), lineas.get(1));
+    assertTrue(lineas.get(1).endsWith(",CONFIRMADA"), lineas.get(1));
+
+    ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+    assertEquals(1, exportacion.exportar(Exportacion.RESERVAS, FormatoExportacion.NDJSON, ndjson));
+    JsonNode fila = mapper.readTree(ndjson.toString(StandardCharsets.UTF_8));
+    assertTrue(fila.get("id_socio").isNumber());
+    assertEquals(clase.getId(), fila.get("id_actividad").asLong());
+    assertEquals("CONFIRMADA", fila.get("estado").asString());
+  }
+
+  @Test
+  void ndjson_un_objeto_por_linea_con_numeros_booleanos_y_nulos() {
+    String ndjson = volcar("""
+        select 1 as id, cast(12.50 as numeric(10, 2)) as cantidad, true as activo, cast(null as varchar) as ciudad
+        union all
+        select 2, 3.00, false, 'Alicante'
+        """, FormatoExportacion.NDJSON);
+
+    List<String> lineas = ndjson.lines().toList();
+    assertEquals(2, lineas.size());
+    assertTrue(ndjson.endsWith("}\n"));
+    JsonNode primera = mapper.readTree(lineas.get(0));
+    assertEquals(1, primera.get("id").asLong());
+    assertEquals(12.5, primera.get("cantidad").asDouble());
+    assertTrue(primera.get("activo").isBoolean());
+    assertTrue(primera.get("ciudad").isNull());
+    assertEquals("Alicante", mapper.readTree(lineas.get(1)).get("ciudad").asString());
+  }
+
+  @Test
+  @EnabledIfSystemProperty(named = "fitgym.test.lento", matches = "true")
+  void un_millon_de_filas_en_memoria_constante() {
+    for (FormatoExportacion formato : FormatoExportacion.values()) {
+      SumideroConMedicion sumidero = new SumideroConMedicion();
+
+      long filas = exportacion.volcar(MILLON, formato, sumidero);
+
+      assertEquals(FILAS, filas);
+      // La salida pesa mucho mas que el techo: si se acumulasen filas, la memoria viva creceria con ella
+      assertTrue(sumidero.bytes > 2 * TECHO_MEMORIA, "bytes escritos: " + sumidero.bytes);
+      assertTrue(sumidero.crecimientoMax < TECHO_MEMORIA, "memoria retenida: " + sumidero.crecimientoMax);
+    }
+  }
+
+  private String volcar(String sql, FormatoExportacion formato) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    exportacion.volcar(sql, formato, out);
+    return out.toString(StandardCharsets.UTF_8);
+  }
+
+  private static long memoriaViva() {
+    System.gc();
+    Runtime rt = Runtime.getRuntime();
+    return rt.totalMemory() - rt.freeMemory();
+  }
+
+  /**
+   * Descarta lo escrito y, cada pocos MB, mide la memoria viva tras un GC respecto a la inicial.
+   */
+  private static final class SumideroConMedicion extends OutputStream {
+    private static final long CADA = 8L * 1024 * 1024;
+
+    private final long base = memoriaViva();
+    private long bytes;
+    private long siguienteMedida = CADA;
+    private long crecimientoMax;
+
+    @Override
+    public void write(int b) {
+      contar(1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      contar(len);
+    }
+
+    private void contar(int n) {
+      bytes += n;
+      if (bytes >= siguienteMedida) {
+        siguienteMedida += CADA;
+        crecimientoMax = Math.max(crecimientoMax, memoriaViva() - base);
+      }
+    }
+  }
+}
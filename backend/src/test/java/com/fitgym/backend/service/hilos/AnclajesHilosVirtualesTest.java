@@ -0,0 +1,71 @@
+package com.fitgym.backend.service.hilos;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests del diagnostico de anclajes de hilos virtuales.
+ */
+class AnclajesHilosVirtualesTest {
+
+  private final HilosVirtualesProperties props = new HilosVirtualesProperties(true, Duration.ofMillis(10));
+
+  @Test
+  void registra_el_bloqueo_dentro_de_synchronized_por_origen() throws Exception {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    AnclajesHilosVirtuales anclajes = new AnclajesHilosVirtuales(props, true, registry);
+    anclajes.start();
+    try {
+      Object monitor = new Object();
+      Thread.ofVirtual().start(() -> {
+        synchronized (monitor) {
+          dormir(100);
+        }
+      }).join();
+
+      Timer timer = esperarTimer(registry, "com.fitgym.backend");
+      assertNotNull(timer, "no se registro el anclaje");
+      assertTrue(timer.count() >= 1);
+    } finally {
+      anclajes.stop();
+    }
+    assertFalse(anclajes.isRunning());
+  }
+
+  @Test
+  void sin_hilos_virtuales_no_arranca() {
+    AnclajesHilosVirtuales anclajes = new AnclajesHilosVirtuales(props, false, new SimpleMeterRegistry());
+
+    anclajes.start();
+
+    assertFalse(anclajes.isRunning());
+  }
+
+  /** JFR entrega los eventos en bloques (~1 s): se espera hasta 10 s. */
+  private static Timer esperarTimer(SimpleMeterRegistry registry, String origen) throws InterruptedException {
+    long limite = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+    while (System.nanoTime() < limite) {
+      Timer timer = registry.find("fitgym.hilos.virtuales.anclaje").tag("origen", origen).timer();
+      if (timer != null) {
+        return timer;
+      }
+      Thread.sleep(100);
+    }
+    return null;
+  }
+
+  private static void dormir(long ms) {
+    try {
+      Thread.sleep(ms);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
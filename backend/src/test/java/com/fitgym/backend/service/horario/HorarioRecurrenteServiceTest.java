@@ -0,0 +1,155 @@
+package com.fitgym.backend.service.horario;
+
+import com.fitgym.backend.api.dto.ActividadPlantillaRequest;
+import com.fitgym.backend.api.dto.ActividadPlantillaRequest.Franja;
+import com.fitgym.backend.api.dto.ActividadPlantillaResponse;
+import com.fitgym.backend.domain.Monitor;
+import com.fitgym.backend.domain.Sala;
+import com.fitgym.backend.domain.TipoActividad;
+import com.fitgym.backend.repo.ActividadRepository;
+import com.fitgym.backend.repo.MonitorRepository;
+import com.fitgym.backend.repo.SalaRepository;
+import com.fitgym.backend.repo.TipoActividadRepository;
+import com.fitgym.backend.service.ActividadesDePrueba;
+import com.fitgym.backend.service.BusinessException;
+import com.fitgym.backend.service.ConflictoHorarioException;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Expansion de plantillas semanales: una temporada entera en una llamada, con festivos y excepciones
+ * saltados, conflictos de sala/monitor detectados antes de insertar y la insercion en lotes.
+ */
+@SpringBootTest(properties = {
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "fitgym.horarios.festivos=2026-04-02,2026-04-03"
+})
+class HorarioRecurrenteServiceTest {
+
+  // Cuatrimestre de febrero a junio
+  private static final LocalDate DESDE = LocalDate.of(2026, 2, 2);
+  private static final LocalDate HASTA = LocalDate.of(2026, 6, 28);
+
+  @Autowired private HorarioRecurrenteService horarios;
+  @Autowired private ActividadRepository actividadRepo;
+  @Autowired private MonitorRepository monitorRepo;
+  @Autowired private SalaRepository salaRepo;
+  @Autowired private TipoActividadRepository tipoRepo;
+  @Autowired private EntityManagerFactory emf;
+
+  @Test
+  void plantilla_de_un_cuatrimestre_crea_todas_las_clases_en_una_llamada() {
+    Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+    ActividadPlantillaRequest req = plantilla(crearMonitor(), crearSala(), crearTipo());
+    // Lunes a sabado, cada hora de 07:00 a 21:00
+    req.franjas = franjasCadaHora(List.of(DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY,
+        DayOfWeek.THURSDAY, DayOfWeek.FRIDAY, DayOfWeek.SATURDAY), 7, 21);
+    req.excepciones = List.of(LocalDate.of(2026, 5, 1));
+    long antes = actividadRepo.count();
+
+    stats.clear();
+    ActividadPlantillaResponse res = horarios.crearDesdePlantilla(req);
+    long sentencias = stats.getPrepareStatementCount();
+
+    // 21 semanas x 6 dias x 14 franjas, menos 3 dias saltados (2 festivos jueves/viernes y el 1 de mayo)
+    assertEquals(21 * 6 * 14 - 3 * 14, res.creadas());
+    assertEquals(3 * 14, res.omitidas());
+    assertEquals(antes + res.creadas(), actividadRepo.count());
+    // Busquedas + ocupacion + un INSERT por lote y un nextval por bloque: muy por debajo de una sentencia por clase
+    assertTrue(sentencias < res.creadas() / 10, "sentencias: " + sentencias);
+  }
+
+  @Test
+  void plantilla_que_pisa_la_sala_o_el_monitor_no_crea_nada() {
+    Monitor monitor = crearMonitor();
+    Sala sala = crearSala();
+    TipoActividad tipo = crearTipo();
+    ActividadPlantillaRequest manana = plantilla(monitor, sala, tipo);
+    manana.franjas = List.of(new Franja(DayOfWeek.MONDAY, LocalTime.of(9, 0), LocalTime.of(10, 0)));
+    horarios.crearDesdePlantilla(manana);
+    long antes = actividadRepo.count();
+
+    // Otra sala, mismo monitor, solapada media hora
+    ActividadPlantillaRequest solapada = plantilla(monitor, crearSala(), tipo);
+    solapada.franjas = List.of(
+        new Franja(DayOfWeek.MONDAY, LocalTime.of(9, 30), LocalTime.of(10, 30)),
+        new Franja(DayOfWeek.TUESDAY, LocalTime.of(9, 30), LocalTime.of(10, 30)));
+
+    ConflictoHorarioException ex = assertThrows(ConflictoHorarioException.class, () -> horarios.crearDesdePlantilla(solapada));
+
+    assertTrue(ex.getMessage().startsWith("21 clases"), ex.getMessage());
+    assertEquals(antes, actividadRepo.count());
+  }
+
+  @Test
+  void franjas_de_la_propia_plantilla_que_se_pisan_son_conflicto() {
+    ActividadPlantillaRequest req = plantilla(crearMonitor(), crearSala(), crearTipo());
+    req.desde = LocalDate.of(2026, 2, 2);
+    req.hasta = LocalDate.of(2026, 2, 8);
+    req.franjas = List.of(
+        new Franja(DayOfWeek.MONDAY, LocalTime.of(18, 0), LocalTime.of(19, 0)),
+        new Franja(DayOfWeek.MONDAY, LocalTime.of(18, 45), LocalTime.of(19, 45)));
+
+    assertThrows(ConflictoHorarioException.class, () -> horarios.crearDesdePlantilla(req));
+  }
+
+  @Test
+  void plazas_por_encima_del_aforo_de_la_sala_se_rechazan() {
+    ActividadPlantillaRequest req = plantilla(crearMonitor(), crearSala(), crearTipo());
+    req.plazas = 21;
+    req.franjas = List.of(new Franja(DayOfWeek.FRIDAY, LocalTime.of(8, 0), LocalTime.of(9, 0)));
+
+    assertThrows(BusinessException.class, () -> horarios.crearDesdePlantilla(req));
+  }
+
+  private static List<Franja> franjasCadaHora(List<DayOfWeek> dias, int primeraHora, int ultimaHora) {
+    List<Franja> franjas = new ArrayList<>();
+    for (DayOfWeek dia : dias) {
+      for (int h = primeraHora; h < ultimaHora; h++) {
+        franjas.add(new Franja(dia, LocalTime.of(h, 0), LocalTime.of(h, 50)));
+      }
+    }
+    return franjas;
+  }
+
+  private static ActividadPlantillaRequest plantilla(Monitor monitor, Sala sala, TipoActividad tipo) {
+    ActividadPlantillaRequest req = new ActividadPlantillaRequest();
+    req.nombre = "Spinning";
+    req.precioExtra = BigDecimal.ZERO;
+    req.plazas = 20;
+    req.idMonitor = monitor.getId();
+    req.idSala = sala.getId();
+    req.idTipoActividad = tipo.getId();
+    req.desde = DESDE;
+    req.hasta = HASTA;
+    return req;
+  }
+
+  private Monitor crearMonitor() {
+    return monitorRepo.save(ActividadesDePrueba.monitor("horarios@fitgym.com"));
+  }
+
+  private Sala crearSala() {
+    return salaRepo.save(ActividadesDePrueba.sala("Sala Ciclo", 20));
+  }
+
+  private TipoActividad crearTipo() {
+    return tipoRepo.save(ActividadesDePrueba.tipo("Spinning", "Ciclo indoor"));
+  }
+}
@@ -0,0 +1,182 @@
+package com.fitgym.backend.service.horario;
+
+import com.fitgym.backend.repo.ActividadRepository;
+import com.fitgym.backend.service.ConflictoHorarioException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IndiceOcupacionTest {
+
+  private static final LocalDate HOY = LocalDate.now();
+
+  private ActividadRepository repo;
+  private IndiceOcupacion indice;
+
+  @BeforeEach
+  void setUp() {
+    repo = Mockito.mock(ActividadRepository.class);
+    when(repo.findOcupacionDesde(any())).thenReturn(List.of(
+        franja(1L, HOY, 9, 0, 10, 0, 1L, 1L),
+        franja(2L, HOY, 10, 0, 11, 0, 1L, 2L),
+        // Clase larga del monitor 3 en otra sala: solo la encuentra la ventana de duracion maxima
+        franja(3L, HOY, 7, 0, 13, 0, 2L, 3L)));
+    indice = new IndiceOcupacion(repo, new HorarioProperties(List.of(), 20000, 500, 30));
+  }
+
+  @Test
+  void detecta_sala_y_monitor_ocupados_pero_no_franjas_contiguas() {
+    assertThrows(ConflictoHorarioException.class,
+        () -> indice.comprobar(List.of(franja(null, HOY, 9, 30, 10, 30, 1L, 9L))));
+    assertThrows(ConflictoHorarioException.class,
+        () -> indice.comprobar(List.of(franja(null, HOY, 12, 0, 12, 30, 5L, 3L))));
+
+    assertDoesNotThrow(() -> indice.comprobar(List.of(franja(null, HOY, 11, 0, 12, 0, 1L, 1L))));
+    assertDoesNotThrow(() -> indice.comprobar(List.of(franja(null, HOY.plusDays(1), 9, 0, 10, 0, 1L, 1L))));
+  }
+
+  @Test
+  void una_edicion_no_choca_con_su_propia_franja_anterior() {
+    indice.reservar(List.of(franja(1L, HOY, 9, 30, 10, 0, 1L, 1L)));
+
+    // La franja vieja (9:00-9:30) queda libre y la nueva ocupada
+    assertDoesNotThrow(() -> indice.comprobar(List.of(franja(null, HOY, 9, 0, 9, 30, 1L, 7L))));
+    assertThrows(ConflictoHorarioException.class,
+        () -> indice.comprobar(List.of(franja(null, HOY, 9, 45, 10, 0, 1L, 7L))));
+  }
+
+  @Test
+  void clases_de_la_misma_lista_que_se_pisan_son_conflicto() {
+    ConflictoHorarioException ex = assertThrows(ConflictoHorarioException.class, () -> indice.comprobar(List.of(
+        franja(null, HOY, 18, 0, 19, 0, 1L, 1L),
+        franja(null, HOY, 18, 30, 19, 30, 4L, 1L))));
+
+    assertTrue(ex.getMessage().contains("monitor ocupado 18:00-19:00"), ex.getMessage());
+  }
+
+  @Test
+  void la_reserva_se_deshace_si_la_transaccion_no_confirma() {
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      indice.reservar(List.of(franja(50L, HOY, 20, 0, 21, 0, 1L, 1L)));
+      assertThrows(ConflictoHorarioException.class,
+          () -> indice.comprobar(List.of(franja(null, HOY, 20, 0, 21, 0, 1L, 8L))));
+
+      TransactionSynchronizationUtils.invokeAfterCompletion(
+          TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_ROLLED_BACK);
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    assertDoesNotThrow(() -> indice.comprobar(List.of(franja(null, HOY, 20, 0, 21, 0, 1L, 8L))));
+  }
+
+  @Test
+  void las_fechas_anteriores_al_horizonte_se_comprueban_en_bd() {
+    LocalDate antigua = HOY.minusDays(90);
+    when(repo.findOcupadas(antigua, antigua, 1L, 1L)).thenReturn(List.of(franja(70L, antigua, 9, 0, 10, 0, 1L, 1L)));
+
+    assertThrows(ConflictoHorarioException.class,
+        () -> indice.comprobar(List.of(franja(null, antigua, 9, 30, 10, 30, 1L, 1L))));
+    // Dentro del horizonte no hay consultas por fecha
+    indice.comprobar(List.of(franja(null, HOY.plusDays(3), 9, 0, 10, 0, 1L, 1L)));
+    verify(repo, never()).findOcupadas(HOY.plusDays(3), HOY.plusDays(3), 1L, 1L);
+  }
+
+  @Test
+  void una_reserva_que_no_confirma_no_pisa_la_de_otra_edicion_posterior() {
+    // Dos ediciones de la clase 1 (09:00-10:00) en transacciones distintas: primero a las 15:00 y luego a las 17:00
+    List<TransactionSynchronization> primera = enTransaccion(() -> indice.reservar(List.of(franja(1L, HOY, 15, 0, 16, 0, 1L, 1L))));
+    List<TransactionSynchronization> segunda = enTransaccion(() -> indice.reservar(List.of(franja(1L, HOY, 17, 0, 18, 0, 1L, 1L))));
+
+    // La primera no confirma: la clase sigue donde la dejo la segunda, no vuelve a las 09:00
+    TransactionSynchronizationUtils.invokeAfterCompletion(primera, TransactionSynchronization.STATUS_ROLLED_BACK);
+    assertThrows(ConflictoHorarioException.class, () -> indice.comprobar(List.of(franja(null, HOY, 17, 0, 18, 0, 1L, 8L))));
+    assertDoesNotThrow(() -> indice.comprobar(List.of(franja(null, HOY, 9, 0, 10, 0, 1L, 8L))));
+    assertDoesNotThrow(() -> indice.comprobar(List.of(franja(null, HOY, 15, 0, 16, 0, 1L, 8L))));
+
+    // Si la segunda tampoco confirma, vuelve a la franja confirmada (09:00), no a la de la primera
+    TransactionSynchronizationUtils.invokeAfterCompletion(segunda, TransactionSynchronization.STATUS_ROLLED_BACK);
+    assertThrows(ConflictoHorarioException.class, () -> indice.comprobar(List.of(franja(null, HOY, 9, 0, 10, 0, 1L, 8L))));
+    assertDoesNotThrow(() -> indice.comprobar(List.of(franja(null, HOY, 15, 0, 16, 0, 1L, 8L))));
+    assertDoesNotThrow(() -> indice.comprobar(List.of(franja(null, HOY, 17, 0, 18, 0, 1L, 8L))));
+  }
+
+  @Test
+  void el_horizonte_avanza_con_los_dias_y_suelta_las_agendas_antiguas() {
+    LocalDate limite = HOY.minusDays(30);
+    when(repo.findOcupacionDesde(limite)).thenReturn(List.of(franja(80L, limite, 9, 0, 10, 0, 1L, 1L)));
+    RelojDePrueba reloj = new RelojDePrueba(HOY);
+    indice = new IndiceOcupacion(repo, new HorarioProperties(List.of(), 20000, 500, 30), reloj);
+
+    // Hoy esa fecha esta en el indice: el conflicto sale sin consultar la BD
+    assertThrows(ConflictoHorarioException.class,
+        () -> indice.comprobar(List.of(franja(null, limite, 9, 30, 10, 30, 1L, 1L))));
+    verify(repo, never()).findOcupadas(any(), any(), any(), any());
+
+    // Al dia siguiente queda por detras del horizonte: el indice la suelta y se comprueba contra la BD
+    reloj.hoy = HOY.plusDays(1);
+    when(repo.findOcupadas(limite, limite, 1L, 1L)).thenReturn(List.of());
+    assertDoesNotThrow(() -> indice.comprobar(List.of(franja(null, limite, 9, 30, 10, 30, 1L, 1L))));
+    verify(repo).findOcupadas(limite, limite, 1L, 1L);
+    verify(repo, times(1)).findOcupacionDesde(any());
+  }
+
+  private static List<TransactionSynchronization> enTransaccion(Runnable accion) {
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      accion.run();
+      return TransactionSynchronizationManager.getSynchronizations();
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  private static FranjaOcupada franja(Long id, LocalDate fecha, int hIni, int mIni, int hFin, int mFin, Long idSala, Long idMonitor) {
+    return new FranjaOcupada(id, fecha, LocalTime.of(hIni, mIni), LocalTime.of(hFin, mFin), idSala, idMonitor);
+  }
+
+  /** Reloj de prueba que se puede adelantar de dia. */
+  private static final class RelojDePrueba extends Clock {
+    private LocalDate hoy;
+
+    RelojDePrueba(LocalDate hoy) {
+      this.hoy = hoy;
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return hoy.atTime(12, 0).toInstant(ZoneOffset.UTC);
+    }
+  }
+}
@@ -0,0 +1,201 @@
+package com.fitgym.backend.service.inventory;
+
+import com.fitgym.backend.domain.Actividad;
+import com.fitgym.backend.domain.ReservaEstado;
+import com.fitgym.backend.repo.ActividadRepository;
+import com.fitgym.backend.repo.ReservaRepository;
+import com.fitgym.backend.service.CatalogoRevision;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests unitarios del inventario de plazas en memoria.
+ *
+ * Cubre admision concurrente sin sobreventa, devolucion de plaza en rollback,
+ * volcado por lotes y reconciliacion contra las reservas confirmadas.
+ */
+class SeatInventoryTest {
+
+  private ActividadRepository actividadRepo;
+  private ReservaRepository reservaRepo;
+  private SeatInventory inventory;
+
+  @BeforeEach
+  void setUp() {
+    actividadRepo = Mockito.mock(ActividadRepository.class);
+    reservaRepo = Mockito.mock(ReservaRepository.class);
+    PlatformTransactionManager txManager = Mockito.mock(PlatformTransactionManager.class);
+
+    inventory = new SeatInventory(actividadRepo, reservaRepo, txManager, new SeatInventoryProperties(true, 2), new CatalogoRevision());
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void tryAcquire_concurrente_no_sobrevende() throws Exception {
+    when(actividadRepo.findById(7L)).thenReturn(Optional.of(buildActividad(20, 20)));
+
+    int hilos = 300;
+    ExecutorService pool = Executors.newFixedThreadPool(hilos);
+    CountDownLatch salida = new CountDownLatch(1);
+    AtomicInteger admitidas = new AtomicInteger();
+    List<Future<?>> tareas = new ArrayList<>();
+    for (int i = 0; i < hilos; i++) {
+      tareas.add(pool.submit(() -> {
+        salida.await();
+        if (inventory.tryAcquire(7L)) {
+          admitidas.incrementAndGet();
+        }
+        return null;
+      }));
+    }
+
+    salida.countDown();
+    for (Future<?> tarea : tareas) {
+      tarea.get(10, TimeUnit.SECONDS);
+    }
+    pool.shutdown();
+
+    assertEquals(20, admitidas.get());
+    assertFalse(inventory.tryAcquire(7L));
+    inventory.flush();
+    verify(actividadRepo).fijarDisponibles(7L, 0);
+  }
+
+  @Test
+  void tryAcquire_devuelve_la_plaza_si_la_transaccion_hace_rollback() {
+    when(actividadRepo.findById(7L)).thenReturn(Optional.of(buildActividad(1, 1)));
+
+    TransactionSynchronizationManager.initSynchronization();
+    assertTrue(inventory.tryAcquire(7L));
+    List<TransactionSynchronization> syncs = TransactionSynchronizationManager.getSynchronizations();
+    TransactionSynchronizationManager.clearSynchronization();
+    syncs.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+    assertTrue(inventory.tryAcquire(7L));
+    assertFalse(inventory.tryAcquire(7L));
+  }
+
+  @Test
+  void flush_escribe_el_ultimo_valor_de_cada_actividad() {
+    when(actividadRepo.findById(anyLong())).thenAnswer(inv -> Optional.of(buildActividad(10, 10)));
+
+    inventory.tryAcquire(1L);
+    inventory.tryAcquire(1L);
+    inventory.tryAcquire(2L);
+    inventory.tryAcquire(3L);
+
+    inventory.flush();
+
+    verify(actividadRepo).fijarDisponibles(1L, 8);
+    verify(actividadRepo).fijarDisponibles(2L, 9);
+    verify(actividadRepo).fijarDisponibles(3L, 9);
+    verify(actividadRepo, times(3)).fijarDisponibles(anyLong(), anyInt());
+
+    inventory.flush();
+    verify(actividadRepo, times(3)).fijarDisponibles(anyLong(), anyInt());
+  }
+
+  @Test
+  void reconcile_corrige_el_contador_segun_las_reservas_confirmadas() {
+    when(actividadRepo.findById(7L)).thenReturn(Optional.of(buildActividad(20, 20)));
+    inventory.tryAcquire(7L);
+    inventory.flush();
+
+    List<Object[]> filas = new ArrayList<>();
+    filas.add(new Object[] {7L, 5L});
+    when(reservaRepo.contarPorActividad(any(), eq(ReservaEstado.CONFIRMADA))).thenReturn(filas);
+
+    inventory.reconcile();
+    inventory.flush();
+
+    verify(actividadRepo).fijarDisponibles(7L, 15);
+  }
+
+  @Test
+  void reconcile_no_devuelve_plazas_de_reservas_aun_sin_confirmar() {
+    when(actividadRepo.findById(7L)).thenReturn(Optional.of(buildActividad(1, 1)));
+    // La reserva en curso aun no se ve en BD
+    when(reservaRepo.contarPorActividad(any(), eq(ReservaEstado.CONFIRMADA))).thenReturn(new ArrayList<>());
+
+    TransactionSynchronizationManager.initSynchronization();
+    assertTrue(inventory.tryAcquire(7L));
+    List<TransactionSynchronization> syncs = TransactionSynchronizationManager.getSynchronizations();
+    TransactionSynchronizationManager.clearSynchronization();
+
+    inventory.reconcile();
+    assertFalse(inventory.tryAcquire(7L));
+
+    syncs.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    assertFalse(inventory.tryAcquire(7L));
+  }
+
+  @Test
+  void cambiar_plazas_se_aplica_al_confirmar_sin_perder_las_reservas_de_mientras() {
+    when(actividadRepo.findById(7L)).thenReturn(Optional.of(buildActividad(3, 3)));
+    inventory.tryAcquire(7L);
+
+    TransactionSynchronizationManager.initSynchronization();
+    inventory.cambiarPlazas(7L, 5);
+    List<TransactionSynchronization> syncs = TransactionSynchronizationManager.getSynchronizations();
+    TransactionSynchronizationManager.clearSynchronization();
+
+    // Reserva que entra mientras la edicion no ha confirmado
+    inventory.tryAcquire(7L);
+    syncs.forEach(TransactionSynchronization::afterCommit);
+    inventory.flush();
+
+    verify(actividadRepo).fijarDisponibles(7L, 3);
+  }
+
+  @Test
+  void deshabilitado_no_vuelca_ni_reconcilia() {
+    SeatInventory apagado = new SeatInventory(actividadRepo, reservaRepo,
+        Mockito.mock(PlatformTransactionManager.class), new SeatInventoryProperties(false, 50), new CatalogoRevision());
+
+    apagado.flush();
+    apagado.reconcile();
+
+    verify(reservaRepo, never()).contarPorActividad(any(), any());
+    verify(actividadRepo, never()).fijarDisponibles(anyLong(), anyInt());
+  }
+
+  private Actividad buildActividad(int plazas, int disponibles) {
+    Actividad actividad = new Actividad();
+    actividad.setPlazas(plazas);
+    actividad.setDisponibles(disponibles);
+    return actividad;
+  }
+}
@@ -0,0 +1,222 @@
+package com.fitgym.backend.service.monedero;
+
+import com.fitgym.backend.domain.MovimientoMonedero;
+import com.fitgym.backend.domain.SaldoMonedero;
+import com.fitgym.backend.domain.TipoMovimiento;
+import com.fitgym.backend.repo.MovimientoMonederoRepository;
+import com.fitgym.backend.repo.SaldoMonederoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test de estres del libro del monedero.
+ *
+ * Miles de recargas y cargos simultaneos sobre pocos socios, con la consolidacion corriendo a la vez:
+ * el saldo final tiene que ser exactamente abonos menos cargos aceptados, sin saldos negativos, y la
+ * foto consolidada tiene que cuadrar con la suma de todo el libro. Compara ademas el cargo con UPDATE
+ * condicional frente a la variante con SELECT ... FOR UPDATE: ninguno gasta dos veces y el primero rinde mas.
+ */
+@SpringBootTest(properties = {
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.datasource.url=jdbc:h2:mem:fitgym_monedero;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=30000"
+})
+class MonederoServiceConcurrenciaTest {
+
+  private static final int SOCIOS = 4;
+  private static final int OPERACIONES_POR_SOCIO = 1_000;
+  private static final int HILOS = 64;
+  private static final int SALDO_INICIAL = 1_000;
+  private static final int CARGOS = 2_000;
+  private static final BigDecimal UNO = new BigDecimal("1.00");
+
+  @Autowired private MonederoService monedero;
+  @Autowired private ConsolidadorSaldos consolidador;
+  @Autowired private MovimientoMonederoRepository movimientos;
+  @Autowired private SaldoMonederoRepository saldos;
+  @Autowired private PlatformTransactionManager transactionManager;
+  @Autowired private JdbcTemplate jdbc;
+
+  @Test
+  void abonos_y_cargos_simultaneos_dejan_el_saldo_exacto() throws Exception {
+    long primerSocio = 1_000 + System.nanoTime() % 1_000_000;
+    AtomicInteger[] cargosAceptados = new AtomicInteger[SOCIOS];
+    for (int i = 0; i < SOCIOS; i++) {
+      cargosAceptados[i] = new AtomicInteger();
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(HILOS);
+    CountDownLatch salida = new CountDownLatch(1);
+    AtomicBoolean enMarcha = new AtomicBoolean(true);
+    List<Future<?>> tareas = new ArrayList<>();
+
+    // La mitad de las operaciones abonan 1,00 y la otra mitad intentan cargar 1,00
+    for (int op = 0; op < OPERACIONES_POR_SOCIO; op++) {
+      for (int i = 0; i < SOCIOS; i++) {
+        int socio = i;
+        boolean abono = op % 2 == 0;
+        String referencia = "op-" + op;
+        tareas.add(pool.submit(() -> {
+          salida.await();
+          Long id = primerSocio + socio;
+          if (abono) {
+            monedero.abonar(id, UNO, TipoMovimiento.RECARGA, referencia);
+          } else if (monedero.cargar(id, UNO, TipoMovimiento.RESERVA, referencia)) {
+            cargosAceptados[socio].incrementAndGet();
+          }
+          return null;
+        }));
+      }
+    }
+    // Consolidacion concurrente con margen: solo vuelca apuntes de transacciones ya terminadas
+    Thread consolidacion = Thread.ofPlatform().start(() -> {
+      while (enMarcha.get()) {
+        consolidador.consolidarHasta(Instant.now().minusSeconds(1));
+        dormir(20);
+      }
+    });
+
+    salida.countDown();
+    for (Future<?> tarea : tareas) {
+      tarea.get(120, TimeUnit.SECONDS);
+    }
+    enMarcha.set(false);
+    consolidacion.join();
+    pool.shutdown();
+
+    int abonos = OPERACIONES_POR_SOCIO / 2;
+    for (int i = 0; i < SOCIOS; i++) {
+      Long id = primerSocio + i;
+      BigDecimal esperado = new BigDecimal(abonos - cargosAceptados[i].get()).setScale(2);
+
+      assertTrue(cargosAceptados[i].get() > 0, "ningun cargo aceptado para el socio " + i);
+      assertEquals(0, esperado.compareTo(monedero.saldo(id)), "saldo del socio " + i);
+      assertEquals(0, esperado.compareTo(sumaDelLibro(id)), "suma del libro del socio " + i);
+    }
+
+    // Tras consolidar todo, la foto sola ya es el saldo
+    consolidador.consolidarHasta(Instant.now().plusSeconds(1));
+    for (int i = 0; i < SOCIOS; i++) {
+      Long id = primerSocio + i;
+      BigDecimal esperado = new BigDecimal(abonos - cargosAceptados[i].get()).setScale(2);
+      assertEquals(0, esperado.compareTo(saldos.findById(id).orElseThrow().getSaldo()), "foto del socio " + i);
+      assertEquals(0, esperado.compareTo(monedero.saldo(id)), "saldo consolidado del socio " + i);
+    }
+  }
+
+  @Test
+  void cargos_simultaneos_no_gastan_dos_veces_y_el_update_condicional_supera_al_cerrojo() throws Exception {
+    long base = 3_000_000L + System.nanoTime() % 1_000_000;
+    TransactionTemplate tx = new TransactionTemplate(transactionManager);
+    Cargo condicional = id -> monedero.cargar(id, UNO, TipoMovimiento.RESERVA, "reserva");
+    Cargo conCerrojo = id -> Boolean.TRUE.equals(tx.execute(status -> cargarConCerrojo(id)));
+
+    // Calentamiento de ambos caminos
+    cargarEnParalelo(base, 100, 200, condicional);
+    cargarEnParalelo(base + 1, 100, 200, conCerrojo);
+
+    Medida cerrojo = cargarEnParalelo(base + 2, SALDO_INICIAL, CARGOS, conCerrojo);
+    Medida update = cargarEnParalelo(base + 3, SALDO_INICIAL, CARGOS, condicional);
+
+    for (Medida medida : List.of(update, cerrojo)) {
+      assertEquals(SALDO_INICIAL, medida.aceptados());
+      assertEquals(0, BigDecimal.ZERO.compareTo(monedero.saldo(medida.idSocio())));
+      assertEquals(0, BigDecimal.ZERO.compareTo(sumaDelLibro(medida.idSocio())));
+    }
+    assertTrue(update.opsPorSegundo() > cerrojo.opsPorSegundo(),
+        "UPDATE condicional " + update + " frente a cerrojo " + cerrojo);
+  }
+
+  @Test
+  void cargo_sin_saldo_no_anota_nada() {
+    Long id = 2_000_000L + System.nanoTime() % 1_000_000;
+    monedero.abonar(id, new BigDecimal("3.00"), TipoMovimiento.RECARGA, "tok");
+
+    assertTrue(monedero.cargar(id, new BigDecimal("2.50"), TipoMovimiento.RESERVA, "reserva:1:1"));
+    assertEquals(false, monedero.cargar(id, new BigDecimal("0.60"), TipoMovimiento.RESERVA, "reserva:1:2"));
+
+    assertEquals(0, new BigDecimal("0.50").compareTo(monedero.saldo(id)));
+  }
+
+  /** Variante con cerrojo pesimista: SELECT ... FOR UPDATE, saldo calculado en Java y escritura aparte. */
+  private boolean cargarConCerrojo(Long idSocio) {
+    Instant ahora = Instant.now();
+    saldos.crearSiNoExiste(idSocio, ahora);
+    SaldoMonedero foto = saldos.bloquear(idSocio).orElseThrow();
+    BigDecimal disponible = foto.getSaldo().add(movimientos.sumarAbonosDesde(idSocio, foto.getHastaMovimiento()));
+    if (disponible.compareTo(UNO) < 0) {
+      return false;
+    }
+    foto.consolidar(UNO.negate(), foto.getHastaMovimiento(), ahora);
+    movimientos.save(new MovimientoMonedero(idSocio, UNO.negate(), TipoMovimiento.RESERVA, "reserva", ahora));
+    return true;
+  }
+
+  private Medida cargarEnParalelo(Long idSocio, int saldoInicial, int cargos, Cargo cargo) throws Exception {
+    monedero.abonar(idSocio, new BigDecimal(saldoInicial), TipoMovimiento.RECARGA, "tok-" + idSocio);
+    ExecutorService pool = Executors.newFixedThreadPool(HILOS);
+    CountDownLatch salida = new CountDownLatch(1);
+    AtomicInteger aceptados = new AtomicInteger();
+    List<Future<?>> tareas = new ArrayList<>();
+    for (int i = 0; i < cargos; i++) {
+      tareas.add(pool.submit(() -> {
+        salida.await();
+        if (cargo.cargar(idSocio)) {
+          aceptados.incrementAndGet();
+        }
+        return null;
+      }));
+    }
+    long inicio = System.nanoTime();
+    salida.countDown();
+    for (Future<?> tarea : tareas) {
+      tarea.get(120, TimeUnit.SECONDS);
+    }
+    long nanos = System.nanoTime() - inicio;
+    pool.shutdown();
+    return new Medida(idSocio, aceptados.get(), cargos / (nanos / 1e9));
+  }
+
+  private BigDecimal sumaDelLibro(Long idSocio) {
+    return jdbc.queryForObject(
+        "select coalesce(sum(importe), 0) from movimiento_monedero where id_socio = ?", BigDecimal.class, idSocio);
+  }
+
+  @FunctionalInterface
+  private interface Cargo {
+    boolean cargar(Long idSocio);
+  }
+
+  private record Medida(Long idSocio, int aceptados, double opsPorSegundo) {
+    @Override
+    public String toString() {
+      return String.format("%d aceptados, %.0f ops/s", aceptados, opsPorSegundo);
+    }
+  }
+
+  private static void dormir(long ms) {
+    try {
+      Thread.sleep(ms);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
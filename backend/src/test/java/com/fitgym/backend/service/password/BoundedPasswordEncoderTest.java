@@ -0,0 +1,151 @@
+package com.fitgym.backend.service.password;
+
+import com.fitgym.backend.service.ServicioSaturadoException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests del pool acotado de hashing de contrasenas.
+ */
+class BoundedPasswordEncoderTest {
+
+  @Test
+  void encode_y_matches_delegan_y_registran_metricas() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(
+        new BCryptPasswordEncoder(4), pool(2, 10), registry)) {
+
+      String hash = encoder.encode("Password123");
+
+      assertTrue(encoder.matches("Password123", hash));
+      assertEquals(1, registry.get("fitgym.password.hash.time").tag("operacion", "encode").timer().count());
+      assertEquals(1, registry.get("fitgym.password.hash.queue").tag("operacion", "matches").timer().count());
+    }
+  }
+
+  @Test
+  void con_la_cola_llena_rechaza_con_servicio_saturado() throws Exception {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    CountDownLatch liberar = new CountDownLatch(1);
+    CountDownLatch ocupado = new CountDownLatch(1);
+    PasswordEncoder lento = new EncoderDePrueba(() -> {
+      ocupado.countDown();
+      liberar.await();
+    });
+
+    ExecutorService clientes = Executors.newFixedThreadPool(2);
+    try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(lento, pool(1, 1), registry)) {
+      // uno ocupa el unico hilo y otro la unica posicion de la cola
+      Future<String> enCurso = clientes.submit(() -> encoder.encode("a"));
+      ocupado.await(5, TimeUnit.SECONDS);
+      Future<String> enCola = clientes.submit(() -> encoder.encode("b"));
+      esperarCola(registry);
+
+      assertThrows(ServicioSaturadoException.class, () -> encoder.encode("c"));
+      assertEquals(1.0, registry.get("fitgym.password.hash.rejected").counter().count());
+
+      liberar.countDown();
+      assertEquals("hash-a", enCurso.get(5, TimeUnit.SECONDS));
+      assertEquals("hash-b", enCola.get(5, TimeUnit.SECONDS));
+    } finally {
+      clientes.shutdownNow();
+    }
+  }
+
+  /**
+   * Rafaga de logins: como mucho hay tantos hashes en paralelo como hilos del pool, asi que
+   * el resto de la CPU sigue libre para peticiones baratas.
+   */
+  @Test
+  void rafaga_de_logins_no_supera_los_hilos_del_pool() throws Exception {
+    int hilosPool = 2;
+    int logins = 100;
+    AtomicInteger enParalelo = new AtomicInteger();
+    AtomicInteger maximo = new AtomicInteger();
+    AtomicInteger hechos = new AtomicInteger();
+    PasswordEncoder medido = new EncoderDePrueba(() -> {
+      maximo.accumulateAndGet(enParalelo.incrementAndGet(), Math::max);
+      hechos.incrementAndGet();
+      Thread.sleep(5);
+      enParalelo.decrementAndGet();
+    });
+
+    ExecutorService clientes = Executors.newFixedThreadPool(logins);
+    try (BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(
+        medido, pool(hilosPool, logins), new SimpleMeterRegistry())) {
+      CountDownLatch salida = new CountDownLatch(1);
+      List<Future<Boolean>> tareas = new ArrayList<>();
+      for (int i = 0; i < logins; i++) {
+        tareas.add(clientes.submit(() -> {
+          salida.await();
+          return encoder.matches("x", "hash-x");
+        }));
+      }
+      salida.countDown();
+      for (Future<Boolean> tarea : tareas) {
+        assertTrue(tarea.get(30, TimeUnit.SECONDS));
+      }
+
+      // Ninguno rechazado ni perdido, y nunca mas hashes a la vez que hilos
+      assertEquals(logins, hechos.get());
+      assertTrue(maximo.get() <= hilosPool, "hashes en paralelo: " + maximo.get());
+    } finally {
+      clientes.shutdownNow();
+    }
+  }
+
+  private static PasswordHashingProperties pool(int hilos, int cola) {
+    return new PasswordHashingProperties(hilos, cola, PerfilesHash.BCRYPT, 100, 10, 10);
+  }
+
+  private static void esperarCola(SimpleMeterRegistry registry) throws InterruptedException {
+    long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (registry.get("fitgym.password.hash.queue.size").gauge().value() < 1 && System.nanoTime() < limite) {
+      Thread.sleep(5);
+    }
+  }
+
+  private interface Bloqueo {
+    void ejecutar() throws InterruptedException;
+  }
+
+  /**
+   * Encoder trivial ("hash-" + password) que ejecuta un bloqueo antes de devolver.
+   */
+  private record EncoderDePrueba(Bloqueo bloqueo) implements PasswordEncoder {
+    @Override
+    public String encode(CharSequence rawPassword) {
+      esperar();
+      return "hash-" + rawPassword;
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+      esperar();
+      return encodedPassword.equals("hash-" + rawPassword);
+    }
+
+    private void esperar() {
+      try {
+        bloqueo.ejecutar();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package com.fitgym.backend.service.password;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests de los perfiles de hashing: compatibilidad con hashes antiguos, deteccion de
+ * hashes a rehacer y calibracion del coste.
+ */
+class PerfilesHashTest {
+
+  @Test
+  void hash_antiguo_sin_prefijo_se_acepta_y_se_marca_para_rehacer() {
+    PasswordEncoder encoder = PerfilesHash.crear(props(PerfilesHash.BCRYPT, 4));
+    String antiguo = new BCryptPasswordEncoder(4).encode("admin1234");
+
+    assertTrue(encoder.matches("admin1234", antiguo));
+    assertTrue(encoder.upgradeEncoding(antiguo));
+  }
+
+  @Test
+  void hash_nuevo_lleva_perfil_y_coste_y_solo_se_rehace_si_sube_el_coste() {
+    String hash = PerfilesHash.crear(props(PerfilesHash.BCRYPT, 5)).encode("admin1234");
+
+    assertTrue(hash.startsWith("{bcrypt}$2a$05$"));
+    assertFalse(PerfilesHash.crear(props(PerfilesHash.BCRYPT, 5)).upgradeEncoding(hash));
+    assertTrue(PerfilesHash.crear(props(PerfilesHash.BCRYPT, 6)).upgradeEncoding(hash));
+    // Una calibracion mas baja no rebaja hashes ya mas fuertes
+    assertFalse(PerfilesHash.crear(props(PerfilesHash.BCRYPT, 4)).upgradeEncoding(hash));
+  }
+
+  @Test
+  void cambiar_a_pbkdf2_acepta_los_bcrypt_y_los_marca_para_rehacer() {
+    String bcrypt = PerfilesHash.crear(props(PerfilesHash.BCRYPT, 4)).encode("admin1234");
+    PasswordEncoder pbkdf2 = PerfilesHash.crear(props("pbkdf2", 4));
+
+    assertTrue(pbkdf2.matches("admin1234", bcrypt));
+    assertTrue(pbkdf2.upgradeEncoding(bcrypt));
+
+    String nuevo = pbkdf2.encode("admin1234");
+    assertTrue(nuevo.startsWith("{" + PerfilesHash.PBKDF2 + "}"));
+    assertTrue(pbkdf2.matches("admin1234", nuevo));
+    assertFalse(pbkdf2.upgradeEncoding(nuevo));
+  }
+
+  @Test
+  void calibracion_no_baja_del_coste_minimo() {
+    assertEquals(4, PerfilesHash.calibrarCosteBCrypt(0, 4));
+    assertTrue(PerfilesHash.calibrarCosteBCrypt(50, 4) >= 4);
+  }
+
+  private static PasswordHashingProperties props(String algoritmo, int coste) {
+    return new PasswordHashingProperties(1, 1, algoritmo, 100, 4, coste);
+  }
+}
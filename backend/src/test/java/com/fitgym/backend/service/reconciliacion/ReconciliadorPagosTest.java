@@ -0,0 +1,167 @@
+package com.fitgym.backend.service.reconciliacion;
+
+import com.fitgym.backend.domain.PagoMonedero;
+import com.fitgym.backend.domain.PagoRegistro;
+import com.fitgym.backend.domain.PagoRegistroEstado;
+import com.fitgym.backend.repo.PagoMonederoRepository;
+import com.fitgym.backend.repo.PagoRegistroRepository;
+import com.fitgym.backend.service.PagoDesconocidoEnTpvvException;
+import com.fitgym.backend.service.PagoMonederoService;
+import com.fitgym.backend.service.PagoRegistroService;
+import com.fitgym.backend.service.ServicioSaturadoException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests del reconciliador de pagos PENDING (repositorios y servicios simulados).
+ */
+class ReconciliadorPagosTest {
+
+  private static final Instant AHORA = Instant.parse("2026-03-10T12:00:00Z");
+
+  private PagoRegistroRepository registroRepo;
+  private PagoMonederoRepository monederoRepo;
+  private PagoRegistroService registroService;
+  private PagoMonederoService monederoService;
+  private SimpleMeterRegistry registry;
+
+  @BeforeEach
+  void setUp() {
+    registroRepo = Mockito.mock(PagoRegistroRepository.class);
+    monederoRepo = Mockito.mock(PagoMonederoRepository.class);
+    registroService = Mockito.mock(PagoRegistroService.class);
+    monederoService = Mockito.mock(PagoMonederoService.class);
+    registry = new SimpleMeterRegistry();
+    when(registroRepo.reclamarPendientes(any(), anyInt())).thenReturn(List.of());
+    when(monederoRepo.reclamarPendientes(any(), anyInt())).thenReturn(List.of());
+  }
+
+  @Test
+  void reclama_verifica_y_caduca_los_que_tpvv_no_conoce() {
+    when(registroRepo.reclamarPendientes(AHORA.minus(Duration.ofMinutes(2)), 50))
+        .thenReturn(List.of("ok", "ko", "pen", "404"));
+    PagoRegistro completado = registro(PagoRegistroEstado.COMPLETED, AHORA);
+    PagoRegistro fallido = registro(PagoRegistroEstado.FAILED, AHORA);
+    PagoRegistro pendiente = registro(PagoRegistroEstado.PENDING, AHORA.minusSeconds(600));
+    when(registroService.verificarPago("ok")).thenReturn(completado);
+    when(registroService.verificarPago("ko")).thenReturn(fallido);
+    when(registroService.verificarPago("pen")).thenReturn(pendiente);
+    when(registroService.verificarPago("404")).thenThrow(new PagoDesconocidoEnTpvvException("404"));
+    when(registroService.caducar(eq("404"), anyString())).thenReturn(true);
+    when(registroRepo.pendienteMasAntiguo()).thenReturn(AHORA.minusSeconds(600));
+
+    reconciliador(props(50, 4)).reconciliar();
+
+    verify(registroRepo).aplazar(List.of("ok", "ko", "pen", "404"), AHORA);
+    verify(registroService, never()).caducar(eq("pen"), anyString());
+    assertEquals(1.0, reconciliados("registro", "completado"));
+    assertEquals(1.0, reconciliados("registro", "fallido"));
+    assertEquals(1.0, reconciliados("registro", "pendiente"));
+    assertEquals(1.0, reconciliados("registro", "caducado"));
+    assertEquals(600.0, registry.get("fitgym.pagos.pendientes.lag").tag("tipo", "registro").gauge().value());
+  }
+
+  @Test
+  void caduca_las_recargas_que_siguen_pending_pasada_la_caducidad() {
+    when(monederoRepo.reclamarPendientes(any(), anyInt())).thenReturn(List.of("vieja"));
+    PagoMonedero vieja = recarga(PagoRegistroEstado.PENDING, AHORA.minus(Duration.ofHours(25)));
+    when(monederoService.verificarRecarga("vieja")).thenReturn(vieja);
+    when(monederoService.caducarRecarga(eq("vieja"), anyString())).thenReturn(true);
+
+    reconciliador(props(50, 4)).reconciliar();
+
+    verify(monederoService).caducarRecarga(eq("vieja"), anyString());
+    assertEquals(1.0, reconciliados("monedero", "caducado"));
+  }
+
+  @Test
+  void verifica_en_hilos_virtuales_sin_pasar_de_la_concurrencia() {
+    List<String> tokens = IntStream.range(0, 20).mapToObj(i -> "t" + i).toList();
+    when(registroRepo.reclamarPendientes(any(), anyInt())).thenReturn(tokens, List.of());
+    AtomicInteger enVuelo = new AtomicInteger();
+    AtomicInteger maximo = new AtomicInteger();
+    AtomicBoolean todosVirtuales = new AtomicBoolean(true);
+    PagoRegistro completado = registro(PagoRegistroEstado.COMPLETED, AHORA);
+    when(registroService.verificarPago(anyString())).thenAnswer(inv -> {
+      int ahora = enVuelo.incrementAndGet();
+      maximo.accumulateAndGet(ahora, Math::max);
+      todosVirtuales.compareAndSet(true, Thread.currentThread().isVirtual());
+      Thread.sleep(20);
+      enVuelo.decrementAndGet();
+      return completado;
+    });
+
+    reconciliador(props(20, 3)).reconciliar();
+
+    // Lote lleno: vuelve a reclamar hasta que no quedan pagos listos
+    verify(registroRepo, times(2)).reclamarPendientes(any(), eq(20));
+    verify(registroService, times(20)).verificarPago(anyString());
+    assertTrue(maximo.get() <= 3, "concurrencia maxima " + maximo.get());
+    assertTrue(todosVirtuales.get());
+    assertEquals(20.0, reconciliados("registro", "completado"));
+  }
+
+  @Test
+  void con_tpvv_no_disponible_aplaza_el_resto_hasta_el_siguiente_ciclo() {
+    List<String> tokens = IntStream.range(0, 10).mapToObj(i -> "t" + i).toList();
+    when(monederoRepo.reclamarPendientes(any(), anyInt())).thenReturn(tokens);
+    when(monederoService.verificarRecarga(anyString()))
+        .thenThrow(new ServicioSaturadoException("TPVV no esta disponible."));
+
+    reconciliador(props(10, 1)).reconciliar();
+
+    verify(monederoRepo, times(1)).reclamarPendientes(any(), anyInt());
+    verify(monederoService, times(1)).verificarRecarga(anyString());
+    assertEquals(10.0, reconciliados("monedero", "aplazado"));
+  }
+
+  private ReconciliadorPagos reconciliador(ReconciliacionProperties props) {
+    return new ReconciliadorPagos(props, registroRepo, monederoRepo, registroService, monederoService,
+        Mockito.mock(PlatformTransactionManager.class), registry, Clock.fixed(AHORA, ZoneOffset.UTC));
+  }
+
+  private static ReconciliacionProperties props(int lote, int concurrencia) {
+    return new ReconciliacionProperties(true, Duration.ofMinutes(2), lote, concurrencia, Duration.ofHours(24));
+  }
+
+  private double reconciliados(String tipo, String resultado) {
+    return registry.get("fitgym.pagos.reconciliados").tags("tipo", tipo, "resultado", resultado).counter().count();
+  }
+
+  private static PagoRegistro registro(PagoRegistroEstado estado, Instant createdAt) {
+    PagoRegistro pago = Mockito.mock(PagoRegistro.class);
+    when(pago.getEstado()).thenReturn(estado);
+    when(pago.getCreatedAt()).thenReturn(createdAt);
+    return pago;
+  }
+
+  private static PagoMonedero recarga(PagoRegistroEstado estado, Instant createdAt) {
+    PagoMonedero pago = Mockito.mock(PagoMonedero.class);
+    when(pago.getEstado()).thenReturn(estado);
+    when(pago.getCreatedAt()).thenReturn(createdAt);
+    return pago;
+  }
+}
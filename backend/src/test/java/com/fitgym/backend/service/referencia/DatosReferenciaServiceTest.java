@@ -0,0 +1,90 @@
+package com.fitgym.backend.service.referencia;
+
+import com.fitgym.backend.api.dto.MonitorAdminRequest;
+import com.fitgym.backend.domain.Sala;
+import com.fitgym.backend.repo.SalaRepository;
+import com.fitgym.backend.service.MonitorAdminService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba que los datos de referencia se sirven desde la cache (sin consultas a BD)
+ * y que el alta de un monitor invalida la cache de monitores.
+ */
+@SpringBootTest(properties = {
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class DatosReferenciaServiceTest {
+
+  @Autowired private DatosReferenciaService datosReferencia;
+  @Autowired private MonitorAdminService monitorAdminService;
+  @Autowired private SalaRepository salaRepo;
+  @Autowired private CacheManager cacheManager;
+  @Autowired private MeterRegistry meterRegistry;
+  @Autowired private EntityManagerFactory emf;
+
+  private Statistics stats;
+
+  @BeforeEach
+  void setUp() {
+    stats = emf.unwrap(SessionFactory.class).getStatistics();
+    cacheManager.getCacheNames().forEach(n -> cacheManager.getCache(n).clear());
+  }
+
+  @Test
+  void segunda_lectura_de_salas_no_consulta_la_bd() {
+    Sala sala = new Sala();
+    sala.setDescripcion("Sala cache");
+    sala.setAforo(15);
+    salaRepo.save(sala);
+
+    long primera = contarConsultas(() -> datosReferencia.salas());
+    long segunda = contarConsultas(() -> datosReferencia.salas());
+
+    assertEquals(1, primera);
+    assertEquals(0, segunda);
+    assertTrue(meterRegistry.get("cache.gets")
+        .tag("cache", DatosReferenciaService.SALAS)
+        .tag("result", "hit")
+        .functionCounter().count() >= 1);
+  }
+
+  @Test
+  void crear_monitor_invalida_la_cache_de_monitores() {
+    int antes = datosReferencia.monitores().size();
+
+    monitorAdminService.crear(monitor("cache-" + System.nanoTime()));
+
+    assertEquals(antes + 1, datosReferencia.monitores().size());
+  }
+
+  private long contarConsultas(Runnable accion) {
+    stats.clear();
+    accion.run();
+    return stats.getPrepareStatementCount();
+  }
+
+  private static MonitorAdminRequest monitor(String sufijo) {
+    MonitorAdminRequest req = new MonitorAdminRequest();
+    req.nombre = "Monitor " + sufijo;
+    req.dni = sufijo.substring(0, Math.min(sufijo.length(), 20));
+    req.correoElectronico = sufijo + "@fitgym.com";
+    req.contrasena = "secreto123";
+    req.telefono = "600000000";
+    req.ciudad = "Alicante";
+    req.direccion = "C/ Sol 1";
+    req.codigoPostal = "03001";
+    return req;
+  }
+}
@@ -0,0 +1,161 @@
+package com.fitgym.backend.service.tpvv;
+
+import com.fitgym.backend.service.tpvv.dto.TpvvPaymentVerifyResponse;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Prueba de carga orientativa (sin herramienta externa): usuarios simultaneos que verifican un pago
+ * contra un TPVV lento, atendidos por un pool de plataforma del tamano del de Tomcat (200) frente a un
+ * hilo virtual por peticion. Mide la latencia vista por el usuario (cola incluida), el pico de memoria
+ * y el pico de hilos de plataforma.
+ */
+class TpvvClientHilosVirtualesTest {
+
+  private static final int USUARIOS = 2_000;
+  private static final int HILOS_TOMCAT = 200;
+  private static final long LATENCIA_TPVV_MS = 500;
+  private static final byte[] COMPLETADO =
+      "{\"status\":\"COMPLETED\",\"failureReason\":null}".getBytes(StandardCharsets.UTF_8);
+
+  private HttpServer stub;
+
+  @BeforeEach
+  void arrancarStub() throws IOException {
+    stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 4096);
+    stub.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    stub.createContext("/api/v1/payments", exchange -> {
+      try (exchange) {
+        Thread.sleep(LATENCIA_TPVV_MS);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, COMPLETADO.length);
+        exchange.getResponseBody().write(COMPLETADO);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    stub.start();
+  }
+
+  @AfterEach
+  void pararStub() {
+    stub.stop(0);
+  }
+
+  @Test
+  void hilos_virtuales_frente_a_pool_de_plataforma_con_tpvv_lento() throws Exception {
+    // Calentamiento de ambos caminos para no medir el JIT
+    medir(false, 200);
+    medir(true, 200);
+
+    Resultado plataforma = medir(false, USUARIOS);
+    Resultado virtuales = medir(true, USUARIOS);
+
+    assertEquals(USUARIOS, plataforma.completadas());
+    assertEquals(USUARIOS, virtuales.completadas());
+    // Con 200 hilos las 2000 peticiones salen en ~10 tandas; con hilos virtuales, casi a la vez
+    assertTrue(virtuales.p99Ms() < plataforma.p99Ms(), "p99 virtuales " + virtuales + " vs " + plataforma);
+    assertTrue(virtuales.hilosPico() < plataforma.hilosPico(), "hilos " + virtuales + " vs " + plataforma);
+  }
+
+  private Resultado medir(boolean hilosVirtuales, int usuarios) throws Exception {
+    TpvvClient client = cliente(hilosVirtuales);
+    ThreadMXBean hilos = ManagementFactory.getThreadMXBean();
+    MemoryMXBean memoria = ManagementFactory.getMemoryMXBean();
+    System.gc();
+    long heapBase = memoria.getHeapMemoryUsage().getUsed();
+    hilos.resetPeakThreadCount();
+
+    AtomicLong heapPico = new AtomicLong(heapBase);
+    AtomicBoolean midiendo = new AtomicBoolean(true);
+    Thread muestreo = Thread.ofPlatform().daemon().start(() -> {
+      while (midiendo.get()) {
+        heapPico.accumulateAndGet(memoria.getHeapMemoryUsage().getUsed(), Math::max);
+        dormir(10);
+      }
+    });
+
+    long[] latencias = new long[usuarios];
+    int completadas = 0;
+    try (ExecutorService servidor = hilosVirtuales
+        ? Executors.newVirtualThreadPerTaskExecutor()
+        : Executors.newFixedThreadPool(HILOS_TOMCAT)) {
+      List<Future<TpvvPaymentVerifyResponse>> peticiones = new ArrayList<>(usuarios);
+      for (int i = 0; i < usuarios; i++) {
+        int n = i;
+        long llegada = System.nanoTime();
+        peticiones.add(servidor.submit(() -> {
+          TpvvPaymentVerifyResponse r = client.verifyPayment("tok-" + n);
+          latencias[n] = System.nanoTime() - llegada;
+          return r;
+        }));
+      }
+      for (Future<TpvvPaymentVerifyResponse> peticion : peticiones) {
+        if ("COMPLETED".equals(peticion.get(60, TimeUnit.SECONDS).status())) {
+          completadas++;
+        }
+      }
+    } finally {
+      midiendo.set(false);
+      muestreo.join();
+    }
+
+    Arrays.sort(latencias);
+    return new Resultado(
+        completadas,
+        TimeUnit.NANOSECONDS.toMillis(latencias[usuarios / 2]),
+        TimeUnit.NANOSECONDS.toMillis(latencias[(int) (usuarios * 0.99) - 1]),
+        (heapPico.get() - heapBase) / (1024 * 1024),
+        hilos.getPeakThreadCount());
+  }
+
+  private TpvvClient cliente(boolean hilosVirtuales) {
+    TpvvProperties props = new TpvvProperties(
+        "http://127.0.0.1:" + stub.getAddress().getPort(), "key", "http://localhost/registro", "http://localhost/perfil");
+    TpvvResilienciaProperties resiliencia = new TpvvResilienciaProperties(
+        USUARIOS * 2, Duration.ofSeconds(30), 0, Duration.ofMillis(5), Duration.ofMillis(20), 1_000,
+        Duration.ofSeconds(30), Duration.ofSeconds(5), Duration.ofSeconds(30));
+    RestClient restClient = TpvvConfig.crearRestClient(RestClient.builder(), props, resiliencia, hilosVirtuales);
+    return new TpvvClient(restClient, props, resiliencia, new SimpleMeterRegistry());
+  }
+
+  private static void dormir(long ms) {
+    try {
+      Thread.sleep(ms);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private record Resultado(int completadas, long p50Ms, long p99Ms, long heapPicoMb, int hilosPico) {
+    @Override
+    public String toString() {
+      return String.format("p50 %d ms, p99 %d ms, heap +%d MB, pico %d hilos de plataforma",
+          p50Ms, p99Ms, heapPicoMb, hilosPico);
+    }
+  }
+}
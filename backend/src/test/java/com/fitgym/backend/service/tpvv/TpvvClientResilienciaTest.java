@@ -0,0 +1,209 @@
+package com.fitgym.backend.service.tpvv;
+
+import com.fitgym.backend.service.ServicioSaturadoException;
+import com.fitgym.backend.service.TpvvCommunicationException;
+import com.fitgym.backend.service.tpvv.dto.TpvvPaymentInitRequest;
+import com.fitgym.backend.service.tpvv.dto.TpvvPaymentVerifyResponse;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests del cliente TPVV contra un stub HTTP embebido que inyecta latencia y errores.
+ */
+class TpvvClientResilienciaTest {
+
+  private static final String COMPLETADO = "{\"status\":\"COMPLETED\",\"failureReason\":null}";
+
+  private HttpServer stub;
+  private final AtomicInteger peticiones = new AtomicInteger();
+  private volatile IntFunction<Respuesta> comportamiento = n -> new Respuesta(200, COMPLETADO);
+  private SimpleMeterRegistry registry;
+
+  @BeforeEach
+  void arrancarStub() throws IOException {
+    stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    stub.setExecutor(Executors.newCachedThreadPool());
+    stub.createContext("/api/v1/payments", this::responder);
+    stub.start();
+    registry = new SimpleMeterRegistry();
+  }
+
+  @AfterEach
+  void pararStub() {
+    stub.stop(0);
+  }
+
+  @Test
+  void verify_reintenta_los_5xx_y_termina_bien() {
+    comportamiento = n -> n <= 2 ? new Respuesta(503, "") : new Respuesta(200, COMPLETADO);
+    TpvvClient client = cliente(resiliencia(4, 2, 5, Duration.ofSeconds(30), Duration.ofSeconds(2)));
+
+    TpvvPaymentVerifyResponse respuesta = client.verifyPayment("tok");
+
+    assertEquals("COMPLETED", respuesta.status());
+    assertEquals(3, peticiones.get());
+    assertEquals(2.0, registry.get("fitgym.tpvv.reintentos").tag("operacion", "verify").counter().count());
+    assertEquals(2, registry.get("fitgym.tpvv.llamada").tags("operacion", "verify", "resultado", "error").timer().count());
+    assertEquals(1, registry.get("fitgym.tpvv.llamada").tags("operacion", "verify", "resultado", "ok").timer().count());
+  }
+
+  @Test
+  void init_no_se_reintenta_para_no_crear_dos_pagos() {
+    comportamiento = n -> new Respuesta(503, "");
+    TpvvClient client = cliente(resiliencia(4, 2, 5, Duration.ofSeconds(30), Duration.ofSeconds(2)));
+
+    assertThrows(TpvvCommunicationException.class, () -> client.initPayment(pago()));
+    assertEquals(1, peticiones.get());
+  }
+
+  @Test
+  void un_timeout_corta_en_el_read_timeout_y_se_reintenta() {
+    comportamiento = n -> {
+      dormir(n == 1 ? 1_000 : 0);
+      return new Respuesta(200, COMPLETADO);
+    };
+    TpvvClient client = cliente(resiliencia(4, 1, 5, Duration.ofSeconds(30), Duration.ofMillis(150)));
+
+    long inicio = System.nanoTime();
+    TpvvPaymentVerifyResponse respuesta = client.verifyPayment("tok");
+
+    assertEquals("COMPLETED", respuesta.status());
+    assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio) < 900);
+  }
+
+  @Test
+  void con_el_circuito_abierto_falla_al_momento_y_una_sonda_lo_cierra() throws Exception {
+    comportamiento = n -> new Respuesta(500, "");
+    TpvvClient client = cliente(resiliencia(4, 0, 3, Duration.ofMillis(300), Duration.ofSeconds(2)));
+
+    for (int i = 0; i < 3; i++) {
+      assertThrows(TpvvCommunicationException.class, () -> client.verifyPayment("tok"));
+    }
+    ServicioSaturadoException abierto = assertThrows(ServicioSaturadoException.class, () -> client.verifyPayment("tok"));
+    assertEquals(3, peticiones.get());
+    // El Retry-After sale de lo que le queda abierto al circuito
+    assertTrue(!abierto.getReintentarEn().isZero() && abierto.getReintentarEn().compareTo(Duration.ofMillis(300)) <= 0,
+        "reintentar en " + abierto.getReintentarEn());
+    assertEquals(1.0, registry.get("fitgym.tpvv.circuito.abierto").gauge().value());
+
+    comportamiento = n -> new Respuesta(200, COMPLETADO);
+    Thread.sleep(350);
+
+    assertEquals("COMPLETED", client.verifyPayment("tok").status());
+    assertEquals("COMPLETED", client.verifyPayment("tok").status());
+    assertEquals(0.0, registry.get("fitgym.tpvv.circuito.abierto").gauge().value());
+  }
+
+  @Test
+  void los_4xx_no_abren_el_circuito() {
+    comportamiento = n -> new Respuesta(404, "");
+    TpvvClient client = cliente(resiliencia(4, 2, 2, Duration.ofSeconds(30), Duration.ofSeconds(2)));
+
+    for (int i = 0; i < 5; i++) {
+      assertThrows(TpvvCommunicationException.class, () -> client.verifyPayment("tok"));
+    }
+    assertEquals(5, peticiones.get());
+  }
+
+  @Test
+  void sin_hueco_en_el_bulkhead_rechaza_sin_llamar() throws Exception {
+    CountDownLatch soltar = new CountDownLatch(1);
+    CountDownLatch enVuelo = new CountDownLatch(2);
+    comportamiento = n -> {
+      enVuelo.countDown();
+      esperar(soltar);
+      return new Respuesta(200, COMPLETADO);
+    };
+    TpvvClient client = cliente(resiliencia(2, 0, 5, Duration.ofSeconds(30), Duration.ofSeconds(5)));
+
+    ExecutorService clientes = Executors.newFixedThreadPool(2);
+    try {
+      Future<TpvvPaymentVerifyResponse> a = clientes.submit(() -> client.verifyPayment("a"));
+      Future<TpvvPaymentVerifyResponse> b = clientes.submit(() -> client.verifyPayment("b"));
+      assertTrue(enVuelo.await(5, TimeUnit.SECONDS));
+
+      assertThrows(ServicioSaturadoException.class, () -> client.verifyPayment("c"));
+      assertEquals(2, peticiones.get());
+      assertEquals(2.0, registry.get("fitgym.tpvv.en_vuelo").gauge().value());
+
+      soltar.countDown();
+      assertEquals("COMPLETED", a.get(5, TimeUnit.SECONDS).status());
+      assertEquals("COMPLETED", b.get(5, TimeUnit.SECONDS).status());
+      assertEquals(1.0, registry.get("fitgym.tpvv.rechazadas").tags("operacion", "verify", "motivo", "concurrencia")
+          .counter().count());
+    } finally {
+      soltar.countDown();
+      clientes.shutdownNow();
+    }
+  }
+
+  private TpvvClient cliente(TpvvResilienciaProperties resiliencia) {
+    TpvvProperties props = new TpvvProperties(
+        "http://127.0.0.1:" + stub.getAddress().getPort(), "key", "http://localhost/registro", "http://localhost/perfil");
+    RestClient restClient = TpvvConfig.crearRestClient(RestClient.builder(), props, resiliencia, false);
+    return new TpvvClient(restClient, props, resiliencia, registry);
+  }
+
+  private static TpvvResilienciaProperties resiliencia(
+      int maxConcurrentes, int reintentos, int fallosParaAbrir, Duration tiempoAbierto, Duration readTimeout) {
+    return new TpvvResilienciaProperties(maxConcurrentes, Duration.ofMillis(50), reintentos,
+        Duration.ofMillis(5), Duration.ofMillis(20), fallosParaAbrir, tiempoAbierto, Duration.ofSeconds(1), readTimeout);
+  }
+
+  private static TpvvPaymentInitRequest pago() {
+    return new TpvvPaymentInitRequest(new BigDecimal("30.00"), "http://localhost/registro", "ref");
+  }
+
+  private void responder(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      exchange.getRequestBody().readAllBytes();
+      Respuesta respuesta = comportamiento.apply(peticiones.incrementAndGet());
+      byte[] cuerpo = respuesta.cuerpo().getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(respuesta.estado(), cuerpo.length == 0 ? -1 : cuerpo.length);
+      if (cuerpo.length > 0) {
+        exchange.getResponseBody().write(cuerpo);
+      }
+    }
+  }
+
+  private static void dormir(long ms) {
+    try {
+      Thread.sleep(ms);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void esperar(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private record Respuesta(int estado, String cuerpo) {}
+}
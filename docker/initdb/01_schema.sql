@@ -80,13 +80,13 @@ CREATE TABLE IF NOT EXISTS socio (
   id_tarifa          BIGINT NOT NULL,
   estado             socio_estado NOT NULL DEFAULT 'ACTIVO',
   pago_domiciliado   BOOLEAN NOT NULL DEFAULT FALSE,
-  saldo_monedero     NUMERIC(12,2) NOT NULL DEFAULT 0 CHECK (saldo_monedero >= 0),
 
   direccion          VARCHAR(200),
   ciudad             VARCHAR(80),
   codigo_postal      VARCHAR(10),
   clases_gratis      INTEGER NOT NULL DEFAULT 0 CHECK (clases_gratis >= 0),
   token_registro     VARCHAR(120),
+  version_sesion     INTEGER NOT NULL DEFAULT 0,
 
   CONSTRAINT uq_socio_email UNIQUE (correo_electronico),
   CONSTRAINT fk_socio_tarifa
@@ -97,6 +97,56 @@ CREATE TABLE IF NOT EXISTS socio (
 
 CREATE INDEX IF NOT EXISTS idx_socio_id_tarifa ON socio(id_tarifa);
 
+-- Directorio de socios (admin): subcadena del nombre con trigramas, prefijo del correo y filtros
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_socio_nombre_trgm ON socio USING gin (lower(nombre) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_socio_correo_lower ON socio (lower(correo_electronico) text_pattern_ops);
+CREATE INDEX IF NOT EXISTS idx_socio_ciudad_lower ON socio (lower(ciudad));
+CREATE INDEX IF NOT EXISTS idx_socio_estado_id ON socio (estado, id);
+
+-- =========================
+-- Monedero (libro de apuntes)
+-- =========================
+-- El saldo no es una columna que se actualiza: es la suma de los apuntes del socio.
+-- movimiento_monedero solo recibe INSERT (importe con signo: recargas y reembolsos suman, reservas restan).
+-- saldo_monedero guarda los abonos consolidados hasta un id de apunte menos todos los cargos, que se
+-- descuentan en el momento con un UPDATE condicional (saldo >= importe en la misma sentencia); el saldo
+-- actual es esa foto mas los abonos posteriores. La foto sola puede ser negativa mientras haya abonos
+-- sin consolidar que la cubren.
+-- Migracion desde la columna socio.saldo_monedero: un apunte AJUSTE por socio con su saldo, y despues
+-- ALTER TABLE socio DROP COLUMN saldo_monedero.
+
+CREATE TABLE IF NOT EXISTS movimiento_monedero (
+  id          BIGSERIAL PRIMARY KEY,
+  id_socio    BIGINT NOT NULL,
+  importe     NUMERIC(12,2) NOT NULL CHECK (importe <> 0),
+  tipo        VARCHAR(20) NOT NULL CHECK (tipo IN ('RECARGA', 'RESERVA', 'REEMBOLSO', 'AJUSTE')),
+  referencia  VARCHAR(120),
+  creado_en   TIMESTAMPTZ NOT NULL DEFAULT now(),
+
+  CONSTRAINT fk_movimiento_monedero_socio
+    FOREIGN KEY (id_socio) REFERENCES socio(id)
+    ON UPDATE CASCADE
+    ON DELETE CASCADE
+);
+
+-- Saldo de un socio: suma de sus abonos posteriores a la foto, servida desde el indice
+CREATE INDEX IF NOT EXISTS idx_movimiento_monedero_socio ON movimiento_monedero(id_socio, id) INCLUDE (importe);
+-- Consolidacion: apuntes por antiguedad
+CREATE INDEX IF NOT EXISTS idx_movimiento_monedero_creado ON movimiento_monedero(creado_en);
+
+CREATE TABLE IF NOT EXISTS saldo_monedero (
+  id_socio          BIGINT PRIMARY KEY,
+  saldo             NUMERIC(12,2) NOT NULL,
+  hasta_movimiento  BIGINT NOT NULL DEFAULT 0,
+  actualizado_en    TIMESTAMPTZ NOT NULL DEFAULT now(),
+
+  CONSTRAINT fk_saldo_monedero_socio
+    FOREIGN KEY (id_socio) REFERENCES socio(id)
+    ON UPDATE CASCADE
+    ON DELETE CASCADE
+);
+
 -- =========================
 -- Actividad
 -- =========================
@@ -138,6 +188,8 @@ CREATE INDEX IF NOT EXISTS idx_actividad_id_monitor ON actividad(id_monitor);
 CREATE INDEX IF NOT EXISTS idx_actividad_id_sala ON actividad(id_sala);
 CREATE INDEX IF NOT EXISTS idx_actividad_id_tipo ON actividad(id_tipo_actividad);
 CREATE INDEX IF NOT EXISTS idx_actividad_fecha ON actividad(fecha);
+-- Paginacion keyset del catalogo: orden (fecha, hora_ini, id) servido directamente desde el indice.
+CREATE INDEX IF NOT EXISTS idx_actividad_fecha_hora_id ON actividad(fecha, hora_ini, id);
 
 -- =========================
 -- Reserva (PK compuesta)
@@ -164,6 +216,8 @@ CREATE TABLE IF NOT EXISTS reserva (
 
 -- Para consultas por actividad (la PK indexa por id_socio primero, esto optimiza el acceso por id_actividad).
 CREATE INDEX IF NOT EXISTS idx_reserva_id_actividad ON reserva(id_actividad);
+-- Historial de reservas de un socio: orden (fecha_alta desc, id_actividad desc) servido desde el indice.
+CREATE INDEX IF NOT EXISTS idx_reserva_socio_fecha ON reserva(id_socio, fecha_alta DESC, id_actividad DESC);
 
 -- =========================
 -- Pago (1:1 con Reserva)
@@ -214,6 +268,8 @@ CREATE TABLE IF NOT EXISTS pago_registro (
 );
 
 CREATE INDEX IF NOT EXISTS idx_pago_registro_estado ON pago_registro(estado);
+-- Cola del reconciliador: solo los PENDING, por ultimo intento
+CREATE INDEX IF NOT EXISTS idx_pago_registro_pendiente ON pago_registro(updated_at) WHERE estado = 'PENDING';
 
 CREATE TABLE IF NOT EXISTS pago_monedero (
                                              id                BIGSERIAL PRIMARY KEY,
@@ -240,5 +296,37 @@ CREATE TABLE IF NOT EXISTS pago_monedero (
 
 CREATE INDEX IF NOT EXISTS idx_pago_monedero_id_socio ON pago_monedero(id_socio);
 CREATE INDEX IF NOT EXISTS idx_pago_monedero_estado ON pago_monedero(estado);
+CREATE INDEX IF NOT EXISTS idx_pago_monedero_pendiente ON pago_monedero(updated_at) WHERE estado = 'PENDING';
+
+-- Revocaciones de tokens de sesion (fitgym.auth.modo=token): por jti (logout)
+-- o por socio y version de sesion (cambio de contrasena, baja). Se purgan al caducar.
+CREATE TABLE IF NOT EXISTS sesion_revocada (
+  id              BIGSERIAL PRIMARY KEY,
+  jti             VARCHAR(40),
+  id_socio        BIGINT,
+  version_minima  INTEGER,
+  expira_en       TIMESTAMPTZ NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_sesion_revocada_expira ON sesion_revocada(expira_en);
+
+-- =========================
+-- Secuencias por bloques
+-- =========================
+-- Hibernate reserva los ids de 50 en 50 (optimizador pooled-lo: cada nextval es el primer id de un
+-- bloque) y asi puede agrupar los INSERT en lotes JDBC; con IDENTITY tendria que insertar fila a fila
+-- para leer cada id generado. Los INSERT en SQL (seed) siguen usando el DEFAULT nextval y solo
+-- consumen el primer id de su bloque, sin chocar con los de Hibernate.
+-- movimiento_monedero y sesion_revocada se quedan con incremento 1 (IDENTITY en la aplicacion).
+-- En una BD existente basta con ejecutar estos ALTER.
+ALTER SEQUENCE tarifa_id_seq INCREMENT BY 50;
+ALTER SEQUENCE monitor_id_seq INCREMENT BY 50;
+ALTER SEQUENCE sala_id_seq INCREMENT BY 50;
+ALTER SEQUENCE tipo_actividad_id_seq INCREMENT BY 50;
+ALTER SEQUENCE socio_id_seq INCREMENT BY 50;
+ALTER SEQUENCE actividad_id_seq INCREMENT BY 50;
+ALTER SEQUENCE pago_id_seq INCREMENT BY 50;
+ALTER SEQUENCE pago_registro_id_seq INCREMENT BY 50;
+ALTER SEQUENCE pago_monedero_id_seq INCREMENT BY 50;
 
 COMMIT;
@@ -60,12 +60,12 @@ ON CONFLICT DO NOTHING;
 -- En el backend deberíamos almacenar un hash real (BCrypt, Argon2, etc.).
 INSERT INTO socio (
   nombre, correo_electronico, contrasena, telefono,
-  id_tarifa, estado, pago_domiciliado, saldo_monedero,
+  id_tarifa, estado, pago_domiciliado,
   direccion, ciudad, codigo_postal, clases_gratis
 )
 SELECT
   v.nombre, v.correo, v.pass, v.tel,
-  t.id, v.estado::socio_estado, v.domiciliado, v.saldo,
+  t.id, v.estado::socio_estado, v.domiciliado,
   v.dir, v.ciudad, v.cp, t.clases_gratis_mes
 FROM (VALUES
   ('Juan Perez',  'juan.perez@example.com',  'HASH_PENDIENTE', '611111111', 'Básico',  'ACTIVO',   TRUE,  10.00, 'C/ Norte 2',  'Alicante', '03004'),
@@ -81,6 +81,24 @@ FROM (VALUES
 ) AS v(nombre, correo, pass, tel, tarifa_nombre, estado, domiciliado, saldo, dir, ciudad, cp)
 JOIN tarifa t ON t.nombre = v.tarifa_nombre
 ON CONFLICT (correo_electronico) DO NOTHING;
+
+-- Saldo inicial del monedero: un apunte AJUSTE por socio (el saldo es la suma del libro)
+INSERT INTO movimiento_monedero (id_socio, importe, tipo, referencia)
+SELECT s.id, v.saldo, 'AJUSTE', 'saldo-inicial'
+FROM (VALUES
+  ('juan.perez@example.com',    10.00),
+  ('ana.garcia@example.com',    25.00),
+  ('pedro.ruiz@example.com',    50.00),
+  ('lucia.moreno@example.com',   5.00),
+  ('carlos.vega@example.com',   12.00),
+  ('elena.ortiz@example.com',   18.00),
+  ('david.gil@example.com',     30.00),
+  ('sofia.ramos@example.com',    8.00)
+) AS v(correo, saldo)
+JOIN socio s ON s.correo_electronico = v.correo
+WHERE NOT EXISTS (
+  SELECT 1 FROM movimiento_monedero m WHERE m.id_socio = s.id AND m.referencia = 'saldo-inicial'
+);
 -- =========================
 -- Admin (para pruebas)
 -- =========================
@@ -89,7 +107,7 @@ ON CONFLICT (correo_electronico) DO NOTHING;
 -- (hash BCrypt generado en el proyecto)
 INSERT INTO socio (
   nombre, correo_electronico, contrasena, telefono,
-  id_tarifa, estado, pago_domiciliado, saldo_monedero,
+  id_tarifa, estado, pago_domiciliado,
   direccion, ciudad, codigo_postal, clases_gratis
 )
 SELECT
@@ -100,7 +118,6 @@ SELECT
   t.id,
   'ACTIVO'::socio_estado,
   FALSE,
-  0.00,
   '-',
   'Alicante',
   '00000',
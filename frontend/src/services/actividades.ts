@@ -1,10 +1,21 @@
-import type { Actividad, Reserva } from "@/types/actividad"
+import type { Actividad, ActividadCatalogo, CatalogoFiltros, Reserva } from "@/types/actividad"
 import { apiGet, apiPost } from "./http"
 
 export function listarActividades() {
     return apiGet<Actividad[]>("/api/actividades/servicios")
 }
 
+export function listarCatalogo(filtros: CatalogoFiltros = {}) {
+    const params = new URLSearchParams()
+    for (const [clave, valor] of Object.entries(filtros)) {
+        if (valor !== undefined && valor !== null && valor !== "") {
+            params.set(clave, String(valor))
+        }
+    }
+    const query = params.toString()
+    return apiGet<ActividadCatalogo>(`/api/actividades/catalogo${query ? `?${query}` : ""}`)
+}
+
 export function reservar(payload: Reserva) {
     return apiPost<boolean, Reserva>("/api/reservas", payload);
 }
\ No newline at end of file
@@ -1,8 +1,21 @@
 import { apiGet, apiPut, apiPatch } from "./http"
-import type { AdminSocio, AdminSocioUpdateRequest, AdminSocioEstadoRequest } from "@/types/adminSocio"
+import type {
+  AdminSocio,
+  AdminSocioFiltros,
+  AdminSocioPagina,
+  AdminSocioUpdateRequest,
+  AdminSocioEstadoRequest,
+} from "@/types/adminSocio"
 
-export function adminListarSocios() {
-  return apiGet<AdminSocio[]>("/api/admin/socios")
+export function adminListarSocios(filtros: AdminSocioFiltros = {}) {
+  const params = new URLSearchParams()
+  for (const [clave, valor] of Object.entries(filtros)) {
+    if (valor !== undefined && valor !== null && valor !== "") {
+      params.set(clave, String(valor))
+    }
+  }
+  const query = params.toString()
+  return apiGet<AdminSocioPagina>(`/api/admin/socios${query ? `?${query}` : ""}`)
 }
 
 export function adminGetSocio(id: number) {
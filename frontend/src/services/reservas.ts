@@ -8,12 +8,24 @@ export type ReservaItem = {
   horaFin: string
   estado: string
   precioPagado: number | string
+  fechaAlta: string
+}
+
+export type ReservaPagina = {
+  items: ReservaItem[]
+  nextCursor: string | null
 }
 
 export function getMisReservas(limit = 5) {
   return apiGet<ReservaItem[]>(`/api/reservas/me?limit=${limit}`)
 }
 
+export function getHistorialReservas(cursor?: string | null, size = 20) {
+  const params = new URLSearchParams({ size: String(size) })
+  if (cursor) params.set("cursor", cursor)
+  return apiGet<ReservaPagina>(`/api/reservas/me/historial?${params.toString()}`)
+}
+
 export function cancelarReserva(idActividad: number) {
   return apiPost<ReservaCancelResponse, Record<string, never>>(
     `/api/reservas/me/${idActividad}/cancel`,
@@ -17,4 +17,19 @@ export type Actividad = {
 export type Reserva = {
     idActividad: number
     idSocio: number
-}
\ No newline at end of file
+}
+
+export type ActividadCatalogo = {
+    items: Actividad[]
+    nextCursor: string | null
+}
+
+export type CatalogoFiltros = {
+    desde?: string
+    hasta?: string
+    idTipoActividad?: number
+    idSala?: number
+    idMonitor?: number
+    cursor?: string
+    size?: number
+}
@@ -7,13 +7,28 @@ export type AdminSocio = {
   idTarifa: number
   tarifaNombre: string
   pagoDomiciliado?: boolean | null
-  saldoMonedero: number
+  // Solo en detalle y edicion: el directorio paginado no lo trae
+  saldoMonedero?: number
   clasesGratis: number
   direccion?: string | null
   ciudad?: string | null
   codigoPostal?: string | null
 }
 
+export type AdminSocioPagina = {
+  items: AdminSocio[]
+  nextCursor: string | null
+}
+
+export type AdminSocioFiltros = {
+  q?: string
+  estado?: "ACTIVO" | "INACTIVO" | ""
+  idTarifa?: number | null
+  ciudad?: string
+  cursor?: string | null
+  size?: number
+}
+
 export type AdminSocioUpdateRequest = {
   nombre: string
   correoElectronico: string